@@ -16,6 +16,8 @@ import org.testcontainers.utility.MountableFile;
  * - Automatically starts and stops the container during the test execution.
  * - Allows mounting of a test script from classpath resources to the container.
  * - Configures the command to be executed within the container.
+ * - Runs {@code task-test.js} (REST) by default, or the script named by the first argument, e.g.
+ *   {@code task-grpc-test.js} to send the same load over gRPC streams.
  *
  * Usage of Thread.Sleep provides a waiting mechanism to allow the K6 test to complete.
  * Any exceptions encountered during execution will wrap into a RuntimeException.
@@ -23,7 +25,8 @@ import org.testcontainers.utility.MountableFile;
 public class K6Runner {
 
     public static void main(String[] args) {
-        MountableFile script = MountableFile.forClasspathResource("task-test.js");
+        String scriptName = args.length > 0 ? args[0] : "task-test.js";
+        MountableFile script = MountableFile.forClasspathResource(scriptName);
 
         try (GenericContainer<?> k6 = new GenericContainer<>("grafana/k6:latest")
                 .withCopyFileToContainer(script, "/test.js")
@@ -0,0 +1,141 @@
+package com.example.perftest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The StartupBenchmark class compares how fast the task service becomes able to serve requests when
+ * started as the plain fat jar and as the output of the {@code fast-startup} Maven profile (extracted
+ * jar, Spring AOT and an AppCDS archive).
+ *
+ * For every variant, the service is started {@code runs} times as a separate process. The benchmark
+ * measures the time from process start until {@code GET /actuator/health/liveness} first answers 200,
+ * and then reads the resident set size of the process from {@code /proc} (Linux only). The medians
+ * of both are printed per variant.
+ *
+ * Usage, from the repository root after {@code mvn -pl service -Pfast-startup package -DskipTests}:
+ * <pre>
+ * java -cp perf-test/target/classes com.example.perftest.StartupBenchmark [application arguments...]
+ * </pre>
+ *
+ * Application arguments are passed to every run, e.g. {@code --spring.flyway.enabled=false} when no
+ * database is running. Note that AOT fixes {@code @Conditional} beans at build time, so such toggles
+ * also have to be given to the AOT processing for the variants to be comparable.
+ *
+ * System properties:
+ * - {@code service.target}: The {@code service/target} directory (default {@code service/target}).
+ * - {@code runs}: Number of starts per variant (default 5).
+ * - {@code port}: HTTP port of the service (default 8080).
+ */
+public class StartupBenchmark {
+
+    private static final String JAR = "task-service-0.0.1-SNAPSHOT.jar";
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(120);
+
+    private record Variant(String name, Path workingDirectory, List<String> jvmArguments) {
+    }
+
+    private record Sample(long timeToFirstRequestMs, long rssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path target = Path.of(System.getProperty("service.target", "service/target")).toAbsolutePath();
+        int runs = Integer.getInteger("runs", 5);
+        int port = Integer.getInteger("port", 8080);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        List<Variant> variants = List.of(
+                new Variant("fat jar", target, List.of()),
+                new Variant("extracted + AOT + AppCDS", target.resolve("extracted"),
+                        List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true")));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        URI liveness = URI.create("http://localhost:" + port + "/actuator/health/liveness");
+
+        System.out.printf("%-28s %22s %12s%n", "variant", "time to first request", "RSS");
+        for (Variant variant : variants) {
+            if (!Files.exists(variant.workingDirectory().resolve(JAR))) {
+                System.out.printf("%-28s %22s%n", variant.name(), "missing " + variant.workingDirectory().resolve(JAR));
+                continue;
+            }
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(variant.jvmArguments());
+            command.add("-Dserver.port=" + port);
+            command.add("-jar");
+            command.add(JAR);
+            command.addAll(Arrays.asList(args));
+
+            List<Long> times = new ArrayList<>();
+            List<Long> rss = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                Sample sample = measure(command, variant.workingDirectory(), client, liveness);
+                times.add(sample.timeToFirstRequestMs());
+                rss.add(sample.rssKb());
+            }
+            System.out.printf("%-28s %19d ms %9d MB%n", variant.name(), median(times), median(rss) / 1024);
+        }
+    }
+
+    private static Sample measure(List<String> command, Path workingDirectory, HttpClient client, URI liveness)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(liveness).timeout(Duration.ofSeconds(1)).build();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + process.exitValue() + " before serving a request");
+                }
+                if (System.nanoTime() - started > START_TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Service did not serve a request within " + START_TIMEOUT);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException notListening) {
+                    // not accepting connections yet
+                }
+                Thread.sleep(5);
+            }
+            long timeToFirstRequestMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+            return new Sample(timeToFirstRequestMs, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0L;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(0L);
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,46 @@
+import grpc from 'k6/net/grpc';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+// Same load as task-test.js, sent over RecordTasks streams instead of one POST /tasks per sample
+export let options = {
+  vus: 100, //concurrent users per sec
+  duration: '60s', //run for 60s
+};
+
+const SAMPLES_PER_STREAM = 100;
+
+const samplesSent = new Counter('samples_sent');
+const samplesAccepted = new Counter('samples_accepted');
+const streamDuration = new Trend('stream_duration', true);
+
+const client = new grpc.Client();
+
+export default function () {
+  if (__ITER === 0) {
+    client.connect('host.docker.internal:9090', { plaintext: true, reflect: true });
+  }
+
+  const started = Date.now();
+  const stream = new grpc.Stream(client, 'coolplanet.task.v1.TaskIngest/RecordTasks');
+
+  stream.on('data', (ack) => {
+    if (ack.last) {
+      streamDuration.add(Date.now() - started);
+      samplesAccepted.add(Number(ack.accepted || 0));
+      check(ack, {
+        'all samples accepted': (a) => Number(a.accepted || 0) === SAMPLES_PER_STREAM,
+      });
+    }
+  });
+
+  stream.on('error', (error) => {
+    check(error, { 'stream succeeded': () => false });
+  });
+
+  for (let i = 0; i < SAMPLES_PER_STREAM; i++) {
+    stream.write({ taskId: `task-${__VU}-${__ITER}-${i}`, durationMs: 1000 });
+  }
+  samplesSent.add(SAMPLES_PER_STREAM);
+  stream.end();
+}
@@ -0,0 +1,181 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.application.service.TaskDeduplicator;
+import com.coolplanet.task.application.util.TaskAggregateMap;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.KafkaOffsetStore;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.coolplanet.task.infrastructure.jfr.KafkaConsumeEvent;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExactlyOnceKafkaConsumer consumes the task topic in batches and applies every batch exactly once,
+ * without Kafka transactions, by committing the consumed offsets to Postgres in the same transaction
+ * as the aggregates they produced.
+ *
+ * Responsibilities:
+ * - Runs the processing steps for every sample of a batch and folds the samples into one aggregate
+ *   per task with a {@link TaskAggregateMap}, so a batch costs one {@code upsertAggregate} per
+ *   distinct task instead of one upsert per record.
+ * - Applies samples carrying the {@code idempotency-key} header one by one through the
+ *   {@link TaskDeduplicator}, in the same transaction.
+ * - Stores the next offset of every partition of the batch in {@code kafka_offsets}, in the same
+ *   transaction, and positions the partitions from that table whenever they are assigned. A crash
+ *   before the commit replays the batch, a crash after it resumes behind the batch.
+ * - After the commit, records the writes for read-your-writes routing and in the {@link KnownTaskFilter},
+ *   and publishes the updated rows on the {@link TaskChangeBus}.
+ * - Skips records that are not valid task JSON, logging them; their offsets still advance.
+ *
+ * A batch whose transaction fails is thrown back to the listener container, which consumes it again
+ * until it succeeds. A batch that another consumer of the group already applied fails to save its
+ * offsets and is retried until the next poll revokes the partitions it came from. Offsets committed to Kafka by the container only serve lag monitoring.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Enables logging within the class.
+ * - {@code @KafkaListener}: Registers {@link #consume(List)} as a batch listener on the task topic.
+ *   Only created by {@code ExactlyOnceConsumerConfig}, which also disables the per-record
+ *   {@link KafkaConsumer}.
+ */
+@Slf4j
+public class ExactlyOnceKafkaConsumer implements ConsumerSeekAware {
+
+    private final TaskRepository repository;
+    private final TaskDeduplicator deduplicator;
+    private final KafkaOffsetStore offsetStore;
+    private final ProcessingStepFactory stepFactory;
+    private final RecentWriteTracker recentWrites;
+    private final TaskChangeBus changeBus;
+    private final KnownTaskFilter knownTasks;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+    private final String consumerGroup;
+
+    public ExactlyOnceKafkaConsumer(TaskRepository repository, TaskDeduplicator deduplicator, KafkaOffsetStore offsetStore,
+                                    ProcessingStepFactory stepFactory, RecentWriteTracker recentWrites,
+                                    TaskChangeBus changeBus, KnownTaskFilter knownTasks, TransactionalOperator transactionalOperator,
+                                    ObjectMapper objectMapper, String consumerGroup) {
+        this.repository = repository;
+        this.deduplicator = deduplicator;
+        this.offsetStore = offsetStore;
+        this.stepFactory = stepFactory;
+        this.recentWrites = recentWrites;
+        this.changeBus = changeBus;
+        this.knownTasks = knownTasks;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+        this.consumerGroup = consumerGroup;
+        log.info("ExactlyOnceKafkaConsumer initialized for consumer group {}", consumerGroup);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<TopicPartition, Long> stored = offsetStore.find(consumerGroup).block();
+        assignments.keySet().forEach(partition -> {
+            Long nextOffset = stored != null ? stored.get(partition) : null;
+            if (nextOffset != null) {
+                log.info("Seeking {} to stored offset {}", partition, nextOffset);
+                callback.seek(partition.topic(), partition.partition(), nextOffset);
+            }
+        });
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "exactlyOnceListenerContainerFactory",
+            batch = "true"
+    )
+    public void consume(List<ConsumerRecord<String, String>> records) {
+        // one event per batch, as the batch is applied in one transaction
+        KafkaConsumeEvent consumeEvent = TaskEvents.beginKafkaConsume("exactly-once", null);
+        boolean applied = false;
+        try {
+            apply(records);
+            applied = true;
+        } finally {
+            TaskEvents.end(consumeEvent, applied);
+        }
+    }
+
+    private void apply(List<ConsumerRecord<String, String>> records) {
+        TaskAggregateMap aggregates = new TaskAggregateMap(records.size());
+        List<KeyedSample> keyed = new ArrayList<>();
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+
+        for (ConsumerRecord<String, String> record : records) {
+            nextOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset() + 1, Math::max);
+            TaskDTO task = parse(record);
+            if (task == null) {
+                continue;
+            }
+            stepFactory.getSteps().forEach(step -> TaskEvents.step(step, task, task.taskId()));
+            String idempotencyKey = idempotencyKey(record);
+            if (idempotencyKey != null) {
+                keyed.add(new KeyedSample(idempotencyKey, task));
+            } else {
+                aggregates.add(task.taskId(), task.totalDurationMs(), 1L);
+            }
+        }
+
+        // statements of a transaction share one connection, so they are issued one after another
+        List<TaskEntity> updated = Flux.range(0, aggregates.size())
+                .concatMap(entry -> repository.upsertAggregate(aggregates.taskId(entry), aggregates.total(entry),
+                        aggregates.counter(entry)))
+                .concatWith(Flux.fromIterable(keyed)
+                        .concatMap(sample -> deduplicator.upsertOnce(sample.idempotencyKey(), sample.task().taskId(),
+                                sample.task().totalDurationMs())))
+                .concatWith(offsetStore.save(consumerGroup, nextOffsets).then(Mono.empty()))
+                .as(transactionalOperator::transactional)
+                .collectList()
+                .contextWrite(ConnectionRoute.WRITE::applyTo)
+                .block();
+
+        log.debug("Applied {} record(s) as {} task update(s), offsets {}", records.size(), updated.size(), nextOffsets);
+        updated.forEach(task -> {
+            recentWrites.recordWrite(task.getTaskId());
+            knownTasks.recordWrite(task.getTaskId());
+            changeBus.publish(task);
+        });
+    }
+
+    private TaskDTO parse(ConsumerRecord<String, String> record) {
+        try {
+            return objectMapper.readValue(record.value(), TaskDTO.class);
+        } catch (JsonProcessingException jsonProcessingException) {
+            log.error("Skipping invalid task record at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                    record.value(), jsonProcessingException);
+            return null;
+        }
+    }
+
+    private static String idempotencyKey(ConsumerRecord<String, String> record) {
+        Header header = record.headers().lastHeader(KafkaProducer.IDEMPOTENCY_KEY_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private record KeyedSample(String idempotencyKey, TaskDTO task) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.infrastructure.jfr.ContinuousRecording;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Actuator endpoint controlling an on-demand Flight Recorder recording at {@code /actuator/jfr}, to
+ * profile a live instance without restarting it.
+ *
+ * Operations:
+ * - {@code GET}: Returns the state of the recording.
+ * - {@code POST}: Starts a recording bounded by {@code app.jfr.*}, unless one is running.
+ * - {@code GET /actuator/jfr/dump}: Downloads the events recorded so far as a {@code .jfr} file, for
+ *   JDK Mission Control or {@code jfr print}. The recording goes on. Answers 404 without a recording.
+ * - {@code DELETE}: Stops and deletes the recording.
+ *
+ * Annotations:
+ * - {@code @Component}: Marks this class as a Spring-managed component.
+ * - {@code @WebEndpoint}: Registers the class as the {@code jfr} actuator endpoint over HTTP only, as
+ *   the dump is a file download; it must be listed in {@code management.endpoints.web.exposure.include}
+ *   to be reachable. It is not by default: a dump describes the instance in detail, so the endpoint is
+ *   meant for a separate {@code management.server.port} that is not published with the API.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    private static final String DUMP = "dump";
+
+    private final ContinuousRecording recording;
+
+    public FlightRecorderEndpoint(ContinuousRecording recording) {
+        this.recording = recording;
+    }
+
+    @ReadOperation
+    public ContinuousRecording.Status status() {
+        return recording.status();
+    }
+
+    @WriteOperation
+    public ContinuousRecording.Status start() throws IOException, ParseException {
+        return recording.start();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector String operation) throws IOException {
+        Path dump = DUMP.equals(operation) ? recording.dump() : null;
+        if (dump == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(dump), WebEndpointResponse.STATUS_OK);
+    }
+
+    @DeleteOperation
+    public ContinuousRecording.Status stop() throws IOException {
+        recording.close();
+        return recording.status();
+    }
+}
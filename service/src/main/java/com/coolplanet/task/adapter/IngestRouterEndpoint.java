@@ -0,0 +1,63 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.IngestRouter;
+import com.coolplanet.task.domain.model.IngestMode;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the adaptive ingest router at {@code /actuator/ingestrouter}.
+ *
+ * Operations:
+ * - {@code GET}: Returns the configured ingest mode, the current mode, the override if any, the signals
+ *   of the last evaluation and the decision counts.
+ * - {@code POST} with {@code {"mode": "sync"}} or {@code {"mode": "async"}}: Forces the mode at runtime,
+ *   without a restart, until the override is removed. Answers 400 unless the configured ingest mode is
+ *   {@code adaptive}, as no other mode consults the router.
+ * - {@code DELETE}: Removes the override and hands control back to the router.
+ *
+ * Annotations:
+ * - {@code @Component}: Marks this class as a Spring-managed component.
+ * - {@code @Endpoint}: Registers the class as the {@code ingestrouter} actuator endpoint; it must be
+ *   listed in {@code management.endpoints.web.exposure.include} to be reachable over HTTP.
+ */
+@Component
+@Endpoint(id = "ingestrouter")
+public class IngestRouterEndpoint {
+
+    private final IngestRouter ingestRouter;
+
+    public IngestRouterEndpoint(IngestRouter ingestRouter) {
+        this.ingestRouter = ingestRouter;
+    }
+
+    @ReadOperation
+    public IngestRouter.Status status() {
+        return ingestRouter.status();
+    }
+
+    @WriteOperation
+    public IngestRouter.Status override(String mode) {
+        IngestMode forced = switch (mode.toLowerCase()) {
+            case "sync" -> IngestMode.SYNC;
+            case "async" -> IngestMode.ASYNC;
+            default -> throw new InvalidEndpointRequestException("Unsupported mode " + mode, "Mode must be sync or async");
+        };
+        if (ingestRouter.configuredMode() != IngestMode.ADAPTIVE) {
+            throw new InvalidEndpointRequestException("Ingest mode is " + ingestRouter.configuredMode(),
+                    "The mode can only be forced when features.task.ingest-mode is adaptive");
+        }
+        ingestRouter.override(forced);
+        return ingestRouter.status();
+    }
+
+    @DeleteOperation
+    public IngestRouter.Status clearOverride() {
+        ingestRouter.override(null);
+        return ingestRouter.status();
+    }
+}
@@ -4,10 +4,14 @@ import com.coolplanet.task.application.service.TaskProcessorService;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
 import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.infrastructure.jfr.KafkaConsumeEvent;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,6 +23,8 @@ import org.springframework.stereotype.Component;
  * Responsibilities:
  * - Listens to the "task-events" Kafka topic as part of the "task-consumer-group".
  * - Converts incoming messages into {@code TaskDTO} objects.
+ * - Passes the optional {@code idempotency-key} record header on, so that redelivered or retried
+ *   samples are applied once.
  * - Constructs a {@code TaskContext} with the received {@code TaskDTO}, specifying
  *   the workflow type as {@code PROCESS_TASK}, and delegates it to {@code TaskProcessorService}
  *   for processing.
@@ -38,6 +44,10 @@ import org.springframework.stereotype.Component;
  * - {@code @Slf4j}: Enables logging within the class.
  * - {@code @Component}: Marks this class as a Spring managed component eligible
  *   for dependency injection.
+ * - {@code @ConditionalOnProperty}: Replaced by the {@code ExactlyOnceKafkaConsumer} when
+ *   {@code app.kafka.exactly-once.enabled} is {@code true}, and by the {@code KeyOrderedKafkaConsumer}
+ *   when {@code app.kafka.key-ordered.enabled} is {@code true}. This consumer processes every record
+ *   independently with auto-committed offsets, so a crash may count a sample twice or not at all.
  * - {@code @KafkaListener}: Registers the {@code listen} method as a Kafka message
  *   listener for the specified topic and consumer group.
  *
@@ -48,6 +58,8 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "app.kafka", name = {"exactly-once.enabled", "key-ordered.enabled"}, havingValue = "false",
+        matchIfMissing = true)
 public class KafkaConsumer {
 
     private final TaskProcessorService taskProcessorService;
@@ -64,17 +76,22 @@ public class KafkaConsumer {
             groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consume(String taskJson) throws JsonProcessingException {
+    public void consume(String taskJson,
+                        @Header(name = KafkaProducer.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey)
+            throws JsonProcessingException {
             log.info("Raw JSON received from Kafka: {}", taskJson);
 
             TaskDTO task = objectMapper.readValue(taskJson, TaskDTO.class);
+            KafkaConsumeEvent consumeEvent = TaskEvents.beginKafkaConsume("per-record", task.taskId());
 
             TaskContext taskContext = TaskContext.builder()
                     .workflowType(WorkflowType.PROCESS_TASK)
                     .request(task)
+                    .idempotencyKey(idempotencyKey)
                     .build();
 
             taskProcessorService.process(taskContext)
+                    .doFinally(signal -> TaskEvents.end(consumeEvent, signal))
                     .subscribe();
     }
 }
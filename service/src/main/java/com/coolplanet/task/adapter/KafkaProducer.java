@@ -2,14 +2,19 @@ package com.coolplanet.task.adapter;
 
 import com.coolplanet.task.domain.exception.ProcessingException;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.jfr.KafkaSendEvent;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * KafkaProducer is a Spring component responsible for producing and sending
  * messages to a Kafka topic.
@@ -29,6 +34,13 @@ import reactor.core.publisher.Mono;
  *   Asynchronously sends a {@code TaskDTO} to the "task-events" Kafka topic, using the task's unique
  *   identifier as the key. Logs the task being sent and returns a confirmation string upon
  *   completion of the send operation.
+ * - {@code sendTask(TaskDTO task, String idempotencyKey)}:
+ *   Sends the task the same way, carrying the idempotency key, if any, in the {@code idempotency-key}
+ *   record header so that the consumer applies retried samples once.
+ * - {@code sendTaskAcked(TaskDTO task)}:
+ *   Sends the task the same way but only completes once the broker has acknowledged the record
+ *   (honouring the configured {@code acks}). Used by callers that must not lose the record, such
+ *   as the write-ahead log shipper.
  *
  * Annotations:
  * - {@code @Slf4j}: Enables enhanced logging functionality within the class.
@@ -43,6 +55,8 @@ import reactor.core.publisher.Mono;
 @Component
 public class KafkaProducer {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "idempotency-key";
+
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
 
@@ -56,15 +70,38 @@ public class KafkaProducer {
     }
 
     public Mono<String> sendTask(TaskDTO task) {
+        return sendTask(task, null);
+    }
+
+    public Mono<String> sendTask(TaskDTO task, String idempotencyKey) {
         log.info("Sending task to Kafka: {}", task);
         return Mono.fromRunnable(() -> {
+                    KafkaSendEvent sendEvent = TaskEvents.beginKafkaSend(topic, task.taskId());
+                    boolean sent = false;
                     try {
                         String taskJson = objectMapper.writeValueAsString(task);
-                        kafkaTemplate.send(topic, task.taskId(), taskJson);
+                        if (idempotencyKey == null) {
+                            TaskEvents.kafkaAck(kafkaTemplate.send(topic, task.taskId(), taskJson), topic, task.taskId());
+                        } else {
+                            ProducerRecord<String, String> record = new ProducerRecord<>(topic, task.taskId(), taskJson);
+                            record.headers().add(IDEMPOTENCY_KEY_HEADER, idempotencyKey.getBytes(StandardCharsets.UTF_8));
+                            TaskEvents.kafkaAck(kafkaTemplate.send(record), topic, task.taskId());
+                        }
+                        sent = true;
                     } catch (JsonProcessingException jsonProcessingException) {
                         throw new ProcessingException(jsonProcessingException.getMessage());
+                    } finally {
+                        TaskEvents.end(sendEvent, sent);
                     }
                 })
                 .thenReturn("Task sent to Kafka");
     }
+
+    public Mono<String> sendTaskAcked(TaskDTO task) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(task))
+                .onErrorMap(JsonProcessingException.class, exception -> new ProcessingException(exception.getMessage()))
+                .flatMap(taskJson -> Mono.fromFuture(() -> TaskEvents.kafkaAck(kafkaTemplate.send(topic, task.taskId(), taskJson),
+                        topic, task.taskId())))
+                .thenReturn("Task acknowledged by Kafka");
+    }
 }
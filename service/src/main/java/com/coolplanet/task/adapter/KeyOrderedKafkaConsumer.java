@@ -0,0 +1,156 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.service.TaskProcessorService;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.infrastructure.jfr.KafkaConsumeEvent;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Header;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * KeyOrderedKafkaConsumer lifts consumption parallelism above the partition count by fanning the
+ * records of every partition out to a fixed number of lanes.
+ *
+ * Responsibilities:
+ * - Assigns every record to a lane by the hash of its task ID. A lane processes its records one
+ *   after another through the {@link TaskProcessorService}, so the samples of one task are applied
+ *   in offset order, while different lanes run concurrently. Upserts are non-blocking, so lanes do
+ *   not occupy threads while they wait for Postgres.
+ * - Acknowledges every record once it is processed. Acknowledgements arrive out of order; the
+ *   listener container commits only the contiguous prefix of acknowledged offsets of a partition,
+ *   so a crash never skips an unprocessed record (it may process some records again).
+ * - Exports the number of records dispatched but not yet processed as
+ *   {@code tasks.consumer.in.flight}.
+ * - Logs and acknowledges records that are not valid task JSON, and records whose processing
+ *   failed, like the per-record {@link KafkaConsumer}.
+ * - Throws a record that could not be handed to its lane, because the lane stayed contended for
+ *   five seconds or was closed, back to the listener container without acknowledging it, so
+ *   it is consumed again.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Enables logging within the class.
+ * - {@code @KafkaListener}: Registers {@link #consume} as a record listener on the task topic. Only
+ *   created by {@code KeyOrderedConsumerConfig}, which also disables the per-record {@link KafkaConsumer}.
+ */
+@Slf4j
+public class KeyOrderedKafkaConsumer implements AutoCloseable {
+
+    private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final TaskProcessorService taskProcessorService;
+    private final ObjectMapper objectMapper;
+    private final List<Sinks.Many<Work>> lanes;
+    private final Disposable.Composite workers = Disposables.composite();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public KeyOrderedKafkaConsumer(TaskProcessorService taskProcessorService, ObjectMapper objectMapper, int laneCount,
+                                   MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("At least one lane is required, got " + laneCount);
+        }
+        this.taskProcessorService = taskProcessorService;
+        this.objectMapper = objectMapper;
+        this.lanes = IntStream.range(0, laneCount)
+                .mapToObj(lane -> {
+                    Sinks.Many<Work> sink = Sinks.many().unicast().<Work>onBackpressureBuffer();
+                    workers.add(sink.asFlux().concatMap(this::process).subscribe());
+                    return sink;
+                })
+                .toList();
+        Gauge.builder("tasks.consumer.in.flight", inFlight, AtomicInteger::get)
+                .description("Kafka records dispatched to a lane but not yet processed")
+                .register(meterRegistry);
+        log.info("KeyOrderedKafkaConsumer initialized with {} lanes", laneCount);
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "keyOrderedListenerContainerFactory"
+    )
+    public void consume(String taskJson,
+                        @Header(name = KafkaProducer.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                        Acknowledgment acknowledgment) {
+        TaskDTO task;
+        try {
+            task = objectMapper.readValue(taskJson, TaskDTO.class);
+        } catch (JsonProcessingException jsonProcessingException) {
+            log.error("Skipping invalid task record: {}", taskJson, jsonProcessingException);
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        TaskContext taskContext = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(task)
+                .idempotencyKey(idempotencyKey)
+                .build();
+
+        KafkaConsumeEvent consumeEvent = TaskEvents.beginKafkaConsume("key-ordered", task.taskId());
+        inFlight.incrementAndGet();
+        Sinks.EmitResult result = emit(lanes.get(lane(task.taskId())), new Work(taskContext, acknowledgment, consumeEvent));
+        if (result.isFailure()) {
+            // never reached a lane, so it is not acknowledged: the container's error handler seeks back to it
+            inFlight.decrementAndGet();
+            TaskEvents.end(consumeEvent, false);
+            throw new Sinks.EmissionException(result, "Failed to hand task " + task.taskId() + " to its lane");
+        }
+    }
+
+    @Override
+    public void close() {
+        lanes.forEach(Sinks.Many::tryEmitComplete);
+        workers.dispose();
+    }
+
+    int lane(String taskId) {
+        return Math.floorMod(taskId.hashCode(), lanes.size());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    // several listener threads may feed the same lane, busy looping serializes their emissions
+    private static Sinks.EmitResult emit(Sinks.Many<Work> lane, Work work) {
+        long deadline = System.nanoTime() + EMIT_TIMEOUT.toNanos();
+        Sinks.EmitResult result;
+        while ((result = lane.tryEmitNext(work)) == Sinks.EmitResult.FAIL_NON_SERIALIZED && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    private Mono<Void> process(Work work) {
+        return taskProcessorService.process(work.taskContext())
+                // already logged by the service; the record is acknowledged like in the per-record consumer
+                .onErrorResume(error -> Mono.empty())
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    work.acknowledgment().acknowledge();
+                    TaskEvents.end(work.consumeEvent(), signal);
+                })
+                .then();
+    }
+
+    // the consume event covers the wait in the lane as well as the processing
+    private record Work(TaskContext taskContext, Acknowledgment acknowledgment, KafkaConsumeEvent consumeEvent) {
+    }
+}
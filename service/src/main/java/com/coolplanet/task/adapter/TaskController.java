@@ -3,9 +3,19 @@ package com.coolplanet.task.adapter;
 
 import com.coolplanet.task.application.Handler;
 import com.coolplanet.task.application.ProcessorHandler;
+import com.coolplanet.task.application.service.TaskAverageStreamService;
+import com.coolplanet.task.application.service.TaskExportService;
+import com.coolplanet.task.domain.model.ImportFormat;
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskAveragesRequest;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskImportRequest;
+import com.coolplanet.task.domain.model.TaskImportResult;
+import com.coolplanet.task.domain.model.TaskPage;
+import com.coolplanet.task.domain.model.TaskPageRequest;
 import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.TaskSummary;
 import com.coolplanet.task.domain.model.WorkflowType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -18,12 +28,21 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * TaskController is a Spring REST controller responsible for handling task-related operations.
  * It exposes endpoints for recording task processing information and calculating task-specific metrics,
@@ -35,7 +54,9 @@ import reactor.core.publisher.Mono;
  * - {@code @RequestMapping("/tasks")}: Maps the base path for all endpoints to "/tasks".
  *
  * Constructor:
- * - TaskController(ProcessorHandler handler): Initializes the TaskController with a provided {@code ProcessorHandler}.
+ * - TaskController(ProcessorHandler handler, TaskAverageStreamService averageStreamService,
+ *   TaskExportService exportService): Initializes the TaskController with a provided {@code ProcessorHandler}
+ *   and the services backing live average streams and exports, which return unbounded streams.
  *
  * Endpoints:
  * - {@code recordTask(String id, Long duration)}:
@@ -44,6 +65,9 @@ import reactor.core.publisher.Mono;
  *   - Request Parameters:
  *     - {@code id} (String): The unique task identifier, must be non-empty and valid.
  *     - {@code duration} (Long): The task duration in milliseconds, must be positive.
+ *   - Request Headers:
+ *     - {@code Idempotency-Key} (optional): Identifies the sample, so that a retried request is only
+ *       counted once. A duplicate is answered with the status {@code DUPLICATE}.
  *   - Returns: A reactive {@code Mono} of {@code ResponseEntity<String>} containing the processing status.
  *   - Logs information about the task being processed.
  *   - Creates a {@code TaskContext} for the task processing workflow and delegates handling to the {@code handler}.
@@ -57,6 +81,40 @@ import reactor.core.publisher.Mono;
  *   - Logs information about the task for which the average is being calculated.
  *   - Creates a {@code TaskContext} for the average duration calculation workflow and delegates handling to the {@code handler}.
  *
+ * - {@code listTasks(String after, Integer limit)}:
+ *   Handles HTTP GET requests listing task aggregates with keyset pagination on the task ID.
+ *   - Path: {@code /tasks}
+ *   - Request Parameters: {@code after}, the {@code nextCursor} of the previous page, and {@code limit}.
+ *   - Returns: A reactive {@code Mono} of {@code ResponseEntity<TaskPage>}.
+ *
+ * - {@code exportTasks(String after)}:
+ *   Handles HTTP GET requests exporting every task aggregate as NDJSON, or as a Smile stream when
+ *   {@code application/stream+x-jackson-smile} is accepted.
+ *   - Path: {@code /tasks/export}
+ *   - Returns: A reactive {@code Flux} of {@code TaskSummary} streamed from a server-side cursor at the pace
+ *     of the client; {@code after} resumes an interrupted export.
+ *
+ * - {@code taskAverageStream(String id)}:
+ *   Handles HTTP GET requests streaming the average duration of a task as Server-Sent Events.
+ *   - Path: {@code /tasks/{id}/average/stream}
+ *   - Returns: A reactive {@code Flux} of {@code average} events carrying a {@code TaskDTO}: the current
+ *     average first, then every change. Slow clients receive the latest average, not a backlog.
+ *
+ * - {@code taskAverages(TaskAveragesRequest request)}:
+ *   Handles HTTP POST requests looking up the average durations of many tasks at once.
+ *   - Path: {@code /tasks/averages}
+ *   - Request Body: A {@code TaskAveragesRequest} listing the task IDs.
+ *   - Returns: A reactive {@code Flux} of {@code TaskAverageEntry} in request order, rendered as a JSON
+ *     array or, when {@code application/x-ndjson} is accepted, as one JSON object per line. CBOR and Smile
+ *     clients receive an array in their format.
+ *
+ * - {@code importTasks(Flux<DataBuffer> body, MediaType contentType)}:
+ *   Handles HTTP POST requests bulk importing historical task durations.
+ *   - Path: {@code /tasks/import}
+ *   - Request Body: CSV ({@code text/csv}) or NDJSON ({@code application/x-ndjson}) lines, decoded while
+ *     the upload streams in so that the body is never buffered as a whole.
+ *   - Returns: A reactive {@code Mono} of {@code ResponseEntity<TaskImportResult>} summarizing the import.
+ *
  * Private Utility Method:
  * - {@code taskContext(String id, Long duration, WorkflowType workflowType)}:
  *   Constructs a {@code TaskContext} object with the specified parameters:
@@ -74,6 +132,12 @@ import reactor.core.publisher.Mono;
  * - Relies on validation annotations {@code @Valid}, {@code @NotEmpty}, {@code @Positive}, and {@code @NotNull}
  *   to ensure that endpoint inputs are valid.
  *
+ * Content Negotiation:
+ * - Besides JSON, request and response bodies can be CBOR ({@code application/cbor}) or Smile
+ *   ({@code application/x-jackson-smile}), chosen by the {@code Content-Type} and {@code Accept} headers.
+ *   The codecs are registered by {@code BinaryCodecsConfig}; endpoints offering CBOR list it in
+ *   {@code produces}, as the CBOR encoder is never chosen implicitly.
+ *
  * Reactive Behavior:
  * - Uses Project Reactor's {@code Mono} to handle asynchronous and non-blocking operations efficiently.
  */
@@ -83,10 +147,21 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Task Operations", description = "APIs for managing and analyzing tasks")
 class TaskController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    private static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes(List.of("\n"), true);
+
     private final Handler handler;
+    private final TaskAverageStreamService averageStreamService;
+    private final TaskExportService exportService;
 
-    TaskController(ProcessorHandler handler) {
+    TaskController(ProcessorHandler handler, TaskAverageStreamService averageStreamService,
+                   TaskExportService exportService) {
         this.handler = handler;
+        this.averageStreamService = averageStreamService;
+        this.exportService = exportService;
     }
 
     @Operation(
@@ -113,7 +188,7 @@ class TaskController {
             )
     })
     @ResponseStatus(HttpStatus.CREATED)
-    @PostMapping
+    @PostMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public Mono<ResponseEntity<TaskResponse>> recordTask(
             @Parameter(
                     description = "Unique identifier for the task",
@@ -127,11 +202,18 @@ class TaskController {
                     required = true,
                     example = "1000"
             )
-            @Valid @Positive @RequestParam Long duration) {
+            @Valid @Positive @RequestParam Long duration,
+
+            @Parameter(
+                    description = "Optional key identifying the sample; retries with the same key are applied once",
+                    example = "3f0c2a4e-sample-1"
+            )
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         log.info("Processing task: {}", taskId);
 
         TaskContext taskContext = taskContext(taskId, duration, WorkflowType.PROCESS_TASK);
+        taskContext.idempotencyKey = idempotencyKey;
         return handler.handle(taskContext)
                 .map(obj -> ResponseEntity.status(HttpStatus.CREATED).body((TaskResponse) obj));
     }
@@ -167,7 +249,8 @@ class TaskController {
                     )
             )
     })
-    @GetMapping("/{taskId}/average")
+    @GetMapping(path = "/{taskId}/average",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public Mono<ResponseEntity<TaskDTO>> taskAverage(
             @Parameter(
                     description = "ID of the task to calculate average for",
@@ -183,6 +266,213 @@ class TaskController {
                 .map(taskDto -> ResponseEntity.ok().body((TaskDTO) taskDto));
     }
 
+    @Operation(
+            summary = "List tasks",
+            description = "Lists task aggregates in task ID order with keyset pagination. Pass the nextCursor " +
+                    "of a page as 'after' to fetch the next one; the last page has no nextCursor."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of tasks",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = TaskPage.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Limit out of range",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Error.class)
+                    )
+            )
+    })
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<TaskPage>> listTasks(
+            @Parameter(
+                    description = "Cursor returned as nextCursor by the previous page",
+                    example = "task-123"
+            )
+            @RequestParam(required = false) String after,
+
+            @Parameter(
+                    description = "Maximum number of tasks in the page",
+                    example = "100"
+            )
+            @RequestParam(required = false) Integer limit) {
+
+        TaskContext taskContext = TaskContext.builder()
+                .request(new TaskPageRequest(after, limit))
+                .workflowType(WorkflowType.LIST_TASKS)
+                .build();
+        return handler.handle(taskContext)
+                .map(page -> ResponseEntity.ok().body((TaskPage) page));
+    }
+
+    @Operation(
+            summary = "Export all tasks",
+            description = "Streams every task aggregate as NDJSON, in task ID order, from a server-side cursor. " +
+                    "Pass the last exported task ID as 'after' to resume an interrupted export."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream of task aggregates",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = TaskSummary.class)
+                    )
+            )
+    })
+    @GetMapping(path = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<TaskSummary> exportTasks(
+            @Parameter(
+                    description = "Last task ID already exported",
+                    example = "task-123"
+            )
+            @RequestParam(required = false) String after) {
+
+        return exportService.export(after);
+    }
+
+    @Operation(
+            summary = "Stream task average duration",
+            description = "Streams the average duration of a task as Server-Sent Events: the current average " +
+                    "first, then every change written through this instance. Replaces polling of the average endpoint."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream of average events",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = TaskDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Too many live streams on this instance",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Error.class)
+                    )
+            )
+    })
+    @GetMapping(path = "/{taskId}/average/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TaskDTO>> taskAverageStream(
+            @Parameter(
+                    description = "ID of the task to stream the average of",
+                    required = true,
+                    example = "task-123"
+            )
+            @Valid @NotBlank @PathVariable String taskId) {
+
+        return averageStreamService.stream(taskId)
+                .map(taskDto -> ServerSentEvent.builder(taskDto).event("average").build());
+    }
+
+    @Operation(
+            summary = "Get average durations of many tasks",
+            description = "Looks up the average durations of up to app.tasks.query.max-bulk-ids tasks with a " +
+                    "single query. Results follow the request order; unknown tasks are reported with found=false."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Averages of the requested tasks",
+                    content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = TaskAverageEntry.class)
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = TaskAverageEntry.class)
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                    schema = @Schema(implementation = TaskAverageEntry.class)
+                            ),
+                            @Content(
+                                    mediaType = APPLICATION_SMILE_VALUE,
+                                    schema = @Schema(implementation = TaskAverageEntry.class)
+                            )
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No task IDs, a blank task ID or too many task IDs",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Error.class)
+                    )
+            )
+    })
+    @SuppressWarnings("unchecked")
+    @PostMapping(path = "/averages", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<TaskAverageEntry> taskAverages(@RequestBody TaskAveragesRequest request) {
+
+        log.info("Calculate average duration for {} tasks", request.taskIds() == null ? 0 : request.taskIds().size());
+
+        TaskContext taskContext = TaskContext.builder()
+                .request(request)
+                .workflowType(WorkflowType.CALCULATE_BULK_AVERAGE_DURATION)
+                .build();
+        return handler.handle(taskContext)
+                .flatMapIterable(entries -> (List<TaskAverageEntry>) entries);
+    }
+
+    @Operation(
+            summary = "Bulk import historical tasks",
+            description = "Streams CSV (taskId,durationMs) or NDJSON (TaskDTO) lines into Postgres with COPY " +
+                    "and merges them into the task aggregates in one statement."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import completed",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = TaskImportResult.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input line, nothing was merged",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Error.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Database failure, nothing was merged",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Error.class)
+                    )
+            )
+    })
+    @PostMapping(path = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<TaskImportResult>> importTasks(
+            @RequestBody Flux<DataBuffer> body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+
+        ImportFormat format = TEXT_CSV.isCompatibleWith(contentType) ? ImportFormat.CSV : ImportFormat.NDJSON;
+        log.info("Importing tasks from {} upload", format);
+
+        Flux<String> lines = LINE_DECODER.decode(body, ResolvableType.forClass(String.class), contentType, Map.of());
+        TaskContext taskContext = TaskContext.builder()
+                .request(new TaskImportRequest(lines, format))
+                .workflowType(WorkflowType.IMPORT_TASKS)
+                .build();
+        return handler.handle(taskContext)
+                .map(result -> ResponseEntity.ok().body((TaskImportResult) result));
+    }
+
     private static TaskContext taskContext(String id, Long duration, WorkflowType workflowType) {
         return TaskContext.builder()
                 .request(new TaskDTO(id, duration))
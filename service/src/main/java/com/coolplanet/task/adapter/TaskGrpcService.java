@@ -0,0 +1,292 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.config.GrpcProperties;
+import com.coolplanet.task.domain.exception.TrackerException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.grpc.GetAverageRequest;
+import com.coolplanet.task.grpc.RecordTasksAck;
+import com.coolplanet.task.grpc.TaskAverage;
+import com.coolplanet.task.grpc.TaskIngestGrpc;
+import com.coolplanet.task.grpc.TaskSample;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TaskGrpcService serves the {@code TaskIngest} gRPC service, letting collectors push samples over one
+ * long-lived HTTP/2 stream instead of one {@code POST /tasks} per sample.
+ *
+ * Responsibilities:
+ * - {@code RecordTasks}: feeds every sample of the stream through the {@link Handler} as a
+ *   {@code PROCESS_TASK}, like {@code TaskController} does for a single sample, with the sample's
+ *   idempotency key if it has one.
+ * - Applies flow control per stream: automatic inbound requests are disabled and the stream asks for
+ *   {@code maxInFlight} samples up front, then for one more each time a sample completes. A client
+ *   sending faster than the pipeline absorbs is held back by HTTP/2 flow control.
+ * - Acknowledges the stream with the cumulative accepted, duplicate, rejected and failed counts every
+ *   {@code ackEvery} processed samples, and on a timer every {@code ackInterval} if samples were processed
+ *   since the last acknowledgement, so no processed sample waits longer than that. After the client
+ *   half-closes, the last acknowledgement is sent once every sample is processed, then the call
+ *   completes. A sample with a blank task ID or a non-positive duration is rejected without ending
+ *   the stream; a sample failing in the pipeline is counted as failed.
+ * - {@code GetAverage}: answers the average duration of a task, mapping a {@link TrackerException} to
+ *   the gRPC status matching its HTTP status.
+ * - Counts samples per outcome as {@code tasks.grpc.samples} and exports the number of open streams as
+ *   {@code tasks.grpc.streams.open}.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Enables logging within the class.
+ *
+ * Constructor:
+ * - {@code TaskGrpcService(Handler handler, GrpcProperties properties, MeterRegistry meterRegistry)}:
+ *   Only created by {@code GrpcServerConfig}.
+ */
+@Slf4j
+public class TaskGrpcService extends TaskIngestGrpc.TaskIngestImplBase {
+
+    private final Handler handler;
+    private final int maxInFlight;
+    private final int ackEvery;
+    private final Duration ackInterval;
+    private final Counter acceptedSamples;
+    private final Counter duplicateSamples;
+    private final Counter rejectedSamples;
+    private final Counter failedSamples;
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    public TaskGrpcService(Handler handler, GrpcProperties properties, MeterRegistry meterRegistry) {
+        if (properties.maxInFlight() < 1 || properties.ackEvery() < 1) {
+            throw new IllegalArgumentException("maxInFlight and ackEvery must be positive, got "
+                    + properties.maxInFlight() + " and " + properties.ackEvery());
+        }
+        this.handler = handler;
+        this.maxInFlight = properties.maxInFlight();
+        this.ackEvery = properties.ackEvery();
+        this.ackInterval = properties.ackInterval();
+        this.acceptedSamples = sampleCounter(meterRegistry, "accepted");
+        this.duplicateSamples = sampleCounter(meterRegistry, "duplicate");
+        this.rejectedSamples = sampleCounter(meterRegistry, "rejected");
+        this.failedSamples = sampleCounter(meterRegistry, "failed");
+        Gauge.builder("tasks.grpc.streams.open", openStreams, AtomicInteger::get)
+                .description("RecordTasks streams currently open")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public StreamObserver<TaskSample> recordTasks(StreamObserver<RecordTasksAck> responseObserver) {
+        ServerCallStreamObserver<RecordTasksAck> call = (ServerCallStreamObserver<RecordTasksAck>) responseObserver;
+        call.disableAutoRequest();
+        RecordStream stream = new RecordStream(call);
+        call.setOnCancelHandler(stream::cancel);
+        openStreams.incrementAndGet();
+        call.request(maxInFlight);
+        return stream;
+    }
+
+    @Override
+    public void getAverage(GetAverageRequest request, StreamObserver<TaskAverage> responseObserver) {
+        String taskId = request.getTaskId();
+        if (taskId.isBlank()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("task_id must not be blank").asRuntimeException());
+            return;
+        }
+
+        log.info("Calculate average duration for task: {}", taskId);
+
+        handler.handle(taskContext(taskId, 0L, null, WorkflowType.CALCULATE_AVERAGE_DURATION))
+                .subscribe(obj -> {
+                    TaskDTO taskDto = (TaskDTO) obj;
+                    responseObserver.onNext(TaskAverage.newBuilder()
+                            .setTaskId(taskDto.taskId())
+                            .setAverageDurationMs(taskDto.totalDurationMs())
+                            .build());
+                    responseObserver.onCompleted();
+                }, error -> responseObserver.onError(status(error).asRuntimeException()));
+    }
+
+    static Status status(Throwable error) {
+        if (!(error instanceof TrackerException trackerException)) {
+            log.error("Unexpected error serving gRPC call", error);
+            return Status.INTERNAL.withDescription("Internal error");
+        }
+        Status status = switch (HttpStatus.valueOf(trackerException.getStatusCode())) {
+            case NOT_FOUND -> Status.NOT_FOUND;
+            case BAD_REQUEST -> Status.INVALID_ARGUMENT;
+            case TOO_MANY_REQUESTS -> Status.RESOURCE_EXHAUSTED;
+            default -> Status.INTERNAL;
+        };
+        return status.withDescription(trackerException.getMessage());
+    }
+
+    private static Counter sampleCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("tasks.grpc.samples")
+                .description("Samples received on RecordTasks streams, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static TaskContext taskContext(String id, long duration, String idempotencyKey, WorkflowType workflowType) {
+        return TaskContext.builder()
+                .request(new TaskDTO(id, duration))
+                .workflowType(workflowType)
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+
+    /**
+     * State of one {@code RecordTasks} call. gRPC delivers the inbound messages one at a time, but the
+     * pipeline completes samples and the ack timer fires on their own threads, so the counters and every
+     * write to the response stream are guarded by the instance's monitor.
+     */
+    private final class RecordStream implements StreamObserver<TaskSample> {
+
+        private final ServerCallStreamObserver<RecordTasksAck> call;
+        private final Disposable ackTimer;
+
+        private long accepted;
+        private long duplicates;
+        private long rejected;
+        private long failed;
+        private int inFlight;
+        private int sinceAck;
+        private boolean halfClosed;
+        private boolean closed;
+
+        RecordStream(ServerCallStreamObserver<RecordTasksAck> call) {
+            this.call = call;
+            this.ackTimer = Flux.interval(ackInterval, ackInterval)
+                    .subscribe(tick -> acknowledgeProcessed());
+        }
+
+        @Override
+        public void onNext(TaskSample sample) {
+            if (sample.getTaskId().isBlank() || sample.getDurationMs() <= 0) {
+                rejectedSamples.increment();
+                synchronized (this) {
+                    rejected++;
+                    inFlight++;
+                }
+                completed();
+                return;
+            }
+
+            synchronized (this) {
+                inFlight++;
+            }
+            String idempotencyKey = sample.getIdempotencyKey().isEmpty() ? null : sample.getIdempotencyKey();
+            handler.handle(taskContext(sample.getTaskId(), sample.getDurationMs(), idempotencyKey, WorkflowType.PROCESS_TASK))
+                    .subscribe(obj -> recorded((TaskResponse) obj), this::failed, this::completed);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.debug("RecordTasks stream aborted by the client: {}", throwable.toString());
+            cancel();
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                halfClosed = true;
+                if (inFlight == 0) {
+                    finish();
+                }
+            }
+        }
+
+        void cancel() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            ackTimer.dispose();
+            openStreams.decrementAndGet();
+        }
+
+        private void recorded(TaskResponse response) {
+            boolean duplicate = "DUPLICATE".equals(response.status());
+            (duplicate ? duplicateSamples : acceptedSamples).increment();
+            synchronized (this) {
+                if (duplicate) {
+                    duplicates++;
+                } else {
+                    accepted++;
+                }
+            }
+        }
+
+        private void failed(Throwable error) {
+            log.warn("Failed to record sample from gRPC stream: {}", error.getMessage());
+            failedSamples.increment();
+            synchronized (this) {
+                failed++;
+            }
+            completed();
+        }
+
+        private synchronized void completed() {
+            inFlight--;
+            sinceAck++;
+            if (closed) {
+                return;
+            }
+            if (halfClosed) {
+                if (inFlight == 0) {
+                    finish();
+                }
+                return;
+            }
+            if (sinceAck >= ackEvery) {
+                call.onNext(ack(false));
+                sinceAck = 0;
+            }
+            call.request(1);
+        }
+
+        // after the client half-closes, only the last acknowledgement is sent
+        private synchronized void acknowledgeProcessed() {
+            if (closed || halfClosed || sinceAck == 0) {
+                return;
+            }
+            call.onNext(ack(false));
+            sinceAck = 0;
+        }
+
+        private void finish() {
+            if (closed) {
+                return;
+            }
+            call.onNext(ack(true));
+            call.onCompleted();
+            closed = true;
+            ackTimer.dispose();
+            openStreams.decrementAndGet();
+        }
+
+        private RecordTasksAck ack(boolean last) {
+            return RecordTasksAck.newBuilder()
+                    .setAccepted(accepted)
+                    .setDuplicates(duplicates)
+                    .setRejected(rejected)
+                    .setFailed(failed)
+                    .setLast(last)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.config.RSocketIngestProperties;
+import com.coolplanet.task.domain.model.TaskBatchAck;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.WorkflowType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * TaskRSocketController serves task ingestion as an RSocket request-channel, for JVM clients inside
+ * the datacenter that want backpressure from the persistence path all the way back to the producer.
+ *
+ * Responsibilities:
+ * - {@code tasks.record}: receives a stream of {@link TaskDTO} frames and answers a stream of
+ *   {@link TaskBatchAck}, one per batch of up to {@code batchSize} samples, or fewer once
+ *   {@code maxBatchDelay} has passed.
+ * - Processes every sample through the {@link Handler} as a {@code PROCESS_TASK}, so it reaches the
+ *   {@code TaskRepository} or Kafka depending on the ingest mode, and acknowledges a batch only when
+ *   each of its samples has been persisted, published or has failed.
+ * - Drives the channel's request-n from the persistence path: at most {@code batchesInFlight} batches
+ *   are requested from the client at a time, and the next batch is only requested once a batch is
+ *   acknowledged. RSocket forwards this demand to the client as REQUEST_N frames, so a producer that
+ *   is faster than the database or the broker is held back instead of being buffered.
+ * - Counts samples with a blank task ID or a non-positive duration as rejected and samples failing in
+ *   the pipeline as failed, without ending the channel.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Enables logging within the class.
+ * - {@code @Controller}: Registers the {@link MessageMapping} methods with Spring's RSocket message
+ *   handler.
+ * - {@code @ConditionalOnProperty}: Only created when {@code spring.rsocket.server.port} is set, i.e.
+ *   when Spring Boot starts an RSocket server.
+ */
+@Slf4j
+@Controller
+@ConditionalOnProperty(prefix = "spring.rsocket.server", name = "port")
+public class TaskRSocketController {
+
+    private enum Outcome { ACCEPTED, REJECTED, FAILED }
+
+    private final Handler handler;
+    private final RSocketIngestProperties properties;
+
+    public TaskRSocketController(Handler handler, RSocketIngestProperties properties) {
+        this.handler = handler;
+        this.properties = properties;
+        log.info("TaskRSocketController initialized with batches of {} and {} batch(es) in flight",
+                properties.batchSize(), properties.batchesInFlight());
+    }
+
+    @MessageMapping("tasks.record")
+    public Flux<TaskBatchAck> recordTasks(Flux<TaskDTO> samples) {
+        // fair backpressure: the buffer only requests samples for batches requested downstream
+        return samples
+                .bufferTimeout(properties.batchSize(), properties.maxBatchDelay(), true)
+                .index()
+                .flatMapSequential(batch -> persist(batch.getT1(), batch.getT2()), properties.batchesInFlight(), 1);
+    }
+
+    private Mono<TaskBatchAck> persist(long batch, List<TaskDTO> samples) {
+        return Flux.fromIterable(samples)
+                .flatMap(this::persist, properties.sampleConcurrency())
+                .collect(() -> new int[Outcome.values().length], (counts, outcome) -> counts[outcome.ordinal()]++)
+                .map(counts -> new TaskBatchAck(batch, counts[Outcome.ACCEPTED.ordinal()],
+                        counts[Outcome.REJECTED.ordinal()], counts[Outcome.FAILED.ordinal()]));
+    }
+
+    private Mono<Outcome> persist(TaskDTO sample) {
+        if (sample.taskId() == null || sample.taskId().isBlank() || sample.totalDurationMs() <= 0) {
+            return Mono.just(Outcome.REJECTED);
+        }
+        TaskContext taskContext = TaskContext.builder()
+                .request(sample)
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .build();
+        return handler.handle(taskContext)
+                .thenReturn(Outcome.ACCEPTED)
+                .onErrorResume(error -> {
+                    log.warn("Failed to record sample {} from RSocket channel: {}", sample.taskId(), error.getMessage());
+                    return Mono.just(Outcome.FAILED);
+                });
+    }
+}
@@ -0,0 +1,183 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.domain.exception.TrackerException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.TrackerErrorResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskRouteHandler serves the hot task endpoints as functional routes, an alternative to the
+ * annotated {@code TaskController} with the same contract.
+ *
+ * Responsibilities:
+ * - Provides the {@link RouterFunction} mapping both routes through {@link #routes()}.
+ * - {@code POST /tasks}: reads {@code taskId}, {@code duration} and the optional {@code Idempotency-Key}
+ *   header directly from the request and validates them by hand, without argument resolvers or method
+ *   validation. Missing, blank, non-numeric or non-positive values fail with a
+ *   {@link ServerWebInputException}, answered with 400 like the controller's validation errors.
+ * - Writes the {@code OK} and {@code DUPLICATE} responses from JSON bytes serialized once at startup, so
+ *   recording a task involves no Jackson serialization. Any other status, and clients accepting only a
+ *   binary format, go through the codecs.
+ * - {@code GET /tasks/{taskId}/average}: answers the {@link TaskDTO} of the task, in the format
+ *   negotiated from the {@code Accept} header.
+ * - Maps a {@link TrackerException} to its status code and a {@link TrackerErrorResponse} body, as the
+ *   {@code GlobalExceptionHandler} does for the controller (controller advice does not apply to
+ *   functional routes).
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Enables logging within the class.
+ *
+ * Constructor:
+ * - {@code TaskRouteHandler(Handler handler, ObjectMapper objectMapper)}: Serializes the constant
+ *   responses with the application's {@code ObjectMapper}. Only created by {@code FunctionalRoutesConfig}.
+ */
+@Slf4j
+public class TaskRouteHandler {
+
+    private static final String TASK_ID_PARAM = "taskId";
+    private static final String DURATION_PARAM = "duration";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final List<MediaType> PRODUCIBLE_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/x-jackson-smile"));
+
+    private final Handler handler;
+    private final Map<String, BodyInserter<TaskResponse, ReactiveHttpOutputMessage>> constantResponses;
+
+    public TaskRouteHandler(Handler handler, ObjectMapper objectMapper) {
+        this.handler = handler;
+        this.constantResponses = Map.of(
+                "OK", constantBody(new TaskResponse("OK"), objectMapper),
+                "DUPLICATE", constantBody(new TaskResponse("DUPLICATE"), objectMapper));
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .POST("/tasks", this::recordTask)
+                .GET("/tasks/{taskId}/average", this::taskAverage)
+                .build();
+    }
+
+    public Mono<ServerResponse> recordTask(ServerRequest request) {
+        String taskId = request.queryParams().getFirst(TASK_ID_PARAM);
+        String durationParam = request.queryParams().getFirst(DURATION_PARAM);
+        if (taskId == null || durationParam == null) {
+            return Mono.error(new ServerWebInputException("Required query parameters '" + TASK_ID_PARAM + "' and '"
+                    + DURATION_PARAM + "' must be present"));
+        }
+        if (taskId.isBlank()) {
+            return Mono.error(new ServerWebInputException("Required query parameter '" + TASK_ID_PARAM + "' must not be blank"));
+        }
+        long duration;
+        try {
+            duration = Long.parseLong(durationParam);
+        } catch (NumberFormatException numberFormatException) {
+            return Mono.error(new ServerWebInputException("Required query parameter '" + DURATION_PARAM + "' must be a number"));
+        }
+        if (duration <= 0) {
+            return Mono.error(new ServerWebInputException("Required query parameter '" + DURATION_PARAM + "' must be positive"));
+        }
+
+        log.info("Processing task: {}", taskId);
+
+        TaskContext taskContext = taskContext(taskId, duration, WorkflowType.PROCESS_TASK);
+        taskContext.idempotencyKey = request.headers().firstHeader(IDEMPOTENCY_KEY_HEADER);
+        MediaType mediaType = negotiate(request);
+        return handler.handle(taskContext)
+                .flatMap(obj -> {
+                    TaskResponse response = (TaskResponse) obj;
+                    BodyInserter<TaskResponse, ReactiveHttpOutputMessage> body = MediaType.APPLICATION_JSON.equals(mediaType)
+                            ? constantResponses.get(response.status()) : null;
+                    ServerResponse.BodyBuilder created = ServerResponse.status(HttpStatus.CREATED).contentType(mediaType);
+                    return body != null ? created.body(body) : created.bodyValue(response);
+                })
+                .onErrorResume(TrackerException.class, error -> trackerError(error, mediaType));
+    }
+
+    public Mono<ServerResponse> taskAverage(ServerRequest request) {
+        String taskId = request.pathVariable(TASK_ID_PARAM);
+        if (taskId.isBlank()) {
+            return Mono.error(new ServerWebInputException("Path variable '" + TASK_ID_PARAM + "' must not be blank"));
+        }
+
+        log.info("Calculate average duration for task: {}", taskId);
+
+        MediaType mediaType = negotiate(request);
+        return handler.handle(taskContext(taskId, 0L, WorkflowType.CALCULATE_AVERAGE_DURATION))
+                .flatMap(taskDto -> ServerResponse.ok().contentType(mediaType).bodyValue(taskDto))
+                .onErrorResume(TrackerException.class, error -> trackerError(error, mediaType));
+    }
+
+    /**
+     * Picks the response format from the {@code Accept} header. Unlike annotated controllers, router
+     * functions write with the first codec able to, so the format has to be chosen up front.
+     */
+    private static MediaType negotiate(ServerRequest request) {
+        List<MediaType> accept = request.headers().accept();
+        if (accept.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptable = accept;
+        if (accept.size() > 1) {
+            acceptable = new ArrayList<>(accept);
+            MimeTypeUtils.sortBySpecificity(acceptable);
+        }
+        for (MediaType accepted : acceptable) {
+            for (MediaType producible : PRODUCIBLE_MEDIA_TYPES) {
+                if (accepted.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private static Mono<ServerResponse> trackerError(TrackerException trackerException, MediaType mediaType) {
+        return ServerResponse.status(trackerException.getStatusCode())
+                .contentType(mediaType)
+                .bodyValue(new TrackerErrorResponse(trackerException.getMessage(), trackerException.getErrorCode(),
+                        LocalDateTime.now().toString(), trackerException.getStatusCode()));
+    }
+
+    private static BodyInserter<TaskResponse, ReactiveHttpOutputMessage> constantBody(TaskResponse response, ObjectMapper objectMapper) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw new IllegalStateException("Cannot serialize constant response " + response, jsonProcessingException);
+        }
+        return (message, context) -> {
+            message.getHeaders().setContentLength(bytes.length);
+            // wrapping shares the array, only the buffer handle is allocated per response
+            return message.writeWith(Mono.just(message.bufferFactory().wrap(bytes)));
+        };
+    }
+
+    private static TaskContext taskContext(String id, Long duration, WorkflowType workflowType) {
+        return TaskContext.builder()
+                .request(new TaskDTO(id, duration))
+                .workflowType(workflowType)
+                .build();
+    }
+}
@@ -0,0 +1,257 @@
+package com.coolplanet.task.application;
+
+import com.coolplanet.task.config.FeatureConfig;
+import com.coolplanet.task.config.IngestRouterProperties;
+import com.coolplanet.task.domain.model.IngestMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * IngestRouter chooses between the SYNC and ASYNC ingest modes at runtime, for the {@code adaptive}
+ * ingest mode.
+ *
+ * Responsibilities:
+ * - Keeps a moving average of the sync write latency, reported by the {@code TaskProcessorService}
+ *   for every processed sample, whether it came from a request or from the Kafka consumer.
+ * - Every {@code evaluationInterval}, reads the average produce request latency of the Kafka producer
+ *   and the maximum consumer lag of the listener containers of this instance from the Kafka client
+ *   metrics, and re-evaluates the mode:
+ *   - SYNC switches to ASYNC when writes are slower than {@code writeLatencyHigh} while Kafka is
+ *     faster than {@code kafkaLatencyHigh} and the consumer lag is below {@code consumerLagLow}.
+ *   - ASYNC switches back to SYNC when writes are faster than {@code writeLatencyLow}, or Kafka gets
+ *     slower than {@code kafkaLatencyHigh}, or the consumer lag exceeds {@code consumerLagHigh}.
+ *   The distinct switch-on and switch-off thresholds and a minimum dwell time keep the router from
+ *   flapping between modes.
+ * - Answers {@link #route()} for every request from the last evaluation, without any computation,
+ *   unless a manual override is set through the {@code ingestrouter} actuator endpoint. Requests are
+ *   only routed in the {@code adaptive} ingest mode, so an override is refused in any other mode.
+ * - Counts decisions in {@code tasks.ingest.decisions} and mode switches in {@code tasks.ingest.switches},
+ *   both tagged by mode.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the router.
+ * - {@code @Component}: Marks this class as a Spring-managed component. Evaluations only run when
+ *   {@code features.task.ingest-mode} is {@code adaptive}.
+ */
+@Slf4j
+@Component
+public class IngestRouter implements SmartLifecycle {
+
+    static final String PRODUCER_LATENCY_METRIC = "request-latency-avg";
+    static final String CONSUMER_LAG_METRIC = "records-lag-max";
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final IngestRouterProperties properties;
+    private final FeatureConfig featureConfig;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry;
+    private final Counter syncDecisions;
+    private final Counter asyncDecisions;
+    private final Counter syncSwitches;
+    private final Counter asyncSwitches;
+
+    private volatile IngestMode automatic = IngestMode.SYNC;
+    private volatile IngestMode override;
+    private volatile double writeLatencyNanos = Double.NaN;
+    private volatile double kafkaLatencyMs;
+    private volatile double consumerLag;
+    private volatile long lastSwitchNanos;
+    private volatile boolean switched;
+    private volatile Disposable evaluations;
+
+    public IngestRouter(IngestRouterProperties properties, FeatureConfig featureConfig,
+                        KafkaTemplate<String, String> kafkaTemplate,
+                        ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.featureConfig = featureConfig;
+        this.kafkaTemplate = kafkaTemplate;
+        this.listenerRegistry = listenerRegistry;
+        this.syncDecisions = decisionCounter(IngestMode.SYNC, meterRegistry);
+        this.asyncDecisions = decisionCounter(IngestMode.ASYNC, meterRegistry);
+        this.syncSwitches = switchCounter(IngestMode.SYNC, meterRegistry);
+        this.asyncSwitches = switchCounter(IngestMode.ASYNC, meterRegistry);
+        Gauge.builder("tasks.ingest.write.latency", this, router -> router.writeLatencyNanos / 1_000_000)
+                .description("Moving average of the sync write latency seen by the ingest router")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the mode of the next request, SYNC or ASYNC.
+     */
+    public IngestMode route() {
+        IngestMode mode = override != null ? override : automatic;
+        (mode == IngestMode.ASYNC ? asyncDecisions : syncDecisions).increment();
+        return mode;
+    }
+
+    /**
+     * Folds the latency of one sync write into the moving average. Concurrent updates may overwrite
+     * each other, which only drops samples from the average.
+     */
+    public void recordWriteLatency(long nanos) {
+        double current = writeLatencyNanos;
+        writeLatencyNanos = Double.isNaN(current) ? nanos : current + LATENCY_SMOOTHING * (nanos - current);
+    }
+
+    /**
+     * Forces the given mode, SYNC or ASYNC, until cleared with {@code null}.
+     *
+     * @throws IllegalStateException if the configured ingest mode is not ADAPTIVE, as requests are
+     *         then never routed and the override would have no effect
+     */
+    public void override(IngestMode mode) {
+        if (mode != null && mode != IngestMode.SYNC && mode != IngestMode.ASYNC) {
+            throw new IllegalArgumentException("Only SYNC or ASYNC can be forced, got " + mode);
+        }
+        if (mode != null && configuredMode() != IngestMode.ADAPTIVE) {
+            throw new IllegalStateException("Ingest mode is " + configuredMode() + ", not ADAPTIVE");
+        }
+        log.info("Ingest mode override {}", mode != null ? "set to " + mode : "cleared");
+        override = mode;
+    }
+
+    /**
+     * Returns the ingest mode configured in {@code features.task}, where {@code asyncEnabled} applies
+     * when no {@code ingestMode} is set.
+     */
+    public IngestMode configuredMode() {
+        if (featureConfig.getIngestMode() != null) {
+            return featureConfig.getIngestMode();
+        }
+        return featureConfig.isAsyncEnabled() ? IngestMode.ASYNC : IngestMode.SYNC;
+    }
+
+    /**
+     * Returns the state of the router; {@code mode} is the mode of the next request, which is the
+     * configured mode unless that is ADAPTIVE.
+     */
+    public Status status() {
+        IngestMode configured = configuredMode();
+        IngestMode mode = configured != IngestMode.ADAPTIVE ? configured : override != null ? override : automatic;
+        return new Status(configured, mode, override, writeLatencyNanos / 1_000_000,
+                kafkaLatencyMs, consumerLag, (long) syncDecisions.count(), (long) asyncDecisions.count());
+    }
+
+    @Override
+    public void start() {
+        if (featureConfig.getIngestMode() != IngestMode.ADAPTIVE) {
+            return;
+        }
+        evaluations = Flux.interval(properties.evaluationInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromRunnable(() -> evaluate(readKafkaLatencyMs(), readConsumerLag(), System.nanoTime()))
+                        .onErrorResume(error -> {
+                            log.warn("Ingest router evaluation failed, keeping {}", automatic, error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (evaluations != null) {
+            evaluations.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return evaluations != null && !evaluations.isDisposed();
+    }
+
+    void evaluate(double kafkaLatencyMs, double consumerLag, long nowNanos) {
+        this.kafkaLatencyMs = kafkaLatencyMs;
+        this.consumerLag = consumerLag;
+        if (switched && nowNanos - lastSwitchNanos < properties.minDwell().toNanos()) {
+            return;
+        }
+        // NaN before the first write: no comparison holds, so the mode stays as it is
+        double writeLatencyMs = writeLatencyNanos / 1_000_000;
+        long kafkaLatencyHigh = properties.kafkaLatencyHigh().toMillis();
+        IngestMode next = automatic;
+        if (automatic == IngestMode.SYNC
+                && writeLatencyMs > properties.writeLatencyHigh().toMillis()
+                && kafkaLatencyMs < kafkaLatencyHigh
+                && consumerLag < properties.consumerLagLow()) {
+            next = IngestMode.ASYNC;
+        } else if (automatic == IngestMode.ASYNC
+                && (writeLatencyMs < properties.writeLatencyLow().toMillis()
+                || kafkaLatencyMs > kafkaLatencyHigh
+                || consumerLag > properties.consumerLagHigh())) {
+            next = IngestMode.SYNC;
+        }
+        if (next != automatic) {
+            log.info("Switching ingest mode from {} to {} (write latency {} ms, Kafka latency {} ms, consumer lag {})",
+                    automatic, next, Math.round(writeLatencyMs), Math.round(kafkaLatencyMs), Math.round(consumerLag));
+            (next == IngestMode.ASYNC ? asyncSwitches : syncSwitches).increment();
+            automatic = next;
+            lastSwitchNanos = nowNanos;
+            switched = true;
+        }
+    }
+
+    private double readKafkaLatencyMs() {
+        return maxMetric(kafkaTemplate.metrics(), PRODUCER_LATENCY_METRIC);
+    }
+
+    private double readConsumerLag() {
+        KafkaListenerEndpointRegistry registry = listenerRegistry.getIfAvailable();
+        if (registry == null) {
+            return 0;
+        }
+        double lag = 0;
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+                lag = Math.max(lag, maxMetric(metrics, CONSUMER_LAG_METRIC));
+            }
+        }
+        return lag;
+    }
+
+    static double maxMetric(Map<MetricName, ? extends Metric> metrics, String name) {
+        double max = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            // Kafka reports NaN or -Infinity until the first measurement
+            if (entry.getKey().name().equals(name) && entry.getValue().metricValue() instanceof Double value
+                    && Double.isFinite(value)) {
+                max = Math.max(max, value);
+            }
+        }
+        return max;
+    }
+
+    private static Counter decisionCounter(IngestMode mode, MeterRegistry meterRegistry) {
+        return Counter.builder("tasks.ingest.decisions")
+                .description("Requests routed by the adaptive ingest router, by mode")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private static Counter switchCounter(IngestMode mode, MeterRegistry meterRegistry) {
+        return Counter.builder("tasks.ingest.switches")
+                .description("Automatic switches of the adaptive ingest router, by new mode")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    public record Status(IngestMode configuredMode, IngestMode mode, IngestMode override, double writeLatencyMs, double kafkaLatencyMs,
+                         double consumerLag, long syncDecisions, long asyncDecisions) {
+    }
+}
@@ -2,16 +2,28 @@ package com.coolplanet.task.application;
 
 import com.coolplanet.task.adapter.KafkaProducer;
 import com.coolplanet.task.application.service.TaskAverageService;
+import com.coolplanet.task.application.service.TaskBulkAverageService;
+import com.coolplanet.task.application.service.TaskImportService;
+import com.coolplanet.task.application.service.TaskListService;
 import com.coolplanet.task.application.service.TaskProcessorService;
 import com.coolplanet.task.application.service.TaskService;
+import com.coolplanet.task.application.service.WalIngestService;
 import com.coolplanet.task.config.FeatureConfig;
+import com.coolplanet.task.domain.model.IngestMode;
+import com.coolplanet.task.domain.model.TaskAverageEntry;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskImportResult;
+import com.coolplanet.task.domain.model.TaskPage;
 import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * ProcessorHandler is a Spring-managed component that serves as a handler for processing tasks
  * based on the workflow type defined in the provided TaskContext. It implements the `Handler`
@@ -24,16 +36,27 @@ import reactor.core.publisher.Mono;
  * - Throws an IllegalArgumentException in case of unsupported or unknown workflow types.
  *
  * Constructor:
- * - Accepts two task services:
+ * - Accepts five task services:
  *   - TaskProcessorService: Handles the processing of tasks.
  *   - TaskAverageService: Calculates the average duration of tasks.
+ *   - TaskBulkAverageService: Looks up the average durations of many tasks at once.
+ *   - TaskListService: Lists task aggregates page by page.
+ *   - TaskImportService: Bulk imports historical task durations.
+ * - Optionally resolves the WalIngestService, which only exists in the write-ahead log ingest mode.
+ * - Accepts the IngestRouter, which picks SYNC or ASYNC per request in the adaptive ingest mode.
  *
  * Methods:
  * - handle(TaskContext context):
  *   - Determines the workflow type from the context and invokes the corresponding service for processing.
  *   - Workflow types supported:
- *     - PROCESS_TASK: Delegates processing to the taskProcessorService.
+ *     - PROCESS_TASK: Dispatches according to the ingest mode: SYNC delegates to the taskProcessorService,
+ *       ASYNC publishes to Kafka, WAL appends to the local write-ahead log and ADAPTIVE uses the mode
+ *       chosen by the ingestRouter. Warm-up samples always go to the taskProcessorService, and so do
+ *       samples with an idempotency key in the WAL mode, to be deduplicated.
  *     - CALCULATE_AVERAGE_DURATION: Delegates processing to the taskAverageService.
+ *     - CALCULATE_BULK_AVERAGE_DURATION: Delegates processing to the taskBulkAverageService.
+ *     - LIST_TASKS: Delegates processing to the taskListService.
+ *     - IMPORT_TASKS: Delegates processing to the taskImportService.
  *   - Returns a reactive Mono wrapping the result of the processing.
  *   - Throws an IllegalArgumentException for unknown workflow types.
  *
@@ -58,32 +81,73 @@ public class ProcessorHandler implements Handler {
 
     private final TaskService<TaskResponse, TaskContext> taskProcessorService;
     private final TaskService<TaskDTO, TaskContext> taskAverageService;
+    private final TaskService<List<TaskAverageEntry>, TaskContext> taskBulkAverageService;
+    private final TaskService<TaskPage, TaskContext> taskListService;
+    private final TaskService<TaskImportResult, TaskContext> taskImportService;
     private final KafkaProducer kafkaProducer;
     private final FeatureConfig featureConfig;
+    private final ObjectProvider<WalIngestService> walIngestService;
+    private final IngestRouter ingestRouter;
 
-    public ProcessorHandler(TaskProcessorService taskProcessorService, TaskAverageService taskAverageService, KafkaProducer kafkaProducer, FeatureConfig featureConfig) {
+    public ProcessorHandler(TaskProcessorService taskProcessorService, TaskAverageService taskAverageService,
+                            TaskBulkAverageService taskBulkAverageService, TaskListService taskListService,
+                            TaskImportService taskImportService, KafkaProducer kafkaProducer,
+                            FeatureConfig featureConfig, ObjectProvider<WalIngestService> walIngestService,
+                            IngestRouter ingestRouter) {
         this.taskProcessorService = taskProcessorService;
         this.taskAverageService = taskAverageService;
+        this.taskBulkAverageService = taskBulkAverageService;
+        this.taskListService = taskListService;
+        this.taskImportService = taskImportService;
         this.kafkaProducer = kafkaProducer;
         this.featureConfig = featureConfig;
+        this.walIngestService = walIngestService;
+        this.ingestRouter = ingestRouter;
     }
 
     public Mono<?> handle(TaskContext context) {
         log.info("Handling process for {}", context.workflowType.name());
 
-        return switch (context.workflowType) {
-            case PROCESS_TASK -> {
-                if (featureConfig.isAsyncEnabled()) {
-                    log.info("Sending task via Async flow i.e via Kafka to DB");
-                    yield kafkaProducer.sendTask((TaskDTO) context.request)
-                            .thenReturn(new TaskResponse("OK"));
-                } else {
-                    log.info("Sending task via Sync flow i.e directly to DB");
-                    yield taskProcessorService.process(context);
-                }
-            }
+        Mono<?> result = switch (context.workflowType) {
+            // warm-up samples exercise the database path whatever the mode, and never reach Kafka or the log
+            case PROCESS_TASK -> context.warmup ? taskProcessorService.process(context) : ingest(context, ingestMode());
             case CALCULATE_AVERAGE_DURATION -> taskAverageService.process(context);
+            case CALCULATE_BULK_AVERAGE_DURATION -> taskBulkAverageService.process(context);
+            case LIST_TASKS -> taskListService.process(context);
+            case IMPORT_TASKS -> taskImportService.process(context);
             default -> throw new IllegalArgumentException("Unknown workflow type: " + context.workflowType);
         };
+        return TaskEvents.request(result, context.workflowType,
+                context.request instanceof TaskDTO task ? task.taskId() : null);
+    }
+
+    private Mono<?> ingest(TaskContext context, IngestMode mode) {
+        return switch (mode) {
+            case ASYNC -> {
+                log.info("Sending task via Async flow i.e via Kafka to DB");
+                yield kafkaProducer.sendTask((TaskDTO) context.request, context.idempotencyKey)
+                        .thenReturn(new TaskResponse("OK"));
+            }
+            // the log has no room for idempotency keys, so keyed samples take the deduplicating sync path
+            case WAL -> {
+                if (context.idempotencyKey != null) {
+                    yield ingest(context, IngestMode.SYNC);
+                }
+                log.info("Sending task via WAL flow i.e via local write-ahead log to DB");
+                yield walIngestService.getObject().process(context);
+            }
+            case SYNC -> {
+                log.info("Sending task via Sync flow i.e directly to DB");
+                yield taskProcessorService.process(context);
+            }
+            case ADAPTIVE -> ingest(context, ingestRouter.route());
+        };
+    }
+
+    private IngestMode ingestMode() {
+        if (featureConfig.getIngestMode() != null) {
+            return featureConfig.getIngestMode();
+        }
+        return featureConfig.isAsyncEnabled() ? IngestMode.ASYNC : IngestMode.SYNC;
     }
 }
@@ -0,0 +1,167 @@
+package com.coolplanet.task.application;
+
+import com.coolplanet.task.config.WarmupProperties;
+import com.coolplanet.task.domain.exception.TaskNotFoundException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WarmupRunner sends synthetic requests through the request path before the instance is marked as
+ * ready, so that the first real requests neither run in the interpreter nor open connections.
+ *
+ * Responsibilities:
+ * - Runs {@code iterations} iterations, {@code concurrency} at a time. Every iteration records a
+ *   sample of its own task {@code warmup-<n>} through the {@link Handler} as a {@code PROCESS_TASK},
+ *   reads its average back as a {@code CALCULATE_AVERAGE_DURATION} and serializes both results with
+ *   the application's {@link ObjectMapper}, exercising the processing steps, the upsert and lookup
+ *   statements on the driver, the write pool and Jackson like a request does.
+ * - Keeps the warm-up free of side effects: the samples are marked as {@link TaskContext#warmup}, so
+ *   they are written synchronously whatever the ingest mode, and publish neither change events nor
+ *   write statistics; every iteration runs in a transaction on the write pool that is rolled back.
+ * - Stops after {@code maxDuration}, or at the first failing iteration, e.g. while the database is
+ *   unreachable. A failed warm-up is logged and does not abort startup.
+ * - Reports the duration of the warm-up and the median and 99th percentile latency of the first and
+ *   the last tenth of the iterations, logged and exported as {@code tasks.warmup.duration} and
+ *   {@code tasks.warmup.latency} (tagged {@code window=first|last} and {@code quantile}).
+ *
+ * Application runners complete before the readiness state switches to ACCEPTING_TRAFFIC, so blocking
+ * in {@link #run} keeps the readiness probe DOWN until the warm-up is over.
+ *
+ * Constructor:
+ * - Accepts the Handler the samples go through, the TransactionalOperator rolling them back, the
+ *   ObjectMapper serializing the results, the WarmupProperties and the MeterRegistry for the report.
+ */
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    static final String TASK_ID_PREFIX = "warmup-";
+
+    private static final long SAMPLE_DURATION_MS = 100L;
+    private static final double[] QUANTILES = {0.5, 0.99};
+
+    private final Handler handler;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+    private final WarmupProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public WarmupRunner(Handler handler, TransactionalOperator transactionalOperator, ObjectMapper objectMapper,
+                        WarmupProperties properties, MeterRegistry meterRegistry) {
+        this.handler = handler;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long[] latencies = new long[properties.iterations()];
+        AtomicInteger completed = new AtomicInteger();
+        long start = System.nanoTime();
+
+        Flux.range(0, properties.iterations())
+                .flatMap(this::iteration, properties.concurrency())
+                .doOnNext(latency -> latencies[completed.getAndIncrement()] = latency)
+                .take(properties.maxDuration())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Warm-up stopped after {} iteration(s) by a failing iteration", completed.get(), error);
+                    return Mono.empty();
+                })
+                .block();
+
+        report(Duration.ofNanos(System.nanoTime() - start), Arrays.copyOf(latencies, completed.get()));
+    }
+
+    private Mono<Long> iteration(int n) {
+        TaskDTO sample = new TaskDTO(TASK_ID_PREFIX + n, SAMPLE_DURATION_MS);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return transactionalOperator
+                    .execute(transaction -> {
+                        transaction.setRollbackOnly();
+                        return handler.handle(context(sample, WorkflowType.PROCESS_TASK))
+                                .doOnNext(this::serialize)
+                                .then(Mono.defer(() -> handler.handle(context(new TaskDTO(sample.taskId(), 0L), WorkflowType.CALCULATE_AVERAGE_DURATION))))
+                                .doOnNext(this::serialize)
+                                // a lookup not seeing the uncommitted row has still exercised the read path
+                                .onErrorResume(TaskNotFoundException.class, notFound -> Mono.empty());
+                    })
+                    .then(Mono.fromCallable(() -> System.nanoTime() - start));
+        }).contextWrite(ConnectionRoute.WRITE::applyTo);
+    }
+
+    private static TaskContext context(TaskDTO request, WorkflowType workflowType) {
+        return TaskContext.builder()
+                .request(request)
+                .workflowType(workflowType)
+                .warmup(true)
+                .build();
+    }
+
+    private void serialize(Object result) {
+        try {
+            objectMapper.writeValueAsBytes(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize warm-up result", e);
+        }
+    }
+
+    private void report(Duration duration, long[] latencies) {
+        TimeGauge.builder("tasks.warmup.duration", () -> duration.toNanos(), TimeUnit.NANOSECONDS)
+                .description("Time spent warming up before the instance got ready")
+                .register(meterRegistry);
+        if (latencies.length == 0) {
+            log.info("Warm-up took {} ms without completing an iteration", duration.toMillis());
+            return;
+        }
+        int window = Math.max(1, latencies.length / 10);
+        long[] first = Arrays.copyOfRange(latencies, 0, window);
+        long[] last = Arrays.copyOfRange(latencies, latencies.length - window, latencies.length);
+        Arrays.sort(first);
+        Arrays.sort(last);
+        for (double quantile : QUANTILES) {
+            register("first", quantile, first);
+            register("last", quantile, last);
+        }
+        log.info("Warm-up took {} ms for {} iteration(s): p50 {} us / p99 {} us in the first {}, p50 {} us / p99 {} us in the last {}",
+                duration.toMillis(), latencies.length,
+                micros(quantile(first, 0.5)), micros(quantile(first, 0.99)), window,
+                micros(quantile(last, 0.5)), micros(quantile(last, 0.99)), window);
+    }
+
+    private void register(String window, double quantile, long[] sortedLatencies) {
+        long latency = quantile(sortedLatencies, quantile);
+        TimeGauge.builder("tasks.warmup.latency", () -> latency, TimeUnit.NANOSECONDS)
+                .description("Latency of a warm-up iteration in the first and last tenth of the warm-up")
+                .tag("window", window)
+                .tag("quantile", Double.toString(quantile))
+                .register(meterRegistry);
+    }
+
+    private static long quantile(long[] sortedLatencies, double quantile) {
+        return sortedLatencies[(int) Math.min(sortedLatencies.length - 1, Math.ceil(quantile * sortedLatencies.length) - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
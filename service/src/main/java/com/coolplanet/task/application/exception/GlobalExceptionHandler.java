@@ -1,5 +1,7 @@
 package com.coolplanet.task.application.exception;
 
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.exception.OverloadedException;
 import com.coolplanet.task.domain.exception.ProcessingException;
 import com.coolplanet.task.domain.exception.TaskNotFoundException;
 import com.coolplanet.task.domain.model.TrackerErrorResponse;
@@ -19,6 +21,8 @@ import java.time.LocalDateTime;
  * It includes methods to handle specific exceptions like:
  * - {@link ProcessingException}: Mapped to HTTP 500 (Internal Server Error).
  * - {@link TaskNotFoundException}: Mapped to HTTP 404 (Not Found).
+ * - {@link InvalidRequestException}: Mapped to HTTP 400 (Bad Request).
+ * - {@link OverloadedException}: Mapped to HTTP 429 (Too Many Requests).
  *
  * Each exception is processed to return a {@link TrackerErrorResponse} object with details such as
  * the error message, error code, timestamp, and HTTP status code.
@@ -55,6 +59,32 @@ public class GlobalExceptionHandler {
         return trackerException(taskNotFoundException);
     }
 
+    /**
+     * Handles {@link InvalidRequestException} by mapping it to an HTTP 400 (Bad Request) response
+     * and returning a {@link TrackerErrorResponse} containing error details.
+     *
+     * @param invalidRequestException the instance of {@link InvalidRequestException} thrown for an invalid request
+     * @return a {@link TrackerErrorResponse} containing the error message, error code, timestamp, and HTTP status
+     */
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidRequestException.class)
+    public TrackerErrorResponse invalidRequestException(InvalidRequestException invalidRequestException) {
+        return trackerException(invalidRequestException);
+    }
+
+    /**
+     * Handles {@link OverloadedException} by mapping it to an HTTP 429 (Too Many Requests) response
+     * and returning a {@link TrackerErrorResponse} containing error details.
+     *
+     * @param overloadedException the instance of {@link OverloadedException} thrown when a request was shed
+     * @return a {@link TrackerErrorResponse} containing the error message, error code, timestamp, and HTTP status
+     */
+    @ResponseStatus(code = HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(OverloadedException.class)
+    public TrackerErrorResponse overloadedException(OverloadedException overloadedException) {
+        return trackerException(overloadedException);
+    }
+
     /**
      * Transforms a {@link TrackerException} into a {@link TrackerErrorResponse} object
      * containing the exception details such as the message, error code, timestamp, and status code.
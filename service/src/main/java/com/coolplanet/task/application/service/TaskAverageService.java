@@ -5,17 +5,40 @@ import com.coolplanet.task.domain.entity.TaskEntity;
 import com.coolplanet.task.domain.exception.TaskNotFoundException;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
 import com.coolplanet.task.infrastructure.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Service implementation for calculating the average duration of a task using the provided TaskRepository.
  * Implements the TaskService interface to handle task processing operations.
  *
  * Responsibilities:
- * - Retrieves task details from the repository based on the task ID.
+ * - Retrieves task details from the repository based on the task ID. The read is routed to a read
+ *   replica when replicas are configured, or to the primary when read-your-writes applies to the task
+ *   (see {@link RecentWriteTracker}).
+ * - Coalesces concurrent reads of the same task: a request arriving while a replica read of its task is
+ *   in flight joins that read instead of issuing its own query, so the database sees one query per
+ *   distinct task rather than one per request. Every caller subscribes separately and may cancel on its
+ *   own; the shared query is only cancelled when all of its callers are gone. Reads on the primary for
+ *   read-your-writes are never coalesced, as a read started before the write could be joined after it.
+ *   Reads are counted in {@code tasks.average.reads}, tagged {@code coalesced=true} when they joined a
+ *   read in flight, and the reads in flight are exported as {@code tasks.average.reads.in.flight}.
+ * - Answers lookups of task IDs the {@link KnownTaskFilter} has never seen with a TaskNotFoundException
+ *   right away, without querying the database, and reports the IDs it let through that turned out
+ *   unknown as false positives of the filter. Warm-up lookups ({@link TaskContext#warmup}) bypass the
+ *   filter and are not counted by it.
  * - Calculates the average duration of the task by dividing the total duration by the task counter.
  * - Throws a RecordNotFoundException if the task is not found in the repository.
  *
@@ -24,7 +47,9 @@ import reactor.core.publisher.Mono;
  * - {@code @Service}: Indicates that this class is a Spring service component.
  *
  * Constructor:
- * - Accepts a TaskRepository instance, which is used for interactions with the data source.
+ * - Accepts a TaskRepository instance, which is used for interactions with the data source, the
+ *   RecentWriteTracker deciding between replica and primary, the KnownTaskFilter rejecting unknown
+ *   task IDs, and the MeterRegistry for the read metrics.
  *
  * Methods:
  * - {@code process(TaskContext taskContext)}:
@@ -43,23 +68,89 @@ import reactor.core.publisher.Mono;
 public class TaskAverageService implements TaskService<TaskDTO, TaskContext> {
 
     private final TaskRepository repository;
+    private final RecentWriteTracker recentWrites;
+    private final KnownTaskFilter knownTasks;
+    private final Map<String, Mono<TaskEntity>> inFlightReads = new ConcurrentHashMap<>();
+    private final Counter queriedReads;
+    private final Counter coalescedReads;
 
-    public TaskAverageService(TaskRepository repository) {
+    public TaskAverageService(TaskRepository repository, RecentWriteTracker recentWrites, KnownTaskFilter knownTasks,
+                              MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.recentWrites = recentWrites;
+        this.knownTasks = knownTasks;
+        this.queriedReads = readCounter(false, meterRegistry);
+        this.coalescedReads = readCounter(true, meterRegistry);
+        Gauge.builder("tasks.average.reads.in.flight", inFlightReads, Map::size)
+                .description("Distinct task reads currently shared by concurrent average requests")
+                .register(meterRegistry);
     }
 
     public Mono<TaskDTO> process(TaskContext taskContext) {
         TaskDTO taskDTO = (TaskDTO) taskContext.request;
         log.info("Calculating average duration for task : {} ", taskDTO.taskId());
 
+        // warm-up tasks are written without being recorded in the filter, and their lookups must reach the database
+        boolean filtered = !taskContext.warmup;
+        if (filtered && !knownTasks.mightExist(taskDTO.taskId())) {
+            return Mono.error(notFound(taskDTO.taskId()));
+        }
+
         TaskEntity taskEntity = new TaskEntity(taskDTO.taskId());
+        ConnectionRoute route = recentWrites.readRoute(taskEntity.getTaskId());
+
+        Mono<TaskEntity> read = route == ConnectionRoute.REPLICA
+                ? Mono.defer(() -> coalescedRead(taskEntity.getTaskId()))
+                : repository.findById(taskEntity.getTaskId()).contextWrite(route::applyTo);
 
-        return repository.findById(taskEntity.getTaskId())
-                .switchIfEmpty(Mono.error(new TaskNotFoundException("Given task is not found : " + taskDTO.taskId())))
+        return read
+                // the supplier creates the exception only on a miss, not for every lookup
+                .switchIfEmpty(Mono.defer(() -> {
+                    if (filtered) {
+                        knownTasks.recordFalsePositive();
+                    }
+                    return Mono.error(notFound(taskDTO.taskId()));
+                }))
                 .map(task -> {
                     log.info("details for task {} : total duration is {} ms and has updated {} times", task.getTaskId(), task.getTotalDurationMs(), task.getCounter());
                     return new TaskDTO(task.getTaskId(), task.getTotalDurationMs() / task.getCounter());
                 });
     }
 
+    private static TaskNotFoundException notFound(String taskId) {
+        return new TaskNotFoundException("Given task is not found : " + taskId);
+    }
+
+    private Mono<TaskEntity> coalescedRead(String taskId) {
+        boolean[] joined = {true};
+        Mono<TaskEntity> read = inFlightReads.computeIfAbsent(taskId, id -> {
+            joined[0] = false;
+            return sharedRead(id);
+        });
+        (joined[0] ? coalescedReads : queriedReads).increment();
+        return read;
+    }
+
+    private Mono<TaskEntity> sharedRead(String taskId) {
+        AtomicReference<Mono<TaskEntity>> self = new AtomicReference<>();
+        // replay(1).refCount() cancels the query once the last caller cancels, and hands the row to a caller
+        // joining between the row and the completion, which publish() would complete empty; removing by
+        // value keeps a caller joining after the completion from evicting the next read of the task
+        Mono<TaskEntity> shared = repository.findById(taskId)
+                .contextWrite(ConnectionRoute.REPLICA::applyTo)
+                .doFinally(signal -> inFlightReads.remove(taskId, self.get()))
+                .flux()
+                .replay(1)
+                .refCount()
+                .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+
+    private static Counter readCounter(boolean coalesced, MeterRegistry meterRegistry) {
+        return Counter.builder("tasks.average.reads")
+                .description("Average reads, coalesced when they joined a read of the same task in flight")
+                .tag("coalesced", Boolean.toString(coalesced))
+                .register(meterRegistry);
+    }
 }
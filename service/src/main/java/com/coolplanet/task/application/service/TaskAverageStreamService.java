@@ -0,0 +1,60 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service streaming the average duration of a task as it changes, replacing client-side polling of
+ * {@code GET /tasks/{taskId}/average}.
+ *
+ * Responsibilities:
+ * - Subscribes to the {@link TaskChangeBus} first, then reads the current row from the primary, so
+ *   that no write between the two is missed. A task that does not exist yet emits its first average
+ *   once it is written.
+ * - Emits only rows newer than the last one emitted, judged by their counter, so the initial read and
+ *   a concurrent update can arrive in either order without the stream going backwards.
+ * - Conflates: when the consumer (typically a slow SSE client) lags behind, intermediate averages are
+ *   dropped and only the latest one is delivered.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the service.
+ * - {@code @Service}: Indicates that this class is a Spring service component.
+ *
+ * Exceptions:
+ * - OverloadedException: Signalled if this instance already serves the maximum number of streams.
+ */
+@Slf4j
+@Service
+public class TaskAverageStreamService {
+
+    private final TaskRepository repository;
+    private final TaskChangeBus changeBus;
+
+    public TaskAverageStreamService(TaskRepository repository, TaskChangeBus changeBus) {
+        this.repository = repository;
+        this.changeBus = changeBus;
+    }
+
+    public Flux<TaskDTO> stream(String taskId) {
+        return Flux.defer(() -> {
+            log.info("Streaming average duration for task : {}", taskId);
+            AtomicLong lastCounter = new AtomicLong();
+            return Flux.merge(changeBus.changes(taskId),
+                            repository.findById(taskId).contextWrite(ConnectionRoute.READ::applyTo))
+                    .filter(task -> task.getCounter() > lastCounter.getAndAccumulate(task.getCounter(), Math::max))
+                    .map(TaskAverageStreamService::average);
+        }).onBackpressureLatest();
+    }
+
+    private static TaskDTO average(TaskEntity task) {
+        return new TaskDTO(task.getTaskId(), task.getTotalDurationMs() / task.getCounter());
+    }
+}
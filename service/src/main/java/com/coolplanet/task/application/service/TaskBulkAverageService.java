@@ -0,0 +1,92 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskAveragesRequest;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service implementation looking up the average durations of many tasks in one request, so that
+ * dashboards do not have to issue one {@code GET /tasks/{id}/average} per task.
+ *
+ * Responsibilities:
+ * - Rejects empty lookups and lookups with more than {@code app.tasks.query.max-bulk-ids} IDs.
+ * - Fetches all distinct IDs with a single {@code task_id = ANY(...)} query instead of one round trip
+ *   per task. The query goes to a read replica when replicas are configured, or to the primary when
+ *   read-your-writes applies to any of the tasks (see {@link RecentWriteTracker}).
+ * - Returns one {@link TaskAverageEntry} per requested ID in request order, duplicates included, and
+ *   reports unknown tasks inline instead of failing the whole lookup.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the service.
+ * - {@code @Service}: Indicates that this class is a Spring service component.
+ *
+ * Exceptions:
+ * - InvalidRequestException: Thrown if the lookup is empty, contains a blank ID or exceeds the limit.
+ */
+@Slf4j
+@Service
+public class TaskBulkAverageService implements TaskService<List<TaskAverageEntry>, TaskContext> {
+
+    private final TaskRepository repository;
+    private final RecentWriteTracker recentWrites;
+    private final TaskQueryProperties properties;
+
+    public TaskBulkAverageService(TaskRepository repository, RecentWriteTracker recentWrites,
+                                  TaskQueryProperties properties) {
+        this.repository = repository;
+        this.recentWrites = recentWrites;
+        this.properties = properties;
+    }
+
+    public Mono<List<TaskAverageEntry>> process(TaskContext taskContext) {
+        List<String> taskIds = ((TaskAveragesRequest) taskContext.request).taskIds();
+        if (taskIds == null || taskIds.isEmpty()) {
+            return Mono.error(new InvalidRequestException("At least one task ID is required"));
+        }
+        if (taskIds.size() > properties.maxBulkIds()) {
+            return Mono.error(new InvalidRequestException("Too many task IDs: " + taskIds.size()
+                    + ", at most " + properties.maxBulkIds() + " are allowed per request"));
+        }
+        if (taskIds.stream().anyMatch(taskId -> taskId == null || taskId.isBlank())) {
+            return Mono.error(new InvalidRequestException("Task IDs must not be blank"));
+        }
+
+        Set<String> distinctIds = new LinkedHashSet<>(taskIds);
+        log.info("Calculating average duration for {} tasks", distinctIds.size());
+
+        ConnectionRoute route = distinctIds.stream()
+                .anyMatch(taskId -> recentWrites.readRoute(taskId) == ConnectionRoute.READ)
+                ? ConnectionRoute.READ
+                : ConnectionRoute.REPLICA;
+
+        return repository.findAllByTaskIds(distinctIds.toArray(String[]::new))
+                .contextWrite(route::applyTo)
+                .collectMap(TaskEntity::getTaskId)
+                .map(tasks -> entries(taskIds, tasks));
+    }
+
+    private static List<TaskAverageEntry> entries(List<String> taskIds, Map<String, TaskEntity> tasks) {
+        return taskIds.stream()
+                .map(taskId -> {
+                    TaskEntity task = tasks.get(taskId);
+                    return task == null
+                            ? TaskAverageEntry.missing(taskId)
+                            : TaskAverageEntry.found(taskId, task.getTotalDurationMs() / task.getCounter());
+                })
+                .toList();
+    }
+}
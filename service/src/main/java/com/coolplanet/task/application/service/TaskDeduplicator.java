@@ -0,0 +1,238 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.application.util.ScalableBloomFilter;
+import com.coolplanet.task.config.DedupProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.infrastructure.TaskDedupStore;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies samples carrying an idempotency key at most once within the retention window.
+ *
+ * Responsibilities:
+ * - Hashes every key to 16 bytes (MD5); only the hash is kept, in memory and in the database.
+ * - Keeps one {@link ScalableBloomFilter} per day of the retention window. A key none of them
+ *   contains is new for sure and is claimed directly, together with its sample, without any lookup.
+ * - Confirms the probable duplicates reported by the filters against the dedup table: a key found
+ *   there is skipped, a false positive is claimed like a new key.
+ * - Claims keys with {@link TaskRepository#upsertOnce}, which also rejects a duplicate that raced
+ *   past the filters, e.g. two retries arriving at the same time or a key that reached another
+ *   instance first, including one claimed on an earlier day of the window.
+ * - Rebuilds the filters from the dedup table on start. Until that completes, every key is confirmed
+ *   against the dedup table as if the filters had reported it.
+ * - Creates the partitions of today and the upcoming days before {@link #start()} returns, so no keyed
+ *   insert finds its day without a partition, then periodically creates upcoming daily partitions,
+ *   drops expired ones and forgets the filters of days that left the window.
+ * - Counts keys in {@code tasks.dedup} by outcome ({@code new}, {@code false_positive},
+ *   {@code duplicate}) and exports the memory of the filters as {@code tasks.dedup.filter.bytes}.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the service.
+ * - {@code @Service}: Indicates that this class is a Spring service component.
+ */
+@Slf4j
+@Service
+public class TaskDeduplicator implements SmartLifecycle {
+
+    private static final int WARMUP_FETCH_SIZE = 10_000;
+    private static final int PARTITIONS_AHEAD = 2;
+    private static final Duration STARTUP_MAINTENANCE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final TaskRepository repository;
+    private final TaskDedupStore store;
+    private final DedupProperties properties;
+    private final Clock clock;
+    private final ConcurrentHashMap<LocalDate, ScalableBloomFilter> filters = new ConcurrentHashMap<>();
+    private final Counter newKeys;
+    private final Counter falsePositives;
+    private final Counter duplicates;
+
+    private volatile Disposable maintenance;
+    private volatile Disposable warmup;
+    private volatile boolean warmedUp;
+
+    // explicit, ahead-of-time processing does not fall back to the single public constructor
+    @Autowired
+    public TaskDeduplicator(TaskRepository repository, TaskDedupStore store, DedupProperties properties,
+                            MeterRegistry meterRegistry) {
+        this(repository, store, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    TaskDeduplicator(TaskRepository repository, TaskDedupStore store, DedupProperties properties,
+                     MeterRegistry meterRegistry, Clock clock) {
+        this.repository = repository;
+        this.store = store;
+        this.properties = properties;
+        this.clock = clock;
+        this.newKeys = outcomeCounter("new", meterRegistry);
+        this.falsePositives = outcomeCounter("false_positive", meterRegistry);
+        this.duplicates = outcomeCounter("duplicate", meterRegistry);
+        Gauge.builder("tasks.dedup.filter.bytes", filters,
+                        current -> current.values().stream().mapToLong(ScalableBloomFilter::sizeInBytes).sum())
+                .description("Memory used by the Bloom filters of recent idempotency keys")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds the sample to the task unless a sample with the same idempotency key was applied within
+     * the retention window.
+     *
+     * @return a {@code Mono<TaskEntity>} containing the row after the upsert, or empty for a duplicate
+     */
+    public Mono<TaskEntity> upsertOnce(String idempotencyKey, String taskId, long durationMs) {
+        return Mono.defer(() -> {
+            UUID keyHash = hash(idempotencyKey);
+            LocalDate today = LocalDate.now(clock);
+            // the filters may still miss keys of the window while they are loaded
+            boolean cold = !warmedUp;
+            if (!cold && !mightContain(keyHash, today)) {
+                return claim(keyHash, today, taskId, durationMs, newKeys);
+            }
+            return store.seenSince(keyHash, windowStart(today))
+                    .flatMap(seen -> {
+                        if (seen) {
+                            duplicates.increment();
+                            log.info("Skipping duplicate sample for task {} with idempotency key {}", taskId, idempotencyKey);
+                            return Mono.empty();
+                        }
+                        return claim(keyHash, today, taskId, durationMs, cold ? newKeys : falsePositives);
+                    });
+        });
+    }
+
+    @Override
+    public void start() {
+        boolean partitioned = Boolean.TRUE.equals(maintain()
+                .thenReturn(true)
+                .timeout(STARTUP_MAINTENANCE_TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Failed to create the dedup partitions on start, keyed samples fail until they exist", error);
+                    return Mono.just(false);
+                })
+                .block());
+        warmup = warmUp()
+                .subscribe(keys -> log.info("Loaded {} recent idempotency keys into the dedup filters", keys),
+                        error -> log.warn("Failed to load recent idempotency keys, confirming every key against the dedup table", error));
+        maintenance = Flux.interval(partitioned ? properties.maintenanceInterval() : Duration.ZERO, properties.maintenanceInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> maintain()
+                        .onErrorResume(error -> {
+                            log.warn("Dedup partition maintenance failed, retrying in {}", properties.maintenanceInterval(), error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (warmup != null) {
+            warmup.dispose();
+        }
+        if (maintenance != null) {
+            maintenance.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return maintenance != null && !maintenance.isDisposed();
+    }
+
+    // ahead of the web server, the gRPC server and the consumers, which all start in later phases
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2048;
+    }
+
+    Mono<Void> maintain() {
+        return Mono.defer(() -> {
+            LocalDate today = LocalDate.now(clock);
+            LocalDate windowStart = windowStart(today);
+            filters.keySet().removeIf(day -> day.isBefore(windowStart));
+            return store.createPartitions(today, today.plusDays(PARTITIONS_AHEAD))
+                    .then(store.dropPartitionsBefore(windowStart))
+                    .then();
+        });
+    }
+
+    Mono<Long> warmUp() {
+        return Mono.defer(() -> store.keysSince(windowStart(LocalDate.now(clock)), WARMUP_FETCH_SIZE)
+                .doOnNext(key -> put(key.keyHash(), key.seenOn()))
+                .count()
+                .doOnNext(keys -> warmedUp = true));
+    }
+
+    int filterCount() {
+        return filters.size();
+    }
+
+    static UUID hash(String idempotencyKey) {
+        byte[] digest = MD5.get().digest(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private Mono<TaskEntity> claim(UUID keyHash, LocalDate today, String taskId, long durationMs, Counter outcome) {
+        return repository.upsertOnce(keyHash, today, windowStart(today), taskId, durationMs)
+                .doOnSuccess(task -> {
+                    put(keyHash, today);
+                    (task != null ? outcome : duplicates).increment();
+                });
+    }
+
+    private boolean mightContain(UUID keyHash, LocalDate today) {
+        LocalDate windowStart = windowStart(today);
+        for (var entry : filters.entrySet()) {
+            if (!entry.getKey().isBefore(windowStart)
+                    && entry.getValue().mightContain(keyHash.getMostSignificantBits(), keyHash.getLeastSignificantBits())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(UUID keyHash, LocalDate day) {
+        filters.computeIfAbsent(day, ignored -> new ScalableBloomFilter(properties.expectedKeysPerDay(), properties.falsePositiveRate()))
+                .put(keyHash.getMostSignificantBits(), keyHash.getLeastSignificantBits());
+    }
+
+    private LocalDate windowStart(LocalDate today) {
+        return today.minusDays(Math.max(1, properties.retentionDays()) - 1L);
+    }
+
+    private static Counter outcomeCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("tasks.dedup")
+                .description("Samples with an idempotency key, by deduplication outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
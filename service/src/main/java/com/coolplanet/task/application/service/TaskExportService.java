@@ -0,0 +1,53 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.model.TaskSummary;
+import com.coolplanet.task.infrastructure.TaskExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service exporting every task aggregate as a stream, for the nightly export that used to run
+ * {@code SELECT *} against the primary.
+ *
+ * Responsibilities:
+ * - Streams the tasks from the {@link TaskExporter} cursor with {@code app.tasks.query.export-fetch-size}
+ *   rows per round trip. Rows are only fetched as fast as the client consumes them, so exports of any
+ *   size run in constant heap.
+ * - Logs the number of exported tasks and how the export ended.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the service.
+ * - {@code @Service}: Indicates that this class is a Spring service component.
+ */
+@Slf4j
+@Service
+public class TaskExportService {
+
+    private final TaskExporter exporter;
+    private final TaskQueryProperties properties;
+
+    public TaskExportService(TaskExporter exporter, TaskQueryProperties properties) {
+        this.exporter = exporter;
+        this.properties = properties;
+    }
+
+    public Flux<TaskSummary> export(String after) {
+        return Flux.defer(() -> {
+            String afterTaskId = after != null ? after : "";
+            log.info("Exporting tasks after '{}'", afterTaskId);
+            long start = System.nanoTime();
+            AtomicLong exported = new AtomicLong();
+            return exporter.export(afterTaskId, properties.exportFetchSize())
+                    .map(TaskSummary::of)
+                    .doOnNext(task -> exported.incrementAndGet())
+                    .doFinally(signal -> log.info("Export {} after {} tasks in {} ms",
+                            signal == SignalType.ON_COMPLETE ? "completed" : "ended with " + signal,
+                            exported.get(), (System.nanoTime() - start) / 1_000_000));
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.exception.TrackerException;
+import com.coolplanet.task.domain.model.ImportFormat;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskImportRequest;
+import com.coolplanet.task.domain.model.TaskImportResult;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.TaskCopyImporter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * TaskImportService backfills historical task durations in bulk. It implements the
+ * {@code TaskService} interface for the {@code IMPORT_TASKS} workflow.
+ *
+ * Responsibilities:
+ * - Parses the streamed CSV or NDJSON lines of a {@link TaskImportRequest} into {@link TaskDTO}
+ *   samples, rejecting the import with an {@link InvalidRequestException} on the first invalid line,
+ *   whatever error the aborted {@code COPY} ends with.
+ * - Hands the samples to the {@link TaskCopyImporter}, which loads them with {@code COPY} and merges
+ *   them into the "task" table in one statement, instead of one upsert per sample.
+ * - Records every imported task in the {@link KnownTaskFilter} as it is read, ahead of the merge: an
+ *   import that fails leaves false positives behind, but a merged task is never unknown.
+ * - Logs progress with the current throughput every {@link #PROGRESS_INTERVAL_ROWS} samples and
+ *   returns a {@link TaskImportResult} summarizing the import.
+ *
+ * Imported samples bypass the processing steps, they are historical data that was already
+ * processed by the system it is imported from.
+ */
+@Slf4j
+@Service
+public class TaskImportService implements TaskService<TaskImportResult, TaskContext> {
+
+    static final long PROGRESS_INTERVAL_ROWS = 1_000_000L;
+
+    private final TaskCopyImporter copyImporter;
+    private final ObjectMapper objectMapper;
+    private final KnownTaskFilter knownTasks;
+
+    public TaskImportService(TaskCopyImporter copyImporter, ObjectMapper objectMapper, KnownTaskFilter knownTasks) {
+        this.copyImporter = copyImporter;
+        this.objectMapper = objectMapper;
+        this.knownTasks = knownTasks;
+    }
+
+    public Mono<TaskImportResult> process(TaskContext taskContext) {
+        TaskImportRequest request = (TaskImportRequest) taskContext.request;
+        String importId = UUID.randomUUID().toString().replace("-", "");
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong lineNumber = new AtomicLong();
+            AtomicLong samples = new AtomicLong();
+            AtomicReference<InvalidRequestException> invalidLine = new AtomicReference<>();
+            log.info("Starting {} import {}", request.format(), importId);
+
+            Flux<TaskDTO> parsed = request.lines()
+                    .handle((String line, SynchronousSink<TaskDTO> sink) -> {
+                        try {
+                            TaskDTO sample = parse(line, lineNumber.incrementAndGet(), request.format());
+                            if (sample != null) {
+                                sink.next(sample);
+                            }
+                        } catch (InvalidRequestException invalidRequestException) {
+                            invalidLine.set(invalidRequestException);
+                            sink.error(invalidRequestException);
+                        }
+                    })
+                    .doOnNext(sample -> {
+                        knownTasks.recordWrite(sample.taskId());
+                        long count = samples.incrementAndGet();
+                        if (count % PROGRESS_INTERVAL_ROWS == 0) {
+                            log.info("Import {}: {} rows copied, {} rows/s", importId, count, rowsPerSecond(count, start));
+                        }
+                    });
+
+            return copyImporter.importTasks(importId, parsed)
+                    .map(result -> {
+                        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        log.info("Import {} finished: {} rows merged into {} tasks in {} ms, {} rows/s",
+                                importId, result.rows(), result.tasks(), elapsedMs, rowsPerSecond(result.rows(), start));
+                        return new TaskImportResult(importId, result.rows(), result.tasks(), elapsedMs,
+                                rowsPerSecond(result.rows(), start));
+                    })
+                    // the driver may report the aborted COPY instead of the error that aborted it
+                    .onErrorMap(ex -> invalidLine.get() != null, ex -> invalidLine.get());
+        }).onErrorMap(ex -> !(ex instanceof TrackerException), ex -> {
+            log.error("Error importing tasks in import {}", importId, ex);
+            return new ProcessingException(String.format("Failed to import tasks: %s, %s", importId, ex.getMessage()));
+        });
+    }
+
+    /**
+     * Parses one input line, returning {@code null} for lines that carry no sample (blank lines and
+     * the CSV header).
+     */
+    TaskDTO parse(String line, long lineNumber, ImportFormat format) {
+        if (line.isBlank()) {
+            return null;
+        }
+        TaskDTO sample = switch (format) {
+            case CSV -> parseCsv(line, lineNumber);
+            case NDJSON -> parseJson(line, lineNumber);
+        };
+        if (sample != null && (sample.taskId() == null || sample.taskId().isBlank() || sample.totalDurationMs() <= 0)) {
+            throw invalidLine(lineNumber, "task id must not be blank and duration must be positive");
+        }
+        return sample;
+    }
+
+    private TaskDTO parseCsv(String line, long lineNumber) {
+        int comma = line.indexOf(',');
+        if (comma < 0) {
+            throw invalidLine(lineNumber, "expected taskId,durationMs");
+        }
+        String duration = line.substring(comma + 1).trim();
+        try {
+            return new TaskDTO(line.substring(0, comma).trim(), Long.parseLong(duration));
+        } catch (NumberFormatException numberFormatException) {
+            if (lineNumber == 1) {
+                return null;
+            }
+            throw invalidLine(lineNumber, "invalid duration '" + duration + "'");
+        }
+    }
+
+    private TaskDTO parseJson(String line, long lineNumber) {
+        try {
+            return objectMapper.readValue(line, TaskDTO.class);
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw invalidLine(lineNumber, jsonProcessingException.getOriginalMessage());
+        }
+    }
+
+    private static InvalidRequestException invalidLine(long lineNumber, String reason) {
+        return new InvalidRequestException(String.format("Invalid import line %d: %s", lineNumber, reason));
+    }
+
+    private static long rowsPerSecond(long rows, long startNanos) {
+        long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+        return (long) (rows / (elapsedNanos / 1e9));
+    }
+}
@@ -0,0 +1,71 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskPage;
+import com.coolplanet.task.domain.model.TaskPageRequest;
+import com.coolplanet.task.domain.model.TaskSummary;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Service implementation listing task aggregates page by page, in {@code task_id} order.
+ *
+ * Responsibilities:
+ * - Uses keyset pagination: a page is the next {@code limit} tasks after the cursor, found by seeking
+ *   the primary key index, so deep pages cost as much as the first one.
+ * - Fetches one row more than requested to tell whether another page follows, and returns the last
+ *   task ID of the page as the cursor of the next one.
+ * - Reads from a replica when replicas are configured, since listings tolerate replication lag.
+ * - Rejects limits below 1 or above {@code app.tasks.query.max-page-size}.
+ *
+ * Annotations:
+ * - {@code @Slf4j}: Provides logging capabilities for the service.
+ * - {@code @Service}: Indicates that this class is a Spring service component.
+ *
+ * Exceptions:
+ * - InvalidRequestException: Thrown if the requested limit is out of range.
+ */
+@Slf4j
+@Service
+public class TaskListService implements TaskService<TaskPage, TaskContext> {
+
+    private final TaskRepository repository;
+    private final TaskQueryProperties properties;
+
+    public TaskListService(TaskRepository repository, TaskQueryProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    public Mono<TaskPage> process(TaskContext taskContext) {
+        TaskPageRequest request = (TaskPageRequest) taskContext.request;
+        int limit = request.limit() != null ? request.limit() : properties.defaultPageSize();
+        if (limit < 1 || limit > properties.maxPageSize()) {
+            return Mono.error(new InvalidRequestException("Limit must be between 1 and " + properties.maxPageSize()
+                    + ", was " + limit));
+        }
+        String after = request.after() != null ? request.after() : "";
+        log.info("Listing {} tasks after '{}'", limit, after);
+
+        return repository.findPageAfter(after, limit + 1)
+                .contextWrite(ConnectionRoute.REPLICA::applyTo)
+                .map(TaskSummary::of)
+                .collectList()
+                .map(tasks -> page(tasks, limit));
+    }
+
+    private static TaskPage page(List<TaskSummary> tasks, int limit) {
+        if (tasks.size() <= limit) {
+            return new TaskPage(tasks, null);
+        }
+        List<TaskSummary> page = tasks.subList(0, limit);
+        return new TaskPage(page, page.get(limit - 1).taskId());
+    }
+}
@@ -1,14 +1,22 @@
 
 package com.coolplanet.task.application.service;
 
+import com.coolplanet.task.application.IngestRouter;
+import com.coolplanet.task.application.processor.ProcessingStep;
 import com.coolplanet.task.application.processor.ProcessingStepFactory;
 import com.coolplanet.task.domain.entity.TaskEntity;
 import com.coolplanet.task.domain.exception.ProcessingException;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
 import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.PipelinedTaskWriter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
 import com.coolplanet.task.infrastructure.TaskRepository;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -22,7 +30,17 @@ import reactor.core.scheduler.Schedulers;
  * This service performs the following key operations:
  * - Delegates task-specific steps to a factory-provided list of {@code ProcessingStep} instances.
  * - Retrieves or creates a {@code TaskEntity} from the repository for tracking task execution.
- * - Aggregates task execution duration by upserting data into the repository.
+ * - Aggregates task execution duration by upserting data into the repository, or through the
+ *   {@link PipelinedTaskWriter} when {@code app.r2dbc.pipeline.enabled} is set, and records the
+ *   write for read-your-writes routing of subsequent average queries and in the {@link KnownTaskFilter}.
+ * - Applies samples carrying an idempotency key through the {@link TaskDeduplicator}, which skips
+ *   retries of a sample already counted; those are answered with the status {@code DUPLICATE}.
+ * - Reports the latency of every write to the {@link IngestRouter}, which weighs it against Kafka
+ *   in the adaptive ingest mode.
+ * - Publishes the updated row on the {@link TaskChangeBus} for live average streams. The Kafka
+ *   consumer processes through this service too, so both write paths publish.
+ * - Applies warm-up samples ({@link TaskContext#warmup}) through the repository only, in the caller's
+ *   transaction, without recording, reporting or publishing them.
  * - Handles errors in task processing and maps them to a custom exception.
  *
  * The processing of steps and repository interactions is performed in a
@@ -38,10 +56,25 @@ public class TaskProcessorService implements TaskService<TaskResponse, TaskConte
 
     private final TaskRepository repository;
     private final ProcessingStepFactory stepFactory;
+    private final PipelinedTaskWriter pipelinedWriter;
+    private final RecentWriteTracker recentWrites;
+    private final TaskChangeBus changeBus;
+    private final TaskDeduplicator deduplicator;
+    private final IngestRouter ingestRouter;
+    private final KnownTaskFilter knownTasks;
 
-    public TaskProcessorService(TaskRepository repository, ProcessingStepFactory stepFactory) {
+    public TaskProcessorService(TaskRepository repository, ProcessingStepFactory stepFactory,
+                                ObjectProvider<PipelinedTaskWriter> pipelinedWriter, RecentWriteTracker recentWrites,
+                                TaskChangeBus changeBus, TaskDeduplicator deduplicator, IngestRouter ingestRouter,
+                                KnownTaskFilter knownTasks) {
         this.repository = repository;
         this.stepFactory = stepFactory;
+        this.pipelinedWriter = pipelinedWriter.getIfAvailable();
+        this.recentWrites = recentWrites;
+        this.changeBus = changeBus;
+        this.deduplicator = deduplicator;
+        this.ingestRouter = ingestRouter;
+        this.knownTasks = knownTasks;
     }
 
     public Mono<TaskResponse> process(TaskContext taskContext) {
@@ -51,24 +84,54 @@ public class TaskProcessorService implements TaskService<TaskResponse, TaskConte
             log.info("Processing task : {} {} ",taskDTO.taskId(), taskDTO.totalDurationMs());
 
             TaskEntity taskEntity = new TaskEntity(taskDTO.taskId(), taskDTO.totalDurationMs());
+            long start = System.nanoTime();
 
             // Step execution is non-blocking but offloaded to boundedElastic
             return Mono.fromRunnable(() -> runSteps(taskContext))
                     .subscribeOn(Schedulers.boundedElastic())
                     // Using upsert to ensure atomicity of total duration and counter updates
-                    .then(repository.upsert(taskEntity.getTaskId(), taskEntity.getTotalDurationMs()))
-                    .doOnNext(totalDurationMs ->
-                            log.info("New total duration: {}", totalDurationMs)
-                    ).thenReturn(new TaskResponse("OK"));
+                    .then(upsert(taskEntity, taskContext))
+                    .doOnSuccess(task -> {
+                        if (!taskContext.warmup) {
+                            recentWrites.recordWrite(taskEntity.getTaskId());
+                            knownTasks.recordWrite(taskEntity.getTaskId());
+                            ingestRouter.recordWriteLatency(System.nanoTime() - start);
+                        }
+                    })
+                    .doOnNext(task -> {
+                        log.info("New total duration: {}", task.getTotalDurationMs());
+                        if (!taskContext.warmup) {
+                            changeBus.publish(task);
+                        }
+                    })
+                    .map(task -> new TaskResponse("OK"))
+                    // without a key an empty upsert still counts as OK, with one it marks a duplicate
+                    .defaultIfEmpty(new TaskResponse(taskContext.idempotencyKey != null ? "DUPLICATE" : "OK"));
         }).onErrorMap(ex -> {
             log.error("Error processing taskDTO {}", taskDTO.taskId(), ex);
-            String errorMessage = String.format("Failed to process taskDTO: %s, %s", taskDTO.taskId(),  ex.getMessage());
-            return new ProcessingException(errorMessage);
+            return new ProcessingException("Failed to process taskDTO: " + taskDTO.taskId() + ", " + ex.getMessage());
         });
     }
 
+    private Mono<TaskEntity> upsert(TaskEntity taskEntity, TaskContext taskContext) {
+        if (taskContext.idempotencyKey != null) {
+            return TaskEvents.upsert(deduplicator.upsertOnce(taskContext.idempotencyKey, taskEntity.getTaskId(),
+                    taskEntity.getTotalDurationMs()), "deduplicator", taskEntity.getTaskId());
+        }
+        // the pipelined writer commits on its own connection, outside the warm-up's transaction
+        if (pipelinedWriter != null && !taskContext.warmup) {
+            return TaskEvents.upsert(pipelinedWriter.upsert(taskEntity.getTaskId(), taskEntity.getTotalDurationMs()),
+                    "pipelined", taskEntity.getTaskId());
+        }
+        return TaskEvents.upsert(repository.upsert(taskEntity.getTaskId(), taskEntity.getTotalDurationMs()),
+                "repository", taskEntity.getTaskId());
+    }
+
     private void runSteps(TaskContext taskContext) {
-        stepFactory.getSteps().forEach(step -> step.execute(taskContext.request));
+        String taskId = ((TaskDTO) taskContext.request).taskId();
+        for (ProcessingStep step : stepFactory.getSteps()) {
+            TaskEvents.step(step, taskContext.request, taskId);
+        }
     }
 
 }
@@ -0,0 +1,53 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.exception.TrackerException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.infrastructure.wal.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WalIngestService accepts tasks in the write-ahead log ingest mode. It implements the
+ * {@code TaskService} interface so that {@code ProcessorHandler} can dispatch to it exactly like it
+ * dispatches to {@code TaskProcessorService}.
+ *
+ * Responsibilities:
+ * - Appends the sample to the local {@link WriteAheadLog}.
+ * - Completes with {@code TaskResponse("OK")} only after the group containing the sample has been
+ *   fsynced, so an acknowledged sample survives a process crash.
+ * - Leaves processing steps and persistence to the {@code WalShipper}, keeping both Postgres and
+ *   Kafka off the request path.
+ *
+ * The bean only exists when {@code features.task.ingest-mode} is {@code wal}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "features.task", name = "ingest-mode", havingValue = "wal")
+public class WalIngestService implements TaskService<TaskResponse, TaskContext> {
+
+    private final WriteAheadLog writeAheadLog;
+
+    public WalIngestService(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public Mono<TaskResponse> process(TaskContext taskContext) {
+        TaskDTO taskDTO = (TaskDTO) taskContext.request;
+
+        return Mono.fromFuture(() -> writeAheadLog.append(taskDTO.taskId(), taskDTO.totalDurationMs()))
+                // futures complete on the WAL writer thread, which must go straight back to the next group
+                .publishOn(Schedulers.parallel())
+                .doOnNext(position -> log.debug("Task {} appended to write-ahead log at {}", taskDTO.taskId(), position))
+                .thenReturn(new TaskResponse("OK"))
+                .onErrorMap(ex -> !(ex instanceof TrackerException), ex -> {
+                    log.error("Error appending taskDTO {} to write-ahead log", taskDTO.taskId(), ex);
+                    return new ProcessingException("Failed to append taskDTO: " + taskDTO.taskId() + ", " + ex.getMessage());
+                });
+    }
+}
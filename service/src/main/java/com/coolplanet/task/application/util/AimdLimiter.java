@@ -0,0 +1,87 @@
+package com.coolplanet.task.application.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AimdLimiter is a concurrency limit that adapts to the observed latency with AIMD (additive
+ * increase, multiplicative decrease), the congestion control scheme of TCP.
+ *
+ * Behavior:
+ * - {@link #tryAcquire()} admits a request while fewer than {@code limit} requests are in flight, and
+ *   rejects it otherwise; it never waits.
+ * - {@link #release(long, boolean)} reports how the request went. A request slower than the latency
+ *   target, or one that failed, multiplies the limit by the backoff ratio. A fast request grows it by
+ *   one, but only if at least half of the limit was in use, so an idle service does not inflate its
+ *   limit to the maximum.
+ * - The limit stays within {@code [minLimit, maxLimit]}.
+ *
+ * Thread Safety:
+ * - Admission is lock-free. Limit updates are serialized, and cheap compared to a request.
+ */
+public class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid limits [" + minLimit + ", " + maxLimit + "] or backoff ratio " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admits a request if the limit allows it. Every admitted request must be released exactly once.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and adapts the limit to its outcome.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        adapt(latencyNanos, failed, inFlightBefore);
+    }
+
+    /**
+     * Releases an admitted request without adapting the limit, e.g. when the client went away.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void adapt(long latencyNanos, boolean failed, int inFlightBefore) {
+        if (failed || latencyNanos > latencyTargetNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
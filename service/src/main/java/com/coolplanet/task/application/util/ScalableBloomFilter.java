@@ -0,0 +1,144 @@
+package com.coolplanet.task.application.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ScalableBloomFilter is a thread-safe Bloom filter that grows with the number of added elements
+ * while keeping its overall false positive rate bounded (Almeida et al., "Scalable Bloom Filters").
+ *
+ * Layout:
+ * - The filter is a list of plain Bloom filter slices. Elements are always added to the last slice;
+ *   once it holds its capacity, a new slice with {@link #GROWTH} times the capacity is appended.
+ * - Slice {@code i} targets a false positive rate of {@code p * (1 - TIGHTENING) * TIGHTENING^i}, so the
+ *   compound rate of all slices stays below {@code p} however many slices are added.
+ * - Each slice is one {@code AtomicLongArray} of bits; {@code k} bit positions are derived from two
+ *   64-bit hashes by double hashing ({@code h1 + i * h2}, with {@code h2} forced odd).
+ *
+ * Hashing:
+ * - The filter does not hash elements itself. Callers pass two well-mixed 64-bit halves of a hash of
+ *   the element, e.g. the two halves of an MD5 digest, so the same hash can also be stored elsewhere.
+ *
+ * Thread Safety:
+ * - {@code put} and {@code mightContain} may be called concurrently. Bits are set with CAS, and a
+ *   {@code mightContain} racing with the {@code put} of the same element may miss it, like with any
+ *   lock-free Bloom filter. Growth is serialized.
+ */
+public class ScalableBloomFilter {
+
+    static final int GROWTH = 2;
+    static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private volatile List<Slice> slices;
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid capacity " + initialCapacity + " or false positive rate " + falsePositiveRate);
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        this.slices = List.of(new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    public void put(long hash1, long hash2) {
+        List<Slice> current = slices;
+        Slice slice = current.get(current.size() - 1);
+        if (slice.count.get() >= slice.capacity) {
+            slice = grow(slice);
+        }
+        slice.put(hash1, hash2);
+        slice.count.incrementAndGet();
+    }
+
+    public boolean mightContain(long hash1, long hash2) {
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of elements added so far, counting duplicates.
+     */
+    public long count() {
+        long count = 0;
+        for (Slice slice : slices) {
+            count += slice.count.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the memory used by the bit arrays, in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Slice slice : slices) {
+            bytes += slice.bits.length() * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    int sliceCount() {
+        return slices.size();
+    }
+
+    private synchronized Slice grow(Slice full) {
+        List<Slice> current = slices;
+        Slice last = current.get(current.size() - 1);
+        if (last != full) {
+            // another thread grew the filter meanwhile
+            return last;
+        }
+        double rate = falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, current.size());
+        Slice next = new Slice((int) Math.min(Integer.MAX_VALUE, (long) full.capacity * GROWTH), rate);
+        List<Slice> grown = new ArrayList<>(current);
+        grown.add(next);
+        slices = List.copyOf(grown);
+        return next;
+    }
+
+    private static final class Slice {
+
+        final AtomicLongArray bits;
+        final long bitCount;
+        final int hashCount;
+        final int capacity;
+        final AtomicInteger count = new AtomicInteger();
+
+        Slice(int capacity, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.ceil(-Math.log(falsePositiveRate) / Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        void put(long hash1, long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * (hash2 | 1), bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = bits.get(word);
+                while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                    value = bits.get(word);
+                }
+            }
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * (hash2 | 1), bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.coolplanet.task.application.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * TaskAggregateMap is an open-addressing hash map from a task identifier to its running
+ * aggregate ({@code total_duration_ms} and {@code counter}) that never boxes.
+ *
+ * Layout:
+ * - Keys are stored as UTF-8 bytes in a single growable byte arena; each entry only records the
+ *   offset and length of its key inside the arena.
+ * - Totals and counters live in parallel {@code long[]} columns indexed by entry number, so an
+ *   update is two array writes instead of replacing a {@code TaskEntity} with boxed {@code Long}s.
+ * - A power-of-two slot table with linear probing maps a key hash to its entry number.
+ *
+ * Lookups:
+ * - {@code indexOf(CharSequence)} encodes the key into a reusable scratch buffer, so looking up a
+ *   {@code String}, {@code StringBuilder} or any other {@code CharSequence} does not allocate.
+ * - {@code indexOf(byte[], int, int)} looks up a UTF-8 slice directly, e.g. a key read from a Kafka
+ *   record or a WAL segment, without materialising a {@code String}.
+ *
+ * Entry numbers are dense ({@code 0 .. size() - 1}) and stay valid until the next {@code remove}
+ * or {@code clear}, which makes the map convenient to iterate when flushing a batch of aggregates.
+ *
+ * Thread Safety:
+ * - Instances are not thread-safe. Aggregators own their map on a single thread; shared caches
+ *   must guard every call with their own lock.
+ */
+public class TaskAggregateMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] slots;
+    private int mask;
+
+    private int[] hashes;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private long[] totals;
+    private long[] counters;
+    private int size;
+
+    private byte[] arena;
+    private int arenaUsed;
+    private int arenaDead;
+
+    private byte[] scratch = new byte[64];
+
+    public TaskAggregateMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TaskAggregateMap(int expectedSize) {
+        int entries = Math.max(DEFAULT_CAPACITY, expectedSize);
+        int slotCount = Integer.highestOneBit((int) Math.ceil(entries / LOAD_FACTOR) - 1) << 1;
+        this.slots = new int[slotCount];
+        this.mask = slotCount - 1;
+        this.hashes = new int[entries];
+        this.keyOffsets = new int[entries];
+        this.keyLengths = new int[entries];
+        this.totals = new long[entries];
+        this.counters = new long[entries];
+        this.arena = new byte[entries * 16];
+    }
+
+    /**
+     * Returns the entry number for the given key, or {@code -1} if it is absent.
+     */
+    public int indexOf(CharSequence taskId) {
+        int length = encode(taskId);
+        return indexOf(scratch, 0, length);
+    }
+
+    /**
+     * Returns the entry number for the UTF-8 encoded key in {@code bytes[offset, offset + length)},
+     * or {@code -1} if it is absent.
+     */
+    public int indexOf(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (hashes[entry] == hash && keyEquals(entry, bytes, offset, length)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code durationMs} to the total and {@code count} to the counter of the given task,
+     * inserting it first if it is not present yet.
+     *
+     * @return the entry number holding the task's aggregate
+     */
+    public int add(CharSequence taskId, long durationMs, long count) {
+        int length = encode(taskId);
+        return add(scratch, 0, length, durationMs, count);
+    }
+
+    /**
+     * Byte-slice variant of {@link #add(CharSequence, long, long)}.
+     */
+    public int add(byte[] bytes, int offset, int length, long durationMs, long count) {
+        int hash = hash(bytes, offset, length);
+        int slot = hash & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                break;
+            }
+            if (hashes[entry] == hash && keyEquals(entry, bytes, offset, length)) {
+                totals[entry] += durationMs;
+                counters[entry] += count;
+                return entry;
+            }
+        }
+
+        int entry = size++;
+        ensureEntryCapacity(size);
+        ensureArenaCapacity(length);
+        System.arraycopy(bytes, offset, arena, arenaUsed, length);
+        hashes[entry] = hash;
+        keyOffsets[entry] = arenaUsed;
+        keyLengths[entry] = length;
+        totals[entry] = durationMs;
+        counters[entry] = count;
+        arenaUsed += length;
+        slots[slot] = entry + 1;
+
+        if (size > slots.length * LOAD_FACTOR) {
+            rehash(slots.length << 1);
+        }
+        return entry;
+    }
+
+    /**
+     * Overwrites the aggregate of the given task, inserting it if needed. Used by caches that
+     * mirror the authoritative row instead of accumulating deltas.
+     *
+     * @return the entry number holding the task's aggregate
+     */
+    public int put(CharSequence taskId, long totalDurationMs, long counter) {
+        int entry = add(taskId, 0L, 0L);
+        totals[entry] = totalDurationMs;
+        counters[entry] = counter;
+        return entry;
+    }
+
+    /**
+     * Removes the given task. The last entry is moved into the freed entry number, so entry numbers
+     * obtained before this call must not be reused.
+     *
+     * @return {@code true} if the task was present
+     */
+    public boolean remove(CharSequence taskId) {
+        int length = encode(taskId);
+        int hash = hash(scratch, 0, length);
+        int slot = hash & mask;
+        int entry;
+        for (; ; slot = (slot + 1) & mask) {
+            entry = slots[slot] - 1;
+            if (entry < 0) {
+                return false;
+            }
+            if (hashes[entry] == hash && keyEquals(entry, scratch, 0, length)) {
+                break;
+            }
+        }
+
+        deleteSlot(slot);
+        arenaDead += keyLengths[entry];
+
+        int last = --size;
+        if (entry != last) {
+            slots[slotOf(last)] = entry + 1;
+            hashes[entry] = hashes[last];
+            keyOffsets[entry] = keyOffsets[last];
+            keyLengths[entry] = keyLengths[last];
+            totals[entry] = totals[last];
+            counters[entry] = counters[last];
+        }
+
+        if (arenaDead > arenaUsed / 2) {
+            compactArena();
+        }
+        return true;
+    }
+
+    public long total(int entry) {
+        checkEntry(entry);
+        return totals[entry];
+    }
+
+    public long counter(int entry) {
+        checkEntry(entry);
+        return counters[entry];
+    }
+
+    /**
+     * Integer average of the entry, matching the {@code total / counter} division used by
+     * {@code TaskAverageService}; {@code 0} when the counter is zero.
+     */
+    public long average(int entry) {
+        checkEntry(entry);
+        return counters[entry] == 0 ? 0 : totals[entry] / counters[entry];
+    }
+
+    /**
+     * Materialises the key of an entry. This allocates and is meant for flush and export paths,
+     * not for lookups.
+     */
+    public String taskId(int entry) {
+        checkEntry(entry);
+        return new String(arena, keyOffsets[entry], keyLengths[entry], StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry while keeping the allocated arrays, so a map reused per batch reaches a
+     * steady state without further allocation.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        arenaUsed = 0;
+        arenaDead = 0;
+    }
+
+    private int slotOf(int entry) {
+        for (int slot = hashes[entry] & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == entry + 1) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion for linear probing: pulls later members of the probe chain into the
+     * hole so that lookups never need tombstones.
+     */
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                break;
+            }
+            int home = hashes[entry] & mask;
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private boolean keyEquals(int entry, byte[] bytes, int offset, int length) {
+        int keyOffset = keyOffsets[entry];
+        return keyLengths[entry] == length
+                && Arrays.equals(arena, keyOffset, keyOffset + length, bytes, offset, offset + length);
+    }
+
+    private void rehash(int slotCount) {
+        slots = new int[slotCount];
+        mask = slotCount - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private void ensureEntryCapacity(int required) {
+        if (required <= hashes.length) {
+            return;
+        }
+        int capacity = Math.max(required, hashes.length << 1);
+        hashes = Arrays.copyOf(hashes, capacity);
+        keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+        keyLengths = Arrays.copyOf(keyLengths, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+        counters = Arrays.copyOf(counters, capacity);
+    }
+
+    private void ensureArenaCapacity(int length) {
+        if (arenaUsed + length <= arena.length) {
+            return;
+        }
+        if (arenaDead > 0) {
+            compactArena();
+            if (arenaUsed + length <= arena.length) {
+                return;
+            }
+        }
+        arena = Arrays.copyOf(arena, Math.max(arenaUsed + length, arena.length << 1));
+    }
+
+    private void compactArena() {
+        byte[] compacted = new byte[arena.length];
+        int used = 0;
+        for (int entry = 0; entry < size; entry++) {
+            System.arraycopy(arena, keyOffsets[entry], compacted, used, keyLengths[entry]);
+            keyOffsets[entry] = used;
+            used += keyLengths[entry];
+        }
+        arena = compacted;
+        arenaUsed = used;
+        arenaDead = 0;
+    }
+
+    private void checkEntry(int entry) {
+        if (entry < 0 || entry >= size) {
+            throw new IndexOutOfBoundsException("Entry " + entry + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * Encodes the key into the scratch buffer as UTF-8 and returns the encoded length. Unpaired
+     * surrogates are written as {@code '?'}, which is what {@code String.getBytes(UTF_8)} does, so
+     * the same key always maps to the same bytes whichever lookup variant is used.
+     */
+    private int encode(CharSequence key) {
+        int length = key.length();
+        if (scratch.length < length * 3) {
+            scratch = new byte[Math.max(length * 3, scratch.length << 1)];
+        }
+        byte[] out = scratch;
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                out[position++] = (byte) c;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                    out[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    out[position++] = (byte) '?';
+                }
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * FNV-1a over the key bytes followed by the murmur3 finaliser, so that the low bits used for
+     * slot selection are well mixed even for sequential ids such as {@code task-1, task-2, ...}.
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,99 @@
+package com.coolplanet.task.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class registering the binary Jackson formats next to JSON, so that clients can
+ * negotiate {@code application/cbor} and {@code application/x-jackson-smile} through the
+ * {@code Accept} and {@code Content-Type} headers.
+ *
+ * The codecs are registered once through a {@link CodecCustomizer}, which Spring Boot applies to the
+ * WebFlux server codecs (annotated controllers and router functions alike) and to {@code WebClient}.
+ * Both use an {@link ObjectMapper} built from the application's {@link Jackson2ObjectMapperBuilder}, so
+ * the binary formats follow the same {@code spring.jackson.*} settings and modules as JSON.
+ *
+ * Formats:
+ * - Smile replaces the default Smile codecs, which would use a bare {@code ObjectMapper}. It supports
+ *   streaming as {@code application/stream+x-jackson-smile}, one value after another.
+ * - CBOR is added as a custom codec. Custom codecs come before the default JSON codecs, so the CBOR
+ *   encoder only offers itself for an explicit CBOR media type: from {@code produces} of a controller
+ *   method, or a content type set by a router function or client. Bodies written without a media type
+ *   (e.g. {@code WebClient} requests without a {@code Content-Type}) stay JSON. Jackson's CBOR
+ *   encoder only writes single values, so a stream of values (e.g. a bulk lookup) is collected and
+ *   written as one CBOR array, like a JSON array.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ *
+ * Beans:
+ * - {@code binaryCodecsCustomizer}: The {@link CodecCustomizer} registering the CBOR and Smile codecs.
+ */
+@Configuration
+public class BinaryCodecsConfig {
+
+    // the constructors taking an ObjectMapper default to the JSON media types unless given explicitly
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"), new MimeType("application", "stream+x-jackson-smile")};
+
+    @Bean
+    public CodecCustomizer binaryCodecsCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            configurer.customCodecs().register(new CollectingCborEncoder(cborMapper));
+        };
+    }
+
+    /**
+     * {@link Jackson2CborEncoder} writing a stream of values as one CBOR array instead of rejecting it,
+     * and only when CBOR was negotiated.
+     */
+    static class CollectingCborEncoder extends Jackson2CborEncoder {
+
+        CollectingCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+            return mimeType != null && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
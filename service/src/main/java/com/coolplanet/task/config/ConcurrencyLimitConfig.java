@@ -0,0 +1,35 @@
+package com.coolplanet.task.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Configuration class for the adaptive concurrency limits of the task endpoints.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Activates unless {@code app.limiter.enabled} is {@code false}.
+ * - {@link EnableConfigurationProperties}: Binds {@link ConcurrencyLimitProperties}.
+ *
+ * Beans:
+ * - {@link #concurrencyLimitFilter}: Runs before the other web filters, so shed requests cost as
+ *   little as possible.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.limiter", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                                         MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(properties, objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,152 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.application.util.AimdLimiter;
+import com.coolplanet.task.domain.exception.ErrorCodes;
+import com.coolplanet.task.domain.model.TrackerErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Spring WebFlux {@code WebFilter} shedding load at the task endpoints before it piles up behind a
+ * slow database.
+ *
+ * Features:
+ * - Admits requests through one {@link AimdLimiter} for reads ({@code GET /tasks/{taskId}/average},
+ *   {@code GET /tasks}, {@code POST /tasks/averages}) and one for writes ({@code POST /tasks}). The
+ *   limits shrink when requests get slower than their latency target or fail, and grow back while
+ *   requests are fast.
+ * - Rejects requests beyond the limit immediately with 429 Too Many Requests, a {@code Retry-After}
+ *   header and the usual {@link TrackerErrorResponse} body, instead of letting them queue.
+ * - Leaves long-lived streams and uploads (live average streams, export, import), actuator and API
+ *   documentation endpoints unlimited: their duration says nothing about the load of the service.
+ * - Exports the current limit and in-flight requests as {@code http.limiter.limit} and
+ *   {@code http.limiter.inflight}, rejections as {@code http.limiter.rejections} and the time
+ *   admitted requests spent in the service as {@code http.limiter.latency}, all tagged by class
+ *   ({@code read} or {@code write}).
+ *
+ * Constructor:
+ * - {@code ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+ *   MeterRegistry meterRegistry)}: Creates both limiters from the configured settings.
+ */
+public class ConcurrencyLimitFilter implements WebFilter {
+
+    private static final String TASKS_PATH = "/tasks";
+
+    private final Limit read;
+    private final Limit write;
+    private final String retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.read = new Limit("read", properties.read(), meterRegistry);
+        this.write = new Limit("write", properties.write(), meterRegistry);
+        this.retryAfterSeconds = Long.toString(Math.max(1, properties.retryAfter().toSeconds()));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public @NotNull Mono<Void> filter(ServerWebExchange exchange, @NotNull WebFilterChain chain) {
+        Limit limit = limitFor(exchange.getRequest());
+        if (limit == null) {
+            return chain.filter(exchange);
+        }
+        if (!limit.limiter.tryAcquire()) {
+            limit.rejections.increment();
+            return reject(exchange.getResponse(), limit);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long latency = System.nanoTime() - start;
+                    if (signal == SignalType.CANCEL) {
+                        limit.limiter.releaseWithoutSample();
+                        return;
+                    }
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    limit.limiter.release(latency, signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError()));
+                    limit.latency.record(latency, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    Limit limitFor(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.equals(TASKS_PATH) && !path.startsWith(TASKS_PATH + "/")) {
+            return null;
+        }
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.GET.equals(method)) {
+            return path.endsWith("/average") || path.equals(TASKS_PATH) ? read : null;
+        }
+        if (HttpMethod.POST.equals(method)) {
+            if (path.equals(TASKS_PATH)) {
+                return write;
+            }
+            return path.equals(TASKS_PATH + "/averages") ? read : null;
+        }
+        return null;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, Limit limit) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        TrackerErrorResponse error = new TrackerErrorResponse(
+                "Too many concurrent " + limit.name + " requests, retry later",
+                ErrorCodes.OVERLOADED_ERROR.getCode(), LocalDateTime.now().toString(), HttpStatus.TOO_MANY_REQUESTS.value());
+        try {
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(objectMapper.writeValueAsBytes(error))));
+        } catch (JsonProcessingException jsonProcessingException) {
+            return response.setComplete();
+        }
+    }
+
+    static final class Limit {
+
+        final String name;
+        final AimdLimiter limiter;
+        final Counter rejections;
+        final Timer latency;
+
+        Limit(String name, ConcurrencyLimitProperties.LimitSettings settings, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limiter = new AimdLimiter(settings.initialLimit(), settings.minLimit(), settings.maxLimit(),
+                    settings.latencyTarget().toNanos(), settings.backoffRatio());
+            this.rejections = Counter.builder("http.limiter.rejections")
+                    .description("Requests rejected with 429 by the concurrency limit")
+                    .tag("class", name)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("http.limiter.latency")
+                    .description("Time admitted requests spent in the service")
+                    .tag("class", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.limiter.limit", limiter, AimdLimiter::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("class", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.limiter.inflight", limiter, AimdLimiter::inFlight)
+                    .description("Requests currently admitted by the concurrency limit")
+                    .tag("class", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the adaptive concurrency limits in front of the task endpoints,
+ * bound from properties prefixed with "app.limiter". Reads and writes are limited independently, so
+ * a slow write path cannot shed reads and the other way round.
+ *
+ * Properties:
+ * - enabled: Whether requests are limited at all.
+ * - retryAfter: Value of the {@code Retry-After} header of rejected requests.
+ * - read: Limit of {@code GET /tasks/{taskId}/average}, {@code GET /tasks} and {@code POST /tasks/averages}.
+ * - write: Limit of {@code POST /tasks}.
+ */
+@ConfigurationProperties(prefix = "app.limiter")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue LimitSettings read,
+        @DefaultValue LimitSettings write) {
+
+    /**
+     * Settings of one AIMD (additive increase, multiplicative decrease) concurrency limit.
+     *
+     * Properties:
+     * - initialLimit: Concurrent requests admitted at startup.
+     * - minLimit: Lower bound the limit never shrinks below, even during a long overload.
+     * - maxLimit: Upper bound the limit never grows above.
+     * - latencyTarget: Requests slower than this, or failing with a 5xx, shrink the limit; faster ones
+     *   grow it while the limit is actually in use.
+     * - backoffRatio: Factor applied to the limit on every slow or failed request.
+     */
+    public record LimitSettings(
+            @DefaultValue("50") int initialLimit,
+            @DefaultValue("5") int minLimit,
+            @DefaultValue("500") int maxLimit,
+            @DefaultValue("100ms") Duration latencyTarget,
+            @DefaultValue("0.9") double backoffRatio) {
+    }
+}
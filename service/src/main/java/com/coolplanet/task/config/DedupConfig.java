@@ -0,0 +1,16 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for idempotent ingestion.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link EnableConfigurationProperties}: Binds {@link DedupProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(DedupProperties.class)
+public class DedupConfig {
+}
@@ -0,0 +1,27 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of idempotent ingestion, bound from properties prefixed with
+ * "app.tasks.dedup". Only samples sent with an idempotency key are deduplicated.
+ *
+ * Properties:
+ * - retentionDays: Number of days, today included, during which a key is remembered. Retries and
+ *   redeliveries older than that are applied again.
+ * - expectedKeysPerDay: Initial capacity of each day's Bloom filter; it grows beyond that, at the
+ *   cost of slightly slower lookups.
+ * - falsePositiveRate: Target rate of new keys the Bloom filter reports as probable duplicates, each
+ *   of which costs one lookup in the dedup table.
+ * - maintenanceInterval: How often partitions are created ahead and expired ones dropped.
+ */
+@ConfigurationProperties(prefix = "app.tasks.dedup")
+public record DedupProperties(
+        @DefaultValue("2") int retentionDays,
+        @DefaultValue("1000000") int expectedKeysPerDay,
+        @DefaultValue("0.001") double falsePositiveRate,
+        @DefaultValue("1h") Duration maintenanceInterval) {
+}
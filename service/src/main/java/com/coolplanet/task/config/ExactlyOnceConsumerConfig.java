@@ -0,0 +1,76 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.ExactlyOnceKafkaConsumer;
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.application.service.TaskDeduplicator;
+import com.coolplanet.task.infrastructure.KafkaOffsetStore;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Configuration class for the exactly-once Kafka consumer.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code app.kafka.exactly-once.enabled} is
+ *   {@code true}; the per-record {@code KafkaConsumer} is disabled by the same property.
+ * - {@link EnableConfigurationProperties}: Binds {@link ExactlyOnceConsumerProperties}.
+ *
+ * Beans:
+ * - {@link #exactlyOnceListenerContainerFactory}: Batch listener containers with auto-commit disabled,
+ *   at most {@code max-poll-records} records per batch, and an error handler retrying a failed batch
+ *   every {@code retry-interval} until it succeeds instead of skipping it.
+ * - {@link #exactlyOnceKafkaConsumer}: The batch consumer, running its transactions on the write pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.kafka.exactly-once", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ExactlyOnceConsumerProperties.class)
+public class ExactlyOnceConsumerConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> exactlyOnceListenerContainerFactory(
+            KafkaProperties kafkaProperties, ExactlyOnceConsumerProperties properties) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(null);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.maxPollRecords());
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProperties));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(properties.retryInterval().toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+
+    @Bean
+    public ExactlyOnceKafkaConsumer exactlyOnceKafkaConsumer(TaskRepository repository, TaskDeduplicator deduplicator,
+                                                             KafkaOffsetStore offsetStore, ProcessingStepFactory stepFactory,
+                                                             RecentWriteTracker recentWrites, TaskChangeBus changeBus,
+                                                             KnownTaskFilter knownTasks,
+                                                             ConnectionFactory connectionFactory, ObjectMapper objectMapper,
+                                                             KafkaProperties kafkaProperties) {
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        return new ExactlyOnceKafkaConsumer(repository, deduplicator, offsetStore, stepFactory, recentWrites, changeBus,
+                knownTasks, transactionalOperator, objectMapper, kafkaProperties.getConsumer().getGroupId());
+    }
+}
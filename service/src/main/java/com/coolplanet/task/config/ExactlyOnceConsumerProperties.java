@@ -0,0 +1,24 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the exactly-once Kafka consumer, bound from properties prefixed
+ * with "app.kafka.exactly-once".
+ *
+ * Properties:
+ * - enabled: Replaces the per-record consumer with the batch consumer that commits aggregates and
+ *   consumed offsets to Postgres in one transaction.
+ * - maxPollRecords: Maximum number of records per batch, i.e. per transaction.
+ * - retryInterval: Delay before a batch whose transaction failed is consumed again. Failed batches
+ *   are retried until they succeed, never skipped.
+ */
+@ConfigurationProperties(prefix = "app.kafka.exactly-once")
+public record ExactlyOnceConsumerProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2000") int maxPollRecords,
+        @DefaultValue("1s") Duration retryInterval) {
+}
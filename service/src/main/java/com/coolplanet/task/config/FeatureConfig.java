@@ -1,5 +1,6 @@
 package com.coolplanet.task.config;
 
+import com.coolplanet.task.domain.model.IngestMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -14,5 +15,11 @@ public class FeatureConfig {
      * When false, tasks will be saved directly to DB (sync).
      */
     private boolean asyncEnabled;
+
+    /**
+     * Explicit ingest mode; takes precedence over {@code asyncEnabled} when set.
+     * {@code WAL} acknowledges tasks once they are fsynced to the local write-ahead log.
+     */
+    private IngestMode ingestMode;
 }
 
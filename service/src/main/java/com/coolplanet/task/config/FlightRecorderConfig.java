@@ -0,0 +1,27 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.infrastructure.jfr.ContinuousRecording;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for on-demand Flight Recorder recordings.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link EnableConfigurationProperties}: Binds {@link FlightRecorderProperties}.
+ *
+ * Beans:
+ * - {@link #continuousRecording}: The recording controlled through the {@code jfr} actuator endpoint,
+ *   deleted with its dumps on shutdown.
+ */
+@Configuration
+@EnableConfigurationProperties(FlightRecorderProperties.class)
+public class FlightRecorderConfig {
+
+    @Bean(destroyMethod = "close")
+    public ContinuousRecording continuousRecording(FlightRecorderProperties properties) {
+        return new ContinuousRecording(properties);
+    }
+}
@@ -0,0 +1,29 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the on-demand Flight Recorder recording started through the
+ * {@code jfr} actuator endpoint, bound from properties prefixed with "app.jfr".
+ *
+ * Properties:
+ * - settings: The JDK settings the recording uses, {@code default} (about 1% overhead) or
+ *   {@code profile} (more events, e.g. allocation samples, at a higher overhead). The task pipeline
+ *   events are enabled in both, with their own thresholds.
+ * - maxAge: Events older than this are discarded from the recording, so a dump covers at most the
+ *   last {@code maxAge}.
+ * - maxSize: Disk space the recording may use at most; the oldest events are discarded beyond it.
+ * - maxDuration: The recording stops by itself after this long, in case it is never stopped. Its
+ *   events can still be dumped until it is started again or deleted.
+ */
+@ConfigurationProperties(prefix = "app.jfr")
+public record FlightRecorderProperties(
+        @DefaultValue("default") String settings,
+        @DefaultValue("15m") Duration maxAge,
+        @DefaultValue("250MB") DataSize maxSize,
+        @DefaultValue("1h") Duration maxDuration) {
+}
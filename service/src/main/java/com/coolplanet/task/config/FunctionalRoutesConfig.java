@@ -0,0 +1,41 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.TaskRouteHandler;
+import com.coolplanet.task.application.ProcessorHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Configuration class serving {@code POST /tasks} and {@code GET /tasks/{taskId}/average} as functional
+ * routes instead of through the annotated {@code TaskController}.
+ *
+ * Router functions are mapped before annotated controllers, so the routes below take precedence while
+ * every other {@code /tasks} endpoint stays on the controller.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only active when {@code app.web.functional-routes.enabled} is
+ *   {@code true}.
+ *
+ * Beans:
+ * - {@code taskRouteHandler}: The {@link TaskRouteHandler} backing the routes.
+ * - {@code taskRoutes}: The {@link RouterFunction} mapping the routes to the handler.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.web.functional-routes", name = "enabled", havingValue = "true")
+public class FunctionalRoutesConfig {
+
+    @Bean
+    public TaskRouteHandler taskRouteHandler(ProcessorHandler processorHandler, ObjectMapper objectMapper) {
+        return new TaskRouteHandler(processorHandler, objectMapper);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> taskRoutes(TaskRouteHandler taskRouteHandler) {
+        return taskRouteHandler.routes();
+    }
+}
@@ -0,0 +1,31 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the gRPC ingestion server, bound from properties prefixed with
+ * "app.grpc".
+ *
+ * Properties:
+ * - enabled: Starts the gRPC server next to the REST API.
+ * - port: Port of the gRPC server, separate from the HTTP port.
+ * - maxInFlight: Maximum number of samples of one {@code RecordTasks} stream being processed at a
+ *   time. The server only asks the client for more samples as earlier ones complete, so a fast
+ *   collector is slowed down by HTTP/2 flow control instead of filling the server's memory.
+ * - ackEvery: Number of processed samples after which a {@code RecordTasks} stream is acknowledged.
+ * - ackInterval: Maximum time a processed sample of a {@code RecordTasks} stream waits for its
+ *   acknowledgement, even when fewer than {@code ackEvery} samples were processed since the last one.
+ * - shutdownGracePeriod: Time given to open calls to finish on shutdown before they are cancelled.
+ */
+@ConfigurationProperties(prefix = "app.grpc")
+public record GrpcProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("9090") int port,
+        @DefaultValue("64") int maxInFlight,
+        @DefaultValue("1000") int ackEvery,
+        @DefaultValue("1s") Duration ackInterval,
+        @DefaultValue("10s") Duration shutdownGracePeriod) {
+}
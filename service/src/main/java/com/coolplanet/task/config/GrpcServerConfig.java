@@ -0,0 +1,46 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.TaskGrpcService;
+import com.coolplanet.task.application.ProcessorHandler;
+import com.coolplanet.task.infrastructure.GrpcServerRunner;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.ProtoReflectionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the gRPC ingestion server, serving {@code TaskIngest} on its own port next
+ * to the REST API.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code app.grpc.enabled} is {@code true}.
+ * - {@link EnableConfigurationProperties}: Binds {@link GrpcProperties}.
+ *
+ * Beans:
+ * - {@link #taskGrpcService}: The {@link TaskGrpcService} feeding the {@link ProcessorHandler}.
+ * - {@link #grpcServerRunner}: The Netty server on {@code app.grpc.port}, started and stopped with the
+ *   application context. It also serves gRPC server reflection, so that clients such as k6 or grpcurl
+ *   can call the service without a copy of the {@code .proto} file.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.grpc", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(GrpcProperties.class)
+public class GrpcServerConfig {
+
+    @Bean
+    public TaskGrpcService taskGrpcService(ProcessorHandler processorHandler, GrpcProperties properties, MeterRegistry meterRegistry) {
+        return new TaskGrpcService(processorHandler, properties, meterRegistry);
+    }
+
+    @Bean
+    public GrpcServerRunner grpcServerRunner(TaskGrpcService taskGrpcService, GrpcProperties properties) {
+        return new GrpcServerRunner(NettyServerBuilder.forPort(properties.port())
+                .addService(taskGrpcService)
+                .addService(ProtoReflectionService.newInstance())
+                .build(), properties.shutdownGracePeriod());
+    }
+}
@@ -0,0 +1,16 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the adaptive ingest router.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link EnableConfigurationProperties}: Binds {@link IngestRouterProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(IngestRouterProperties.class)
+public class IngestRouterConfig {
+}
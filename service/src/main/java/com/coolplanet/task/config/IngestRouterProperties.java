@@ -0,0 +1,31 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the adaptive ingest router, bound from properties prefixed with
+ * "features.task.router". Only consulted when {@code features.task.ingest-mode} is {@code adaptive}.
+ *
+ * Properties:
+ * - evaluationInterval: How often the router re-evaluates its signals and possibly switches mode.
+ * - minDwell: Minimum time spent in a mode before switching again, on top of the thresholds below.
+ * - writeLatencyHigh: Moving average of the sync write latency above which async is preferred.
+ * - writeLatencyLow: Moving average of the sync write latency below which sync is preferred again.
+ *   Must be lower than {@code writeLatencyHigh}; the gap between both is the hysteresis band.
+ * - kafkaLatencyHigh: Average Kafka produce request latency above which async is avoided.
+ * - consumerLagHigh: Consumer lag, in records, above which async is avoided.
+ * - consumerLagLow: Consumer lag below which async may be chosen again.
+ */
+@ConfigurationProperties(prefix = "features.task.router")
+public record IngestRouterProperties(
+        @DefaultValue("1s") Duration evaluationInterval,
+        @DefaultValue("10s") Duration minDwell,
+        @DefaultValue("50ms") Duration writeLatencyHigh,
+        @DefaultValue("20ms") Duration writeLatencyLow,
+        @DefaultValue("100ms") Duration kafkaLatencyHigh,
+        @DefaultValue("10000") long consumerLagHigh,
+        @DefaultValue("1000") long consumerLagLow) {
+}
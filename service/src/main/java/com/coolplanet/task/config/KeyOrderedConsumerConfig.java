@@ -0,0 +1,72 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.KeyOrderedKafkaConsumer;
+import com.coolplanet.task.application.service.TaskProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Configuration class for the key-ordered parallel Kafka consumer.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code app.kafka.key-ordered.enabled} is
+ *   {@code true}; the per-record {@code KafkaConsumer} is disabled by the same property.
+ * - {@link EnableConfigurationProperties}: Binds {@link KeyOrderedConsumerProperties}.
+ *
+ * Beans:
+ * - {@link #keyOrderedListenerContainerFactory}: Record listener containers with auto-commit disabled
+ *   and manual, asynchronous acknowledgements. Records may be acknowledged out of order; the container
+ *   only commits the contiguous prefix of acknowledged offsets of each partition, and pauses the
+ *   consumer until all records of the previous poll are acknowledged. A record the listener throws
+ *   back is consumed again every second until it succeeds instead of being skipped.
+ * - {@link #keyOrderedKafkaConsumer}: The consumer dispatching records to {@code lanes} lanes. Refuses
+ *   to start when {@code app.kafka.exactly-once.enabled} is set too: both consumers would apply every
+ *   record of the topic.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.kafka.key-ordered", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(KeyOrderedConsumerProperties.class)
+public class KeyOrderedConsumerConfig {
+
+    private static final long RETRY_INTERVAL = 1000L;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> keyOrderedListenerContainerFactory(
+            KafkaProperties kafkaProperties, KeyOrderedConsumerProperties properties) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(null);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.maxPollRecords());
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProperties));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(RETRY_INTERVAL, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+
+    @Bean(destroyMethod = "close")
+    public KeyOrderedKafkaConsumer keyOrderedKafkaConsumer(TaskProcessorService taskProcessorService, ObjectMapper objectMapper,
+                                                           KeyOrderedConsumerProperties properties, MeterRegistry meterRegistry,
+                                                           @Value("${app.kafka.exactly-once.enabled:false}") boolean exactlyOnce) {
+        if (exactlyOnce) {
+            throw new IllegalStateException("app.kafka.key-ordered.enabled and app.kafka.exactly-once.enabled are mutually exclusive");
+        }
+        return new KeyOrderedKafkaConsumer(taskProcessorService, objectMapper, properties.lanes(), meterRegistry);
+    }
+}
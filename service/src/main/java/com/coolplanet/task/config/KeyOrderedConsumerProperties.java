@@ -0,0 +1,22 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Represents the configuration of the key-ordered parallel Kafka consumer, bound from properties
+ * prefixed with "app.kafka.key-ordered".
+ *
+ * Properties:
+ * - enabled: Replaces the per-record consumer with the consumer fanning records out to lanes.
+ * - lanes: Number of lanes, i.e. the maximum number of samples processed concurrently per instance,
+ *   independent of the number of partitions. Samples of one task always use the same lane.
+ * - maxPollRecords: Maximum number of records per poll. The next poll only happens once every record
+ *   of the previous one is processed, so this also bounds the records in flight per consumer.
+ */
+@ConfigurationProperties(prefix = "app.kafka.key-ordered")
+public record KeyOrderedConsumerProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("32") int lanes,
+        @DefaultValue("500") int maxPollRecords) {
+}
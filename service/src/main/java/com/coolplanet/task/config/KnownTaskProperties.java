@@ -0,0 +1,32 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the filter of known task IDs, bound from properties prefixed with
+ * "app.tasks.known". The filter answers average lookups of task IDs it has never seen with 404,
+ * without querying the database.
+ *
+ * Properties:
+ * - enabled: Whether lookups are checked against the filter. The filter only learns of writes made
+ *   through this instance, so it must stay disabled when other instances or processes write tasks
+ *   this instance has to answer for, unless a 404 for up to {@code rebuildInterval} is acceptable.
+ * - expectedTasks: Initial capacity of the filter; it grows beyond that, at the cost of slightly
+ *   slower lookups, and a rebuild sizes the new filter for the tasks counted by the previous one.
+ * - falsePositiveRate: Target rate of unknown task IDs the filter lets through, each of which costs
+ *   one lookup in the database.
+ * - rebuildInterval: How often the filter is rebuilt from the "task" table, after the initial build
+ *   on start. Bounds how long writes made elsewhere stay unknown.
+ * - fetchSize: Rows fetched per round trip while streaming the "task" table.
+ */
+@ConfigurationProperties(prefix = "app.tasks.known")
+public record KnownTaskProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1000000") int expectedTasks,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("6h") Duration rebuildInterval,
+        @DefaultValue("10000") int fetchSize) {
+}
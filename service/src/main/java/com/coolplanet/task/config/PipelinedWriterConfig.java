@@ -0,0 +1,40 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.infrastructure.PipelinedTaskWriter;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Option;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the pipelined upsert write path.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code app.r2dbc.pipeline.enabled} is {@code true}.
+ * - {@link EnableConfigurationProperties}: Binds {@link PipelinedWriterProperties}.
+ *
+ * Beans:
+ * - {@link #pipelinedTaskWriter}: Writer owning one dedicated, unpooled connection, so it neither
+ *   occupies nor competes with the connections of the read and write pools.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.r2dbc.pipeline", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(PipelinedWriterProperties.class)
+public class PipelinedWriterConfig {
+
+    private static final Option<Integer> PREPARED_STATEMENT_CACHE_QUERIES = Option.valueOf("preparedStatementCacheQueries");
+
+    @Bean(destroyMethod = "close")
+    public PipelinedTaskWriter pipelinedTaskWriter(R2dbcPropertiesConfig props, PipelinedWriterProperties pipelineProps) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(props.url())
+                .username(props.username())
+                .password(props.password())
+                .configure(options -> options.option(PREPARED_STATEMENT_CACHE_QUERIES, pipelineProps.preparedStatementCacheSize()))
+                .build();
+        return new PipelinedTaskWriter(connectionFactory, pipelineProps.depth(), pipelineProps.queueCapacity());
+    }
+}
@@ -0,0 +1,22 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Represents the configuration of the pipelined upsert write path, bound from properties prefixed
+ * with "app.r2dbc.pipeline". Only used when {@code app.r2dbc.pipeline.enabled} is {@code true}.
+ *
+ * Properties:
+ * - enabled: Routes task upserts through the pipelined writer instead of the repository.
+ * - depth: Maximum number of upserts in flight on the dedicated connection at once.
+ * - queueCapacity: Maximum number of upserts waiting or in flight; further upserts are rejected.
+ * - preparedStatementCacheSize: Number of prepared statements the driver keeps per connection.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc.pipeline")
+public record PipelinedWriterProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("64") int depth,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("16") int preparedStatementCacheSize) {
+}
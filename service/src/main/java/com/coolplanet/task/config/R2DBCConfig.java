@@ -1,42 +1,165 @@
-
 package com.coolplanet.task.config;
 
+import com.coolplanet.task.infrastructure.MeteredConnectionFactory;
+import com.coolplanet.task.infrastructure.ReplicaConnectionFactory;
+import com.coolplanet.task.infrastructure.RoutingConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Configuration class for setting up R2DBC (Reactive Relational Database Connectivity) properties
  * and enabling R2DBC repositories in the application.
  *
  * This configuration leverages {@link R2dbcPropertiesConfig} for database connection details,
- * including URL, username, and password, which are then used to create a {@link ConnectionFactory}.
+ * including URL, username, and password, and {@link R2dbcPoolProperties} for the sizing of two
+ * independent connection pools: one for reads and one for writes.
  *
- * An instance of {@link ConnectionFactory} is defined as a Spring Bean to manage database connections
- * in a reactive programming model.
+ * The {@link ConnectionFactory} used by repositories is a {@link RoutingConnectionFactory} that picks
+ * the pool from the Reactor context, so write storms cannot starve reads. Reads that tolerate
+ * replication lag can additionally be served by streaming replicas ({@link ReplicaProperties}).
  *
  * Annotations:
  * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
- * - {@link EnableConfigurationProperties}: Makes the specified configuration properties class
- *   ({@link R2dbcPropertiesConfig}) available for dependency injection.
+ * - {@link EnableConfigurationProperties}: Makes the specified configuration properties classes
+ *   ({@link R2dbcPropertiesConfig}, {@link R2dbcPoolProperties}, {@link ReplicaProperties}) available
+ *   for dependency injection.
  * - {@link EnableR2dbcRepositories}: Enables R2DBC repository support, allowing the application
  *   to interact with the database in a reactive manner.
+ *
+ * Beans:
+ * - {@link #readConnectionPool}: Pool serving read-only queries.
+ * - {@link #writeConnectionPool}: Pool serving inserts, upserts and transactions.
+ * - {@link #replicaConnectionFactory}: Balances reads over the replicas, only if replicas are configured.
+ *   Its fallback reads on the primary are metered like the other reads of the read pool. On shutdown
+ *   it sends every read to the primary first and only closes the replica pools once the bean is
+ *   destroyed, after in-flight requests have drained.
+ * - {@link #connectionFactory}: Primary factory routing to the pools, with acquire-latency metrics.
+ * - {@link #connectionPoolPrewarm}: Opens the initial connections of both pools before readiness.
+ *
+ * Pool gauges (acquired, idle, pending, ...) are exported by Spring Boot as {@code r2dbc.pool.*}
+ * for both pool beans; acquire latency is recorded by {@link MeteredConnectionFactory}.
  */
+@Slf4j
 @Configuration
-@EnableConfigurationProperties(R2dbcPropertiesConfig.class)
+@EnableConfigurationProperties({R2dbcPropertiesConfig.class, R2dbcPoolProperties.class, ReplicaProperties.class})
 @EnableR2dbcRepositories
 public class R2DBCConfig {
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool readConnectionPool(R2dbcPropertiesConfig props, R2dbcPoolProperties poolProps) {
+        return connectionPool("read", props, poolProps.read());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool writeConnectionPool(R2dbcPropertiesConfig props, R2dbcPoolProperties poolProps) {
+        return connectionPool("write", props, poolProps.write());
+    }
+
+    // closed after the web server's graceful shutdown, unlike a lifecycle stop
+    @Bean(destroyMethod = "close")
+    @Conditional(ReplicasConfiguredCondition.class)
+    public ReplicaConnectionFactory replicaConnectionFactory(@Qualifier("readConnectionPool") ConnectionPool readConnectionPool,
+                                                             R2dbcPropertiesConfig props, ReplicaProperties replicaProps,
+                                                             MeterRegistry meterRegistry) {
+        List<ConnectionPool> replicaPools = IntStream.range(0, replicaProps.urls().size())
+                .mapToObj(i -> connectionPool("replica-" + i,
+                        new R2dbcPropertiesConfig(replicaProps.urls().get(i), props.username(), props.password()),
+                        replicaProps.pool()))
+                .toList();
+        // the same timers as the read pool of connectionFactory: meters are registered once per name and tags
+        return new ReplicaConnectionFactory(replicaPools, new MeteredConnectionFactory(readConnectionPool, "read", meterRegistry),
+                replicaProps, meterRegistry);
+    }
+
     @Bean
-    public ConnectionFactory connectionFactory(R2dbcPropertiesConfig props) {
-        return ConnectionFactoryBuilder.withUrl(props.url())
+    @Primary
+    public ConnectionFactory connectionFactory(@Qualifier("readConnectionPool") ConnectionPool readConnectionPool,
+                                               @Qualifier("writeConnectionPool") ConnectionPool writeConnectionPool,
+                                               ObjectProvider<ReplicaConnectionFactory> replicaConnectionFactory,
+                                               MeterRegistry meterRegistry) {
+        ConnectionFactory read = new MeteredConnectionFactory(readConnectionPool, "read", meterRegistry);
+        ConnectionFactory replica = replicaConnectionFactory.getIfAvailable();
+        return new RoutingConnectionFactory(read,
+                new MeteredConnectionFactory(writeConnectionPool, "write", meterRegistry),
+                replica != null ? replica : read);
+    }
+
+    /**
+     * Application runners complete before the readiness state switches to ACCEPTING_TRAFFIC, so
+     * blocking here keeps the readiness probe DOWN until both pools hold their initial connections.
+     * A failed prewarm is logged rather than aborting startup; the pools then connect lazily.
+     */
+    @Bean
+    public ApplicationRunner connectionPoolPrewarm(@Qualifier("readConnectionPool") ConnectionPool readConnectionPool,
+                                                   @Qualifier("writeConnectionPool") ConnectionPool writeConnectionPool,
+                                                   R2dbcPoolProperties poolProps) {
+        return args -> {
+            if (!poolProps.prewarm()) {
+                return;
+            }
+            Mono.zip(readConnectionPool.warmup(), writeConnectionPool.warmup())
+                    .doOnNext(warmed -> log.info("Prewarmed R2DBC pools: read={} write={} connections",
+                            warmed.getT1(), warmed.getT2()))
+                    .onErrorResume(error -> {
+                        log.warn("Failed to prewarm R2DBC pools, connections will be opened on demand", error);
+                        return Mono.empty();
+                    })
+                    .block();
+        };
+    }
+
+    private ConnectionPool connectionPool(String name, R2dbcPropertiesConfig props, R2dbcPoolProperties.PoolSettings settings) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(props.url())
                 .username(props.username())
                 .password(props.password())
                 .build();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .initialSize(settings.initialSize())
+                .maxSize(settings.maxSize())
+                .maxAcquireTime(settings.maxAcquireTime())
+                .maxIdleTime(settings.maxIdleTime())
+                .maxLifeTime(settings.maxLifeTime())
+                .build());
     }
 
-}
+    /**
+     * Matches when {@code app.r2dbc.replicas.urls} binds to at least one URL, whether it is set as
+     * indexed properties or as a comma-separated list, e.g. from {@code APP_R2DBC_REPLICAS_URLS}.
+     */
+    static class ReplicasConfiguredCondition extends SpringBootCondition {
 
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            List<String> urls = Binder.get(context.getEnvironment())
+                    .bind("app.r2dbc.replicas.urls", Bindable.listOf(String.class))
+                    .orElse(List.of());
+            return urls.isEmpty()
+                    ? ConditionOutcome.noMatch("no app.r2dbc.replicas.urls")
+                    : ConditionOutcome.match(urls.size() + " app.r2dbc.replicas.urls");
+        }
+    }
+}
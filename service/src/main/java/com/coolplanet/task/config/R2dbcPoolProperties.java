@@ -0,0 +1,41 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the R2DBC connection pools, bound from properties prefixed with
+ * "app.r2dbc.pool". Reads and writes use independent pools so that a burst of upserts can only
+ * exhaust the write pool and never delays {@code GET /tasks/{taskId}/average}.
+ *
+ * Properties:
+ * - read: Settings of the pool serving read-only repository queries.
+ * - write: Settings of the pool serving inserts, upserts and transactions.
+ * - prewarm: Whether both pools open their initial connections before the application reports ready.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc.pool")
+public record R2dbcPoolProperties(
+        @DefaultValue PoolSettings read,
+        @DefaultValue PoolSettings write,
+        @DefaultValue("true") boolean prewarm) {
+
+    /**
+     * Settings of a single connection pool.
+     *
+     * Properties:
+     * - initialSize: Connections opened eagerly, and by the prewarm at startup.
+     * - maxSize: Upper bound of open connections.
+     * - maxAcquireTime: How long a caller waits for a free connection before failing.
+     * - maxIdleTime: How long an unused connection is kept open.
+     * - maxLifeTime: Age after which a connection is retired, e.g. to rebalance after failovers.
+     */
+    public record PoolSettings(
+            @DefaultValue("4") int initialSize,
+            @DefaultValue("10") int maxSize,
+            @DefaultValue("2s") Duration maxAcquireTime,
+            @DefaultValue("10m") Duration maxIdleTime,
+            @DefaultValue("30m") Duration maxLifeTime) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the RSocket ingestion channel served by {@code TaskRSocketController}.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link EnableConfigurationProperties}: Binds {@link RSocketIngestProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(RSocketIngestProperties.class)
+public class RSocketIngestConfig {
+}
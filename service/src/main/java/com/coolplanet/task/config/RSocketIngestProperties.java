@@ -0,0 +1,27 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the RSocket ingestion channel, bound from properties prefixed with
+ * "app.rsocket.ingest". The RSocket server itself is configured by Spring Boot under
+ * "spring.rsocket.server".
+ *
+ * Properties:
+ * - batchSize: Maximum number of samples per acknowledged batch.
+ * - maxBatchDelay: Maximum time a partial batch waits for more samples before it is persisted, so a
+ *   slow producer still gets timely acknowledgements.
+ * - batchesInFlight: Number of batches of one channel persisted at a time. Together with
+ *   {@code batchSize}, this is the most samples a channel ever requests ahead of the persistence path.
+ * - sampleConcurrency: Number of samples of one batch persisted concurrently.
+ */
+@ConfigurationProperties(prefix = "app.rsocket.ingest")
+public record RSocketIngestProperties(
+        @DefaultValue("256") int batchSize,
+        @DefaultValue("50ms") Duration maxBatchDelay,
+        @DefaultValue("2") int batchesInFlight,
+        @DefaultValue("32") int sampleConcurrency) {
+}
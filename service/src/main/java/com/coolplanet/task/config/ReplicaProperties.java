@@ -0,0 +1,42 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Represents the configuration of the read replicas serving average queries, bound from properties
+ * prefixed with "app.r2dbc.replicas". Replica routing is active as soon as at least one URL is set.
+ *
+ * Properties:
+ * - urls: R2DBC URLs of the streaming replicas, indexed or comma-separated; credentials are shared
+ *   with {@code spring.r2dbc}.
+ * - balancing: How a replica is chosen, {@code ROUND_ROBIN} or {@code LEAST_LATENCY} (lowest moving
+ *   average of the health probe round trip).
+ * - maxLag: Replication lag above which a replica is skipped; reads fall back to the primary when
+ *   no replica is within the threshold.
+ * - checkInterval: How often each replica's lag and latency are probed.
+ * - readYourWrites: Reads a task from the primary if this instance wrote it within {@code maxLag},
+ *   so a client never reads an average older than its own write.
+ * - pool: Pool settings applied to each replica.
+ */
+@ConfigurationProperties(prefix = "app.r2dbc.replicas")
+public record ReplicaProperties(
+        @DefaultValue List<String> urls,
+        @DefaultValue("ROUND_ROBIN") Balancing balancing,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("1s") Duration checkInterval,
+        @DefaultValue("false") boolean readYourWrites,
+        @DefaultValue R2dbcPoolProperties.PoolSettings pool) {
+
+    public boolean enabled() {
+        return !urls.isEmpty();
+    }
+
+    public enum Balancing {
+        ROUND_ROBIN,
+        LEAST_LATENCY
+    }
+}
@@ -0,0 +1,16 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the task query endpoints.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link EnableConfigurationProperties}: Binds {@link TaskQueryProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(TaskQueryProperties.class)
+public class TaskQueryConfig {
+}
@@ -0,0 +1,27 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Represents the limits of the task query endpoints, bound from properties prefixed with
+ * "app.tasks.query".
+ *
+ * Properties:
+ * - maxBulkIds: Maximum number of task IDs accepted by one bulk average lookup; larger requests are
+ *   rejected with 400 rather than turned into an unbounded {@code ANY} array.
+ * - maxStreamSubscribers: Maximum number of live average streams open on this instance at once;
+ *   further subscriptions are rejected with 429.
+ * - defaultPageSize: Number of tasks per page of {@code GET /tasks} when no limit is given.
+ * - maxPageSize: Maximum number of tasks per page; larger limits are rejected with 400.
+ * - exportFetchSize: Number of rows fetched per round trip from the server-side cursor of the export,
+ *   which bounds the rows buffered in memory at any time.
+ */
+@ConfigurationProperties(prefix = "app.tasks.query")
+public record TaskQueryProperties(
+        @DefaultValue("500") int maxBulkIds,
+        @DefaultValue("10000") int maxStreamSubscribers,
+        @DefaultValue("100") int defaultPageSize,
+        @DefaultValue("1000") int maxPageSize,
+        @DefaultValue("1000") int exportFetchSize) {
+}
@@ -0,0 +1,48 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.KafkaProducer;
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.coolplanet.task.infrastructure.wal.WalShipper;
+import com.coolplanet.task.infrastructure.wal.WriteAheadLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Configuration class for the write-ahead log ingest mode.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code features.task.ingest-mode} is {@code wal},
+ *   so the other ingest modes never touch the local disk.
+ * - {@link EnableConfigurationProperties}: Binds {@link WalProperties}.
+ *
+ * Beans:
+ * - {@link #writeAheadLog(WalProperties)}: Opens (and recovers) the log in the configured directory.
+ * - {@link #walShipper}: Background shipper draining the log to the configured target.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "features.task", name = "ingest-mode", havingValue = "wal")
+@EnableConfigurationProperties(WalProperties.class)
+public class WalConfig {
+
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog(WalProperties properties) throws IOException {
+        return new WriteAheadLog(Path.of(properties.directory()), properties.segmentSize().toBytes(),
+                properties.groupCommitInterval(), properties.queueCapacity());
+    }
+
+    @Bean
+    public WalShipper walShipper(WriteAheadLog writeAheadLog, TaskRepository repository, TaskChangeBus changeBus,
+                                 KnownTaskFilter knownTasks, KafkaProducer kafkaProducer, ProcessingStepFactory stepFactory,
+                                 WalProperties properties) {
+        return new WalShipper(writeAheadLog, repository, changeBus, knownTasks, kafkaProducer, stepFactory, properties);
+    }
+}
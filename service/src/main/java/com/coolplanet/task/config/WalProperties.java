@@ -0,0 +1,37 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the write-ahead log ingest mode, bound from properties prefixed
+ * with "features.task.wal". Only used when {@code features.task.ingest-mode} is {@code wal}.
+ *
+ * Properties:
+ * - directory: Local directory holding the log segments and the shipper checkpoint.
+ * - segmentSize: Size after which the active segment is sealed and a new one is started.
+ * - groupCommitInterval: How long the writer lingers after the first pending append before
+ *   writing and fsyncing the group; trades a little latency for far fewer fsyncs.
+ * - queueCapacity: Maximum number of appends waiting for the writer; further appends are rejected.
+ * - shipTarget: Where the background shipper forwards records, {@code POSTGRES} or {@code KAFKA}.
+ * - shipBatchSize: Maximum number of records read from the log per shipped batch.
+ * - shipInterval: Delay between shipping rounds once the shipper has caught up or failed.
+ */
+@ConfigurationProperties(prefix = "features.task.wal")
+public record WalProperties(
+        @DefaultValue("data/wal") String directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("200us") Duration groupCommitInterval,
+        @DefaultValue("8192") int queueCapacity,
+        @DefaultValue("POSTGRES") ShipTarget shipTarget,
+        @DefaultValue("5000") int shipBatchSize,
+        @DefaultValue("100ms") Duration shipInterval) {
+
+    public enum ShipTarget {
+        POSTGRES,
+        KAFKA
+    }
+}
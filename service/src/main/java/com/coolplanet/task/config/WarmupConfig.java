@@ -0,0 +1,38 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.application.ProcessorHandler;
+import com.coolplanet.task.application.WarmupRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Configuration class for the startup warm-up.
+ *
+ * Annotations:
+ * - {@link Configuration}: Marks this class as a configuration class in Spring's context.
+ * - {@link ConditionalOnProperty}: Only activates when {@code app.warmup.enabled} is {@code true}.
+ * - {@link EnableConfigurationProperties}: Binds {@link WarmupProperties}.
+ *
+ * Beans:
+ * - {@link #warmupRunner}: Drives synthetic samples through the {@link ProcessorHandler} before the
+ *   instance gets ready, in transactions on the write pool that are always rolled back.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.warmup", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(WarmupProperties.class)
+public class WarmupConfig {
+
+    @Bean
+    public WarmupRunner warmupRunner(ProcessorHandler processorHandler, ConnectionFactory connectionFactory,
+                                     ObjectMapper objectMapper, WarmupProperties properties, MeterRegistry meterRegistry) {
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        return new WarmupRunner(processorHandler, transactionalOperator, objectMapper, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.coolplanet.task.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Represents the configuration of the startup warm-up, bound from properties prefixed with
+ * "app.warmup".
+ *
+ * Properties:
+ * - enabled: Runs the warm-up before the readiness probe reports the instance as ready.
+ * - iterations: Number of synthetic samples recorded and read back. Enough for the JIT to compile the
+ *   request path with C2, which takes some ten thousand invocations of the hottest methods.
+ * - concurrency: Number of iterations in flight at a time, each on its own write connection.
+ * - maxDuration: Upper bound of the warm-up; the instance gets ready after this long even if not all
+ *   iterations have completed.
+ */
+@ConfigurationProperties(prefix = "app.warmup")
+public record WarmupProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2000") int iterations,
+        @DefaultValue("4") int concurrency,
+        @DefaultValue("30s") Duration maxDuration) {
+}
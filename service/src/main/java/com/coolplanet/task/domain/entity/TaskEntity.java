@@ -21,7 +21,6 @@ import org.springframework.data.relational.core.mapping.Table;
  * - {@code @Table("task")}: Specifies the database table mapped to this entity.
  *
  * Fields:
- * - {@code id}: Represents the primary database-generated value for uniquely identifying an entity.
  * - {@code taskId}: Serves as the business identifier of the task entity, designated as the primary key.
  * - {@code totalDurationMs}: Tracks the total task duration in milliseconds.
  * - {@code counter}: Records the number of aggregated entries for the task.
@@ -46,9 +45,6 @@ import org.springframework.data.relational.core.mapping.Table;
 @Table("task")
 public class TaskEntity {
 
-    @Column("id")
-    private String id; // Auto-generated by DB
-
     @Id
     @Column("task_id")
     private String taskId;
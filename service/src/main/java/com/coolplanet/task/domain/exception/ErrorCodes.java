@@ -15,6 +15,10 @@ package com.coolplanet.task.domain.exception;
  *   with the associated error code 1001.
  * - RECORD_NOT_FOUND_ERROR: Represents a scenario where a requested record
  *   or resource could not be found, with the associated error code 1002.
+ * - INVALID_REQUEST_ERROR: Represents a request rejected because its content
+ *   is invalid or exceeds a configured limit, with the associated error code 1003.
+ * - OVERLOADED_ERROR: Represents a request shed because the service is at
+ *   capacity, with the associated error code 1004.
  *
  * Each enum constant has an internally defined integer code that can be
  * retrieved using the getCode method.
@@ -22,7 +26,9 @@ package com.coolplanet.task.domain.exception;
 public enum ErrorCodes {
 
     PROCESSING_ERROR(1001),
-    RECORD_NOT_FOUND_ERROR(1002);
+    RECORD_NOT_FOUND_ERROR(1002),
+    INVALID_REQUEST_ERROR(1003),
+    OVERLOADED_ERROR(1004);
 
     private final int code;
     ErrorCodes(int code) {
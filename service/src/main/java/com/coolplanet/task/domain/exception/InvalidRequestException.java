@@ -0,0 +1,10 @@
+package com.coolplanet.task.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidRequestException extends TrackerException {
+
+        public InvalidRequestException(String message) {
+            super(message, ErrorCodes.INVALID_REQUEST_ERROR.getCode(), HttpStatus.BAD_REQUEST.value(), false);
+        }
+}
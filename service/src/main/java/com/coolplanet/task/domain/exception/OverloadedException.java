@@ -0,0 +1,10 @@
+package com.coolplanet.task.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class OverloadedException extends TrackerException {
+
+        public OverloadedException(String message) {
+            super(message, ErrorCodes.OVERLOADED_ERROR.getCode(), HttpStatus.TOO_MANY_REQUESTS.value(), false);
+        }
+}
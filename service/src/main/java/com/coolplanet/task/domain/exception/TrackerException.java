@@ -18,6 +18,10 @@ import lombok.EqualsAndHashCode;
  *   an instance with a custom error message, error code, and HTTP status code.
  * - TrackerException(String message, int statusCode): Creates an instance with
  *   a default error code of 1001, along with a custom error message and HTTP status code.
+ * - TrackerException(String message, int errorCode, int statusCode, boolean writableStackTrace):
+ *   For subclasses. Without a writable stack trace the exception is cheap to create, for errors that
+ *   are an expected outcome of a request (a missing task, an invalid or shed request) rather than a
+ *   fault; filling in the stack trace is by far the most expensive part of creating an exception.
  *
  * Methods:
  * - fullDetailMessage(): Returns a formatted string containing the exception's
@@ -38,15 +42,20 @@ public class TrackerException extends RuntimeException {
     private final int statusCode;
 
     public TrackerException(String message, int errorCode, int statusCode) {
-        this.message = message;
-        this.errorCode = errorCode;
-        this.statusCode = statusCode;
+        this(message, errorCode, statusCode, true);
     }
 
     public TrackerException(String message, int statusCode) {
         this(message, 1001, statusCode);
     }
 
+    protected TrackerException(String message, int errorCode, int statusCode, boolean writableStackTrace) {
+        super(null, null, true, writableStackTrace);
+        this.message = message;
+        this.errorCode = errorCode;
+        this.statusCode = statusCode;
+    }
+
     public String fullDetailMessage() {
         return String.format("%s : with Error Code (%s) and StatusCode (%d)", message, errorCode, statusCode);
     }
@@ -0,0 +1,14 @@
+package com.coolplanet.task.domain.model;
+
+/**
+ * Enum representing the input formats accepted by the bulk historical import.
+ *
+ * Enum Constants:
+ * - CSV: One {@code taskId,durationMs} pair per line; a leading header line is skipped.
+ * - NDJSON: One {@link TaskDTO} JSON object per line, e.g. {@code {"taskId":"task-1","totalDurationMs":42}}.
+ */
+public enum ImportFormat {
+
+    CSV,
+    NDJSON
+}
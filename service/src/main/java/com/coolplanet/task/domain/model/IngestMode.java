@@ -0,0 +1,21 @@
+package com.coolplanet.task.domain.model;
+
+/**
+ * Enum representing how an accepted {@code PROCESS_TASK} request is made durable before it is
+ * acknowledged to the client.
+ *
+ * Enum Constants:
+ * - SYNC: The sample is upserted into Postgres and the request waits for the commit.
+ * - ASYNC: The sample is published to Kafka and persisted later by the consumer.
+ * - WAL: The sample is appended to the local write-ahead log and acknowledged once its
+ *   group commit has been fsynced; a background shipper forwards it to Postgres or Kafka.
+ * - ADAPTIVE: Every request is sent SYNC or ASYNC, as chosen at runtime by the {@code IngestRouter}
+ *   from write latency, Kafka latency and consumer lag.
+ */
+public enum IngestMode {
+
+    SYNC,
+    ASYNC,
+    WAL,
+    ADAPTIVE
+}
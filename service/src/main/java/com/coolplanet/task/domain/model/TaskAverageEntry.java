@@ -0,0 +1,25 @@
+package com.coolplanet.task.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * One entry of a bulk average lookup. Unknown tasks are reported inline with {@code found} set to
+ * {@code false} and no average, so that a single miss does not fail the whole lookup.
+ */
+@Schema(description = "Average duration of one task of a bulk lookup")
+public record TaskAverageEntry(
+        @Schema(description = "Unique identifier of the task", example = "task-123")
+        String taskId,
+        @Schema(description = "Average duration in milliseconds, absent if the task is unknown", example = "1000")
+        Long averageDurationMs,
+        @Schema(description = "Whether the task exists", example = "true")
+        boolean found) {
+
+    public static TaskAverageEntry found(String taskId, long averageDurationMs) {
+        return new TaskAverageEntry(taskId, averageDurationMs, true);
+    }
+
+    public static TaskAverageEntry missing(String taskId) {
+        return new TaskAverageEntry(taskId, null, false);
+    }
+}
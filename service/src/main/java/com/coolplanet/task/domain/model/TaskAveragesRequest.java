@@ -0,0 +1,15 @@
+package com.coolplanet.task.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Request of the {@link WorkflowType#CALCULATE_BULK_AVERAGE_DURATION} workflow: the task IDs whose
+ * average durations are looked up, in the order the results are returned.
+ */
+@Schema(description = "Task IDs to look up the average durations of")
+public record TaskAveragesRequest(
+        @Schema(description = "Task IDs, duplicates allowed", example = "[\"task-123\", \"task-456\"]")
+        List<String> taskIds) {
+}
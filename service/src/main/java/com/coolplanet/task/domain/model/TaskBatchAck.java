@@ -0,0 +1,18 @@
+package com.coolplanet.task.domain.model;
+
+/**
+ * Acknowledgement of one batch of samples received over the RSocket {@code tasks.record} channel.
+ * Batches are numbered from 0 in the order their samples arrived and acknowledged in that order, once
+ * every sample of the batch has been persisted or has failed.
+ *
+ * @param batch    position of the batch in the channel
+ * @param accepted samples recorded
+ * @param rejected samples with a blank task ID or a non-positive duration
+ * @param failed   samples that could not be processed, e.g. while the database was down
+ */
+public record TaskBatchAck(long batch, int accepted, int rejected, int failed) {
+
+    public int size() {
+        return accepted + rejected + failed;
+    }
+}
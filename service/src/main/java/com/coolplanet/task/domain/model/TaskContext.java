@@ -17,6 +17,11 @@ import lombok.Builder;
  * - workflowType: Specifies the type of workflow associated with the task, indicating
  *   how the task is processed. Possible values are defined in the WorkflowType enum,
  *   which includes options such as PROCESS_TASK and CALCULATE_AVERAGE_DURATION.
+ * - idempotencyKey: Optional key identifying a recorded sample, taken from the {@code Idempotency-Key}
+ *   request header or the {@code idempotency-key} Kafka record header. Samples sharing a key are
+ *   applied once.
+ * - warmup: Marks a synthetic sample of the startup warm-up. It is always processed synchronously and
+ *   publishes no change event and no write statistics; the warm-up rolls its database writes back.
  *
  * Usage Scenarios:
  * - TaskContext is a central data structure used in processes that involve task computation,
@@ -33,4 +38,6 @@ public class TaskContext {
 
     public Object request;
     public WorkflowType workflowType;
+    public String idempotencyKey;
+    public boolean warmup;
 }
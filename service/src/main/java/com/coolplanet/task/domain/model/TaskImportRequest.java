@@ -0,0 +1,10 @@
+package com.coolplanet.task.domain.model;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Request of the {@link WorkflowType#IMPORT_TASKS} workflow: the lines of an import file, decoded
+ * while the upload is still streaming in, together with their format.
+ */
+public record TaskImportRequest(Flux<String> lines, ImportFormat format) {
+}
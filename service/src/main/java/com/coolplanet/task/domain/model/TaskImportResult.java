@@ -0,0 +1,17 @@
+package com.coolplanet.task.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Result of a bulk historical import")
+public record TaskImportResult(
+        @Schema(description = "Identifier of the import, also used in the progress logs", example = "5f2c1a9e")
+        String importId,
+        @Schema(description = "Number of samples copied into the staging table", example = "120000000")
+        long rows,
+        @Schema(description = "Number of distinct tasks merged into the task table", example = "2500")
+        long tasks,
+        @Schema(description = "Wall-clock duration of the import in milliseconds", example = "95000")
+        long elapsedMs,
+        @Schema(description = "Average import throughput in samples per second", example = "1263157")
+        long rowsPerSecond) {
+}
@@ -0,0 +1,17 @@
+package com.coolplanet.task.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One page of the task listing. {@code nextCursor} is passed as {@code after} to fetch the next page
+ * and is absent on the last page.
+ */
+@Schema(description = "Page of tasks in task ID order")
+public record TaskPage(
+        @Schema(description = "Tasks of the page")
+        List<TaskSummary> tasks,
+        @Schema(description = "Cursor of the next page, absent on the last page", example = "task-123")
+        String nextCursor) {
+}
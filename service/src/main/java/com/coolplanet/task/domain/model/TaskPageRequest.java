@@ -0,0 +1,8 @@
+package com.coolplanet.task.domain.model;
+
+/**
+ * Request of the {@link WorkflowType#LIST_TASKS} workflow: the cursor returned with the previous page
+ * ({@code null} for the first page) and the requested page size ({@code null} for the default).
+ */
+public record TaskPageRequest(String after, Integer limit) {
+}
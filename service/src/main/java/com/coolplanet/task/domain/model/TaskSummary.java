@@ -0,0 +1,24 @@
+package com.coolplanet.task.domain.model;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Aggregate of one task as listed by {@code GET /tasks} and exported by {@code GET /tasks/export}.
+ */
+@Schema(description = "Aggregated durations of one task")
+public record TaskSummary(
+        @Schema(description = "Unique identifier of the task", example = "task-123")
+        String taskId,
+        @Schema(description = "Sum of all recorded durations in milliseconds", example = "4000")
+        long totalDurationMs,
+        @Schema(description = "Number of recorded durations", example = "4")
+        long counter,
+        @Schema(description = "Average duration in milliseconds", example = "1000")
+        long averageDurationMs) {
+
+    public static TaskSummary of(TaskEntity task) {
+        return new TaskSummary(task.getTaskId(), task.getTotalDurationMs(), task.getCounter(),
+                task.getTotalDurationMs() / task.getCounter());
+    }
+}
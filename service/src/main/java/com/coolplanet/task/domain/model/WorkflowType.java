@@ -14,6 +14,12 @@ package com.coolplanet.task.domain.model;
  * - CALCULATE_AVERAGE_DURATION: Represents a workflow for calculating the average
  *   duration of tasks. This is utilized in scenarios where aggregate duration metrics
  *   need to be computed for a set of tasks.
+ * - CALCULATE_BULK_AVERAGE_DURATION: Represents a lookup of the average durations of
+ *   many tasks at once from a {@link TaskAveragesRequest}.
+ * - LIST_TASKS: Represents a keyset-paginated listing of task aggregates from a
+ *   {@link TaskPageRequest}.
+ * - IMPORT_TASKS: Represents a bulk import of historical task durations from a
+ *   {@link TaskImportRequest}, bypassing the per-sample processing pipeline.
  *
  * Usage Scenarios:
  * - WorkflowType is commonly referenced in {@code TaskContext} objects to indicate
@@ -30,5 +36,8 @@ package com.coolplanet.task.domain.model;
 public enum WorkflowType {
 
     PROCESS_TASK,
-    CALCULATE_AVERAGE_DURATION, INVALID_WORKFLOW;
+    CALCULATE_AVERAGE_DURATION,
+    CALCULATE_BULK_AVERAGE_DURATION,
+    LIST_TASKS,
+    IMPORT_TASKS, INVALID_WORKFLOW;
 }
@@ -0,0 +1,37 @@
+package com.coolplanet.task.infrastructure;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Enum representing the connection pool a database operation should run on.
+ *
+ * The route travels in the Reactor {@link Context} under the {@code ConnectionRoute.class} key and is
+ * resolved by {@link RoutingConnectionFactory} when a connection is acquired. Write storms on the
+ * WRITE pool therefore cannot starve reads served from the READ pool.
+ *
+ * Enum Constants:
+ * - READ: Queries that never modify data, e.g. {@code findById}, served by the primary's read pool.
+ * - REPLICA: Reads that tolerate replication lag, served by a streaming replica when one is
+ *   configured and within the lag threshold, otherwise by the READ pool.
+ * - WRITE: Inserts, upserts and anything running inside a transaction. Also the default when no
+ *   route is present in the context.
+ */
+public enum ConnectionRoute {
+
+    READ,
+    REPLICA,
+    WRITE;
+
+    /**
+     * Adds this route to the context unless an outer caller already chose one, so that an explicit
+     * route (e.g. WRITE for a read-your-writes lookup) is never overridden by a nested repository call.
+     */
+    public Context applyTo(Context context) {
+        return context.hasKey(ConnectionRoute.class) ? context : context.put(ConnectionRoute.class, this);
+    }
+
+    public static ConnectionRoute from(ContextView context) {
+        return context.getOrDefault(ConnectionRoute.class, WRITE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.coolplanet.task.infrastructure;
+
+import io.grpc.Server;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GrpcServerRunner ties a gRPC {@link Server} to the lifecycle of the application context.
+ *
+ * Responsibilities:
+ * - Starts the server once the context is refreshed, failing the startup if its port is taken.
+ * - On shutdown, stops accepting new calls and gives open calls, e.g. streams still being
+ *   acknowledged, the grace period to finish before cancelling them.
+ */
+@Slf4j
+public class GrpcServerRunner implements SmartLifecycle {
+
+    private final Server server;
+    private final Duration shutdownGracePeriod;
+
+    private volatile boolean running;
+
+    public GrpcServerRunner(Server server, Duration shutdownGracePeriod) {
+        this.server = server;
+        this.shutdownGracePeriod = shutdownGracePeriod;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to start gRPC server", ioException);
+        }
+        running = true;
+        log.info("gRPC server listening on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(shutdownGracePeriod.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("gRPC calls still open after {}, cancelling them", shutdownGracePeriod);
+                server.shutdownNow();
+            }
+        } catch (InterruptedException interruptedException) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,84 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.exception.ProcessingException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * KafkaOffsetStore owns the "kafka_offsets" table, in which the exactly-once consumer keeps the next
+ * offset to consume of every partition, next to the aggregates those offsets produced.
+ *
+ * Responsibilities:
+ * - Loads the stored offsets of a consumer group, used to position partitions on assignment.
+ * - Saves the offsets of a batch with a single upsert. It is meant to run in the transaction that
+ *   applies the batch, so offsets and aggregates are committed or rolled back together.
+ * - Only moves offsets forward. A batch ending at or behind a stored offset was already applied, e.g.
+ *   by another consumer of the group that took over its partitions while this one was stalled; its
+ *   save fails, so the transaction rolls back instead of applying the batch twice.
+ */
+@Component
+public class KafkaOffsetStore {
+
+    private final DatabaseClient databaseClient;
+
+    public KafkaOffsetStore(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Returns the next offset to consume of every partition stored for the consumer group. Reads go
+     * to the primary: a lagging replica would replay batches that were already applied.
+     */
+    public Mono<Map<TopicPartition, Long>> find(String consumerGroup) {
+        return databaseClient.sql("SELECT topic, partition_id, next_offset FROM kafka_offsets WHERE consumer_group = :consumerGroup")
+                .bind("consumerGroup", consumerGroup)
+                .map(row -> Map.entry(new TopicPartition(row.get(0, String.class), row.get(1, Integer.class)),
+                        row.get(2, Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .contextWrite(ConnectionRoute.WRITE::applyTo);
+    }
+
+    /**
+     * Stores the next offset to consume of the given partitions.
+     *
+     * @return an empty {@code Mono}, or a {@link ProcessingException} if any of the offsets is not
+     *         ahead of the stored one, in which case none of them must be committed
+     */
+    public Mono<Void> save(String consumerGroup, Map<TopicPartition, Long> nextOffsets) {
+        if (nextOffsets.isEmpty()) {
+            return Mono.empty();
+        }
+        String[] topics = new String[nextOffsets.size()];
+        Integer[] partitions = new Integer[nextOffsets.size()];
+        Long[] offsets = new Long[nextOffsets.size()];
+        int i = 0;
+        for (Map.Entry<TopicPartition, Long> entry : nextOffsets.entrySet()) {
+            topics[i] = entry.getKey().topic();
+            partitions[i] = entry.getKey().partition();
+            offsets[i] = entry.getValue();
+            i++;
+        }
+        return databaseClient.sql("""
+                        INSERT INTO kafka_offsets (consumer_group, topic, partition_id, next_offset)
+                        SELECT :consumerGroup, t.topic, t.partition_id, t.next_offset
+                         FROM unnest(:topics::varchar[], :partitions::int[], :offsets::bigint[]) AS t(topic, partition_id, next_offset)
+                        ON CONFLICT (consumer_group, topic, partition_id)
+                        DO UPDATE SET next_offset = EXCLUDED.next_offset
+                         WHERE kafka_offsets.next_offset < EXCLUDED.next_offset""")
+                .bind("consumerGroup", consumerGroup)
+                .bind("topics", topics)
+                .bind("partitions", partitions)
+                .bind("offsets", offsets)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows < nextOffsets.size()
+                        ? Mono.error(new ProcessingException("Offsets %s of consumer group %s are behind the stored ones"
+                                .formatted(nextOffsets, consumerGroup)))
+                        : Mono.<Void>empty());
+    }
+}
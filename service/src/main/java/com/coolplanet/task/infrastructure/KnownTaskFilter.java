@@ -0,0 +1,215 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.application.util.ScalableBloomFilter;
+import com.coolplanet.task.config.KnownTaskProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the IDs of all tasks in a {@link ScalableBloomFilter}, so that average lookups of task IDs
+ * that were never written are answered without a database round trip ({@code app.tasks.known.enabled}).
+ *
+ * Responsibilities:
+ * - Builds the filter on start by streaming the IDs of the "task" table from the primary, and rebuilds
+ *   it every {@code rebuildInterval}. Until the first build completes, every ID is reported as
+ *   possibly known and looked up as before.
+ * - Adds the task of every write made through this instance. A rebuild swaps the filters only once the
+ *   scan completes; writes made meanwhile go into both, and the scan starts after the new filter is
+ *   in place, so no task committed before or during the rebuild can be missing from it.
+ * - Counts the IDs it rejects and the ones it let through that turned out unknown in
+ *   {@code tasks.known.filter} by outcome ({@code absent}, {@code false_positive}), exports the observed
+ *   false positive rate as {@code tasks.known.filter.false.positive.rate}, the duration of rebuilds as
+ *   {@code tasks.known.filter.rebuild}, the tasks found by the last rebuild as
+ *   {@code tasks.known.filter.tasks} and the memory of the filter as {@code tasks.known.filter.bytes}.
+ *   A rebuild sizes the new filter for the tasks found by the previous one.
+ *
+ * Like {@link RecentWriteTracker}, only writes made through this instance are known; writes of other
+ * instances are only picked up by the next rebuild. Tasks are never removed, a deleted task would
+ * only be a false positive. When disabled, every ID is reported as possibly known and nothing is kept.
+ *
+ * Task IDs are hashed without allocating, with 64-bit FNV-1a finished by two different mixes into the
+ * two halves the filter expects.
+ */
+@Slf4j
+@Component
+public class KnownTaskFilter implements SmartLifecycle {
+
+    private final TaskExporter exporter;
+    private final KnownTaskProperties properties;
+    private final Counter absent;
+    private final Counter falsePositives;
+    private final Timer rebuilds;
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter building;
+    private volatile long rebuiltTasks;
+    private volatile Disposable rebuilding;
+
+    public KnownTaskFilter(TaskExporter exporter, KnownTaskProperties properties, MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.properties = properties;
+        this.absent = outcomeCounter("absent", meterRegistry);
+        this.falsePositives = outcomeCounter("false_positive", meterRegistry);
+        this.rebuilds = Timer.builder("tasks.known.filter.rebuild")
+                .description("Time to rebuild the filter of known task IDs from the task table")
+                .register(meterRegistry);
+        Gauge.builder("tasks.known.filter.false.positive.rate", this, KnownTaskFilter::falsePositiveRate)
+                .description("Share of unknown task IDs the filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("tasks.known.filter.tasks", this, known -> known.rebuiltTasks)
+                .description("Tasks found by the last rebuild of the filter of known task IDs")
+                .register(meterRegistry);
+        Gauge.builder("tasks.known.filter.bytes", this, known -> known.filter != null ? known.filter.sizeInBytes() : 0)
+                .description("Memory used by the filter of known task IDs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void recordWrite(String taskId) {
+        if (!properties.enabled()) {
+            return;
+        }
+        // read before the filter in use, so a write racing with the swap lands in the filter that stays
+        ScalableBloomFilter next = building;
+        ScalableBloomFilter current = filter;
+        long hash = fnv1a(taskId);
+        if (current != null) {
+            current.put(mix1(hash), mix2(hash));
+        }
+        if (next != null) {
+            next.put(mix1(hash), mix2(hash));
+        }
+    }
+
+    /**
+     * Returns {@code false} only if the task was never written, {@code true} if it may have been or if
+     * the filter is disabled or not built yet. A rejected ID is counted as {@code absent}.
+     */
+    public boolean mightExist(String taskId) {
+        ScalableBloomFilter current = filter;
+        if (!properties.enabled() || current == null) {
+            return true;
+        }
+        long hash = fnv1a(taskId);
+        if (current.mightContain(mix1(hash), mix2(hash))) {
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    /**
+     * Records that a task ID reported as possibly known was not found in the database.
+     */
+    public void recordFalsePositive() {
+        if (properties.enabled() && filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        rebuilding = Flux.interval(Duration.ZERO, properties.rebuildInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(error -> {
+                            log.warn("Failed to rebuild the filter of known tasks, retrying in {}", properties.rebuildInterval(), error);
+                            building = null;
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        if (rebuilding != null) {
+            rebuilding.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rebuilding != null && !rebuilding.isDisposed();
+    }
+
+    Mono<Long> rebuild() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(properties.expectedTasks(), rebuiltTasks));
+            ScalableBloomFilter next = new ScalableBloomFilter(capacity, properties.falsePositiveRate());
+            // in place before the scan starts, so every write the scan may not see is added to it
+            building = next;
+            return exporter.taskIds(properties.fetchSize())
+                    .doOnNext(taskId -> {
+                        long hash = fnv1a(taskId);
+                        next.put(mix1(hash), mix2(hash));
+                    })
+                    .count()
+                    .doOnNext(tasks -> {
+                        filter = next;
+                        building = null;
+                        rebuiltTasks = tasks;
+                        long elapsedNanos = System.nanoTime() - start;
+                        rebuilds.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                        log.info("Rebuilt the filter of known tasks with {} tasks in {} ms, {} bytes", tasks,
+                                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), next.sizeInBytes());
+                    });
+        });
+    }
+
+    boolean isBuilt() {
+        return filter != null;
+    }
+
+    private double falsePositiveRate() {
+        double letThrough = falsePositives.count();
+        double unknown = letThrough + absent.count();
+        return unknown == 0 ? 0 : letThrough / unknown;
+    }
+
+    private static long fnv1a(String taskId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < taskId.length(); i++) {
+            hash ^= taskId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer, then a second variant of it on a shifted input (SplitMix64)
+    private static long mix1(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static long mix2(long hash) {
+        hash += 0x9e3779b97f4a7c15L;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static Counter outcomeCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("tasks.known.filter")
+                .description("Average lookups of unknown task IDs, rejected by the filter or let through")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.coolplanet.task.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorates a pooled {@code ConnectionFactory} with a {@code r2dbc.pool.acquire} timer measuring how
+ * long callers wait for a connection, tagged with the pool name and the outcome.
+ *
+ * Pool occupancy (acquired, idle, pending, ...) is already exported by Spring Boot for every
+ * {@code ConnectionPool} bean; acquire latency is the one signal it does not provide and the first
+ * one to move when a pool is undersized.
+ */
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+    private final Timer acquired;
+    private final Timer failed;
+
+    public MeteredConnectionFactory(ConnectionFactory delegate, String poolName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.acquired = acquireTimer(poolName, "success", meterRegistry);
+        this.failed = acquireTimer(poolName, "error", meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.<Connection>from(delegate.create())
+                    .doOnSuccess(connection -> acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    private static Timer acquireTimer(String poolName, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("r2dbc.pool.acquire")
+                .description("Time spent waiting for a pooled R2DBC connection")
+                .tag("name", poolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
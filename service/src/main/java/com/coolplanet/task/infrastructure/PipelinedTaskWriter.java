@@ -0,0 +1,173 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PipelinedTaskWriter performs task upserts over a single, dedicated R2DBC connection without
+ * waiting for each round trip before sending the next statement.
+ *
+ * Responsibilities:
+ * - Queues upserts from any number of callers and keeps up to {@code pipelineDepth} of them in
+ *   flight on the connection at once. The Postgres driver writes every statement's extended query
+ *   messages (Bind/Execute/Sync) as soon as it is executed and matches responses in order, so with
+ *   a depth of N one network round trip is shared by up to N upserts.
+ * - Reuses the server-side prepared statement for the upsert: the driver parses it once per
+ *   connection and only binds parameters afterwards (see {@code preparedStatementCacheQueries}).
+ * - Completes each caller's {@code Mono} as soon as that upsert's result arrives, independently of
+ *   the other statements in the pipeline. Every statement carries its own Sync, so a failing
+ *   upsert only fails its own caller.
+ * - Rejects upserts with a {@link ProcessingException} once {@code queueCapacity} are pending, and
+ *   opens a new connection after the current one was lost.
+ * - On {@link #close()}, fails every upsert still queued or in flight, and every upsert that races
+ *   with it, with a {@link ProcessingException} rather than leaving its caller waiting.
+ *
+ * The SQL is the same as {@link TaskRepository#upsert(String, Long)}, so both write paths can be
+ * used side by side.
+ */
+@Slf4j
+public class PipelinedTaskWriter implements Closeable {
+
+    static final String UPSERT_SQL = """
+        INSERT INTO task AS t (task_id, total_duration_ms, counter)
+         VALUES ($1, $2, 1)
+         ON CONFLICT (task_id)
+         DO UPDATE SET
+           total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
+           counter = t.counter + 1
+         RETURNING task_id, total_duration_ms, counter
+        """;
+
+    private final ConnectionFactory connectionFactory;
+    private final int queueCapacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    // every upsert whose caller has not been completed yet, whether queued or in flight
+    private final Set<PendingUpsert> outstanding = ConcurrentHashMap.newKeySet();
+    private final Disposable pipeline;
+
+    private volatile boolean closed;
+    private volatile FluxSink<PendingUpsert> queue;
+    private volatile Mono<Connection> connection;
+
+    public PipelinedTaskWriter(ConnectionFactory connectionFactory, int pipelineDepth, int queueCapacity) {
+        this.connectionFactory = connectionFactory;
+        this.queueCapacity = queueCapacity;
+        this.connection = openConnection();
+        this.pipeline = Flux.<PendingUpsert>create(sink -> this.queue = sink, FluxSink.OverflowStrategy.BUFFER)
+                .flatMap(this::execute, pipelineDepth, 1)
+                .subscribe();
+    }
+
+    /**
+     * Queues an atomic upsert of one sample, see {@link TaskRepository#upsert(String, Long)}.
+     *
+     * @param taskId the unique identifier of the task to be inserted or updated
+     * @param totalDurationMs the duration to be added to the {@code total_duration_ms} of the task
+     * @return a {@code Mono<TaskEntity>} containing the row as it is after the operation
+     */
+    public Mono<TaskEntity> upsert(String taskId, Long totalDurationMs) {
+        return Mono.create(sink -> {
+            if (closed) {
+                sink.error(closedException());
+            } else if (pending.incrementAndGet() > queueCapacity) {
+                pending.decrementAndGet();
+                sink.error(new ProcessingException("Pipelined writer queue is full"));
+            } else {
+                PendingUpsert upsert = new PendingUpsert(taskId, totalDurationMs, sink);
+                outstanding.add(upsert);
+                // close() may have drained the outstanding upserts between the check above and the add
+                if (closed) {
+                    fail(upsert, closedException());
+                } else {
+                    queue.next(upsert);
+                }
+            }
+        });
+    }
+
+    int pending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // cancels the in-flight statements and drops the queue without signalling their callers
+        pipeline.dispose();
+        outstanding.forEach(upsert -> fail(upsert, closedException()));
+        connection.flatMap(current -> Mono.from(current.close()))
+                .onErrorResume(error -> Mono.empty())
+                .block();
+    }
+
+    private Mono<Void> execute(PendingUpsert upsert) {
+        Mono<Connection> current = connection;
+        return current.flatMapMany(conn -> conn.createStatement(UPSERT_SQL)
+                        .bind(0, upsert.taskId())
+                        .bind(1, upsert.totalDurationMs())
+                        .execute())
+                .concatMap(result -> result.map((row, metadata) ->
+                        new TaskEntity(row.get(0, String.class), row.get(1, Long.class), row.get(2, Long.class))))
+                .singleOrEmpty()
+                .doOnSuccess(entity -> complete(upsert, entity))
+                .doOnError(error -> {
+                    if (error instanceof R2dbcNonTransientResourceException) {
+                        reconnect(current);
+                    }
+                    fail(upsert, error);
+                })
+                .doOnCancel(() -> fail(upsert, closedException()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private void complete(PendingUpsert upsert, TaskEntity entity) {
+        if (outstanding.remove(upsert)) {
+            pending.decrementAndGet();
+            upsert.sink().success(entity);
+        }
+    }
+
+    private void fail(PendingUpsert upsert, Throwable error) {
+        if (outstanding.remove(upsert)) {
+            pending.decrementAndGet();
+            upsert.sink().error(error);
+        }
+    }
+
+    private static ProcessingException closedException() {
+        return new ProcessingException("Pipelined writer is closed");
+    }
+
+    private synchronized void reconnect(Mono<Connection> failed) {
+        if (connection == failed) {
+            log.warn("Pipelined writer connection lost, reconnecting");
+            connection = openConnection();
+        }
+    }
+
+    private Mono<Connection> openConnection() {
+        // Keep a healthy connection forever, but retry opening it on the next upsert after a failure.
+        // Reactor only treats Long.MAX_VALUE millis as infinite, longer TTLs overflow when scheduled.
+        return Mono.<Connection>from(connectionFactory.create())
+                .cache(conn -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    private record PendingUpsert(String taskId, Long totalDurationMs, MonoSink<TaskEntity> sink) {
+    }
+}
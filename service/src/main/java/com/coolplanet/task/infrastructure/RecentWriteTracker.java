@@ -0,0 +1,61 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.ReplicaProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which tasks this instance wrote recently, backing the opt-in read-your-writes mode of
+ * replica routing ({@code app.r2dbc.replicas.read-your-writes}).
+ *
+ * A task written less than {@code maxLag} ago may not have reached the replicas yet, so its reads are
+ * routed to the primary. Only writes made through this instance are known; a client switching
+ * instances between its write and its read may still see the replica's older value.
+ *
+ * Entries older than {@code maxLag} are useless and are swept once the map grows past
+ * {@link #SWEEP_THRESHOLD}, which bounds memory to the tasks written within one lag window.
+ */
+@Component
+public class RecentWriteTracker {
+
+    static final int SWEEP_THRESHOLD = 100_000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public RecentWriteTracker(ReplicaProperties properties) {
+        this.enabled = properties.enabled() && properties.readYourWrites();
+        this.windowNanos = properties.maxLag().toNanos();
+    }
+
+    public void recordWrite(String taskId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrites.put(taskId, now);
+        if (lastWrites.size() > SWEEP_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+        }
+    }
+
+    /**
+     * Returns the route for reading the given task: {@link ConnectionRoute#READ} (primary) if it was
+     * written within the lag window, otherwise {@link ConnectionRoute#REPLICA}.
+     */
+    public ConnectionRoute readRoute(String taskId) {
+        if (enabled) {
+            Long writtenAt = lastWrites.get(taskId);
+            if (writtenAt != null && System.nanoTime() - writtenAt <= windowNanos) {
+                return ConnectionRoute.READ;
+            }
+        }
+        return ConnectionRoute.REPLICA;
+    }
+
+    int size() {
+        return lastWrites.size();
+    }
+}
@@ -0,0 +1,201 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.ReplicaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code ConnectionFactory} spreading reads over streaming replicas, used as the target of the
+ * {@link ConnectionRoute#REPLICA} route.
+ *
+ * Responsibilities:
+ * - Probes every replica each {@code checkInterval} for its replication lag (time since the last
+ *   replayed transaction, or zero when it has replayed everything it received) and measures the
+ *   probe round trip as a moving average. A replica without a streaming WAL receiver is skipped like
+ *   one of unknown lag: having replayed all it received says nothing about how far behind it is. The
+ *   state of the receiver is only visible with {@code pg_read_all_stats}; without it, the probe can
+ *   only check that a receiver is running.
+ * - Chooses one of the replicas whose lag is within {@code maxLag}, round-robin or by lowest latency.
+ * - Falls back to the primary when no replica qualifies, e.g. before the first probe, during a
+ *   replication stall or while a replica is down.
+ * - On {@link #stop()}, sends every read to the primary while the web server drains its requests;
+ *   the replica pools are only disposed by {@link #close()}, once the bean is destroyed.
+ * - Exports {@code r2dbc.replica.lag} per replica and counts reads per target in
+ *   {@code r2dbc.replica.reads}.
+ */
+@Slf4j
+public class ReplicaConnectionFactory implements ConnectionFactory, SmartLifecycle, AutoCloseable {
+
+    static final String LAG_QUERY = """
+        SELECT CASE
+          WHEN NOT pg_is_in_recovery() THEN 0
+          WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE coalesce(status, 'streaming') = 'streaming') THEN NULL
+          WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+          ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::BIGINT
+        END
+        """;
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final List<Replica> replicas;
+    private final ConnectionFactory primary;
+    private final ReplicaProperties properties;
+    private final Counter primaryReads;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile Disposable probes;
+
+    public ReplicaConnectionFactory(List<ConnectionPool> replicaPools, ConnectionFactory primary,
+                                    ReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.properties = properties;
+        this.primaryReads = readCounter("primary", meterRegistry);
+        this.replicas = new ArrayList<>(replicaPools.size());
+        for (int i = 0; i < replicaPools.size(); i++) {
+            String name = "replica-" + i;
+            Replica replica = new Replica(name, replicaPools.get(i),
+                    new MeteredConnectionFactory(replicaPools.get(i), name, meterRegistry), readCounter(name, meterRegistry));
+            Gauge.builder("r2dbc.replica.lag", replica, Replica::lagMillis)
+                    .description("Replication lag of the replica in milliseconds, -1 when unreachable")
+                    .tag("name", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        Replica replica = select();
+        if (replica == null) {
+            primaryReads.increment();
+            return Mono.from(primary.create());
+        }
+        replica.reads.increment();
+        return Mono.from(replica.connectionFactory.create());
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    @Override
+    public void start() {
+        probes = Flux.interval(Duration.ZERO, properties.checkInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> Flux.fromIterable(replicas).flatMap(this::probe))
+                .subscribe();
+    }
+
+    // stopped before the web server has drained its requests, so the replica pools stay open until close()
+    @Override
+    public void stop() {
+        if (probes != null) {
+            probes.dispose();
+        }
+        replicas.forEach(replica -> replica.lagMillis = -1);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.dispose());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return probes != null && !probes.isDisposed();
+    }
+
+    Replica select() {
+        List<Replica> eligible = replicas.stream()
+                .filter(replica -> replica.lagMillis >= 0 && replica.lagMillis <= properties.maxLag().toMillis())
+                .toList();
+        if (eligible.isEmpty()) {
+            return null;
+        }
+        return switch (properties.balancing()) {
+            case ROUND_ROBIN -> eligible.get(Math.floorMod(nextReplica.getAndIncrement(), eligible.size()));
+            case LEAST_LATENCY -> eligible.stream().min(Comparator.comparingDouble(replica -> replica.latencyNanos)).get();
+        };
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    Mono<Void> probe(Replica replica) {
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return Mono.usingWhen(replica.pool.create(),
+                                    connection -> Flux.from(connection.createStatement(LAG_QUERY).execute())
+                                            .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                                            .next(),
+                                    Connection::close)
+                            .doOnNext(lag -> replica.update(lag, System.nanoTime() - start));
+                })
+                .timeout(properties.checkInterval())
+                .doOnError(error -> {
+                    if (replica.lagMillis >= 0) {
+                        log.warn("Replica {} is unreachable, reading from the primary", replica.name, error);
+                    }
+                    replica.lagMillis = -1;
+                })
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private static Counter readCounter(String target, MeterRegistry meterRegistry) {
+        return Counter.builder("r2dbc.replica.reads")
+                .description("Reads routed to a replica or, as a fallback, to the primary")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Health of one replica, updated by the probes and read by {@link #select()}.
+     */
+    static final class Replica {
+
+        final String name;
+        final ConnectionPool pool;
+        final ConnectionFactory connectionFactory;
+        final Counter reads;
+        volatile long lagMillis = -1;
+        volatile double latencyNanos = Double.MAX_VALUE;
+
+        Replica(String name, ConnectionPool pool, ConnectionFactory connectionFactory, Counter reads) {
+            this.name = name;
+            this.pool = pool;
+            this.connectionFactory = connectionFactory;
+            this.reads = reads;
+        }
+
+        void update(Long lag, long probeNanos) {
+            lagMillis = lag == null ? Long.MAX_VALUE : lag;
+            latencyNanos = latencyNanos == Double.MAX_VALUE
+                    ? probeNanos
+                    : latencyNanos + LATENCY_SMOOTHING * (probeNanos - latencyNanos);
+        }
+
+        long lagMillis() {
+            return lagMillis;
+        }
+    }
+}
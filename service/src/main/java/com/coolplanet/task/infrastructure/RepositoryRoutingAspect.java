@@ -0,0 +1,42 @@
+package com.coolplanet.task.infrastructure;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Aspect that routes every {@link TaskRepository} operation to the READ or WRITE connection pool.
+ *
+ * Query methods derived by Spring Data ({@code find*}, {@code exists*}, {@code count*}) only read and
+ * run on the READ pool; every other method, including the custom upserts, runs on the WRITE pool.
+ * The route is written into the Reactor context of the returned publisher, where
+ * {@link RoutingConnectionFactory} picks it up. A route chosen further up the chain is kept.
+ */
+@Aspect
+@Component
+public class RepositoryRoutingAspect {
+
+    private static final List<String> READ_PREFIXES = List.of("find", "exists", "count");
+
+    @Around("execution(* com.coolplanet.task.infrastructure.TaskRepository.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        ConnectionRoute route = routeOf(joinPoint.getSignature().getName());
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return mono.contextWrite(route::applyTo);
+        }
+        if (result instanceof Flux<?> flux) {
+            return flux.contextWrite(route::applyTo);
+        }
+        return result;
+    }
+
+    static ConnectionRoute routeOf(String methodName) {
+        return READ_PREFIXES.stream().anyMatch(methodName::startsWith) ? ConnectionRoute.READ : ConnectionRoute.WRITE;
+    }
+}
@@ -0,0 +1,38 @@
+package com.coolplanet.task.infrastructure;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * {@code ConnectionFactory} that hands out connections from the pool selected by the
+ * {@link ConnectionRoute} found in the subscriber's Reactor context, defaulting to the WRITE pool.
+ *
+ * Spring Data repositories, {@code DatabaseClient} and the R2DBC transaction manager all sit on top
+ * of this single factory, so routing is transparent to them; {@code RepositoryRoutingAspect} puts
+ * the route into the context for repository calls.
+ */
+public class RoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    public RoutingConnectionFactory(ConnectionFactory readConnectionFactory, ConnectionFactory writeConnectionFactory) {
+        this(readConnectionFactory, writeConnectionFactory, readConnectionFactory);
+    }
+
+    public RoutingConnectionFactory(ConnectionFactory readConnectionFactory, ConnectionFactory writeConnectionFactory,
+                                    ConnectionFactory replicaConnectionFactory) {
+        setTargetConnectionFactories(Map.of(
+                ConnectionRoute.READ, readConnectionFactory,
+                ConnectionRoute.REPLICA, replicaConnectionFactory,
+                ConnectionRoute.WRITE, writeConnectionFactory));
+        setDefaultTargetConnectionFactory(writeConnectionFactory);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.just(ConnectionRoute.from(context)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.OverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process bus carrying task rows from the write paths to live subscribers on this instance.
+ *
+ * Responsibilities:
+ * - Receives the row returned by every successful upsert, from the sync and Kafka consumer paths
+ *   ({@code TaskProcessorService}) and from the write-ahead log shipper. Publishing a task nobody
+ *   watches is a single map lookup.
+ * - Keeps one multicast sink per watched task, shared by all of its subscribers, so fan-out costs the
+ *   same whatever the number of watchers. The sink is dropped with its last subscriber.
+ * - Conflates per subscriber: a subscriber that cannot keep up only gets the latest row once it asks
+ *   for more, it never builds up a queue.
+ * - Bounds the number of subscribers on this instance to {@code app.tasks.query.max-stream-subscribers},
+ *   rejecting further subscriptions with an {@link OverloadedException}, and exports the current count
+ *   as {@code tasks.stream.subscribers}.
+ *
+ * Only writes made through this instance are seen; with several instances, a watcher sees the writes
+ * of the instance it is connected to.
+ */
+@Component
+public class TaskChangeBus {
+
+    private static final Sinks.EmitFailureHandler RETRY_CONCURRENT_EMIT = Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final int maxSubscribers;
+
+    public TaskChangeBus(TaskQueryProperties properties, MeterRegistry meterRegistry) {
+        this.maxSubscribers = properties.maxStreamSubscribers();
+        Gauge.builder("tasks.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Live task streams open on this instance")
+                .register(meterRegistry);
+    }
+
+    public void publish(TaskEntity task) {
+        Topic topic = topics.get(task.getTaskId());
+        if (topic != null) {
+            topic.sink.emitNext(task, RETRY_CONCURRENT_EMIT);
+        }
+    }
+
+    /**
+     * Returns the rows published for the given task from the moment of subscription on. The stream
+     * never completes on its own; cancelling it releases the subscriber slot.
+     */
+    public Flux<TaskEntity> changes(String taskId) {
+        return Flux.defer(() -> {
+            if (subscribers.incrementAndGet() > maxSubscribers) {
+                subscribers.decrementAndGet();
+                return Flux.error(new OverloadedException("Too many live task streams, at most " + maxSubscribers
+                        + " are allowed per instance"));
+            }
+            Topic topic = topics.compute(taskId, (id, existing) -> {
+                Topic current = existing != null ? existing : new Topic();
+                current.subscribers++;
+                return current;
+            });
+            return topic.sink.asFlux()
+                    .onBackpressureLatest()
+                    .doFinally(signal -> release(taskId));
+        });
+    }
+
+    int subscribers() {
+        return subscribers.get();
+    }
+
+    int topics() {
+        return topics.size();
+    }
+
+    private void release(String taskId) {
+        subscribers.decrementAndGet();
+        topics.computeIfPresent(taskId, (id, topic) -> --topic.subscribers == 0 ? null : topic);
+    }
+
+    /**
+     * Sink of one watched task. The subscriber count is only changed inside the map's atomic
+     * {@code compute} calls, which serialize per task.
+     */
+    private static final class Topic {
+
+        final Sinks.Many<TaskEntity> sink = Sinks.many().multicast().directBestEffort();
+        int subscribers;
+    }
+}
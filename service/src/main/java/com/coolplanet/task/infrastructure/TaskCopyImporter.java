@@ -0,0 +1,135 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.model.TaskDTO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * TaskCopyImporter bulk loads task samples into the "task" table with Postgres {@code COPY}.
+ *
+ * Responsibilities:
+ * - Creates an {@code UNLOGGED} staging table per import, so the raw samples skip the WAL.
+ * - Streams the samples into it with {@code COPY ... FROM STDIN (FORMAT binary)}, encoding them in
+ *   batches of {@link #BATCH_ROWS} rows. Only the batches in flight are held in memory, the input
+ *   itself is never materialized, so inputs of any size import in constant memory.
+ * - Folds the staging table into "task" with one set-based statement that aggregates per task and
+ *   upserts, adding to existing totals and counters like {@code TaskRepository.upsertAggregate}.
+ * - Drops the staging table afterwards, whether the import succeeded or not.
+ *
+ * All statements run on one connection of the write pool, which is held for the whole import.
+ */
+@Slf4j
+@Component
+public class TaskCopyImporter {
+
+    static final int BATCH_ROWS = 1024;
+
+    // PGCOPY binary header: signature, flags and header extension length
+    private static final byte[] COPY_SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final short FIELD_COUNT = 2;
+    private static final short TRAILER = -1;
+
+    private final ConnectionFactory connectionFactory;
+
+    public TaskCopyImporter(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Copies the samples into a fresh staging table and merges them into "task".
+     *
+     * @param importId identifier of the import, used to name the staging table; letters and digits only
+     * @param samples the samples to import, consumed exactly once
+     * @return a {@code Mono} emitting the number of copied samples and merged tasks
+     */
+    public Mono<CopyResult> importTasks(String importId, Flux<TaskDTO> samples) {
+        String stagingTable = "task_import_" + importId;
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> execute(connection, "CREATE UNLOGGED TABLE " + stagingTable
+                        + " (task_id VARCHAR(255) NOT NULL, duration_ms BIGINT NOT NULL)")
+                        .then(Mono.defer(() -> unwrap(connection).copyIn(
+                                "COPY " + stagingTable + " (task_id, duration_ms) FROM STDIN (FORMAT binary)",
+                                copyData(samples))))
+                        .flatMap(rows -> execute(connection, """
+                                INSERT INTO task AS t (task_id, total_duration_ms, counter)
+                                 SELECT task_id, sum(duration_ms)::BIGINT, count(*)
+                                 FROM %s
+                                 GROUP BY task_id
+                                 ON CONFLICT (task_id)
+                                 DO UPDATE SET
+                                   total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
+                                   counter = t.counter + EXCLUDED.counter
+                                """.formatted(stagingTable))
+                                .map(tasks -> new CopyResult(rows, tasks)))
+                        .flatMap(result -> execute(connection, "DROP TABLE " + stagingTable).thenReturn(result))
+                        .onErrorResume(error -> execute(connection, "DROP TABLE IF EXISTS " + stagingTable)
+                                .onErrorResume(dropError -> Mono.empty())
+                                .then(Mono.error(error))),
+                Connection::close);
+    }
+
+    static Flux<ByteBuf> copyData(Flux<TaskDTO> samples) {
+        return Flux.concat(
+                Mono.fromSupplier(TaskCopyImporter::header),
+                samples.buffer(BATCH_ROWS).map(TaskCopyImporter::encode),
+                Mono.fromSupplier(() -> ByteBufAllocator.DEFAULT.buffer(2).writeShort(TRAILER)));
+    }
+
+    private static ByteBuf header() {
+        return ByteBufAllocator.DEFAULT.buffer(COPY_SIGNATURE.length + 8)
+                .writeBytes(COPY_SIGNATURE)
+                .writeInt(0)
+                .writeInt(0);
+    }
+
+    private static ByteBuf encode(List<TaskDTO> batch) {
+        ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer(batch.size() * 48);
+        for (TaskDTO sample : batch) {
+            buffer.writeShort(FIELD_COUNT);
+            int lengthIndex = buffer.writerIndex();
+            buffer.writeInt(0);
+            int length = buffer.writeCharSequence(sample.taskId(), StandardCharsets.UTF_8);
+            buffer.setInt(lengthIndex, length);
+            buffer.writeInt(Long.BYTES);
+            buffer.writeLong(sample.totalDurationMs());
+        }
+        return buffer;
+    }
+
+    private static Mono<Long> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                .reduce(0L, Long::sum);
+    }
+
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        if (current instanceof PostgresqlConnection postgresqlConnection) {
+            return postgresqlConnection;
+        }
+        throw new IllegalStateException("COPY requires a Postgres connection, got " + connection.getClass().getName());
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param rows number of samples copied into the staging table
+     * @param tasks number of rows of "task" inserted or updated by the merge
+     */
+    public record CopyResult(long rows, long tasks) {
+    }
+}
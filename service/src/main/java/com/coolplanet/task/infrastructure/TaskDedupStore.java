@@ -0,0 +1,104 @@
+package com.coolplanet.task.infrastructure;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * TaskDedupStore owns the "task_dedup" table of recently seen idempotency keys.
+ *
+ * Responsibilities:
+ * - Confirms whether a key hash was seen on or after a given day, which the deduplicator only asks
+ *   for keys its Bloom filter reports as probable duplicates.
+ * - Creates the daily partitions ahead of time and drops the ones that left the retention window.
+ *   Dropping a partition is a metadata operation: expired keys leave no dead tuples behind.
+ * - Streams the keys of the retention window, so that a restarted instance can rebuild its filter.
+ *
+ * Keys are claimed together with the sample they guard by {@link TaskRepository#upsertOnce}, in a
+ * single statement, so a sample is never counted without its key or the other way round.
+ */
+@Slf4j
+@Component
+public class TaskDedupStore {
+
+    static final String PARTITION_PREFIX = "task_dedup_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final DatabaseClient databaseClient;
+
+    public TaskDedupStore(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Returns whether the key hash was recorded on {@code since} or any later day.
+     */
+    public Mono<Boolean> seenSince(UUID keyHash, LocalDate since) {
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM task_dedup WHERE key_hash = :keyHash AND seen_on >= :since)")
+                .bind("keyHash", keyHash)
+                .bind("since", since)
+                .map(row -> row.get(0, Boolean.class))
+                .one()
+                .contextWrite(ConnectionRoute.READ::applyTo);
+    }
+
+    /**
+     * Streams the key hashes recorded on {@code since} or any later day.
+     */
+    public Flux<DedupKey> keysSince(LocalDate since, int fetchSize) {
+        return databaseClient.sql("SELECT key_hash, seen_on FROM task_dedup WHERE seen_on >= :since")
+                .bind("since", since)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(row -> new DedupKey(row.get(0, UUID.class), row.get(1, LocalDate.class)))
+                .all()
+                .contextWrite(ConnectionRoute.READ::applyTo);
+    }
+
+    /**
+     * Creates the daily partitions from {@code from} to {@code to}, both inclusive, if missing.
+     */
+    public Mono<Void> createPartitions(LocalDate from, LocalDate to) {
+        return Flux.fromStream(from.datesUntil(to.plusDays(1)))
+                .concatMap(day -> databaseClient.sql("CREATE TABLE IF NOT EXISTS %s PARTITION OF task_dedup FOR VALUES FROM ('%s') TO ('%s')"
+                                .formatted(partitionName(day), day, day.plusDays(1)))
+                        .then())
+                .then();
+    }
+
+    /**
+     * Drops the daily partitions holding days before {@code before}.
+     *
+     * @return a {@code Mono} emitting the number of dropped partitions
+     */
+    public Mono<Long> dropPartitionsBefore(LocalDate before) {
+        return databaseClient.sql("""
+                        SELECT child.relname
+                         FROM pg_inherits
+                         JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                         JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                         WHERE parent.relname = 'task_dedup'""")
+                .map(row -> row.get(0, String.class))
+                .all()
+                .filter(name -> name.startsWith(PARTITION_PREFIX) && partitionDay(name).isBefore(before))
+                .concatMap(name -> databaseClient.sql("DROP TABLE IF EXISTS " + name).then().thenReturn(name))
+                .doOnNext(name -> log.info("Dropped expired dedup partition {}", name))
+                .count();
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+    }
+
+    static LocalDate partitionDay(String partitionName) {
+        return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+    }
+
+    public record DedupKey(UUID keyHash, LocalDate seenOn) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * TaskExporter reads every task aggregate through a server-side cursor.
+ *
+ * Responsibilities:
+ * - Runs one statement with a fetch size: the driver binds it to a portal and fetches {@code fetchSize}
+ *   rows per round trip, asking for the next batch only once the subscriber has requested more. Heap
+ *   use is bounded by the fetch size, not by the size of the table.
+ * - Reads in {@code task_id} order from {@code afterTaskId} on, so an interrupted export can resume
+ *   from the last ID it received.
+ * - Routes to {@link ConnectionRoute#REPLICA}: a replica when configured, the read pool otherwise, so
+ *   exports never hold connections of the write pool.
+ * - Streams the IDs of all tasks from the primary, for the {@link KnownTaskFilter} to rebuild from.
+ *
+ * The connection is held until the export completes, fails or is cancelled.
+ */
+@Component
+public class TaskExporter {
+
+    static final String EXPORT_SQL = """
+        SELECT task_id, total_duration_ms, counter
+         FROM task
+         WHERE task_id > $1
+         ORDER BY task_id
+        """;
+    static final String TASK_IDS_SQL = "SELECT task_id FROM task";
+
+    private final ConnectionFactory connectionFactory;
+
+    public TaskExporter(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Streams all tasks sorting after {@code afterTaskId}.
+     *
+     * @param afterTaskId the last task ID already exported, or an empty string to export everything
+     * @param fetchSize the number of rows fetched from the cursor per round trip
+     * @return a {@code Flux<TaskEntity>} of the tasks, in {@code task_id} order
+     */
+    public Flux<TaskEntity> export(String afterTaskId, int fetchSize) {
+        return Flux.usingWhen(connectionFactory.create(),
+                        connection -> Flux.from(connection.createStatement(EXPORT_SQL)
+                                        .bind(0, afterTaskId)
+                                        .fetchSize(fetchSize)
+                                        .execute())
+                                .concatMap(result -> result.map((row, metadata) ->
+                                        new TaskEntity(row.get(0, String.class), row.get(1, Long.class), row.get(2, Long.class)))),
+                        Connection::close)
+                .contextWrite(ConnectionRoute.REPLICA::applyTo);
+    }
+
+    /**
+     * Streams the IDs of all tasks, in no particular order, from the primary: unlike an export, the
+     * result must include every task committed before the call, which a lagging replica may not have.
+     *
+     * @param fetchSize the number of rows fetched from the cursor per round trip
+     * @return a {@code Flux<String>} of the task IDs
+     */
+    public Flux<String> taskIds(int fetchSize) {
+        return Flux.usingWhen(connectionFactory.create(),
+                        connection -> Flux.from(connection.createStatement(TASK_IDS_SQL)
+                                        .fetchSize(fetchSize)
+                                        .execute())
+                                .concatMap(result -> result.map((row, metadata) -> row.get(0, String.class))),
+                        Connection::close)
+                .contextWrite(ConnectionRoute.READ::applyTo);
+    }
+}
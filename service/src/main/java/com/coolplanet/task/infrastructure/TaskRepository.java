@@ -6,8 +6,12 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 /**
  * Repository interface for managing {@code TaskEntity} objects in a reactive, non-blocking
  * manner using Spring Data R2DBC. It extends the {@code ReactiveCrudRepository} interface to
@@ -23,6 +27,18 @@ import reactor.core.publisher.Mono;
  *        {@code taskId} already exists, the method increments the existing row's {@code total_duration_ms}
  *        and {@code counter}. If the {@code taskId} does not exist, it inserts a new row with an initial
  *        total duration and a counter value of 1.
+ * - {@code upsertAggregate(String taskId, Long totalDurationMs, Long count)}:
+ *        Same as {@code upsert}, but folds a pre-aggregated batch of {@code count} samples into the row
+ *        in one statement. Used by batch write paths such as the write-ahead log shipper.
+ * - {@code upsertOnce(UUID keyHash, LocalDate seenOn, LocalDate windowStart, String taskId, Long totalDurationMs)}:
+ *        Same as {@code upsert}, guarded by an idempotency key: the key is claimed in "task_dedup" and the
+ *        sample applied in the same statement, or neither happens if the key was already claimed on any
+ *        day since {@code windowStart}.
+ * - {@code findPageAfter(String afterTaskId, int limit)}:
+ *        Fetches the next page of tasks in {@code task_id} order, seeking past the last ID of the previous
+ *        page on the primary key index (keyset pagination). Used by the task listing.
+ * - {@code findAllByTaskIds(String[] taskIds)}:
+ *        Fetches the rows of many tasks with a single {@code ANY} query. Used by the bulk average lookup.
  *
  * Annotations:
  * - {@code @Repository}: Indicates that this interface is a repository in the Spring Data model.
@@ -40,7 +56,7 @@ public interface TaskRepository extends ReactiveCrudRepository<TaskEntity, Strin
      *
      * @param taskId the unique identifier of the task to be inserted or updated
      * @param totalDurationMs the duration to be added to the {@code total_duration_ms} of the task
-     * @return a {@code Mono<Long>} containing the new total duration ({@code total_duration_ms}) after the operation
+     * @return a {@code Mono<TaskEntity>} containing the row as it is after the operation
      */
     @Query("""
         INSERT INTO task AS t (task_id, total_duration_ms, counter)
@@ -49,8 +65,93 @@ public interface TaskRepository extends ReactiveCrudRepository<TaskEntity, Strin
          DO UPDATE SET
            total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
            counter = t.counter + 1
-         RETURNING total_duration_ms;
+         RETURNING task_id, total_duration_ms, counter;
+        """)
+    Mono<TaskEntity> upsert(@Param("taskId") String taskId, @Param("totalDurationMs") Long totalDurationMs);
+
+    /**
+     * Performs an atomic upsert of a pre-aggregated batch of samples. If a task with the specified
+     * {@code taskId} already exists, {@code totalDurationMs} is added to its {@code total_duration_ms}
+     * and {@code count} to its {@code counter}; otherwise a new record is inserted with both values.
+     *
+     * @param taskId the unique identifier of the task to be inserted or updated
+     * @param totalDurationMs the summed duration of all samples in the batch
+     * @param count the number of samples in the batch
+     * @return a {@code Mono<TaskEntity>} containing the row as it is after the operation
+     */
+    @Query("""
+        INSERT INTO task AS t (task_id, total_duration_ms, counter)
+         VALUES (:taskId, :totalDurationMs, :count)
+         ON CONFLICT (task_id)
+         DO UPDATE SET
+           total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
+           counter = t.counter + EXCLUDED.counter
+         RETURNING task_id, total_duration_ms, counter;
+        """)
+    Mono<TaskEntity> upsertAggregate(@Param("taskId") String taskId, @Param("totalDurationMs") Long totalDurationMs,
+                               @Param("count") Long count);
+
+    /**
+     * Performs the same upsert as {@link #upsert(String, Long)} only if the idempotency key was not
+     * claimed yet on any day from {@code windowStart} to {@code seenOn}. The key is inserted into the
+     * "task_dedup" partition of {@code seenOn} and the sample applied in one statement, so a sample and
+     * its key are always persisted together.
+     *
+     * The primary key of "task_dedup" includes the day, so it only rejects a key claimed twice on the
+     * same day; a key claimed on an earlier day of the window is rejected by the {@code NOT EXISTS}
+     * guard. Two claims of the same key that commit concurrently on both sides of midnight can still
+     * both succeed, neither sees the other's uncommitted row.
+     *
+     * @param keyHash the MD5 hash of the idempotency key
+     * @param seenOn the day the key is recorded under, which selects the partition
+     * @param windowStart the first day of the retention window, on which earlier claims are looked up
+     * @param taskId the unique identifier of the task to be inserted or updated
+     * @param totalDurationMs the duration to be added to the {@code total_duration_ms} of the task
+     * @return a {@code Mono<TaskEntity>} containing the row after the operation, or empty if the key
+     *         was already claimed within the window and nothing was changed
+     */
+    @Query("""
+        WITH claimed AS (
+          INSERT INTO task_dedup (key_hash, seen_on)
+           SELECT :keyHash, :seenOn
+           WHERE NOT EXISTS (
+             SELECT 1 FROM task_dedup WHERE key_hash = :keyHash AND seen_on >= :windowStart
+           )
+           ON CONFLICT DO NOTHING
+           RETURNING key_hash
+        )
+        INSERT INTO task AS t (task_id, total_duration_ms, counter)
+         SELECT :taskId, :totalDurationMs, 1 FROM claimed
+         ON CONFLICT (task_id)
+         DO UPDATE SET
+           total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
+           counter = t.counter + 1
+         RETURNING task_id, total_duration_ms, counter;
         """)
-    Mono<Long> upsert(@Param("taskId") String taskId, @Param("totalDurationMs") Long totalDurationMs);
+    Mono<TaskEntity> upsertOnce(@Param("keyHash") UUID keyHash, @Param("seenOn") LocalDate seenOn,
+                                @Param("windowStart") LocalDate windowStart, @Param("taskId") String taskId, @Param("totalDurationMs") Long totalDurationMs);
+
+    /**
+     * Fetches all tasks whose {@code task_id} is one of the given IDs with a single statement. The IDs
+     * are bound as one array parameter, so the statement text (and its prepared plan) is the same
+     * whatever the number of IDs. Unknown IDs yield no row; rows are returned in no particular order.
+     *
+     * @param taskIds the task IDs to look up
+     * @return a {@code Flux<TaskEntity>} of the tasks found
+     */
+    @Query("SELECT * FROM task WHERE task_id = ANY(:taskIds)")
+    Flux<TaskEntity> findAllByTaskIds(@Param("taskIds") String[] taskIds);
+
+    /**
+     * Fetches up to {@code limit} tasks whose {@code task_id} sorts after {@code afterTaskId}, in
+     * {@code task_id} order. Unlike {@code OFFSET}, the cost of a page does not grow with its position,
+     * and rows inserted or updated meanwhile neither shift nor duplicate later pages.
+     *
+     * @param afterTaskId the last task ID of the previous page, or an empty string for the first page
+     * @param limit the maximum number of tasks to return
+     * @return a {@code Flux<TaskEntity>} of the tasks of the page, in {@code task_id} order
+     */
+    @Query("SELECT * FROM task WHERE task_id > :afterTaskId ORDER BY task_id LIMIT :limit")
+    Flux<TaskEntity> findPageAfter(@Param("afterTaskId") String afterTaskId, @Param("limit") int limit);
 
 }
@@ -0,0 +1,127 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import com.coolplanet.task.config.FlightRecorderProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ContinuousRecording manages one Flight Recorder recording of a live instance, started and stopped
+ * at runtime instead of with {@code -XX:StartFlightRecording} at JVM start.
+ *
+ * Responsibilities:
+ * - Starts a recording with the configured JDK settings, bounded by {@code maxAge} and {@code maxSize}
+ *   like a continuous recording, and by {@code maxDuration} in case it is never stopped.
+ * - Leaves out the {@link #SENSITIVE_EVENTS} whatever the settings: the environment and the system
+ *   properties carry credentials such as {@code spring.r2dbc.password}, which a dump must not leak.
+ * - Dumps the events recorded so far to a file while the recording goes on. Only the latest dump is
+ *   kept; it is deleted with the next dump, or when the recording is deleted.
+ * - Reports the state of the recording.
+ *
+ * Constructor:
+ * - Accepts the FlightRecorderProperties bounding the recordings.
+ */
+@Slf4j
+public class ContinuousRecording implements AutoCloseable {
+
+    static final String NAME = "task-service";
+    static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+    private final FlightRecorderProperties properties;
+
+    private Recording recording;
+    private Path lastDump;
+
+    public ContinuousRecording(FlightRecorderProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Starts a new recording, unless one is running already. A recording that stopped after
+     * {@code maxDuration} is replaced.
+     */
+    public synchronized Status start() throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return status();
+        }
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight Recorder is not available in this JVM");
+        }
+        close();
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(properties.settings()).getSettings());
+        SENSITIVE_EVENTS.forEach(event -> settings.put(event + "#enabled", "false"));
+        Recording started = new Recording(settings);
+        started.setName(NAME);
+        started.setToDisk(true);
+        started.setMaxAge(properties.maxAge());
+        started.setMaxSize(properties.maxSize().toBytes());
+        started.setDuration(properties.maxDuration());
+        started.start();
+        recording = started;
+        log.info("Started Flight Recorder recording with {} settings for at most {}", properties.settings(), properties.maxDuration());
+        return status();
+    }
+
+    /**
+     * Dumps the events recorded so far to a new file, or returns {@code null} if there is no recording.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Path file = Files.createTempFile(NAME + "-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        deleteLastDump();
+        lastDump = file;
+        return file;
+    }
+
+    public synchronized Status status() {
+        if (recording == null) {
+            return new Status("NONE", null, null, 0L, null, properties.settings());
+        }
+        return new Status(recording.getState().name(), recording.getStartTime(), recording.getMaxAge(),
+                recording.getMaxSize(), recording.getDuration(), properties.settings());
+    }
+
+    /**
+     * Stops and deletes the recording and its last dump.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            log.info("Deleted Flight Recorder recording");
+        }
+        deleteLastDump();
+    }
+
+    private void deleteLastDump() throws IOException {
+        if (lastDump != null) {
+            Files.deleteIfExists(lastDump);
+            lastDump = null;
+        }
+    }
+
+    public record Status(String state, Instant startTime, Duration maxAge, long maxSizeBytes, Duration maxDuration,
+                         String settings) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Time from handing a sample to the Kafka producer until the broker acknowledged it. Only committed
+ * when it takes longer than the threshold.
+ */
+@Name("com.coolplanet.task.KafkaAck")
+@Label("Kafka Ack")
+@Threshold("20 ms")
+public class KafkaAckEvent extends TaskPipelineEvent {
+
+    @Label("Topic")
+    String topic;
+
+    KafkaAckEvent(String taskId, String topic) {
+        super(taskId);
+        this.topic = topic;
+    }
+}
@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Processing of a consumed Kafka record, from receipt until it has been applied. Only committed when
+ * it takes longer than the threshold.
+ */
+@Name("com.coolplanet.task.KafkaConsume")
+@Label("Kafka Consume")
+@Threshold("20 ms")
+public class KafkaConsumeEvent extends TaskPipelineEvent {
+
+    @Label("Listener")
+    String listener;
+
+    KafkaConsumeEvent(String taskId, String listener) {
+        super(taskId);
+        this.listener = listener;
+    }
+}
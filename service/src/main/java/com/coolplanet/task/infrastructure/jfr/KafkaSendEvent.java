@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Serialization of a sample and its hand-over to the Kafka producer, which blocks while the producer
+ * waits for metadata or buffer space. Only committed when it takes longer than the threshold.
+ */
+@Name("com.coolplanet.task.KafkaSend")
+@Label("Kafka Send")
+@Threshold("5 ms")
+public class KafkaSendEvent extends TaskPipelineEvent {
+
+    @Label("Topic")
+    String topic;
+
+    KafkaSendEvent(String taskId, String topic) {
+        super(taskId);
+        this.topic = topic;
+    }
+}
@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Execution of one {@code ProcessingStep} for a sample. Only committed when it takes longer than the
+ * threshold.
+ */
+@Name("com.coolplanet.task.ProcessingStep")
+@Label("Processing Step")
+@Threshold("1 ms")
+public class ProcessingStepEvent extends TaskPipelineEvent {
+
+    @Label("Step")
+    String step;
+
+    ProcessingStepEvent(String taskId, String step) {
+        super(taskId);
+        this.step = step;
+    }
+}
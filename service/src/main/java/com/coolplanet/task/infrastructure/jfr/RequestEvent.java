@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Handling of a request by the {@code ProcessorHandler}, from dispatch until the result is emitted.
+ * Only committed when it takes longer than the threshold.
+ */
+@Name("com.coolplanet.task.Request")
+@Label("Task Request")
+@Threshold("20 ms")
+public class RequestEvent extends TaskPipelineEvent {
+
+    @Label("Workflow Type")
+    String workflowType;
+
+    RequestEvent(String taskId, String workflowType) {
+        super(taskId);
+        this.workflowType = workflowType;
+    }
+}
@@ -0,0 +1,123 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import com.coolplanet.task.application.processor.ProcessingStep;
+import com.coolplanet.task.domain.model.WorkflowType;
+import jdk.jfr.EventType;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * TaskEvents records the Flight Recorder events of the task pipeline, to find the stage responsible
+ * for a latency regression on a live instance.
+ *
+ * Responsibilities:
+ * - Times the stages of a sample: request handling ({@link RequestEvent}), every processing step
+ *   ({@link ProcessingStepEvent}), the upsert ({@link UpsertEvent}), the hand-over to the Kafka
+ *   producer ({@link KafkaSendEvent}) and the broker acknowledgement ({@link KafkaAckEvent}), and the
+ *   processing of a consumed record ({@link KafkaConsumeEvent}).
+ * - Costs one check per stage while no recording has the event enabled: no event is created and
+ *   reactive sources are returned as they are. Events are only committed when they take longer than
+ *   their threshold, which a recording may override per event name.
+ *
+ * Events of reactive stages begin on subscription and end on completion, error or cancellation,
+ * possibly on another thread than the one they began on.
+ */
+public final class TaskEvents {
+
+    private static final EventType REQUEST = EventType.getEventType(RequestEvent.class);
+    private static final EventType PROCESSING_STEP = EventType.getEventType(ProcessingStepEvent.class);
+    private static final EventType UPSERT = EventType.getEventType(UpsertEvent.class);
+    private static final EventType KAFKA_SEND = EventType.getEventType(KafkaSendEvent.class);
+    private static final EventType KAFKA_ACK = EventType.getEventType(KafkaAckEvent.class);
+    private static final EventType KAFKA_CONSUME = EventType.getEventType(KafkaConsumeEvent.class);
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+    private static final String CANCEL = "cancel";
+
+    private TaskEvents() {
+    }
+
+    public static <T> Mono<T> request(Mono<T> source, WorkflowType workflowType, String taskId) {
+        return REQUEST.isEnabled() ? timed(source, () -> new RequestEvent(taskId, workflowType.name())) : source;
+    }
+
+    public static <T> Mono<T> upsert(Mono<T> source, String writer, String taskId) {
+        return UPSERT.isEnabled() ? timed(source, () -> new UpsertEvent(taskId, writer)) : source;
+    }
+
+    public static void step(ProcessingStep step, Object request, String taskId) {
+        if (!PROCESSING_STEP.isEnabled()) {
+            step.execute(request);
+            return;
+        }
+        ProcessingStepEvent event = begin(new ProcessingStepEvent(taskId, step.getClass().getSimpleName()));
+        boolean success = false;
+        try {
+            step.execute(request);
+            success = true;
+        } finally {
+            end(event, success);
+        }
+    }
+
+    /**
+     * Begins a {@link KafkaSendEvent}, or returns {@code null} if it is not enabled; either way the
+     * result is passed to {@link #end(TaskPipelineEvent, boolean)}.
+     */
+    public static KafkaSendEvent beginKafkaSend(String topic, String taskId) {
+        return KAFKA_SEND.isEnabled() ? begin(new KafkaSendEvent(taskId, topic)) : null;
+    }
+
+    public static <T> CompletableFuture<T> kafkaAck(CompletableFuture<T> send, String topic, String taskId) {
+        if (send == null || !KAFKA_ACK.isEnabled()) {
+            return send;
+        }
+        KafkaAckEvent event = begin(new KafkaAckEvent(taskId, topic));
+        send.whenComplete((result, error) -> end(event, error == null));
+        return send;
+    }
+
+    /**
+     * Begins a {@link KafkaConsumeEvent}, or returns {@code null} if it is not enabled; either way the
+     * result is passed to {@link #end(TaskPipelineEvent, boolean)} or {@link #end(TaskPipelineEvent, SignalType)}.
+     */
+    public static KafkaConsumeEvent beginKafkaConsume(String listener, String taskId) {
+        return KAFKA_CONSUME.isEnabled() ? begin(new KafkaConsumeEvent(taskId, listener)) : null;
+    }
+
+    public static void end(TaskPipelineEvent event, SignalType signal) {
+        if (event != null) {
+            commit(event, signal == SignalType.ON_ERROR ? ERROR : signal == SignalType.CANCEL ? CANCEL : SUCCESS);
+        }
+    }
+
+    public static void end(TaskPipelineEvent event, boolean success) {
+        if (event != null) {
+            commit(event, success ? SUCCESS : ERROR);
+        }
+    }
+
+    private static <E extends TaskPipelineEvent> E begin(E event) {
+        event.begin();
+        return event;
+    }
+
+    private static <T> Mono<T> timed(Mono<T> source, Supplier<TaskPipelineEvent> factory) {
+        return Mono.defer(() -> {
+            TaskPipelineEvent event = begin(factory.get());
+            return source.doFinally(signal -> end(event, signal));
+        });
+    }
+
+    private static void commit(TaskPipelineEvent event, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the Flight Recorder events of the task pipeline, recorded by {@link TaskEvents}.
+ *
+ * Fields:
+ * - taskIdHash: {@link String#hashCode()} of the task ID, to correlate the events of one sample
+ *   without writing task IDs into recordings; 0 when the operation has no single task.
+ * - outcome: {@code success}, {@code error} or {@code cancel}.
+ */
+@Category({"Task Service", "Pipeline"})
+public abstract class TaskPipelineEvent extends Event {
+
+    @Label("Task ID Hash")
+    @Description("Hash code of the task ID")
+    int taskIdHash;
+
+    @Label("Outcome")
+    String outcome;
+
+    TaskPipelineEvent(String taskId) {
+        this.taskIdHash = taskId != null ? taskId.hashCode() : 0;
+    }
+}
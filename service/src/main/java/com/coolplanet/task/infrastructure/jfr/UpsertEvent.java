@@ -0,0 +1,23 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Upsert of a sample into the task table, until the updated row is returned. Only committed when it
+ * takes longer than the threshold.
+ */
+@Name("com.coolplanet.task.Upsert")
+@Label("Task Upsert")
+@Threshold("10 ms")
+public class UpsertEvent extends TaskPipelineEvent {
+
+    @Label("Writer")
+    String writer;
+
+    UpsertEvent(String taskId, String writer) {
+        super(taskId);
+        this.writer = writer;
+    }
+}
@@ -0,0 +1,19 @@
+package com.coolplanet.task.infrastructure.wal;
+
+/**
+ * Represents a position inside the write-ahead log: the segment a record lives in and the byte
+ * offset of the record within that segment.
+ *
+ * Positions are totally ordered by segment first and offset second, which lets the shipper compare
+ * its checkpoint against the durable end of the log.
+ */
+public record WalPosition(long segmentId, long offset) implements Comparable<WalPosition> {
+
+    public static final WalPosition START = new WalPosition(0L, 0L);
+
+    @Override
+    public int compareTo(WalPosition other) {
+        int bySegment = Long.compare(segmentId, other.segmentId);
+        return bySegment != 0 ? bySegment : Long.compare(offset, other.offset);
+    }
+}
@@ -0,0 +1,13 @@
+package com.coolplanet.task.infrastructure.wal;
+
+/**
+ * Callback receiving records read back from the write-ahead log.
+ *
+ * The task id is handed over as a UTF-8 slice of a buffer that is reused for the next record, so
+ * consumers either aggregate it directly (e.g. into a {@code TaskAggregateMap}) or copy it.
+ */
+@FunctionalInterface
+public interface WalRecordConsumer {
+
+    void accept(byte[] buffer, int taskIdOffset, int taskIdLength, long durationMs);
+}
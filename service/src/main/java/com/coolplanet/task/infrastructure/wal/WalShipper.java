@@ -0,0 +1,179 @@
+package com.coolplanet.task.infrastructure.wal;
+
+import com.coolplanet.task.adapter.KafkaProducer;
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.application.util.TaskAggregateMap;
+import com.coolplanet.task.config.WalProperties;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.coolplanet.task.infrastructure.jfr.TaskEvents;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WalShipper drains the write-ahead log in the background and forwards its records to Postgres or
+ * Kafka in large batches.
+ *
+ * Responsibilities:
+ * - On start, resumes from the persisted checkpoint, which replays everything that was accepted but
+ *   not shipped before the last shutdown or crash.
+ * - For the {@code POSTGRES} target, runs the processing steps for every sample, folds the batch into
+ *   one aggregate per task with a {@link TaskAggregateMap} and issues one {@code upsertAggregate}
+ *   per distinct task instead of one upsert per sample, then records the tasks in the
+ *   {@link KnownTaskFilter} and publishes the new rows on the {@link TaskChangeBus}.
+ * - For the {@code KAFKA} target, publishes every sample and waits for the broker acknowledgements;
+ *   the consumer then runs the regular processing pipeline.
+ * - Advances the checkpoint and deletes fully shipped segments only after a batch succeeded. A
+ *   failed batch is retried on the next round, so short broker or database outages only delay
+ *   shipping while ingestion keeps appending to the log.
+ *
+ * Delivery is at-least-once: a crash after a batch was applied but before the checkpoint was
+ * written ships that batch again on restart.
+ */
+@Slf4j
+public class WalShipper implements SmartLifecycle {
+
+    private static final int UPSERT_CONCURRENCY = 16;
+
+    private final WriteAheadLog writeAheadLog;
+    private final TaskRepository repository;
+    private final TaskChangeBus changeBus;
+    private final KnownTaskFilter knownTasks;
+    private final KafkaProducer kafkaProducer;
+    private final ProcessingStepFactory stepFactory;
+    private final WalProperties properties;
+    private final TaskAggregateMap batch;
+
+    private ScheduledExecutorService executor;
+    private WalPosition checkpoint;
+    private volatile boolean running;
+
+    public WalShipper(WriteAheadLog writeAheadLog, TaskRepository repository, TaskChangeBus changeBus,
+                      KnownTaskFilter knownTasks, KafkaProducer kafkaProducer, ProcessingStepFactory stepFactory, WalProperties properties) {
+        this.writeAheadLog = writeAheadLog;
+        this.repository = repository;
+        this.changeBus = changeBus;
+        this.knownTasks = knownTasks;
+        this.kafkaProducer = kafkaProducer;
+        this.stepFactory = stepFactory;
+        this.properties = properties;
+        this.batch = new TaskAggregateMap(properties.shipBatchSize());
+    }
+
+    @Override
+    public void start() {
+        try {
+            checkpoint = writeAheadLog.readCheckpoint();
+        } catch (IOException ioException) {
+            throw new IllegalStateException("Unable to read write-ahead log checkpoint", ioException);
+        }
+        log.info("Shipping write-ahead log to {} from {}", properties.shipTarget(), checkpoint);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-shipper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drain, 0L, properties.shipInterval().toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                drain();
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Ships batches until the shipper has caught up with the durable end of the log.
+     */
+    void drain() {
+        try {
+            while (shipOnce() > 0) {
+                // keep shipping until caught up
+            }
+        } catch (Exception exception) {
+            log.warn("Shipping write-ahead log from {} failed, retrying in {}", checkpoint, properties.shipInterval(), exception);
+        }
+    }
+
+    /**
+     * Ships one batch of at most {@code shipBatchSize} records.
+     *
+     * @return the number of records shipped
+     */
+    int shipOnce() throws IOException {
+        int shipped = switch (properties.shipTarget()) {
+            case POSTGRES -> shipToPostgres();
+            case KAFKA -> shipToKafka();
+        };
+        if (shipped > 0) {
+            writeAheadLog.writeCheckpoint(checkpoint);
+            writeAheadLog.deleteSegmentsBefore(checkpoint.segmentId());
+            log.debug("Shipped {} record(s) from the write-ahead log, checkpoint is now {}", shipped, checkpoint);
+        }
+        return shipped;
+    }
+
+    private int shipToPostgres() throws IOException {
+        batch.clear();
+        int[] records = new int[1];
+        WalPosition next = writeAheadLog.read(checkpoint, properties.shipBatchSize(), (buffer, offset, length, durationMs) -> {
+            TaskDTO taskDTO = new TaskDTO(new String(buffer, offset, length, StandardCharsets.UTF_8), durationMs);
+            stepFactory.getSteps().forEach(step -> TaskEvents.step(step, taskDTO, taskDTO.taskId()));
+            batch.add(buffer, offset, length, durationMs, 1L);
+            records[0]++;
+        });
+        if (records[0] == 0) {
+            return 0;
+        }
+        Flux.range(0, batch.size())
+                .flatMap(entry -> repository.upsertAggregate(batch.taskId(entry), batch.total(entry), batch.counter(entry)),
+                        UPSERT_CONCURRENCY)
+                .doOnNext(task -> {
+                    knownTasks.recordWrite(task.getTaskId());
+                    changeBus.publish(task);
+                })
+                .then()
+                .block();
+        checkpoint = next;
+        return records[0];
+    }
+
+    private int shipToKafka() throws IOException {
+        List<TaskDTO> tasks = new ArrayList<>();
+        WalPosition next = writeAheadLog.read(checkpoint, properties.shipBatchSize(), (buffer, offset, length, durationMs) ->
+                tasks.add(new TaskDTO(new String(buffer, offset, length, StandardCharsets.UTF_8), durationMs)));
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        Flux.fromIterable(tasks)
+                .flatMapSequential(kafkaProducer::sendTaskAcked)
+                .then()
+                .block();
+        checkpoint = next;
+        return tasks.size();
+    }
+}
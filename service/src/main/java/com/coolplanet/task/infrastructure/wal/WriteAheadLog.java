@@ -0,0 +1,465 @@
+package com.coolplanet.task.infrastructure.wal;
+
+import com.coolplanet.task.domain.exception.ProcessingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * WriteAheadLog is a local, segmented, append-only log of accepted task samples that is made durable
+ * with group commit.
+ *
+ * Write Path:
+ * - {@code append} hands the sample to a single writer thread and returns a future that completes
+ *   once the record is on disk.
+ * - The writer waits {@code groupCommitInterval} after the first pending append so that concurrent
+ *   requests join the same group, writes the whole group through one {@link FileChannel} and issues
+ *   a single {@code force} for it before completing every future in the group.
+ * - Segments are rolled once they reach {@code segmentSizeBytes}; a new segment is also started on
+ *   every open, so a segment is never appended to after a restart. The records of a group that were
+ *   fsynced before it rolled are acknowledged at the roll, whatever happens to the rest of the group.
+ * - A failed group is truncated off its segment before the log moves on to a new one, so records
+ *   whose futures failed are never read, and retried by the client only once.
+ * - An append racing with {@code close} is either committed or failed, never left pending.
+ *
+ * Record Format:
+ * - {@code int payloadLength | int crc32c(payload) | long durationMs | taskId (UTF-8)}.
+ * - A record with an impossible length or a checksum mismatch marks the end of a segment. This is
+ *   how a torn write at crash time is detected; the tail of the last segment is truncated on open.
+ *
+ * Read Path:
+ * - {@code read} replays records from a position up to the durable end of the log. Only fsynced
+ *   records are ever visible to readers.
+ * - The checkpoint file records how far a consumer has shipped the log; segments entirely before the
+ *   checkpoint are deleted by {@code deleteSegmentsBefore}.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+    static final int DURATION_BYTES = Long.BYTES;
+    static final int MAX_TASK_ID_BYTES = 1024;
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+    private static final long POLL_TIMEOUT_MS = 50L;
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final long groupCommitNanos;
+    private final int maxGroupSize;
+    private final BlockingQueue<PendingAppend> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile WalPosition durablePosition;
+
+    // Owned by the writer thread
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+    private final CRC32C writeChecksum = new CRC32C();
+    private FileChannel segment;
+    private long segmentId;
+    private long segmentOffset;
+    private long segmentDurableOffset;
+
+    public WriteAheadLog(Path directory, long segmentSizeBytes, Duration groupCommitInterval, int queueCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.groupCommitNanos = groupCommitInterval.toNanos();
+        this.maxGroupSize = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Files.createDirectories(directory);
+        List<Long> segments = segmentIds();
+        if (segments.isEmpty()) {
+            openSegment(0L);
+        } else {
+            long last = segments.get(segments.size() - 1);
+            long validEnd = recoverTail(last);
+            log.info("Recovered write-ahead log in {}: {} segment(s), last segment {} ends at offset {}",
+                    directory, segments.size(), last, validEnd);
+            openSegment(last + 1);
+        }
+        this.durablePosition = new WalPosition(segmentId, 0L);
+
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Appends a sample to the log.
+     *
+     * @return a future completed with the record position once its group has been fsynced, or
+     *         completed exceptionally if the log is closed, saturated or the write failed
+     */
+    public CompletableFuture<WalPosition> append(String taskId, long durationMs) {
+        byte[] taskIdBytes = taskId.getBytes(StandardCharsets.UTF_8);
+        if (taskIdBytes.length > MAX_TASK_ID_BYTES) {
+            return CompletableFuture.failedFuture(new ProcessingException("Task id too long for write-ahead log: " + taskId));
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new ProcessingException("Write-ahead log is closed"));
+        }
+        PendingAppend append = new PendingAppend(taskIdBytes, durationMs);
+        if (!queue.offer(append)) {
+            return CompletableFuture.failedFuture(new ProcessingException("Write-ahead log is saturated"));
+        }
+        // close() may have drained the queue after the check above; otherwise the writer or close() owns it
+        if (!running && queue.remove(append)) {
+            append.future.completeExceptionally(new ProcessingException("Write-ahead log is closed"));
+        }
+        return append.future;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} durable records starting at {@code from}.
+     *
+     * @return the position directly after the last record handed to {@code consumer}
+     */
+    public WalPosition read(WalPosition from, int maxRecords, WalRecordConsumer consumer) throws IOException {
+        WalPosition durable = durablePosition;
+        WalPosition position = from;
+        int remaining = maxRecords;
+
+        while (remaining > 0 && position.compareTo(durable) < 0) {
+            Path path = segmentPath(position.segmentId());
+            boolean sealed = position.segmentId() < durable.segmentId();
+            if (!Files.exists(path)) {
+                position = new WalPosition(position.segmentId() + 1, 0L);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long end = sealed ? channel.size() : Math.min(channel.size(), durable.offset());
+                SegmentReader reader = new SegmentReader(channel, position.offset(), end);
+                while (remaining > 0 && reader.next(consumer)) {
+                    remaining--;
+                }
+                boolean exhausted = reader.exhausted();
+                position = new WalPosition(position.segmentId(), reader.offset());
+                if (!exhausted || !sealed) {
+                    break;
+                }
+                position = new WalPosition(position.segmentId() + 1, 0L);
+            }
+        }
+        return position;
+    }
+
+    public WalPosition durablePosition() {
+        return durablePosition;
+    }
+
+    /**
+     * Returns the persisted checkpoint, or the start of the oldest segment if nothing has been
+     * shipped yet.
+     */
+    public WalPosition readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            return new WalPosition(buffer.getLong(), buffer.getLong());
+        }
+        List<Long> segments = segmentIds();
+        return segments.isEmpty() ? WalPosition.START : new WalPosition(segments.get(0), 0L);
+    }
+
+    /**
+     * Atomically replaces the checkpoint so that a crash leaves either the old or the new value.
+     */
+    public void writeCheckpoint(WalPosition position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2)
+                .putLong(position.segmentId())
+                .putLong(position.offset())
+                .flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes every segment older than {@code segmentId}; the active segment is never deleted.
+     */
+    public void deleteSegmentsBefore(long segmentId) throws IOException {
+        for (long id : segmentIds()) {
+            if (id >= segmentId || id >= durablePosition.segmentId()) {
+                break;
+            }
+            Files.deleteIfExists(segmentPath(id));
+        }
+    }
+
+    /**
+     * Stops accepting appends, commits everything already queued and closes the active segment.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        PendingAppend leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.future.completeExceptionally(new ProcessingException("Write-ahead log is closed"));
+        }
+        segment.close();
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            PendingAppend first;
+            try {
+                first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException interruptedException) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+            group.add(first);
+            queue.drainTo(group, maxGroupSize - 1);
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void commit(List<PendingAppend> group) {
+        int acknowledged = 0;
+        try {
+            for (int i = 0; i < group.size(); i++) {
+                PendingAppend append = group.get(i);
+                int recordBytes = HEADER_BYTES + DURATION_BYTES + append.taskId.length;
+                long written = segmentOffset + writeBuffer.position();
+                if (written > 0 && written + recordBytes > segmentSizeBytes) {
+                    flushWriteBuffer();
+                    segment.force(false);
+                    segmentDurableOffset = segmentOffset;
+                    durablePosition = new WalPosition(segmentId, segmentOffset);
+                    // sealed and durable, these are read and shipped even if the rest of the group fails
+                    for (; acknowledged < i; acknowledged++) {
+                        group.get(acknowledged).future.complete(group.get(acknowledged).position);
+                    }
+                    segment.close();
+                    openSegment(segmentId + 1);
+                }
+                if (writeBuffer.remaining() < recordBytes) {
+                    flushWriteBuffer();
+                }
+                int recordStart = writeBuffer.position();
+                int payloadLength = DURATION_BYTES + append.taskId.length;
+                append.position = new WalPosition(segmentId, segmentOffset + recordStart);
+                writeBuffer.putInt(payloadLength)
+                        .putInt(0)
+                        .putLong(append.durationMs)
+                        .put(append.taskId);
+                writeChecksum.reset();
+                writeChecksum.update(writeBuffer.slice(recordStart + HEADER_BYTES, payloadLength));
+                writeBuffer.putInt(recordStart + Integer.BYTES, (int) writeChecksum.getValue());
+            }
+            flushWriteBuffer();
+            segment.force(false);
+            segmentDurableOffset = segmentOffset;
+            durablePosition = new WalPosition(segmentId, segmentOffset);
+            group.forEach(append -> append.future.complete(append.position));
+        } catch (IOException ioException) {
+            log.error("Group commit of {} record(s) failed", group.size() - acknowledged, ioException);
+            group.forEach(append -> append.future.completeExceptionally(ioException));
+            rollAfterFailure();
+        }
+    }
+
+    /**
+     * A failed group may have left whole records, whose futures failed, and a partial record behind.
+     * Truncating them off and continuing in a fresh segment keeps them from being shipped and retried
+     * twice, while later groups stay readable. If the segment cannot be truncated, the durable
+     * position stays in it and further appends are refused.
+     */
+    private void rollAfterFailure() {
+        try {
+            writeBuffer.clear();
+            segment.truncate(segmentDurableOffset);
+            segment.force(false);
+            segment.close();
+            openSegment(segmentId + 1);
+            durablePosition = new WalPosition(segmentId, 0L);
+        } catch (IOException ioException) {
+            log.error("Unable to seal the write-ahead log segment after a failure, refusing further appends", ioException);
+            running = false;
+        }
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            segmentOffset += segment.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void openSegment(long id) throws IOException {
+        segment = openSegmentChannel(segmentPath(id));
+        segmentId = id;
+        segmentOffset = 0L;
+        segmentDurableOffset = 0L;
+    }
+
+    /**
+     * Opens a new segment for writing; overridden by tests to simulate I/O failures.
+     */
+    FileChannel openSegmentChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Scans the last segment written before a restart and truncates it after its last valid record.
+     */
+    private long recoverTail(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            SegmentReader reader = new SegmentReader(channel, 0L, channel.size());
+            while (reader.next((buffer, offset, length, durationMs) -> { })) {
+                // scan only
+            }
+            if (reader.offset() < channel.size()) {
+                log.warn("Truncating torn tail of write-ahead log segment {} at offset {}", id, reader.offset());
+                channel.truncate(reader.offset());
+                channel.force(true);
+            }
+            return reader.offset();
+        }
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static final class PendingAppend {
+        private final byte[] taskId;
+        private final long durationMs;
+        private final CompletableFuture<WalPosition> future = new CompletableFuture<>();
+        private WalPosition position;
+
+        private PendingAppend(byte[] taskId, long durationMs) {
+            this.taskId = taskId;
+            this.durationMs = durationMs;
+        }
+    }
+
+    /**
+     * Buffered, checksum-verifying reader over one segment between two offsets.
+     */
+    private static final class SegmentReader {
+        private final FileChannel channel;
+        private final long end;
+        private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_BYTES);
+        private final CRC32C checksum = new CRC32C();
+        private long filePosition;
+        private long offset;
+        private boolean exhausted;
+
+        private SegmentReader(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.end = end;
+            this.filePosition = start;
+            this.offset = start;
+            this.buffer.limit(0);
+        }
+
+        /**
+         * Reads the next record; returns {@code false} at the end of the range or at the first
+         * invalid record.
+         */
+        private boolean next(WalRecordConsumer consumer) throws IOException {
+            if (!require(HEADER_BYTES)) {
+                return false;
+            }
+            int start = buffer.position();
+            int payloadLength = buffer.getInt(start);
+            int expectedChecksum = buffer.getInt(start + Integer.BYTES);
+            if (payloadLength < DURATION_BYTES || payloadLength > DURATION_BYTES + MAX_TASK_ID_BYTES
+                    || !require(HEADER_BYTES + payloadLength)) {
+                exhausted = true;
+                return false;
+            }
+            start = buffer.position();
+            int payloadStart = start + HEADER_BYTES;
+            checksum.reset();
+            checksum.update(buffer.array(), payloadStart, payloadLength);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                exhausted = true;
+                return false;
+            }
+            long durationMs = buffer.getLong(payloadStart);
+            consumer.accept(buffer.array(), payloadStart + DURATION_BYTES, payloadLength - DURATION_BYTES, durationMs);
+            buffer.position(payloadStart + payloadLength);
+            offset += HEADER_BYTES + payloadLength;
+            return true;
+        }
+
+        private boolean require(int bytes) throws IOException {
+            while (buffer.remaining() < bytes) {
+                if (filePosition >= end) {
+                    exhausted = true;
+                    return false;
+                }
+                buffer.compact();
+                int toRead = (int) Math.min(buffer.remaining(), end - filePosition);
+                buffer.limit(buffer.position() + toRead);
+                int read = channel.read(buffer, filePosition);
+                buffer.limit(buffer.capacity());
+                buffer.flip();
+                if (read <= 0) {
+                    exhausted = true;
+                    return false;
+                }
+                filePosition += read;
+            }
+            return true;
+        }
+
+        private long offset() {
+            return offset;
+        }
+
+        private boolean exhausted() {
+            return exhausted;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Original schema, formerly applied from schema.sql by the Postgres container init script.
+-- Databases created that way are baselined at this version instead (spring.flyway.baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS task (
+    id SERIAL,
+    task_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    total_duration_ms BIGINT NOT NULL,
+    counter BIGINT NOT NULL
+);
@@ -0,0 +1,20 @@
+-- Every INSERT ... ON CONFLICT evaluated nextval() for the unused "id" column, even when the row
+-- already existed. task_id is the only key, so dropping the column removes the sequence from the
+-- upsert path entirely.
+ALTER TABLE task DROP COLUMN IF EXISTS id;
+
+-- Upserts only change non-indexed columns, so they qualify for HOT (heap-only tuple) updates as long
+-- as the new row version fits on the same page. Leaving 30% of each page free keeps updates HOT and
+-- the primary key index free of bloat. The fillfactor applies to pages written from now on; run
+-- VACUUM FULL task during a maintenance window to repack existing pages.
+--
+-- The table is small and updated constantly, so autovacuum triggers on a fixed number of dead rows
+-- rather than on a fraction of the table, and is allowed to do more work per run.
+ALTER TABLE task SET (
+    fillfactor = 70,
+    autovacuum_vacuum_scale_factor = 0.0,
+    autovacuum_vacuum_threshold = 5000,
+    autovacuum_analyze_scale_factor = 0.0,
+    autovacuum_analyze_threshold = 5000,
+    autovacuum_vacuum_cost_limit = 2000
+);
@@ -0,0 +1,10 @@
+-- Idempotency keys of recently ingested samples. Keys are stored as the 16-byte MD5 of the client's
+-- key, whatever its length, and the table is range-partitioned by day so that expired keys are
+-- removed by dropping a whole partition instead of deleting rows (no dead tuples, no vacuum).
+-- Daily partitions are created ahead of time and dropped after the retention window by the
+-- application (TaskDedupStore).
+CREATE TABLE IF NOT EXISTS task_dedup (
+    key_hash UUID NOT NULL,
+    seen_on DATE NOT NULL,
+    PRIMARY KEY (key_hash, seen_on)
+) PARTITION BY RANGE (seen_on);
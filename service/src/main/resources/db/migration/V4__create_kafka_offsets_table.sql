@@ -0,0 +1,11 @@
+-- Consumed Kafka offsets of the exactly-once consumer (app.kafka.exactly-once.enabled). Each batch
+-- writes its aggregated upserts and the next offset of every partition it read in one transaction,
+-- and partitions are positioned from this table on assignment, so a batch is applied exactly once
+-- whether the consumer crashes before or after the commit.
+CREATE TABLE IF NOT EXISTS kafka_offsets (
+    consumer_group VARCHAR(255) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    partition_id INT NOT NULL,
+    next_offset BIGINT NOT NULL,
+    PRIMARY KEY (consumer_group, topic, partition_id)
+);
@@ -0,0 +1,132 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.application.service.TaskDeduplicator;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.infrastructure.KafkaOffsetStore;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExactlyOnceKafkaConsumer}: batch aggregation, offsets saved with the batch,
+ * keyed samples, skipped invalid records, seeking on assignment and failed transactions.
+ */
+class ExactlyOnceKafkaConsumerTest {
+
+    private static final String TOPIC = "task-events";
+
+    private final TaskRepository repository = Mockito.mock(TaskRepository.class);
+    private final TaskDeduplicator deduplicator = Mockito.mock(TaskDeduplicator.class);
+    private final KafkaOffsetStore offsetStore = Mockito.mock(KafkaOffsetStore.class);
+    private final ProcessingStepFactory stepFactory = Mockito.mock(ProcessingStepFactory.class);
+    private final RecentWriteTracker recentWrites = Mockito.mock(RecentWriteTracker.class);
+    private final TaskChangeBus changeBus = Mockito.mock(TaskChangeBus.class);
+    private final KnownTaskFilter knownTasks = Mockito.mock(KnownTaskFilter.class);
+    private final TransactionalOperator transactionalOperator = Mockito.mock(TransactionalOperator.class);
+
+    private ExactlyOnceKafkaConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(stepFactory.getSteps()).thenReturn(List.of());
+        when(transactionalOperator.transactional(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(offsetStore.save(anyString(), any())).thenReturn(Mono.empty());
+        consumer = new ExactlyOnceKafkaConsumer(repository, deduplicator, offsetStore, stepFactory, recentWrites, changeBus,
+                knownTasks, transactionalOperator, new ObjectMapper(), "task-consumer-group");
+    }
+
+    @Test
+    void consume_shouldUpsertOneAggregatePerTaskAndSaveNextOffsets() {
+        TaskEntity task1 = new TaskEntity("task-1", 300L, 2L);
+        TaskEntity task2 = new TaskEntity("task-2", 50L, 1L);
+        when(repository.upsertAggregate("task-1", 300L, 2L)).thenReturn(Mono.just(task1));
+        when(repository.upsertAggregate("task-2", 50L, 1L)).thenReturn(Mono.just(task2));
+
+        consumer.consume(List.of(
+                record(0, 10, "task-1", 100L),
+                record(1, 4, "task-2", 50L),
+                record(0, 11, "task-1", 200L)));
+
+        verify(repository, times(2)).upsertAggregate(anyString(), anyLong(), anyLong());
+        verify(offsetStore).save("task-consumer-group", Map.of(
+                new TopicPartition(TOPIC, 0), 12L,
+                new TopicPartition(TOPIC, 1), 5L));
+        verify(changeBus).publish(task1);
+        verify(changeBus).publish(task2);
+        verify(recentWrites).recordWrite("task-1");
+        verify(knownTasks).recordWrite("task-2");
+    }
+
+    @Test
+    void consume_shouldApplyKeyedSamplesThroughDeduplicator() {
+        ConsumerRecord<String, String> keyed = record(0, 7, "task-1", 100L);
+        keyed.headers().add(KafkaProducer.IDEMPOTENCY_KEY_HEADER, "sample-1".getBytes(StandardCharsets.UTF_8));
+        when(deduplicator.upsertOnce("sample-1", "task-1", 100L)).thenReturn(Mono.empty());
+
+        consumer.consume(List.of(keyed));
+
+        verify(deduplicator).upsertOnce("sample-1", "task-1", 100L);
+        verify(repository, never()).upsertAggregate(anyString(), anyLong(), anyLong());
+        verify(offsetStore).save("task-consumer-group", Map.of(new TopicPartition(TOPIC, 0), 8L));
+        verifyNoInteractions(changeBus);
+    }
+
+    @Test
+    void consume_shouldSkipInvalidRecordButAdvanceItsOffset() {
+        consumer.consume(List.of(new ConsumerRecord<>(TOPIC, 0, 3L, "task-1", "not json")));
+
+        verifyNoInteractions(repository);
+        verify(offsetStore).save("task-consumer-group", Map.of(new TopicPartition(TOPIC, 0), 4L));
+    }
+
+    @Test
+    void consume_shouldThrowAndPublishNothingWhenTransactionFails() {
+        when(repository.upsertAggregate("task-1", 100L, 1L)).thenReturn(Mono.error(new IllegalStateException("db down")));
+
+        List<ConsumerRecord<String, String>> batch = List.of(record(0, 1, "task-1", 100L));
+
+        assertThrows(IllegalStateException.class, () -> consumer.consume(batch));
+        verifyNoInteractions(changeBus, recentWrites, knownTasks);
+    }
+
+    @Test
+    void onPartitionsAssigned_shouldSeekToStoredOffsets() {
+        TopicPartition stored = new TopicPartition(TOPIC, 0);
+        TopicPartition unknown = new TopicPartition(TOPIC, 1);
+        when(offsetStore.find("task-consumer-group")).thenReturn(Mono.just(Map.of(stored, 42L)));
+        ConsumerSeekCallback callback = Mockito.mock(ConsumerSeekCallback.class);
+
+        consumer.onPartitionsAssigned(Map.of(stored, 0L, unknown, 0L), callback);
+
+        verify(callback).seek(TOPIC, 0, 42L);
+        verifyNoMoreInteractions(callback);
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset, String taskId, long durationMs) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, taskId,
+                "{\"taskId\":\"" + taskId + "\",\"totalDurationMs\":" + durationMs + "}");
+    }
+}
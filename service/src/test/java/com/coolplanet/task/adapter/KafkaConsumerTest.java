@@ -3,13 +3,22 @@ package com.coolplanet.task.adapter;
 import com.coolplanet.task.application.service.TaskProcessorService;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
 import com.coolplanet.task.domain.model.WorkflowType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,7 +42,7 @@ public class KafkaConsumerTest {
         KafkaConsumer kafkaConsumer = new KafkaConsumer(taskProcessorService, objectMapper);
 
         // Act
-        kafkaConsumer.consume(taskJson);
+        kafkaConsumer.consume(taskJson, null);
 
         // Assert
         ArgumentCaptor<TaskContext> contextCaptor = ArgumentCaptor.forClass(TaskContext.class);
@@ -44,6 +53,41 @@ public class KafkaConsumerTest {
         assertEquals(mockTaskDTO, capturedContext.request);
     }
 
+    @Test
+    public void testConsume_withValidJson_shouldRecordConsumeEventWhenProcessed() throws Exception {
+        // Arrange
+        String taskJson = "{\"taskId\":\"task-1\",\"totalDurationMs\":100}";
+        Sinks.One<TaskResponse> processed = Sinks.one();
+        when(objectMapper.readValue(taskJson, TaskDTO.class)).thenReturn(new TaskDTO("task-1", 100L));
+        when(taskProcessorService.process(any(TaskContext.class))).thenReturn(processed.asMono());
+
+        KafkaConsumer kafkaConsumer = new KafkaConsumer(taskProcessorService, objectMapper);
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.coolplanet.task.KafkaConsume").withoutThreshold();
+            recording.start();
+
+            // Act
+            kafkaConsumer.consume(taskJson, null);
+            processed.tryEmitError(new IllegalStateException("down"));
+            recording.stop();
+
+            // Assert
+            Path file = Files.createTempFile("kafka-consume-", ".jfr");
+            try {
+                recording.dump(file);
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                        .filter(event -> event.getEventType().getName().equals("com.coolplanet.task.KafkaConsume"))
+                        .toList();
+                assertEquals(1, events.size());
+                assertEquals("per-record", events.get(0).getString("listener"));
+                assertEquals("error", events.get(0).getString("outcome"));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
     @Test
     public void testConsume_withInvalidJson_shouldThrowException() throws JsonProcessingException {
         // Arrange
@@ -54,7 +98,7 @@ public class KafkaConsumerTest {
         KafkaConsumer kafkaConsumer = new KafkaConsumer(taskProcessorService, objectMapper);
 
         // Act & Assert
-        assertThrows(JsonProcessingException.class, () -> kafkaConsumer.consume(invalidJson));
+        assertThrows(JsonProcessingException.class, () -> kafkaConsumer.consume(invalidJson, null));
         verifyNoInteractions(taskProcessorService);
     }
 
@@ -4,12 +4,20 @@ import com.coolplanet.task.domain.exception.ProcessingException;
 import com.coolplanet.task.domain.model.TaskDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 class KafkaProducerTest {
 
     private final KafkaTemplate<String, String> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
@@ -52,4 +60,53 @@ class KafkaProducerTest {
         Mockito.verify(objectMapper).writeValueAsString(task);
         Mockito.verifyNoInteractions(kafkaTemplate);
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendTask_ShouldCarryIdempotencyKeyInRecordHeader() throws JsonProcessingException {
+        // Arrange
+        TaskDTO task = new TaskDTO("task-123", 1000L);
+        Mockito.when(objectMapper.writeValueAsString(task)).thenReturn("{}");
+
+        // Act
+        StepVerifier.create(kafkaProducer.sendTask(task, "sample-1"))
+                .expectNext("Task sent to Kafka")
+                .verifyComplete();
+
+        // Assert
+        ArgumentCaptor<ProducerRecord<String, String>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        Mockito.verify(kafkaTemplate).send(record.capture());
+        assertEquals("task-123", record.getValue().key());
+        assertEquals("sample-1", new String(record.getValue().headers()
+                .lastHeader(KafkaProducer.IDEMPOTENCY_KEY_HEADER).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sendTaskAcked_ShouldCompleteOnlyAfterBrokerAcknowledgement() throws JsonProcessingException {
+        // Arrange
+        TaskDTO task = new TaskDTO("task-123", 1000L);
+        String taskJson = "{\"taskId\":\"task-123\",\"totalDurationMs\":1000}";
+        CompletableFuture<SendResult<String, String>> ack = new CompletableFuture<>();
+        Mockito.when(objectMapper.writeValueAsString(task)).thenReturn(taskJson);
+        Mockito.when(kafkaTemplate.send("task-events", "task-123", taskJson)).thenReturn(ack);
+
+        // Act & Assert
+        StepVerifier.create(kafkaProducer.sendTaskAcked(task))
+                .then(() -> ack.complete(null))
+                .expectNext("Task acknowledged by Kafka")
+                .verifyComplete();
+    }
+
+    @Test
+    void sendTaskAcked_ShouldPropagateBrokerFailure() throws JsonProcessingException {
+        // Arrange
+        TaskDTO task = new TaskDTO("task-123", 1000L);
+        Mockito.when(objectMapper.writeValueAsString(task)).thenReturn("{}");
+        Mockito.when(kafkaTemplate.send("task-events", "task-123", "{}"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // Act & Assert
+        StepVerifier.create(kafkaProducer.sendTaskAcked(task))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,136 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.service.TaskProcessorService;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.support.Acknowledgment;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link KeyOrderedKafkaConsumer}: samples of one task are processed in order, samples
+ * of different tasks concurrently, and every record is acknowledged once processed.
+ */
+class KeyOrderedKafkaConsumerTest {
+
+    private final TaskProcessorService taskProcessorService = Mockito.mock(TaskProcessorService.class);
+
+    private KeyOrderedKafkaConsumer consumer;
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+    }
+
+    @Test
+    void consume_shouldProcessSamplesOfOneTaskInOrder() {
+        consumer = new KeyOrderedKafkaConsumer(taskProcessorService, new ObjectMapper(), 8, new SimpleMeterRegistry());
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        when(taskProcessorService.process(any(TaskContext.class))).thenAnswer(invocation -> {
+            TaskDTO task = (TaskDTO) ((TaskContext) invocation.getArgument(0)).request;
+            // earlier samples take longer, so any reordering would show
+            return Mono.delay(Duration.ofMillis(50 - task.totalDurationMs()))
+                    .doOnNext(tick -> processed.add(task.totalDurationMs()))
+                    .thenReturn(new TaskResponse("OK"));
+        });
+
+        for (long duration = 1; duration <= 10; duration++) {
+            consumer.consume(json("task-1", duration), null, mock(Acknowledgment.class));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> processed.size() == 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), processed);
+    }
+
+    @Test
+    void consume_shouldThrowBackRecordItCannotHandToALane() {
+        consumer = new KeyOrderedKafkaConsumer(taskProcessorService, new ObjectMapper(), 1, new SimpleMeterRegistry());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        // a completed lane rejects every emission, like one that stays contended beyond the timeout
+        consumer.close();
+
+        assertThrows(Sinks.EmissionException.class, () -> consumer.consume(json("task-1", 1), null, acknowledgment));
+
+        assertEquals(0, consumer.inFlight());
+        verify(acknowledgment, never()).acknowledge();
+        verifyNoInteractions(taskProcessorService);
+    }
+
+    @Test
+    void consume_shouldProcessDifferentLanesConcurrently() {
+        consumer = new KeyOrderedKafkaConsumer(taskProcessorService, new ObjectMapper(), 8, new SimpleMeterRegistry());
+        assertNotEquals(consumer.lane("task-a"), consumer.lane("task-b"));
+        Sinks.Empty<Void> release = Sinks.empty();
+        AtomicInteger started = new AtomicInteger();
+        when(taskProcessorService.process(any(TaskContext.class))).thenAnswer(invocation -> Mono.fromRunnable(started::incrementAndGet)
+                .then(release.asMono())
+                .thenReturn(new TaskResponse("OK")));
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment second = mock(Acknowledgment.class);
+
+        consumer.consume(json("task-a", 1), null, first);
+        consumer.consume(json("task-b", 1), null, second);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> started.get() == 2);
+        assertEquals(2, consumer.inFlight());
+        verifyNoInteractions(first, second);
+
+        release.tryEmitEmpty();
+        verify(first, timeout(5000)).acknowledge();
+        verify(second, timeout(5000)).acknowledge();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.inFlight() == 0);
+    }
+
+    @Test
+    void consume_shouldPassIdempotencyKeyAndAcknowledgeFailedRecords() {
+        consumer = new KeyOrderedKafkaConsumer(taskProcessorService, new ObjectMapper(), 4, new SimpleMeterRegistry());
+        ConcurrentHashMap<String, String> keys = new ConcurrentHashMap<>();
+        when(taskProcessorService.process(any(TaskContext.class))).thenAnswer(invocation -> {
+            TaskContext context = invocation.getArgument(0);
+            keys.put(((TaskDTO) context.request).taskId(), context.idempotencyKey);
+            return Mono.error(new ProcessingException("db down"));
+        });
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        consumer.consume(json("task-1", 5), "sample-1", acknowledgment);
+
+        verify(acknowledgment, timeout(5000)).acknowledge();
+        assertEquals("sample-1", keys.get("task-1"));
+    }
+
+    @Test
+    void consume_shouldAcknowledgeInvalidRecord() {
+        consumer = new KeyOrderedKafkaConsumer(taskProcessorService, new ObjectMapper(), 4, new SimpleMeterRegistry());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        consumer.consume("not json", null, acknowledgment);
+
+        verify(acknowledgment).acknowledge();
+        verifyNoInteractions(taskProcessorService);
+    }
+
+    private static String json(String taskId, long durationMs) {
+        return "{\"taskId\":\"" + taskId + "\",\"totalDurationMs\":" + durationMs + "}";
+    }
+}
@@ -0,0 +1,217 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.config.GrpcProperties;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.exception.TaskNotFoundException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.grpc.GetAverageRequest;
+import com.coolplanet.task.grpc.RecordTasksAck;
+import com.coolplanet.task.grpc.TaskAverage;
+import com.coolplanet.task.grpc.TaskIngestGrpc;
+import com.coolplanet.task.grpc.TaskSample;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link TaskGrpcService} over an in-process channel: acknowledgements, flow control
+ * of {@code RecordTasks} and status mapping of {@code GetAverage}.
+ */
+class TaskGrpcServiceTest {
+
+    private final Handler handler = Mockito.mock(Handler.class);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void recordTasks_shouldAcknowledgePeriodicallyAndOnCompletion() throws Exception {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(argThat((TaskContext context) -> context.idempotencyKey == null));
+        doReturn(Mono.just(new TaskResponse("DUPLICATE"))).when(handler).handle(argThat((TaskContext context) -> "retried".equals(context.idempotencyKey)));
+        doReturn(Mono.error(new ProcessingException("Database down"))).when(handler).handle(argThat((TaskContext context) -> "broken".equals(context.idempotencyKey)));
+        TaskIngestGrpc.TaskIngestStub stub = TaskIngestGrpc.newStub(start(64, 2));
+
+        AckCollector acks = new AckCollector();
+        StreamObserver<TaskSample> samples = stub.recordTasks(acks);
+        samples.onNext(sample("task-1", 100L, ""));
+        samples.onNext(sample("task-1", 100L, "retried"));
+        samples.onNext(sample(" ", 100L, ""));
+        samples.onNext(sample("task-2", 0L, ""));
+        samples.onNext(sample("task-2", 200L, "broken"));
+        samples.onCompleted();
+
+        List<RecordTasksAck> received = acks.completed.get(5, TimeUnit.SECONDS);
+        assertEquals(3, received.size());
+        assertFalse(received.get(0).getLast());
+        assertEquals(2, received.get(0).getAccepted() + received.get(0).getDuplicates() + received.get(0).getRejected());
+        RecordTasksAck last = received.get(2);
+        assertTrue(last.getLast());
+        assertEquals(1, last.getAccepted());
+        assertEquals(1, last.getDuplicates());
+        assertEquals(2, last.getRejected());
+        assertEquals(1, last.getFailed());
+        verify(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK
+                && context.request.equals(new TaskDTO("task-1", 100L))
+                && context.idempotencyKey == null));
+        verify(handler, times(3)).handle(any(TaskContext.class));
+    }
+
+    @Test
+    void recordTasks_shouldAcknowledgeAfterAckIntervalWithoutFurtherSamples() throws Exception {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(any(TaskContext.class));
+        TaskIngestGrpc.TaskIngestStub stub = TaskIngestGrpc.newStub(start(64, 100, Duration.ofMillis(100)));
+
+        AckCollector acks = new AckCollector();
+        StreamObserver<TaskSample> samples = stub.recordTasks(acks);
+        samples.onNext(sample("task-1", 100L, ""));
+
+        // far fewer than ackEvery samples, and none completes after the interval has passed
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !acks.acks.isEmpty());
+        RecordTasksAck ack = acks.acks.get(0);
+        assertFalse(ack.getLast());
+        assertEquals(1, ack.getAccepted());
+
+        Thread.sleep(300);
+        assertEquals(1, acks.acks.size());
+        samples.onCompleted();
+        assertTrue(acks.completed.get(5, TimeUnit.SECONDS).get(1).getLast());
+    }
+
+    @Test
+    void recordTasks_shouldOnlyRequestSamplesAsEarlierOnesComplete() throws Exception {
+        BlockingQueue<Sinks.One<TaskResponse>> pending = new LinkedBlockingQueue<>();
+        doAnswer(invocation -> {
+            Sinks.One<TaskResponse> result = Sinks.one();
+            pending.add(result);
+            return result.asMono();
+        }).when(handler).handle(any(TaskContext.class));
+        TaskIngestGrpc.TaskIngestStub stub = TaskIngestGrpc.newStub(start(2, 100));
+
+        AckCollector acks = new AckCollector();
+        StreamObserver<TaskSample> samples = stub.recordTasks(acks);
+        for (int i = 0; i < 5; i++) {
+            samples.onNext(sample("task-" + i, 100L, ""));
+        }
+        samples.onCompleted();
+
+        verify(handler, timeout(1000).times(2)).handle(any(TaskContext.class));
+        verify(handler, after(200).times(2)).handle(any(TaskContext.class));
+
+        pending.take().tryEmitValue(new TaskResponse("OK"));
+        verify(handler, timeout(1000).times(3)).handle(any(TaskContext.class));
+        assertFalse(acks.completed.isDone());
+
+        for (int completed = 1; completed < 5; completed++) {
+            pending.poll(1, TimeUnit.SECONDS).tryEmitValue(new TaskResponse("OK"));
+        }
+        RecordTasksAck last = acks.completed.get(5, TimeUnit.SECONDS).get(0);
+        assertTrue(last.getLast());
+        assertEquals(5, last.getAccepted());
+    }
+
+    @Test
+    void getAverage_shouldReturnAverageDuration() throws Exception {
+        doReturn(Mono.just(new TaskDTO("task-1", 250L)))
+                .when(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION));
+        TaskIngestGrpc.TaskIngestBlockingStub stub = TaskIngestGrpc.newBlockingStub(start(64, 100));
+
+        TaskAverage average = stub.getAverage(GetAverageRequest.newBuilder().setTaskId("task-1").build());
+
+        assertEquals("task-1", average.getTaskId());
+        assertEquals(250L, average.getAverageDurationMs());
+    }
+
+    @Test
+    void getAverage_shouldMapTrackerExceptionsToStatus() throws Exception {
+        doReturn(Mono.error(new TaskNotFoundException("Task not found"))).when(handler).handle(any(TaskContext.class));
+        TaskIngestGrpc.TaskIngestBlockingStub stub = TaskIngestGrpc.newBlockingStub(start(64, 100));
+
+        StatusRuntimeException notFound = assertThrows(StatusRuntimeException.class,
+                () -> stub.getAverage(GetAverageRequest.newBuilder().setTaskId("unknown").build()));
+        StatusRuntimeException blank = assertThrows(StatusRuntimeException.class,
+                () -> stub.getAverage(GetAverageRequest.newBuilder().setTaskId(" ").build()));
+
+        assertEquals(Status.Code.NOT_FOUND, notFound.getStatus().getCode());
+        assertEquals(Status.Code.INVALID_ARGUMENT, blank.getStatus().getCode());
+        verify(handler, times(1)).handle(any(TaskContext.class));
+    }
+
+    private ManagedChannel start(int maxInFlight, int ackEvery) throws IOException {
+        return start(maxInFlight, ackEvery, Duration.ofHours(1));
+    }
+
+    private ManagedChannel start(int maxInFlight, int ackEvery, Duration ackInterval) throws IOException {
+        GrpcProperties properties = new GrpcProperties(true, 0, maxInFlight, ackEvery, ackInterval, Duration.ofSeconds(1));
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new TaskGrpcService(handler, properties, new SimpleMeterRegistry()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        return channel;
+    }
+
+    private static TaskSample sample(String taskId, long durationMs, String idempotencyKey) {
+        return TaskSample.newBuilder()
+                .setTaskId(taskId)
+                .setDurationMs(durationMs)
+                .setIdempotencyKey(idempotencyKey)
+                .build();
+    }
+
+    private static class AckCollector implements StreamObserver<RecordTasksAck> {
+
+        private final List<RecordTasksAck> acks = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<List<RecordTasksAck>> completed = new CompletableFuture<>();
+
+        @Override
+        public void onNext(RecordTasksAck ack) {
+            acks.add(ack);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            completed.complete(acks);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.config.RSocketIngestProperties;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.model.TaskBatchAck;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link TaskRSocketController}: demand follows the persistence path, batches are
+ * acknowledged in order, and the channel is served over a real RSocket connection.
+ */
+class TaskRSocketControllerTest {
+
+    private final Handler handler = Mockito.mock(Handler.class);
+
+    @Test
+    void recordTasks_shouldOnlyRequestSamplesAsBatchesArePersisted() {
+        Queue<Sinks.One<TaskResponse>> pending = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> {
+            Sinks.One<TaskResponse> result = Sinks.one();
+            pending.add(result);
+            return result.asMono();
+        }).when(handler).handle(any(TaskContext.class));
+        TestPublisher<TaskDTO> samples = TestPublisher.create();
+
+        StepVerifier.create(controller(2, 1).recordTasks(samples.flux()))
+                // the batching stage reads ahead four batches at most
+                .then(() -> samples.assertMinRequested(2).assertMaxRequested(8))
+                .then(() -> Flux.range(1, 8).map(i -> new TaskDTO("task-" + i, 100L)).subscribe(samples::next))
+                .then(() -> {
+                    // one batch is being persisted, the client gets no more credit until batches are acknowledged
+                    samples.assertMaxRequested(0);
+                    assertEquals(2, pending.size());
+                    persist(pending, 2);
+                })
+                .expectNext(new TaskBatchAck(0, 2, 0, 0))
+                .then(() -> {
+                    assertEquals(2, pending.size());
+                    persist(pending, 2);
+                })
+                .expectNext(new TaskBatchAck(1, 2, 0, 0))
+                .then(samples::complete)
+                .then(() -> persist(pending, 2))
+                .expectNext(new TaskBatchAck(2, 2, 0, 0))
+                .then(() -> persist(pending, 2))
+                .expectNext(new TaskBatchAck(3, 2, 0, 0))
+                .verifyComplete();
+        verify(handler, times(8)).handle(any(TaskContext.class));
+    }
+
+    @Test
+    void recordTasks_shouldAcknowledgeBatchesInOrderWithOutcomes() {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(argThat((TaskContext context) -> !"task-3".equals(((TaskDTO) context.request).taskId())));
+        doReturn(Mono.error(new ProcessingException("Database down"))).when(handler).handle(argThat((TaskContext context) -> "task-3".equals(((TaskDTO) context.request).taskId())));
+
+        Flux<TaskDTO> samples = Flux.just(new TaskDTO("task-1", 100L), new TaskDTO(" ", 100L),
+                new TaskDTO("task-3", 100L), new TaskDTO("task-4", 0L), new TaskDTO("task-5", 100L));
+
+        StepVerifier.create(controller(2, 2).recordTasks(samples))
+                .expectNext(new TaskBatchAck(0, 1, 1, 0))
+                .expectNext(new TaskBatchAck(1, 0, 1, 1))
+                .expectNext(new TaskBatchAck(2, 1, 0, 0))
+                .verifyComplete();
+        verify(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK
+                && context.request.equals(new TaskDTO("task-1", 100L))));
+        verify(handler, times(3)).handle(any(TaskContext.class));
+    }
+
+    @Test
+    void recordTasks_shouldServeRequestChannelOverRSocket() {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(any(TaskContext.class));
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoder(new Jackson2CborEncoder())
+                .decoder(new Jackson2CborDecoder())
+                .build();
+        RSocketMessageHandler messageHandler = new RSocketMessageHandler();
+        messageHandler.setRSocketStrategies(strategies);
+        messageHandler.setHandlers(List.of(controller(100, 2)));
+        messageHandler.afterPropertiesSet();
+
+        CloseableChannel server = RSocketServer.create(messageHandler.responder())
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+        RSocketRequester requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .tcp("localhost", server.address().getPort());
+        try {
+            Flux<TaskDTO> samples = Flux.range(0, 250).map(i -> new TaskDTO("task-" + i, 100L));
+
+            StepVerifier.create(requester.route("tasks.record").data(samples).retrieveFlux(TaskBatchAck.class))
+                    .expectNext(new TaskBatchAck(0, 100, 0, 0), new TaskBatchAck(1, 100, 0, 0), new TaskBatchAck(2, 50, 0, 0))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(10));
+            verify(handler, times(250)).handle(any(TaskContext.class));
+        } finally {
+            requester.dispose();
+            server.dispose();
+        }
+    }
+
+    private static void persist(Queue<Sinks.One<TaskResponse>> pending, int samples) {
+        for (int i = 0; i < samples; i++) {
+            pending.remove().tryEmitValue(new TaskResponse("OK"));
+        }
+    }
+
+    private TaskRSocketController controller(int batchSize, int batchesInFlight) {
+        return new TaskRSocketController(handler, new RSocketIngestProperties(batchSize, Duration.ofHours(1), batchesInFlight, 8));
+    }
+}
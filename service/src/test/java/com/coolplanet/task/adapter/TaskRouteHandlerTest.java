@@ -0,0 +1,143 @@
+package com.coolplanet.task.adapter;
+
+import com.coolplanet.task.application.Handler;
+import com.coolplanet.task.domain.exception.TaskNotFoundException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.config.BinaryCodecsConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.handler.WebFluxResponseStatusExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link TaskRouteHandler}: the functional routes answer like {@code TaskController},
+ * including the constant responses, hand-written validation and error bodies.
+ */
+class TaskRouteHandlerTest {
+
+    private final Handler handler = Mockito.mock(Handler.class);
+
+    private WebTestClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        // in the application, Boot's error handler renders the ServerWebInputException statuses the same way
+        webClient = WebTestClient.bindToRouterFunction(new TaskRouteHandler(handler, new ObjectMapper()).routes())
+                .handlerStrategies(HandlerStrategies.builder()
+                        .exceptionHandler(new WebFluxResponseStatusExceptionHandler())
+                        .build())
+                .build();
+    }
+
+    @Test
+    void recordTask_shouldAnswerCreatedWithConstantBody() {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(any(TaskContext.class));
+
+        webClient.post()
+                .uri("/tasks?taskId=task-1&duration=100")
+                .header("Idempotency-Key", "sample-1")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().contentLength(15)
+                .expectBody().json("{\"status\":\"OK\"}");
+
+        ArgumentCaptor<TaskContext> context = ArgumentCaptor.forClass(TaskContext.class);
+        verify(handler).handle(context.capture());
+        assertEquals(new TaskDTO("task-1", 100L), context.getValue().request);
+        assertEquals(WorkflowType.PROCESS_TASK, context.getValue().workflowType);
+        assertEquals("sample-1", context.getValue().idempotencyKey);
+    }
+
+    @Test
+    void recordTask_shouldAnswerDuplicateAndOtherStatuses() {
+        doReturn(Mono.just(new TaskResponse("DUPLICATE")), Mono.just(new TaskResponse("QUEUED")))
+                .when(handler).handle(any(TaskContext.class));
+
+        webClient.post().uri("/tasks?taskId=task-1&duration=100").exchange()
+                .expectStatus().isCreated()
+                .expectBody().json("{\"status\":\"DUPLICATE\"}");
+        webClient.post().uri("/tasks?taskId=task-1&duration=100").exchange()
+                .expectStatus().isCreated()
+                .expectBody().json("{\"status\":\"QUEUED\"}");
+    }
+
+    @Test
+    void recordTask_shouldRejectInvalidParameters() {
+        for (String query : new String[]{"", "?taskId=task-1", "?duration=5", "?taskId= &duration=5",
+                "?taskId=task-1&duration=abc", "?taskId=task-1&duration=0", "?taskId=task-1&duration=-3"}) {
+            webClient.post().uri("/tasks" + query).exchange()
+                    .expectStatus().isBadRequest();
+        }
+        verifyNoInteractions(handler);
+    }
+
+    @Test
+    void taskAverage_shouldAnswerAverage() {
+        doReturn(Mono.just(new TaskDTO("task-1", 250L))).when(handler).handle(any(TaskContext.class));
+
+        webClient.get().uri("/tasks/task-1/average").exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"taskId\":\"task-1\",\"totalDurationMs\":250}");
+    }
+
+    @Test
+    void routes_shouldAnswerInNegotiatedBinaryFormat() throws Exception {
+        webClient = WebTestClient.bindToRouterFunction(new TaskRouteHandler(handler, new ObjectMapper()).routes())
+                .handlerStrategies(HandlerStrategies.builder()
+                        .codecs(new BinaryCodecsConfig().binaryCodecsCustomizer(new Jackson2ObjectMapperBuilder())::customize)
+                        .build())
+                .build();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(argThat(context -> context.workflowType == WorkflowType.PROCESS_TASK));
+        doReturn(Mono.just(new TaskDTO("task-1", 250L))).when(handler).handle(argThat(context -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION));
+
+        byte[] created = webClient.post().uri("/tasks?taskId=task-1&duration=100")
+                .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        byte[] average = webClient.get().uri("/tasks/task-1/average")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(new TaskResponse("OK"), cborMapper.readValue(created, TaskResponse.class));
+        assertEquals(new TaskDTO("task-1", 250L), cborMapper.readValue(average, TaskDTO.class));
+        webClient.get().uri("/tasks/task-1/average")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void taskAverage_shouldMapTrackerExceptionToErrorResponse() {
+        doReturn(Mono.error(new TaskNotFoundException("Given task is not found : task-9"))).when(handler).handle(any(TaskContext.class));
+
+        webClient.get().uri("/tasks/task-9/average").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_FOUND)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Given task is not found : task-9")
+                .jsonPath("$.statusCode").isEqualTo(404);
+    }
+}
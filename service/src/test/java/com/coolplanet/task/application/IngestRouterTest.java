@@ -0,0 +1,155 @@
+package com.coolplanet.task.application;
+
+import com.coolplanet.task.config.FeatureConfig;
+import com.coolplanet.task.config.IngestRouterProperties;
+import com.coolplanet.task.domain.model.IngestMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link IngestRouter}: switching thresholds, hysteresis, minimum dwell time,
+ * manual overrides, which are refused outside the adaptive mode, and decision counts.
+ */
+class IngestRouterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FeatureConfig featureConfig = new FeatureConfig();
+
+    private IngestRouter router;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        IngestRouterProperties properties = new IngestRouterProperties(Duration.ofSeconds(1), Duration.ofSeconds(10),
+                Duration.ofMillis(50), Duration.ofMillis(20), Duration.ofMillis(100), 10_000, 1_000);
+        featureConfig.setIngestMode(IngestMode.ADAPTIVE);
+        router = new IngestRouter(properties, featureConfig, Mockito.mock(KafkaTemplate.class),
+                Mockito.mock(ObjectProvider.class), meterRegistry);
+    }
+
+    @Test
+    void route_shouldStartSync() {
+        assertEquals(IngestMode.SYNC, router.route());
+    }
+
+    @Test
+    void evaluate_shouldSwitchToAsyncWhenWritesAreSlowAndKafkaIsHealthy() {
+        writeLatency(Duration.ofMillis(80));
+
+        router.evaluate(5, 0, 0);
+
+        assertEquals(IngestMode.ASYNC, router.route());
+        assertEquals(1.0, meterRegistry.get("tasks.ingest.switches").tag("mode", "async").counter().count());
+    }
+
+    @Test
+    void evaluate_shouldStaySyncWhenConsumerIsLagging() {
+        writeLatency(Duration.ofMillis(80));
+
+        router.evaluate(5, 5_000, 0);
+
+        assertEquals(IngestMode.SYNC, router.route());
+    }
+
+    @Test
+    void evaluate_shouldKeepAsyncWithinHysteresisBand() {
+        writeLatency(Duration.ofMillis(80));
+        router.evaluate(5, 0, 0);
+
+        // between the low and high thresholds: no switch back
+        writeLatency(Duration.ofMillis(30));
+        router.evaluate(5, 5_000, 20 * SECOND);
+
+        assertEquals(IngestMode.ASYNC, router.route());
+    }
+
+    @Test
+    void evaluate_shouldSwitchBackToSyncOnConsumerLagAfterDwellTime() {
+        writeLatency(Duration.ofMillis(80));
+        router.evaluate(5, 0, 0);
+
+        router.evaluate(5, 20_000, 5 * SECOND);
+        assertEquals(IngestMode.ASYNC, router.route());
+
+        router.evaluate(5, 20_000, 11 * SECOND);
+        assertEquals(IngestMode.SYNC, router.route());
+    }
+
+    @Test
+    void override_shouldTakePrecedenceUntilCleared() {
+        router.override(IngestMode.ASYNC);
+        assertEquals(IngestMode.ASYNC, router.route());
+
+        router.override(null);
+        assertEquals(IngestMode.SYNC, router.route());
+
+        assertEquals(1L, router.status().asyncDecisions());
+        assertEquals(1L, router.status().syncDecisions());
+        assertThrows(IllegalArgumentException.class, () -> router.override(IngestMode.WAL));
+    }
+
+    @Test
+    void override_shouldBeRefusedOutsideAdaptiveMode() {
+        featureConfig.setIngestMode(IngestMode.WAL);
+
+        assertThrows(IllegalStateException.class, () -> router.override(IngestMode.ASYNC));
+        router.override(null);
+
+        assertEquals(IngestMode.WAL, router.status().configuredMode());
+        assertEquals(IngestMode.WAL, router.status().mode());
+        assertNull(router.status().override());
+    }
+
+    @Test
+    void status_shouldReportConfiguredAndRoutedMode() {
+        router.override(IngestMode.ASYNC);
+
+        assertEquals(IngestMode.ADAPTIVE, router.status().configuredMode());
+        assertEquals(IngestMode.ASYNC, router.status().mode());
+    }
+
+    @Test
+    void maxMetric_shouldIgnoreOtherAndUnmeasuredMetrics() {
+        Map<MetricName, Metric> metrics = Map.of(
+                metricName(IngestRouter.CONSUMER_LAG_METRIC, "a"), metric(42.0),
+                metricName(IngestRouter.CONSUMER_LAG_METRIC, "b"), metric(Double.NaN),
+                metricName("records-consumed-rate", "c"), metric(1_000.0));
+
+        assertEquals(42.0, IngestRouter.maxMetric(metrics, IngestRouter.CONSUMER_LAG_METRIC));
+    }
+
+    private void writeLatency(Duration latency) {
+        for (int i = 0; i < 50; i++) {
+            router.recordWriteLatency(latency.toNanos());
+        }
+    }
+
+    private static MetricName metricName(String name, String client) {
+        return new MetricName(name, "consumer-fetch-manager-metrics", "", Map.of("client-id", client));
+    }
+
+    private static Metric metric(double value) {
+        Metric metric = Mockito.mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
@@ -2,16 +2,33 @@ package com.coolplanet.task.application;
 
 import com.coolplanet.task.adapter.KafkaProducer;
 import com.coolplanet.task.application.service.TaskAverageService;
+import com.coolplanet.task.application.service.TaskBulkAverageService;
+import com.coolplanet.task.application.service.TaskImportService;
+import com.coolplanet.task.application.service.TaskListService;
 import com.coolplanet.task.application.service.TaskProcessorService;
+import com.coolplanet.task.application.service.WalIngestService;
 import com.coolplanet.task.config.FeatureConfig;
+import com.coolplanet.task.domain.model.ImportFormat;
+import com.coolplanet.task.domain.model.IngestMode;
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskAveragesRequest;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskImportRequest;
+import com.coolplanet.task.domain.model.TaskImportResult;
+import com.coolplanet.task.domain.model.TaskPage;
+import com.coolplanet.task.domain.model.TaskPageRequest;
 import com.coolplanet.task.domain.model.TaskResponse;
 import com.coolplanet.task.domain.model.WorkflowType;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -25,16 +42,25 @@ import static org.mockito.Mockito.when;
  *
  * Test cases include:
  * - Verifying that the {@code TaskProcessorService} is invoked when the workflow type is {@code PROCESS_TASK}.
+ * - Verifying that the {@code KafkaProducer} and {@code WalIngestService} are used in the ASYNC and WAL ingest modes.
+ * - Verifying that the ADAPTIVE ingest mode follows the {@code IngestRouter}.
  * - Verifying that the {@code TaskAverageService} is invoked when the workflow type is {@code CALCULATE_AVERAGE_DURATION}.
+ * - Verifying that the {@code TaskBulkAverageService} is invoked when the workflow type is {@code CALCULATE_BULK_AVERAGE_DURATION}.
  * - Ensuring an exception is thrown for unknown or null workflow types.
  */
 class ProcessorHandlerTest {
 
     private final TaskProcessorService taskProcessorService = Mockito.mock(TaskProcessorService.class);
     private final TaskAverageService taskAverageService = Mockito.mock(TaskAverageService.class);
+    private final TaskBulkAverageService taskBulkAverageService = Mockito.mock(TaskBulkAverageService.class);
+    private final TaskListService taskListService = Mockito.mock(TaskListService.class);
+    private final TaskImportService taskImportService = Mockito.mock(TaskImportService.class);
     private final FeatureConfig featureConfig = Mockito.mock(FeatureConfig.class);
     private final KafkaProducer kafkaProducer = Mockito.mock(KafkaProducer.class);
-    private final ProcessorHandler processorHandler = new ProcessorHandler(taskProcessorService, taskAverageService, kafkaProducer, featureConfig);
+    private final WalIngestService walIngestService = Mockito.mock(WalIngestService.class);
+    private final ObjectProvider<WalIngestService> walIngestServiceProvider = Mockito.mock(ObjectProvider.class);
+    private final IngestRouter ingestRouter = Mockito.mock(IngestRouter.class);
+    private final ProcessorHandler processorHandler = new ProcessorHandler(taskProcessorService, taskAverageService, taskBulkAverageService, taskListService, taskImportService, kafkaProducer, featureConfig, walIngestServiceProvider, ingestRouter);
 
     @Test
     void shouldCallProcessorServiceWhenWorkflowTypeIsProcessTask() {
@@ -53,6 +79,109 @@ class ProcessorHandlerTest {
         Mockito.verify(taskProcessorService).process(any(TaskContext.class));
     }
 
+    @Test
+    void shouldFollowIngestRouterInAdaptiveMode() {
+        // Arrange
+        TaskDTO task = new TaskDTO("task-123", 1000L);
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(task)
+                .build();
+
+        when(featureConfig.getIngestMode()).thenReturn(IngestMode.ADAPTIVE);
+        when(ingestRouter.route()).thenReturn(IngestMode.ASYNC, IngestMode.SYNC);
+        when(kafkaProducer.sendTask(task, null)).thenReturn(Mono.just("Task sent to Kafka"));
+        when(taskProcessorService.process(context)).thenReturn(Mono.just(new TaskResponse("OK")));
+
+        // Act
+        processorHandler.handle(context).block();
+        processorHandler.handle(context).block();
+
+        // Assert
+        Mockito.verify(kafkaProducer).sendTask(task, null);
+        Mockito.verify(taskProcessorService).process(context);
+    }
+
+    @Test
+    void shouldSendToKafkaWhenAsyncIsEnabled() {
+        // Arrange
+        TaskDTO task = new TaskDTO("task-123", 1000L);
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(task)
+                .build();
+
+        when(featureConfig.isAsyncEnabled()).thenReturn(true);
+        when(kafkaProducer.sendTask(task, null)).thenReturn(Mono.just("Task sent to Kafka"));
+
+        // Act
+        Object response = processorHandler.handle(context).block();
+
+        // Assert
+        assertEquals(new TaskResponse("OK"), response);
+        Mockito.verifyNoInteractions(taskProcessorService);
+    }
+
+    @Test
+    void shouldAppendToWriteAheadLogWhenIngestModeIsWal() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(new TaskDTO("task-123", 1000L))
+                .build();
+
+        when(featureConfig.getIngestMode()).thenReturn(IngestMode.WAL);
+        when(walIngestServiceProvider.getObject()).thenReturn(walIngestService);
+        when(walIngestService.process(context)).thenReturn(Mono.just(new TaskResponse("OK")));
+
+        // Act
+        processorHandler.handle(context).block();
+
+        // Assert
+        Mockito.verify(walIngestService).process(context);
+        Mockito.verifyNoInteractions(taskProcessorService, kafkaProducer);
+    }
+
+    @Test
+    void shouldProcessKeyedSamplesSynchronouslyWhenIngestModeIsWal() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(new TaskDTO("task-123", 1000L))
+                .idempotencyKey("sample-1")
+                .build();
+
+        when(featureConfig.getIngestMode()).thenReturn(IngestMode.WAL);
+        when(taskProcessorService.process(context)).thenReturn(Mono.just(new TaskResponse("DUPLICATE")));
+
+        // Act
+        Object response = processorHandler.handle(context).block();
+
+        // Assert
+        assertEquals(new TaskResponse("DUPLICATE"), response);
+        Mockito.verifyNoInteractions(walIngestServiceProvider, kafkaProducer);
+    }
+
+    @Test
+    void shouldProcessWarmupSamplesSynchronouslyWhateverTheIngestMode() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.PROCESS_TASK)
+                .request(new TaskDTO("warmup-1", 100L))
+                .warmup(true)
+                .build();
+
+        when(featureConfig.getIngestMode()).thenReturn(IngestMode.ASYNC);
+        when(taskProcessorService.process(context)).thenReturn(Mono.just(new TaskResponse("OK")));
+
+        // Act
+        processorHandler.handle(context).block();
+
+        // Assert
+        Mockito.verify(taskProcessorService).process(context);
+        Mockito.verifyNoInteractions(kafkaProducer, walIngestServiceProvider, ingestRouter);
+    }
+
     @Test
     void shouldCallAverageServiceWhenWorkflowTypeIsCalculateAverageDuration() {
         // Arrange
@@ -70,6 +199,60 @@ class ProcessorHandlerTest {
         Mockito.verify(taskAverageService).process(any(TaskContext.class));
     }
 
+    @Test
+    void shouldCallBulkAverageServiceWhenWorkflowTypeIsCalculateBulkAverageDuration() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.CALCULATE_BULK_AVERAGE_DURATION)
+                .request(new TaskAveragesRequest(List.of("task-1")))
+                .build();
+
+        when(taskBulkAverageService.process(context)).thenReturn(Mono.just(List.of(TaskAverageEntry.found("task-1", 10L))));
+
+        // Act
+        Object result = processorHandler.handle(context).block();
+
+        // Assert
+        assertEquals(List.of(TaskAverageEntry.found("task-1", 10L)), result);
+        Mockito.verifyNoInteractions(taskProcessorService, taskAverageService, taskImportService);
+    }
+
+    @Test
+    void shouldCallListServiceWhenWorkflowTypeIsListTasks() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.LIST_TASKS)
+                .request(new TaskPageRequest(null, 10))
+                .build();
+
+        when(taskListService.process(context)).thenReturn(Mono.just(new TaskPage(List.of(), null)));
+
+        // Act
+        Object result = processorHandler.handle(context).block();
+
+        // Assert
+        assertEquals(new TaskPage(List.of(), null), result);
+        Mockito.verifyNoInteractions(taskProcessorService, taskAverageService, taskImportService);
+    }
+
+    @Test
+    void shouldCallImportServiceWhenWorkflowTypeIsImportTasks() {
+        // Arrange
+        TaskContext context = TaskContext.builder()
+                .workflowType(WorkflowType.IMPORT_TASKS)
+                .request(new TaskImportRequest(Flux.just("task-1,100"), ImportFormat.CSV))
+                .build();
+
+        when(taskImportService.process(context)).thenReturn(Mono.just(new TaskImportResult("id", 1L, 1L, 1L, 1L)));
+
+        // Act
+        processorHandler.handle(context).block();
+
+        // Assert
+        Mockito.verify(taskImportService).process(context);
+        Mockito.verifyNoInteractions(taskProcessorService, taskAverageService);
+    }
+
     @Test
     void shouldThrowExceptionWhenWorkflowTypeIsUnknown() {
         // Arrange
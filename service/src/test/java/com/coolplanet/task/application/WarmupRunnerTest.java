@@ -0,0 +1,100 @@
+package com.coolplanet.task.application;
+
+import com.coolplanet.task.config.WarmupProperties;
+import com.coolplanet.task.domain.exception.ProcessingException;
+import com.coolplanet.task.domain.exception.TaskNotFoundException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WarmupRunner}: samples are marked as warm-up and rolled back, lookups of the
+ * uncommitted row are tolerated, a failing iteration ends the warm-up, and the report is exported.
+ */
+class WarmupRunnerTest {
+
+    private final Handler handler = Mockito.mock(Handler.class);
+    private final TransactionalOperator transactionalOperator = Mockito.mock(TransactionalOperator.class);
+    private final ReactiveTransaction transaction = Mockito.mock(ReactiveTransaction.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            // the iteration runs on the write pool, like a transaction of the application would
+            return Flux.deferContextual(context -> {
+                assertEquals(ConnectionRoute.WRITE, ConnectionRoute.from(context));
+                return Flux.from(callback.doInTransaction(transaction));
+            });
+        }).when(transactionalOperator).execute(any());
+    }
+
+    @Test
+    void run_shouldProcessMarkedSamplesInRolledBackTransactions() {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK));
+        doReturn(Mono.just(new TaskDTO("warmup", 100L))).when(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION));
+
+        runner(20).run(new DefaultApplicationArguments());
+
+        verify(transaction, times(20)).setRollbackOnly();
+        verify(handler, times(40)).handle(argThat((TaskContext context) -> context.warmup));
+        verify(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK
+                && context.request.equals(new TaskDTO("warmup-7", 100L))));
+        verify(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION
+                && ((TaskDTO) context.request).taskId().equals("warmup-7")));
+        assertTrue(meterRegistry.get("tasks.warmup.duration").timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(2, meterRegistry.get("tasks.warmup.latency").tag("window", "last").timeGauges().size());
+    }
+
+    @Test
+    void run_shouldTolerateLookupsNotSeeingTheUncommittedSample() {
+        doReturn(Mono.just(new TaskResponse("OK"))).when(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK));
+        doReturn(Mono.error(new TaskNotFoundException("Task not found"))).when(handler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION));
+
+        runner(10).run(new DefaultApplicationArguments());
+
+        verify(handler, times(20)).handle(any(TaskContext.class));
+        assertEquals(2, meterRegistry.get("tasks.warmup.latency").tag("window", "first").timeGauges().size());
+    }
+
+    @Test
+    void run_shouldStopAtTheFirstFailingIteration() {
+        doReturn(Mono.error(new ProcessingException("Database down"))).when(handler).handle(any(TaskContext.class));
+
+        runner(100).run(new DefaultApplicationArguments());
+
+        // with one iteration in flight, the failure of the first one ends the warm-up
+        verify(handler, times(1)).handle(any(TaskContext.class));
+        assertEquals(0, meterRegistry.find("tasks.warmup.latency").timeGauges().size());
+        assertEquals(1, meterRegistry.find("tasks.warmup.duration").timeGauges().size());
+    }
+
+    private WarmupRunner runner(int iterations) {
+        return new WarmupRunner(handler, transactionalOperator, new ObjectMapper(),
+                new WarmupProperties(true, iterations, 1, Duration.ofSeconds(10)), meterRegistry);
+    }
+}
@@ -4,15 +4,34 @@ import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.entity.TaskEntity;
 import com.coolplanet.task.domain.exception.TaskNotFoundException;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
 import com.coolplanet.task.infrastructure.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -23,6 +42,8 @@ import static org.mockito.Mockito.when;
  * This test class covers the following scenarios:
  * - Verifying that average duration is correctly calculated when the task exists in the repository.
  * - Verifying that a RecordNotFoundException is thrown when the task does not exist in the repository.
+ * - Verifying that task IDs unknown to the KnownTaskFilter are rejected without a query.
+ * - Verifying that concurrent reads of the same task share one query, while each caller can cancel on its own.
  *
  * Annotations:
  * - {@code @ExtendWith(MockitoExtension.class)}: Used to initialize Mockito's extensions for dependency injection.
@@ -37,6 +58,18 @@ import static org.mockito.Mockito.when;
  *        Tests that the process method calculates the average duration of an existing task.
  * - {@code process_shouldThrowException_whenTaskNotFound()}:
  *        Tests that the process method throws an exception when the task is not found.
+ * - {@code process_shouldRejectUnknownTaskWithoutQuery()}:
+ *        Tests that a task ID the filter has never seen is answered without reading the repository.
+ * - {@code process_shouldNotFilterWarmupLookups()}:
+ *        Tests that warm-up lookups reach the repository whatever the filter says, and are not counted by it.
+ * - {@code process_shouldShareOneQueryBetweenConcurrentReadsOfSameTask()}:
+ *        Tests that reads arriving while a read of the same task is in flight join it.
+ * - {@code process_shouldHandRowToCallerJoiningWhileItIsDelivered()}:
+ *        Tests that a read joining the shared read after its row was emitted still receives the row.
+ * - {@code process_shouldCancelSharedQueryOnlyWhenAllCallersCancel()}:
+ *        Tests that one caller cancelling does not cancel the read of the others.
+ * - {@code process_shouldNotCoalesceReadYourWritesReads()}:
+ *        Tests that reads routed to the primary after a write always run their own query.
  */
 @ExtendWith(MockitoExtension.class)
 class TaskAverageServiceTest {
@@ -44,11 +77,22 @@ class TaskAverageServiceTest {
     @Mock
     private TaskRepository repository;
 
+    @Mock
+    private RecentWriteTracker recentWrites;
+
+    @Mock
+    private KnownTaskFilter knownTasks;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private TaskAverageService taskAverageService;
 
     @BeforeEach
     void setUp() {
-        taskAverageService = new TaskAverageService(repository);
+        // lenient, as lookups rejected by the filter never ask for a route
+        lenient().when(recentWrites.readRoute(anyString())).thenReturn(ConnectionRoute.REPLICA);
+        lenient().when(knownTasks.mightExist(anyString())).thenReturn(true);
+        taskAverageService = new TaskAverageService(repository, recentWrites, knownTasks, meterRegistry);
     }
 
     @Test
@@ -66,6 +110,22 @@ class TaskAverageServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void process_shouldReadFromRouteChosenByRecentWriteTracker() {
+        String taskId = "written-id";
+        TaskContext context = TaskContext.builder()
+                .request(new TaskDTO(taskId, 0L))
+                .build();
+
+        when(recentWrites.readRoute(taskId)).thenReturn(ConnectionRoute.READ);
+        when(repository.findById(taskId)).thenReturn(Mono.deferContextual(ctx ->
+                Mono.just(new TaskEntity(taskId, ctx.get(ConnectionRoute.class) == ConnectionRoute.READ ? 900L : 0L, 3L))));
+
+        StepVerifier.create(taskAverageService.process(context))
+                .expectNext(new TaskDTO(taskId, 300L))
+                .verifyComplete();
+    }
+
     @Test
     void process_shouldThrowException_whenTaskNotFound() {
         String taskId = "non-existent-id";
@@ -78,5 +138,138 @@ class TaskAverageServiceTest {
         StepVerifier.create(taskAverageService.process(context))
                 .expectError(TaskNotFoundException.class)
                 .verify();
+        verify(knownTasks).recordFalsePositive();
+    }
+
+    @Test
+    void process_shouldRejectUnknownTaskWithoutQuery() {
+        String taskId = "never-written-id";
+        TaskContext context = TaskContext.builder()
+                .request(new TaskDTO(taskId, 0L))
+                .build();
+        when(knownTasks.mightExist(taskId)).thenReturn(false);
+
+        StepVerifier.create(taskAverageService.process(context))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+        verify(repository, never()).findById(anyString());
+        verify(knownTasks, never()).recordFalsePositive();
+    }
+
+    @Test
+    void process_shouldNotFilterWarmupLookups() {
+        // written in the rolled back warm-up transaction, so never recorded in the filter
+        String taskId = "warmup-1";
+        when(repository.findById(taskId)).thenReturn(Mono.empty());
+        TaskContext warmup = TaskContext.builder()
+                .request(new TaskDTO(taskId, 0L))
+                .warmup(true)
+                .build();
+
+        StepVerifier.create(taskAverageService.process(warmup))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+
+        verify(repository).findById(taskId);
+        verify(knownTasks, never()).mightExist(taskId);
+        verify(knownTasks, never()).recordFalsePositive();
+    }
+
+    @Test
+    void process_shouldShareOneQueryBetweenConcurrentReadsOfSameTask() {
+        String taskId = "popular-id";
+        Sinks.One<TaskEntity> row = Sinks.one();
+        AtomicInteger queries = new AtomicInteger();
+        when(repository.findById(taskId)).thenReturn(Mono.defer(() -> {
+            queries.incrementAndGet();
+            return row.asMono();
+        }));
+
+        StepVerifier first = StepVerifier.create(taskAverageService.process(context(taskId)))
+                .expectNext(new TaskDTO(taskId, 250L))
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(taskAverageService.process(context(taskId)))
+                .expectNext(new TaskDTO(taskId, 250L))
+                .expectComplete()
+                .verifyLater();
+
+        row.tryEmitValue(new TaskEntity(taskId, 1000L, 4L));
+        first.verify();
+        second.verify();
+
+        assertEquals(1, queries.get());
+        assertEquals(1.0, meterRegistry.get("tasks.average.reads").tag("coalesced", "false").counter().count());
+        assertEquals(1.0, meterRegistry.get("tasks.average.reads").tag("coalesced", "true").counter().count());
+        assertEquals(0.0, meterRegistry.get("tasks.average.reads.in.flight").gauge().value());
+
+        // the finished read is not reused by later requests
+        StepVerifier.create(taskAverageService.process(context(taskId)))
+                .expectNext(new TaskDTO(taskId, 250L))
+                .verifyComplete();
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void process_shouldHandRowToCallerJoiningWhileItIsDelivered() {
+        String taskId = "late-id";
+        Sinks.One<TaskEntity> row = Sinks.one();
+        AtomicInteger queries = new AtomicInteger();
+        when(repository.findById(taskId)).thenReturn(Mono.defer(() -> queries.incrementAndGet() == 1 ? row.asMono() : Mono.empty()));
+        List<Object> late = new CopyOnWriteArrayList<>();
+
+        // the second caller joins the shared read while its row is handed to the first one
+        StepVerifier first = StepVerifier.create(taskAverageService.process(context(taskId))
+                        .doOnNext(task -> taskAverageService.process(context(taskId)).subscribe(late::add, late::add)))
+                .expectNext(new TaskDTO(taskId, 250L))
+                .expectComplete()
+                .verifyLater();
+
+        row.tryEmitValue(new TaskEntity(taskId, 1000L, 4L));
+        first.verify();
+
+        assertEquals(List.of(new TaskDTO(taskId, 250L)), late);
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void process_shouldCancelSharedQueryOnlyWhenAllCallersCancel() {
+        String taskId = "cancelled-id";
+        AtomicInteger cancellations = new AtomicInteger();
+        when(repository.findById(taskId)).thenReturn(Mono.<TaskEntity>never().doOnCancel(cancellations::incrementAndGet));
+
+        Disposable first = taskAverageService.process(context(taskId)).subscribe();
+        Disposable second = taskAverageService.process(context(taskId)).subscribe();
+
+        first.dispose();
+        assertEquals(0, cancellations.get());
+        assertFalse(second.isDisposed());
+
+        second.dispose();
+        assertEquals(1, cancellations.get());
+        assertTrue(second.isDisposed());
+        verify(repository, times(1)).findById(taskId);
+    }
+
+    @Test
+    void process_shouldNotCoalesceReadYourWritesReads() {
+        String taskId = "written-id";
+        when(recentWrites.readRoute(taskId)).thenReturn(ConnectionRoute.READ);
+        when(repository.findById(taskId)).thenReturn(Mono.just(new TaskEntity(taskId, 100L, 1L)));
+
+        Mono<TaskDTO> first = taskAverageService.process(context(taskId));
+        Mono<TaskDTO> second = taskAverageService.process(context(taskId));
+        StepVerifier.create(Mono.zip(first, second))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(repository, times(2)).findById(taskId);
+        assertEquals(0.0, meterRegistry.get("tasks.average.reads").tag("coalesced", "true").counter().count());
+    }
+
+    private static TaskContext context(String taskId) {
+        return TaskContext.builder()
+                .request(new TaskDTO(taskId, 0L))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TaskAverageStreamService}, using a real {@link TaskChangeBus} and a mocked
+ * repository.
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskAverageStreamServiceTest {
+
+    @Mock
+    private TaskRepository repository;
+
+    private final TaskChangeBus changeBus = new TaskChangeBus(new TaskQueryProperties(500, 10, 100, 1000, 1000), new SimpleMeterRegistry());
+
+    @Test
+    void stream_shouldEmitCurrentAverageFromPrimaryThenChanges() {
+        when(repository.findById("task-1")).thenReturn(Mono.deferContextual(ctx ->
+                Mono.just(new TaskEntity("task-1", ctx.get(ConnectionRoute.class) == ConnectionRoute.READ ? 1000L : 0L, 2L))));
+        TaskAverageStreamService service = new TaskAverageStreamService(repository, changeBus);
+
+        StepVerifier.create(service.stream("task-1"))
+                .expectNext(new TaskDTO("task-1", 500L))
+                .then(() -> changeBus.publish(new TaskEntity("task-1", 1500L, 3L)))
+                .expectNext(new TaskDTO("task-1", 500L))
+                .then(() -> changeBus.publish(new TaskEntity("task-1", 2100L, 4L)))
+                .expectNext(new TaskDTO("task-1", 525L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void stream_shouldSkipChangesOlderThanWhatWasAlreadyEmitted() {
+        when(repository.findById("task-1")).thenReturn(Mono.just(new TaskEntity("task-1", 900L, 3L)));
+        TaskAverageStreamService service = new TaskAverageStreamService(repository, changeBus);
+
+        StepVerifier.create(service.stream("task-1"))
+                .expectNext(new TaskDTO("task-1", 300L))
+                .then(() -> changeBus.publish(new TaskEntity("task-1", 400L, 2L)))
+                .then(() -> changeBus.publish(new TaskEntity("task-1", 1600L, 4L)))
+                .expectNext(new TaskDTO("task-1", 400L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void stream_shouldWaitForFirstWrite_whenTaskDoesNotExistYet() {
+        when(repository.findById("new-task")).thenReturn(Mono.empty());
+        TaskAverageStreamService service = new TaskAverageStreamService(repository, changeBus);
+
+        StepVerifier.create(service.stream("new-task"))
+                .then(() -> changeBus.publish(new TaskEntity("new-task", 70L, 1L)))
+                .expectNext(new TaskDTO("new-task", 70L))
+                .thenCancel()
+                .verify();
+    }
+}
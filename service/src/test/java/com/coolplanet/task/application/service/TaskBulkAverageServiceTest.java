@@ -0,0 +1,107 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskAveragesRequest;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.infrastructure.ConnectionRoute;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TaskBulkAverageService}: ordering, inline misses, duplicates, routing and
+ * request validation.
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskBulkAverageServiceTest {
+
+    @Mock
+    private TaskRepository repository;
+
+    @Mock
+    private RecentWriteTracker recentWrites;
+
+    private TaskBulkAverageService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(recentWrites.readRoute(anyString())).thenReturn(ConnectionRoute.REPLICA);
+        service = new TaskBulkAverageService(repository, recentWrites, new TaskQueryProperties(3, 10, 100, 1000, 1000));
+    }
+
+    @Test
+    void process_shouldReturnAveragesInRequestOrderWithMissesInline() {
+        when(repository.findAllByTaskIds(any())).thenReturn(Flux.just(
+                new TaskEntity("task-2", 900L, 3L),
+                new TaskEntity("task-1", 1000L, 2L)));
+
+        StepVerifier.create(service.process(context(List.of("task-1", "unknown", "task-2"))))
+                .expectNext(List.of(
+                        TaskAverageEntry.found("task-1", 500L),
+                        TaskAverageEntry.missing("unknown"),
+                        TaskAverageEntry.found("task-2", 300L)))
+                .verifyComplete();
+    }
+
+    @Test
+    void process_shouldQueryDistinctIdsOnceAndRepeatDuplicates() {
+        ArgumentCaptor<String[]> taskIds = ArgumentCaptor.forClass(String[].class);
+        when(repository.findAllByTaskIds(taskIds.capture())).thenReturn(Flux.just(new TaskEntity("task-1", 100L, 1L)));
+
+        StepVerifier.create(service.process(context(List.of("task-1", "task-1"))))
+                .expectNext(List.of(TaskAverageEntry.found("task-1", 100L), TaskAverageEntry.found("task-1", 100L)))
+                .verifyComplete();
+        assertArrayEquals(new String[]{"task-1"}, taskIds.getValue());
+    }
+
+    @Test
+    void process_shouldReadFromPrimary_whenAnyTaskWasWrittenRecently() {
+        when(recentWrites.readRoute("written")).thenReturn(ConnectionRoute.READ);
+        when(repository.findAllByTaskIds(any())).thenReturn(Flux.deferContextual(ctx ->
+                Flux.just(new TaskEntity("written", ctx.get(ConnectionRoute.class) == ConnectionRoute.READ ? 10L : 0L, 1L))));
+
+        StepVerifier.create(service.process(context(List.of("other", "written"))))
+                .expectNext(List.of(TaskAverageEntry.missing("other"), TaskAverageEntry.found("written", 10L)))
+                .verifyComplete();
+    }
+
+    @Test
+    void process_shouldRejectInvalidRequests() {
+        StepVerifier.create(service.process(context(List.of())))
+                .expectError(InvalidRequestException.class)
+                .verify();
+        StepVerifier.create(service.process(context(List.of("a", "b", "c", "d"))))
+                .expectError(InvalidRequestException.class)
+                .verify();
+        StepVerifier.create(service.process(context(Arrays.asList("a", null))))
+                .expectError(InvalidRequestException.class)
+                .verify();
+        verifyNoInteractions(repository);
+    }
+
+    private static TaskContext context(List<String> taskIds) {
+        return TaskContext.builder()
+                .request(new TaskAveragesRequest(taskIds))
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.DedupProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.infrastructure.TaskDedupStore;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TaskDeduplicator}: new keys are claimed without a lookup once the filters are
+ * loaded, probable duplicates are confirmed against the dedup store, and maintenance keeps partitions
+ * and filters within the retention window.
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskDeduplicatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private TaskRepository repository;
+
+    @Mock
+    private TaskDedupStore store;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TaskDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2024-03-10T12:00:00Z"), ZoneOffset.UTC);
+        deduplicator = new TaskDeduplicator(repository, store, new DedupProperties(2, 1_000, 0.001, Duration.ofHours(1)),
+                meterRegistry, clock);
+    }
+
+    @Test
+    void upsertOnce_shouldClaimNewKeyWithoutLookup() {
+        warmUp();
+        TaskEntity updated = new TaskEntity("task-1", 100L, 1L);
+        when(repository.upsertOnce(TaskDeduplicator.hash("key-1"), TODAY, TODAY.minusDays(1), "task-1", 100L)).thenReturn(Mono.just(updated));
+
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .expectNext(updated)
+                .verifyComplete();
+
+        verify(store, never()).seenSince(any(), any());
+        assertEquals(1.0, outcome("new"));
+    }
+
+    @Test
+    void upsertOnce_shouldSkipConfirmedDuplicate() {
+        warmUp();
+        when(repository.upsertOnce(any(), eq(TODAY), any(), anyString(), anyLong()))
+                .thenReturn(Mono.just(new TaskEntity("task-1", 100L, 1L)));
+        when(store.seenSince(TaskDeduplicator.hash("key-1"), TODAY.minusDays(1))).thenReturn(Mono.just(true));
+        deduplicator.upsertOnce("key-1", "task-1", 100L).block();
+
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .verifyComplete();
+
+        verify(repository).upsertOnce(any(), any(), any(), anyString(), anyLong());
+        assertEquals(1.0, outcome("duplicate"));
+    }
+
+    @Test
+    void upsertOnce_shouldClaimFalsePositive() {
+        warmUp();
+        TaskEntity updated = new TaskEntity("task-1", 200L, 2L);
+        when(repository.upsertOnce(any(), eq(TODAY), any(), anyString(), anyLong())).thenReturn(Mono.just(updated));
+        when(store.seenSince(any(), eq(TODAY.minusDays(1)))).thenReturn(Mono.just(false));
+        deduplicator.upsertOnce("key-1", "task-1", 100L).block();
+
+        // the same key looks like a duplicate to the filter, the store tells otherwise
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .expectNext(updated)
+                .verifyComplete();
+
+        assertEquals(1.0, outcome("false_positive"));
+    }
+
+    @Test
+    void upsertOnce_shouldCountClaimLostToConcurrentRetryAsDuplicate() {
+        warmUp();
+        when(repository.upsertOnce(any(), eq(TODAY), any(), anyString(), anyLong())).thenReturn(Mono.empty());
+
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .verifyComplete();
+
+        assertEquals(1.0, outcome("duplicate"));
+        assertEquals(0.0, outcome("new"));
+    }
+
+    @Test
+    void upsertOnce_shouldLetTheStoreRejectKeyClaimedEarlierInTheWindowThatTheFiltersMiss() {
+        warmUp();
+        // claimed yesterday by another instance, after this one loaded its filters
+        when(repository.upsertOnce(TaskDeduplicator.hash("key-1"), TODAY, TODAY.minusDays(1), "task-1", 100L))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .verifyComplete();
+
+        verify(store, never()).seenSince(any(), any());
+        assertEquals(1.0, outcome("duplicate"));
+        assertEquals(0.0, outcome("new"));
+    }
+
+    @Test
+    void upsertOnce_shouldConfirmEveryKeyUntilWarmedUp() {
+        // claimed yesterday, before a restart whose warm-up has not loaded it yet
+        when(store.seenSince(TaskDeduplicator.hash("key-1"), TODAY.minusDays(1))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(deduplicator.upsertOnce("key-1", "task-1", 100L))
+                .verifyComplete();
+
+        verify(repository, never()).upsertOnce(any(), any(), any(), anyString(), anyLong());
+        assertEquals(1.0, outcome("duplicate"));
+    }
+
+    @Test
+    void start_shouldCreatePartitionsBeforeReturning() {
+        when(store.createPartitions(TODAY, TODAY.plusDays(2))).thenReturn(Mono.empty());
+        when(store.dropPartitionsBefore(TODAY.minusDays(1))).thenReturn(Mono.just(0L));
+        when(store.keysSince(eq(TODAY.minusDays(1)), anyInt())).thenReturn(Flux.never());
+
+        deduplicator.start();
+        try {
+            verify(store).createPartitions(TODAY, TODAY.plusDays(2));
+            assertTrue(deduplicator.isRunning());
+        } finally {
+            deduplicator.stop();
+        }
+    }
+
+    @Test
+    void maintain_shouldCreateUpcomingAndDropExpiredPartitions() {
+        when(store.createPartitions(TODAY, TODAY.plusDays(2))).thenReturn(Mono.empty());
+        when(store.dropPartitionsBefore(TODAY.minusDays(1))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(deduplicator.maintain())
+                .verifyComplete();
+
+        verify(store).createPartitions(TODAY, TODAY.plusDays(2));
+        verify(store).dropPartitionsBefore(TODAY.minusDays(1));
+    }
+
+    @Test
+    void hash_shouldBeStableAndDistinguishKeys() {
+        UUID hash = TaskDeduplicator.hash("key-1");
+
+        assertEquals(hash, TaskDeduplicator.hash("key-1"));
+        assertNotEquals(hash, TaskDeduplicator.hash("key-2"));
+    }
+
+    private void warmUp() {
+        when(store.keysSince(eq(TODAY.minusDays(1)), anyInt())).thenReturn(Flux.empty());
+        deduplicator.warmUp().block();
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("tasks.dedup").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.model.ImportFormat;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskImportRequest;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.TaskCopyImporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test class for {@link TaskImportService}, validating the parsing of CSV and NDJSON import
+ * lines and the hand-over of the samples to a mocked {@link TaskCopyImporter}.
+ */
+class TaskImportServiceTest {
+
+    private final TaskCopyImporter copyImporter = Mockito.mock(TaskCopyImporter.class);
+    private final KnownTaskFilter knownTasks = Mockito.mock(KnownTaskFilter.class);
+    private final TaskImportService taskImportService = new TaskImportService(copyImporter, new ObjectMapper(), knownTasks);
+
+    @Test
+    void process_shouldSkipCsvHeaderAndBlankLines() {
+        when(copyImporter.importTasks(anyString(), Mockito.any())).thenAnswer(invocation -> {
+            Flux<TaskDTO> samples = invocation.getArgument(1);
+            return samples.collectList().map(list ->
+                    new TaskCopyImporter.CopyResult(list.size(), list.stream().map(TaskDTO::taskId).distinct().count()));
+        });
+
+        StepVerifier.create(taskImportService.process(context(ImportFormat.CSV,
+                        "taskId,durationMs", "task-1,100", "", "task-2, 50", "task-1,300")))
+                .expectNextMatches(result -> result.rows() == 3 && result.tasks() == 2 && result.importId().length() == 32)
+                .verifyComplete();
+        verify(knownTasks, times(2)).recordWrite("task-1");
+        verify(knownTasks).recordWrite("task-2");
+    }
+
+    @Test
+    void process_shouldParseNdjsonLines() {
+        when(copyImporter.importTasks(anyString(), Mockito.any())).thenAnswer(invocation -> {
+            Flux<TaskDTO> samples = invocation.getArgument(1);
+            return samples.collectList()
+                    .filter(list -> list.equals(List.of(new TaskDTO("task-1", 100L), new TaskDTO("task-2", 50L))))
+                    .map(list -> new TaskCopyImporter.CopyResult(list.size(), 2));
+        });
+
+        StepVerifier.create(taskImportService.process(context(ImportFormat.NDJSON,
+                        "{\"taskId\":\"task-1\",\"totalDurationMs\":100}", "{\"taskId\":\"task-2\",\"totalDurationMs\":50}")))
+                .expectNextMatches(result -> result.rows() == 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void process_shouldRejectImportOnInvalidLine() {
+        when(copyImporter.importTasks(anyString(), Mockito.any())).thenAnswer(invocation -> {
+            Flux<TaskDTO> samples = invocation.getArgument(1);
+            return samples.then(Mono.just(new TaskCopyImporter.CopyResult(0, 0)));
+        });
+
+        StepVerifier.create(taskImportService.process(context(ImportFormat.CSV, "task-1,100", "task-2,abc")))
+                .expectErrorMatches(error -> error instanceof InvalidRequestException
+                        && error.getMessage().equals("Invalid import line 2: invalid duration 'abc'"))
+                .verify();
+    }
+
+    @Test
+    void process_shouldRejectNonPositiveDurations() {
+        when(copyImporter.importTasks(anyString(), Mockito.any())).thenAnswer(invocation -> {
+            Flux<TaskDTO> samples = invocation.getArgument(1);
+            return samples.then(Mono.just(new TaskCopyImporter.CopyResult(0, 0)));
+        });
+
+        StepVerifier.create(taskImportService.process(context(ImportFormat.CSV, "task-1,0")))
+                .expectError(InvalidRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void process_shouldRejectInvalidLineWhenCopyFailsWithAnotherError() {
+        // The driver aborts the COPY and reports the server's error rather than the one of the samples
+        when(copyImporter.importTasks(anyString(), Mockito.any())).thenAnswer(invocation -> {
+            Flux<TaskDTO> samples = invocation.getArgument(1);
+            return samples.onErrorMap(error -> new IllegalStateException("COPY failed"))
+                    .then(Mono.just(new TaskCopyImporter.CopyResult(0, 0)));
+        });
+
+        StepVerifier.create(taskImportService.process(context(ImportFormat.NDJSON, "{not json")))
+                .expectErrorMatches(error -> error instanceof InvalidRequestException
+                        && error.getMessage().startsWith("Invalid import line 1:"))
+                .verify();
+    }
+
+    private static TaskContext context(ImportFormat format, String... lines) {
+        return TaskContext.builder()
+                .request(new TaskImportRequest(Flux.just(lines), format))
+                .workflowType(WorkflowType.IMPORT_TASKS)
+                .build();
+    }
+}
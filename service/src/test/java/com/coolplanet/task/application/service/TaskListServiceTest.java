@@ -0,0 +1,76 @@
+package com.coolplanet.task.application.service;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.InvalidRequestException;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskPage;
+import com.coolplanet.task.domain.model.TaskPageRequest;
+import com.coolplanet.task.domain.model.TaskSummary;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TaskListService}: page boundaries, cursors, defaults and limit validation.
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskListServiceTest {
+
+    @Mock
+    private TaskRepository repository;
+
+    private final TaskQueryProperties properties = new TaskQueryProperties(500, 10, 2, 5, 1000);
+
+    @Test
+    void process_shouldReturnCursor_whenMoreTasksFollow() {
+        when(repository.findPageAfter("", 3)).thenReturn(Flux.just(
+                new TaskEntity("a", 10L, 1L), new TaskEntity("b", 40L, 2L), new TaskEntity("c", 90L, 3L)));
+
+        StepVerifier.create(service().process(context(null, null)))
+                .expectNext(new TaskPage(List.of(new TaskSummary("a", 10L, 1L, 10L), new TaskSummary("b", 40L, 2L, 20L)), "b"))
+                .verifyComplete();
+    }
+
+    @Test
+    void process_shouldOmitCursorOnLastPage() {
+        when(repository.findPageAfter("b", 4)).thenReturn(Flux.just(new TaskEntity("c", 90L, 3L)));
+
+        StepVerifier.create(service().process(context("b", 3)))
+                .expectNext(new TaskPage(List.of(new TaskSummary("c", 90L, 3L, 30L)), null))
+                .verifyComplete();
+    }
+
+    @Test
+    void process_shouldRejectLimitOutOfRange() {
+        StepVerifier.create(service().process(context(null, 6)))
+                .expectError(InvalidRequestException.class)
+                .verify();
+        StepVerifier.create(service().process(context(null, 0)))
+                .expectError(InvalidRequestException.class)
+                .verify();
+        verify(repository, never()).findPageAfter(anyString(), anyInt());
+    }
+
+    private TaskListService service() {
+        return new TaskListService(repository, properties);
+    }
+
+    private static TaskContext context(String after, Integer limit) {
+        return TaskContext.builder()
+                .request(new TaskPageRequest(after, limit))
+                .build();
+    }
+}
@@ -1,16 +1,22 @@
 package com.coolplanet.task.application.service;
 
+import com.coolplanet.task.application.IngestRouter;
 import com.coolplanet.task.application.processor.ProcessingStepFactory;
 import com.coolplanet.task.domain.entity.TaskEntity;
 import com.coolplanet.task.domain.exception.ProcessingException;
 import com.coolplanet.task.domain.model.TaskContext;
 import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.PipelinedTaskWriter;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
 import com.coolplanet.task.infrastructure.TaskRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -18,6 +24,10 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -37,11 +47,33 @@ public class TaskProcessorServiceTest {
     @Mock
     private ProcessingStepFactory stepFactory;
 
+    @Mock
+    private ObjectProvider<PipelinedTaskWriter> pipelinedWriterProvider;
+
+    @Mock
+    private PipelinedTaskWriter pipelinedWriter;
+
+    @Mock
+    private RecentWriteTracker recentWrites;
+
+    @Mock
+    private TaskChangeBus changeBus;
+
+    @Mock
+    private TaskDeduplicator deduplicator;
+
+    @Mock
+    private IngestRouter ingestRouter;
+
+    @Mock
+    private KnownTaskFilter knownTasks;
+
     private TaskProcessorService taskProcessorService;
 
     @BeforeEach
     void setUp() {
-        taskProcessorService = new TaskProcessorService(repository, stepFactory);
+        taskProcessorService = new TaskProcessorService(repository, stepFactory, pipelinedWriterProvider, recentWrites, changeBus, deduplicator, ingestRouter,
+                knownTasks);
     }
 
     @Test
@@ -50,13 +82,17 @@ public class TaskProcessorServiceTest {
         TaskDTO taskDTO = new TaskDTO("123", 500L);
         TaskContext taskContext = TaskContext.builder().request(taskDTO).build();
 
-        when(repository.upsert(eq("123"), anyLong())).thenReturn(Mono.just(2000L));
+        TaskEntity updated = new TaskEntity("123", 2000L, 4L);
+        when(repository.upsert(eq("123"), anyLong())).thenReturn(Mono.just(updated));
 
         // Act & Assert
         taskProcessorService.process(taskContext)
                 .as(StepVerifier::create)
                 .expectNextMatches(response -> response.status().equals("OK"))
                 .verifyComplete();
+        verify(changeBus).publish(updated);
+        verify(ingestRouter).recordWriteLatency(anyLong());
+        verify(knownTasks).recordWrite("123");
     }
 
     @Test
@@ -110,4 +146,59 @@ public class TaskProcessorServiceTest {
                 .verify();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testProcess_UsesPipelinedWriterWhenEnabled() {
+        // Arrange
+        TaskDTO taskDTO = new TaskDTO("127", 400L);
+        TaskContext taskContext = TaskContext.builder().request(taskDTO).build();
+
+        when(pipelinedWriterProvider.getIfAvailable()).thenReturn(pipelinedWriter);
+        when(stepFactory.getSteps()).thenReturn(List.of());
+        when(pipelinedWriter.upsert("127", 400L)).thenReturn(Mono.just(new TaskEntity("127", 400L, 1L)));
+        TaskProcessorService pipelinedService = new TaskProcessorService(repository, stepFactory, pipelinedWriterProvider, recentWrites, changeBus, deduplicator, ingestRouter,
+                knownTasks);
+
+        // Act & Assert
+        pipelinedService.process(taskContext)
+                .as(StepVerifier::create)
+                .expectNextMatches(response -> response.status().equals("OK"))
+                .verifyComplete();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void testProcess_AppliesKeyedSampleOnce() {
+        // Arrange
+        TaskDTO taskDTO = new TaskDTO("128", 600L);
+        TaskContext taskContext = TaskContext.builder().request(taskDTO).idempotencyKey("sample-1").build();
+
+        TaskEntity updated = new TaskEntity("128", 600L, 1L);
+        when(stepFactory.getSteps()).thenReturn(List.of());
+        when(deduplicator.upsertOnce("sample-1", "128", 600L)).thenReturn(Mono.just(updated));
+
+        // Act & Assert
+        taskProcessorService.process(taskContext)
+                .as(StepVerifier::create)
+                .expectNextMatches(response -> response.status().equals("OK"))
+                .verifyComplete();
+        verify(changeBus).publish(updated);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void testProcess_ReportsDuplicateKeyedSample() {
+        // Arrange
+        TaskDTO taskDTO = new TaskDTO("129", 600L);
+        TaskContext taskContext = TaskContext.builder().request(taskDTO).idempotencyKey("sample-1").build();
+
+        when(stepFactory.getSteps()).thenReturn(List.of());
+        when(deduplicator.upsertOnce("sample-1", "129", 600L)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        taskProcessorService.process(taskContext)
+                .as(StepVerifier::create)
+                .expectNextMatches(response -> response.status().equals("DUPLICATE"))
+                .verifyComplete();
+        verify(changeBus, never()).publish(any());
+    }
+}
@@ -0,0 +1,77 @@
+package com.coolplanet.task.application.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AimdLimiter}: admission up to the limit, additive increase under load,
+ * multiplicative decrease on slow or failed requests, and the configured bounds.
+ */
+class AimdLimiterTest {
+
+    private static final long TARGET = Duration.ofMillis(100).toNanos();
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(500).toNanos();
+
+    @Test
+    void tryAcquire_shouldRejectBeyondLimit() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, TARGET, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.releaseWithoutSample();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void release_shouldGrowLimitWhenFastAndBusy() {
+        AimdLimiter limiter = new AimdLimiter(4, 1, 10, TARGET, 0.5);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+
+        limiter.release(FAST, false);
+
+        assertEquals(5, limiter.limit());
+    }
+
+    @Test
+    void release_shouldNotGrowLimitWhenMostlyIdle() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 20, TARGET, 0.5);
+        limiter.tryAcquire();
+
+        limiter.release(FAST, false);
+
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void release_shouldShrinkLimitWhenSlowOrFailedDownToMinimum() {
+        AimdLimiter limiter = new AimdLimiter(16, 3, 20, TARGET, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertEquals(8, limiter.limit());
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(4, limiter.limit());
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void constructor_shouldClampInitialLimitAndRejectInvalidSettings() {
+        assertEquals(10, new AimdLimiter(50, 1, 10, TARGET, 0.9).limit());
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(10, 0, 10, TARGET, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(10, 1, 10, TARGET, 1.0));
+    }
+}
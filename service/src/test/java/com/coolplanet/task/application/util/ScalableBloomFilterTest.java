@@ -0,0 +1,65 @@
+package com.coolplanet.task.application.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ScalableBloomFilter}: no false negatives, a false positive rate within the
+ * configured bound once the filter has grown, and argument validation.
+ */
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAddedElements() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        SplittableRandom random = new SplittableRandom(42);
+        long[][] hashes = new long[10_000][];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = new long[]{random.nextLong(), random.nextLong()};
+            filter.put(hashes[i][0], hashes[i][1]);
+        }
+
+        for (long[] hash : hashes) {
+            assertTrue(filter.mightContain(hash[0], hash[1]));
+        }
+        assertEquals(10_000, filter.count());
+    }
+
+    @Test
+    void put_shouldGrowAndKeepFalsePositiveRateBounded() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put(random.nextLong(), random.nextLong());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(filter.sliceCount() > 1);
+        assertTrue(falsePositives < probes * 0.01, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_shouldBeFalseForEmptyFilter() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.001);
+
+        assertFalse(filter.mightContain(1L, 2L));
+        assertTrue(filter.sizeInBytes() > 0);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(10, 1));
+    }
+}
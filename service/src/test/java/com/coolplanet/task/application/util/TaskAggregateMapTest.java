@@ -0,0 +1,115 @@
+package com.coolplanet.task.application.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TaskAggregateMap}, covering accumulation, the {@code CharSequence} and
+ * byte-slice lookup variants, removal with backward-shift deletion and growth beyond the initial
+ * capacity. A randomised test cross-checks the map against a plain {@code HashMap}.
+ */
+class TaskAggregateMapTest {
+
+    @Test
+    void add_shouldAccumulateTotalAndCounter() {
+        TaskAggregateMap map = new TaskAggregateMap();
+
+        map.add("task-1", 1000L, 1L);
+        int entry = map.add("task-1", 500L, 1L);
+
+        assertEquals(1, map.size());
+        assertEquals(1500L, map.total(entry));
+        assertEquals(2L, map.counter(entry));
+        assertEquals(750L, map.average(entry));
+        assertEquals("task-1", map.taskId(entry));
+    }
+
+    @Test
+    void indexOf_shouldMatchAcrossCharSequenceAndByteSlice() {
+        TaskAggregateMap map = new TaskAggregateMap();
+        int entry = map.add(new StringBuilder("tâsk-🚀"), 10L, 1L);
+
+        byte[] framed = ("xx" + "tâsk-🚀" + "yy").getBytes(StandardCharsets.UTF_8);
+        int keyLength = "tâsk-🚀".getBytes(StandardCharsets.UTF_8).length;
+
+        assertEquals(entry, map.indexOf("tâsk-🚀"));
+        assertEquals(entry, map.indexOf(framed, 2, keyLength));
+        assertEquals(-1, map.indexOf("task-unknown"));
+    }
+
+    @Test
+    void put_shouldOverwriteAggregate() {
+        TaskAggregateMap map = new TaskAggregateMap();
+        map.add("task-1", 1000L, 4L);
+
+        int entry = map.put("task-1", 90L, 3L);
+
+        assertEquals(90L, map.total(entry));
+        assertEquals(3L, map.counter(entry));
+    }
+
+    @Test
+    void remove_shouldKeepRemainingEntriesReachable() {
+        TaskAggregateMap map = new TaskAggregateMap();
+        for (int i = 0; i < 100; i++) {
+            map.add("task-" + i, i, 1L);
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(map.remove("task-" + i));
+        }
+
+        assertFalse(map.remove("task-0"));
+        assertEquals(50, map.size());
+        for (int i = 1; i < 100; i += 2) {
+            int entry = map.indexOf("task-" + i);
+            assertTrue(entry >= 0, "task-" + i + " should still be present");
+            assertEquals(i, map.total(entry));
+        }
+    }
+
+    @Test
+    void clear_shouldRemoveEverything() {
+        TaskAggregateMap map = new TaskAggregateMap();
+        map.add("task-1", 1L, 1L);
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.indexOf("task-1"));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.total(0));
+    }
+
+    @Test
+    void randomisedOperations_shouldMatchHashMap() {
+        TaskAggregateMap map = new TaskAggregateMap(4);
+        Map<String, long[]> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            String taskId = "task-" + random.nextInt(2_000);
+            if (random.nextInt(10) == 0) {
+                assertEquals(expected.remove(taskId) != null, map.remove(taskId));
+            } else {
+                long duration = random.nextInt(10_000);
+                map.add(taskId, duration, 1L);
+                long[] aggregate = expected.computeIfAbsent(taskId, key -> new long[2]);
+                aggregate[0] += duration;
+                aggregate[1]++;
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((taskId, aggregate) -> {
+            int entry = map.indexOf(taskId);
+            assertEquals(aggregate[0], map.total(entry));
+            assertEquals(aggregate[1], map.counter(entry));
+        });
+    }
+}
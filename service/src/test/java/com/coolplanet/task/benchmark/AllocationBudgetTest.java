@@ -0,0 +1,243 @@
+package com.coolplanet.task.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.coolplanet.task.adapter.KafkaConsumer;
+import com.coolplanet.task.adapter.KafkaProducer;
+import com.coolplanet.task.application.IngestRouter;
+import com.coolplanet.task.application.ProcessorHandler;
+import com.coolplanet.task.application.exception.GlobalExceptionHandler;
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.application.service.TaskAverageService;
+import com.coolplanet.task.application.service.TaskAverageStreamService;
+import com.coolplanet.task.application.service.TaskBulkAverageService;
+import com.coolplanet.task.application.service.TaskDeduplicator;
+import com.coolplanet.task.application.service.TaskExportService;
+import com.coolplanet.task.application.service.TaskImportService;
+import com.coolplanet.task.application.service.TaskListService;
+import com.coolplanet.task.application.service.TaskProcessorService;
+import com.coolplanet.task.application.service.WalIngestService;
+import com.coolplanet.task.config.FeatureConfig;
+import com.coolplanet.task.config.KnownTaskProperties;
+import com.coolplanet.task.config.ReplicaProperties;
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.PipelinedTaskWriter;
+import com.coolplanet.task.infrastructure.RecentWriteTracker;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskExporter;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Allocation regression harness for the request paths: measures the bytes allocated per operation for
+ * {@code POST /tasks}, {@code GET /tasks/{taskId}/average} of a known and of an unknown task, and a
+ * consumed Kafka record, and fails when a path exceeds its budget in {@code allocation-budgets.properties}.
+ *
+ * The HTTP paths run through a full WebFlux {@code DispatcherHandler} with the annotated controller and
+ * the {@link GlobalExceptionHandler}, the Kafka path through the {@link KafkaConsumer}; both reach the
+ * real {@link ProcessorHandler} and services down to a stubbed {@link TaskRepository}, with the
+ * {@link KnownTaskFilter} built, so the unknown task is rejected before the repository. Allocations are
+ * summed over all live threads from {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long[])},
+ * so the work the pipeline hands off to scheduler threads is counted too. Every path is warmed up
+ * first, letting the JIT apply escape analysis as it would in production. Application logging is
+ * turned down to WARN, so the budgets cover the request path and not the formatting of log lines.
+ *
+ * The budgets include the overhead of the Mockito stubs and the mock request and response, and leave
+ * some headroom over the measured values; a change that exceeds one should either be fixed or raise
+ * the budget knowingly.
+ */
+@Slf4j
+class AllocationBudgetTest {
+
+    private static final int WARMUP_OPERATIONS = 3_000;
+    private static final int MEASURED_OPERATIONS = 2_000;
+    private static final List<String> QUIET_LOGGERS = List.of("com.coolplanet.task.adapter",
+            "com.coolplanet.task.application", "org.springframework");
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final Map<String, Level> loggerLevels = new HashMap<>();
+    private static final Semaphore writes = new Semaphore(0);
+
+    private static Properties budgets;
+    private static AnnotationConfigApplicationContext context;
+    private static HttpHandler httpHandler;
+    private static KafkaConsumer kafkaConsumer;
+    private static KnownTaskFilter knownTasks;
+
+    @BeforeAll
+    static void setUp() throws IOException, ClassNotFoundException, InterruptedException {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Thread allocation accounting is not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            budgets.load(in);
+        }
+        for (String name : QUIET_LOGGERS) {
+            Logger logger = (Logger) LoggerFactory.getLogger(name);
+            loggerLevels.put(name, logger.getLevel());
+            logger.setLevel(Level.WARN);
+        }
+
+        // stub-only mocks keep no record of their invocations, which would grow with every operation
+        TaskRepository repository = mock(TaskRepository.class, withSettings().stubOnly());
+        doReturn(Mono.just(new TaskEntity("task-1", 2000L, 4L))).when(repository).findById("task-1");
+        doReturn(Mono.empty()).when(repository).findById("unknown");
+        doReturn(Mono.just(new TaskEntity("task-1", 2100L, 5L))).when(repository).upsert(anyString(), anyLong());
+        IngestRouter ingestRouter = mock(IngestRouter.class, withSettings().stubOnly());
+        // the Kafka consumer processes asynchronously, the router hears of every completed write
+        doAnswer(invocation -> {
+            writes.release();
+            return null;
+        }).when(ingestRouter).recordWriteLatency(anyLong());
+        @SuppressWarnings("unchecked")
+        ObjectProvider<PipelinedTaskWriter> pipelinedWriter = mock(ObjectProvider.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<WalIngestService> walIngestService = mock(ObjectProvider.class);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TaskExporter exporter = mock(TaskExporter.class);
+        doReturn(Flux.just("task-1")).when(exporter).taskIds(anyInt());
+        knownTasks = new KnownTaskFilter(exporter, new KnownTaskProperties(true, 1000, 0.01, Duration.ofHours(1), 1000), meterRegistry);
+        knownTasks.start();
+        for (int i = 0; i < 500 && knownTasks.mightExist("unknown"); i++) {
+            Thread.sleep(10);
+        }
+        RecentWriteTracker recentWrites = new RecentWriteTracker(new ReplicaProperties(List.of(), ReplicaProperties.Balancing.ROUND_ROBIN,
+                Duration.ofSeconds(5), Duration.ofSeconds(1), false, null));
+        TaskProcessorService taskProcessorService = new TaskProcessorService(repository, new ProcessingStepFactory(), pipelinedWriter,
+                recentWrites, new TaskChangeBus(new TaskQueryProperties(500, 10_000, 100, 1000, 1000), meterRegistry),
+                mock(TaskDeduplicator.class), ingestRouter, knownTasks);
+        ProcessorHandler processorHandler = new ProcessorHandler(taskProcessorService,
+                new TaskAverageService(repository, recentWrites, knownTasks, meterRegistry), mock(TaskBulkAverageService.class),
+                mock(TaskListService.class), mock(TaskImportService.class), mock(KafkaProducer.class), new FeatureConfig(),
+                walIngestService, ingestRouter);
+
+        context = new AnnotationConfigApplicationContext();
+        context.register(TaskEndpointBenchmark.WebFluxConfig.class);
+        context.registerBean(ProcessorHandler.class, () -> processorHandler);
+        context.registerBean(TaskAverageStreamService.class, () -> mock(TaskAverageStreamService.class));
+        context.registerBean(TaskExportService.class, () -> mock(TaskExportService.class));
+        context.registerBean(GlobalExceptionHandler.class);
+        context.registerBean(Class.forName(TaskEndpointBenchmark.TASK_CONTROLLER));
+        context.refresh();
+        httpHandler = WebHttpHandlerBuilder.applicationContext(context).build();
+
+        kafkaConsumer = new KafkaConsumer(taskProcessorService, new ObjectMapper());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        loggerLevels.forEach((name, level) -> ((Logger) LoggerFactory.getLogger(name)).setLevel(level));
+        if (knownTasks != null) {
+            knownTasks.stop();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void recordTask_shouldStayWithinBudget() {
+        assertWithinBudget("post", () -> exchange(MockServerHttpRequest.post("/tasks?taskId=task-1&duration=100").build(), HttpStatus.CREATED));
+    }
+
+    @Test
+    void taskAverageOfKnownTask_shouldStayWithinBudget() {
+        assertWithinBudget("get-hit", () -> exchange(MockServerHttpRequest.get("/tasks/task-1/average").build(), HttpStatus.OK));
+    }
+
+    @Test
+    void taskAverageOfUnknownTask_shouldStayWithinBudget() {
+        assertWithinBudget("get-miss", () -> exchange(MockServerHttpRequest.get("/tasks/unknown/average").build(), HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void kafkaConsume_shouldStayWithinBudget() {
+        assertWithinBudget("kafka-consume", () -> {
+            kafkaConsumer.consume("{\"taskId\":\"task-1\",\"totalDurationMs\":100}", null);
+            if (!writes.tryAcquire(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Consumed record was not processed");
+            }
+        });
+    }
+
+    private static void exchange(MockServerHttpRequest request, HttpStatus expectedStatus) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        assertEquals(expectedStatus, response.getStatusCode());
+    }
+
+    private static void assertWithinBudget(String path, Operation operation) {
+        long budget = Long.parseLong(budgets.getProperty(path));
+        long bytesPerOperation = bytesPerOperation(operation);
+        log.info("{} allocates {} bytes per operation, budget {}", path, bytesPerOperation, budget);
+        assertTrue(bytesPerOperation <= budget,
+                () -> "%s allocates %d bytes per operation, over its budget of %d".formatted(path, bytesPerOperation, budget));
+    }
+
+    private static long bytesPerOperation(Operation operation) {
+        try {
+            for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+                operation.run();
+            }
+            long before = allocatedBytes();
+            for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+                operation.run();
+            }
+            return (allocatedBytes() - before) / MEASURED_OPERATIONS;
+        } catch (Exception e) {
+            throw new IllegalStateException("Operation failed while measuring allocations", e);
+        }
+    }
+
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            // -1 for threads that ended in the meantime
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,103 @@
+package com.coolplanet.task.benchmark;
+
+import com.coolplanet.task.application.util.TaskAggregateMap;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link TaskAggregateMap} against the {@code ConcurrentHashMap<String, TaskEntity>}
+ * an in-memory aggregate would otherwise be built on.
+ *
+ * Scenarios:
+ * - {@code update*}: adds one sample to an existing task, the aggregator hot path.
+ * - {@code lookup*}: reads the average of a task whose id arrives as a reusable {@code StringBuilder},
+ *   the way ids are parsed off the wire; the {@code ConcurrentHashMap} variant has to call
+ *   {@code toString()} first.
+ *
+ * Run from the {@code service} module with the GC profiler to see allocation per operation:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.coolplanet.task.benchmark.TaskAggregateMapBenchmark -Dexec.args="-prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskAggregateMapBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tasks;
+
+    private String[] taskIds;
+    private StringBuilder wireId;
+    private int cursor;
+
+    private TaskAggregateMap aggregateMap;
+    private ConcurrentHashMap<String, TaskEntity> entityMap;
+
+    @Setup
+    public void setUp() {
+        taskIds = new String[tasks];
+        aggregateMap = new TaskAggregateMap(tasks);
+        entityMap = new ConcurrentHashMap<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            taskIds[i] = "task-" + i;
+            aggregateMap.add(taskIds[i], 1000L, 1L);
+            entityMap.put(taskIds[i], new TaskEntity(taskIds[i], 1000L, 1L));
+        }
+        wireId = new StringBuilder(32);
+    }
+
+    private String nextTaskId() {
+        cursor = cursor + 1 == tasks ? 0 : cursor + 1;
+        return taskIds[cursor];
+    }
+
+    @Benchmark
+    public int updateAggregateMap() {
+        return aggregateMap.add(nextTaskId(), 250L, 1L);
+    }
+
+    @Benchmark
+    public TaskEntity updateConcurrentHashMap() {
+        return entityMap.computeIfPresent(nextTaskId(), (taskId, entity) -> {
+            entity.setTotalDurationMs(entity.getTotalDurationMs() + 250L);
+            entity.setCounter(entity.getCounter() + 1);
+            return entity;
+        });
+    }
+
+    @Benchmark
+    public void lookupAggregateMap(Blackhole blackhole) {
+        wireId.setLength(0);
+        wireId.append(nextTaskId());
+        blackhole.consume(aggregateMap.average(aggregateMap.indexOf(wireId)));
+    }
+
+    @Benchmark
+    public void lookupConcurrentHashMap(Blackhole blackhole) {
+        wireId.setLength(0);
+        wireId.append(nextTaskId());
+        TaskEntity entity = entityMap.get(wireId.toString());
+        blackhole.consume(entity.getTotalDurationMs() / entity.getCounter());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(TaskAggregateMapBenchmark.class.getSimpleName());
+        if (args.length == 2 && "-prof".equals(args[0])) {
+            options.addProfiler(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
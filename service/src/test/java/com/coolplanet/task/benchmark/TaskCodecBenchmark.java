@@ -0,0 +1,95 @@
+package com.coolplanet.task.benchmark;
+
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JMH comparison of the JSON, CBOR and Smile encodings negotiated by the task endpoints.
+ *
+ * Scenarios:
+ * - {@code single}: one {@link TaskDTO}, the body of an average lookup.
+ * - {@code bulk}: 500 {@link TaskAverageEntry}, the body of a full {@code POST /tasks/averages} answer.
+ * - {@code encode}/{@code decode}: writing the payload to bytes and reading it back, the work done by
+ *   the server and the client respectively.
+ *
+ * The encoded size of every payload is printed once per trial. Run from the {@code service} module
+ * with the GC profiler to see allocation per operation:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.coolplanet.task.benchmark.TaskCodecBenchmark -Dexec.args="-prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskCodecBenchmark {
+
+    private static final int BULK_SIZE = 500;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"single", "bulk"})
+    private String payload;
+
+    private ObjectMapper mapper;
+    private Object value;
+    private JavaType type;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper(switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        });
+        if ("bulk".equals(payload)) {
+            value = IntStream.range(0, BULK_SIZE)
+                    .mapToObj(i -> i % 10 == 0 ? TaskAverageEntry.missing("task-" + i) : TaskAverageEntry.found("task-" + i, 1000L + i))
+                    .toList();
+            type = mapper.getTypeFactory().constructCollectionType(List.class, TaskAverageEntry.class);
+        } else {
+            value = new TaskDTO("task-123", 1000L);
+            type = mapper.constructType(TaskDTO.class);
+        }
+        encoded = mapper.writeValueAsBytes(value);
+        System.out.printf("%n%s %s payload: %d bytes%n", format, payload, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return mapper.readValue(encoded, type);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(TaskCodecBenchmark.class.getSimpleName());
+        if (args.length == 2 && "-prof".equals(args[0])) {
+            options.addProfiler(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
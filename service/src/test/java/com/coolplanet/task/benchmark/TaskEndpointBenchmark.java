@@ -0,0 +1,154 @@
+package com.coolplanet.task.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.coolplanet.task.adapter.TaskRouteHandler;
+import com.coolplanet.task.application.ProcessorHandler;
+import com.coolplanet.task.application.exception.GlobalExceptionHandler;
+import com.coolplanet.task.application.service.TaskAverageStreamService;
+import com.coolplanet.task.application.service.TaskExportService;
+import com.coolplanet.task.domain.model.TaskContext;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.domain.model.TaskResponse;
+import com.coolplanet.task.domain.model.WorkflowType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.validation.MessageInterpolatorFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * JMH comparison of the annotated {@code TaskController} against the functional routes of
+ * {@link TaskRouteHandler} for {@code POST /tasks} and {@code GET /tasks/{taskId}/average}.
+ *
+ * Both variants run through a full WebFlux {@code DispatcherHandler} with the default codecs and
+ * validator, backed by the same stubbed {@link ProcessorHandler}, so the difference is the cost of
+ * argument resolution, method validation and response serialization per request. Request logging is
+ * turned down to WARN for both.
+ *
+ * Run from the {@code service} module with the GC profiler to see allocation per operation:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.coolplanet.task.benchmark.TaskEndpointBenchmark -Dexec.args="-prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskEndpointBenchmark {
+
+    // TaskController is package-private, the context instantiates it reflectively
+    static final String TASK_CONTROLLER = "com.coolplanet.task.adapter.TaskController";
+
+    private AnnotationConfigApplicationContext annotatedContext;
+    private AnnotationConfigApplicationContext functionalContext;
+    private HttpHandler annotated;
+    private HttpHandler functional;
+
+    @Configuration
+    @EnableWebFlux
+    static class WebFluxConfig implements WebFluxConfigurer {
+
+        // the validator Boot would configure, without an expression language implementation on the classpath
+        @Override
+        public Validator getValidator() {
+            LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+            validator.setMessageInterpolator(new MessageInterpolatorFactory().getObject());
+            validator.afterPropertiesSet();
+            return validator;
+        }
+    }
+
+    @Setup
+    public void setUp() throws ClassNotFoundException {
+        ((Logger) LoggerFactory.getLogger("com.coolplanet")).setLevel(ch.qos.logback.classic.Level.WARN);
+        ((Logger) LoggerFactory.getLogger("org.springframework")).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        ProcessorHandler processorHandler = Mockito.mock(ProcessorHandler.class);
+        doReturn(Mono.just(new TaskResponse("OK")))
+                .when(processorHandler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.PROCESS_TASK));
+        doReturn(Mono.just(new TaskDTO("task-1", 250L)))
+                .when(processorHandler).handle(argThat((TaskContext context) -> context.workflowType == WorkflowType.CALCULATE_AVERAGE_DURATION));
+
+        annotatedContext = new AnnotationConfigApplicationContext();
+        annotatedContext.register(WebFluxConfig.class);
+        annotatedContext.registerBean(ProcessorHandler.class, () -> processorHandler);
+        annotatedContext.registerBean(TaskAverageStreamService.class, () -> Mockito.mock(TaskAverageStreamService.class));
+        annotatedContext.registerBean(TaskExportService.class, () -> Mockito.mock(TaskExportService.class));
+        annotatedContext.registerBean(GlobalExceptionHandler.class);
+        annotatedContext.registerBean(Class.forName(TASK_CONTROLLER));
+        annotatedContext.refresh();
+        annotated = WebHttpHandlerBuilder.applicationContext(annotatedContext).build();
+
+        functionalContext = new AnnotationConfigApplicationContext();
+        functionalContext.register(WebFluxConfig.class);
+        functionalContext.registerBean("taskRoutes", RouterFunction.class,
+                () -> new TaskRouteHandler(processorHandler, new ObjectMapper()).routes());
+        functionalContext.refresh();
+        functional = WebHttpHandlerBuilder.applicationContext(functionalContext).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        annotatedContext.close();
+        functionalContext.close();
+    }
+
+    @Benchmark
+    public HttpStatusCode recordTaskAnnotated() {
+        return exchange(annotated, MockServerHttpRequest.post("/tasks?taskId=task-1&duration=100").build());
+    }
+
+    @Benchmark
+    public HttpStatusCode recordTaskFunctional() {
+        return exchange(functional, MockServerHttpRequest.post("/tasks?taskId=task-1&duration=100").build());
+    }
+
+    @Benchmark
+    public HttpStatusCode taskAverageAnnotated() {
+        return exchange(annotated, MockServerHttpRequest.get("/tasks/task-1/average").build());
+    }
+
+    @Benchmark
+    public HttpStatusCode taskAverageFunctional() {
+        return exchange(functional, MockServerHttpRequest.get("/tasks/task-1/average").build());
+    }
+
+    private static HttpStatusCode exchange(HttpHandler httpHandler, MockServerHttpRequest request) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        return response.getStatusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(TaskEndpointBenchmark.class.getSimpleName());
+        if (args.length == 2 && "-prof".equals(args[0])) {
+            options.addProfiler(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
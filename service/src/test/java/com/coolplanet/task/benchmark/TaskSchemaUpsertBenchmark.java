@@ -0,0 +1,129 @@
+package com.coolplanet.task.benchmark;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH before-and-after comparison of upsert throughput on the "task" table as created by the
+ * {@code V1} migration (with the {@code id SERIAL} column and default fillfactor) and after the
+ * {@code V2} migration (no sequence, fillfactor 70, tuned autovacuum).
+ *
+ * Each invocation issues {@link #BATCH} concurrent upserts over a pool of 16 connections against
+ * {@code tasks} hot task ids, the steady-state shape of the ingest path. The HOT update ratio of the
+ * trial is printed on teardown; it should be close to 100% for {@code V2}.
+ *
+ * Needs Docker for the Postgres container. Run from the {@code service} module:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.coolplanet.task.benchmark.TaskSchemaUpsertBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskSchemaUpsertBenchmark {
+
+    private static final int BATCH = 256;
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO task AS t (task_id, total_duration_ms, counter)
+         VALUES ($1, $2, 1)
+         ON CONFLICT (task_id)
+         DO UPDATE SET
+           total_duration_ms = t.total_duration_ms + EXCLUDED.total_duration_ms,
+           counter = t.counter + 1
+        """;
+
+    @Param({"V1", "V2"})
+    private String schemaVersion;
+
+    @Param({"10000"})
+    private int tasks;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConnectionPool connectionPool;
+    private DatabaseClient databaseClient;
+    private String[] taskIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                .withDatabaseName("task")
+                .withUsername("test")
+                .withPassword("test");
+        postgres.start();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactoryBuilder
+                        .withUrl("r2dbc:postgresql://%s:%d/task".formatted(postgres.getHost(), postgres.getFirstMappedPort()))
+                        .username("test")
+                        .password("test")
+                        .build())
+                .initialSize(16)
+                .maxSize(16)
+                .build());
+        databaseClient = DatabaseClient.create(connectionPool);
+
+        migrate("db/migration/V1__create_task_table.sql");
+        if ("V2".equals(schemaVersion)) {
+            migrate("db/migration/V2__hot_update_friendly_task_table.sql");
+        }
+
+        taskIds = new String[tasks];
+        for (int i = 0; i < tasks; i++) {
+            taskIds[i] = "task-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Map<String, Object> stats = databaseClient.sql("""
+                        SELECT n_tup_upd, n_tup_hot_upd, pg_relation_size('task') AS heap_bytes,
+                               pg_relation_size('task_pkey') AS index_bytes
+                        FROM pg_stat_user_tables WHERE relname = 'task'""")
+                .fetch().one().block();
+        System.out.printf("%n%s: %s updates, %s HOT, heap %s bytes, primary key %s bytes%n", schemaVersion,
+                stats.get("n_tup_upd"), stats.get("n_tup_hot_upd"), stats.get("heap_bytes"), stats.get("index_bytes"));
+        connectionPool.dispose();
+        postgres.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void upsert() {
+        Flux.range(0, BATCH)
+                .flatMap(i -> databaseClient.sql(UPSERT_SQL)
+                        .bind(0, taskIds[ThreadLocalRandom.current().nextInt(tasks)])
+                        .bind(1, 100L)
+                        .fetch()
+                        .rowsUpdated(), BATCH)
+                .blockLast();
+    }
+
+    private void migrate(String script) throws IOException {
+        String sql = new ClassPathResource(script).getContentAsString(StandardCharsets.UTF_8);
+        databaseClient.sql(sql).then().block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TaskSchemaUpsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
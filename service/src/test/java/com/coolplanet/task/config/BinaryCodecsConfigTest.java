@@ -0,0 +1,137 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.domain.model.TaskAverageEntry;
+import com.coolplanet.task.domain.model.TaskAveragesRequest;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BinaryCodecsConfig}: CBOR and Smile are negotiated next to JSON for single
+ * values, streams of values and request bodies.
+ */
+class BinaryCodecsConfigTest {
+
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    private WebTestClient webClient;
+
+    @RestController
+    static class CodecTestController {
+
+        @GetMapping(path = "/task", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+        Mono<TaskDTO> task() {
+            return Mono.just(new TaskDTO("task-1", 250L));
+        }
+
+        @GetMapping(path = "/entries", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+        Flux<TaskAverageEntry> entries() {
+            return Flux.just(TaskAverageEntry.found("task-1", 250L), TaskAverageEntry.missing("task-2"));
+        }
+
+        @PostMapping(path = "/echo", produces = MediaType.APPLICATION_JSON_VALUE)
+        Mono<TaskAveragesRequest> echo(@RequestBody TaskAveragesRequest request) {
+            return Mono.just(request);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        webClient = WebTestClient.bindToController(new CodecTestController())
+                .httpMessageCodecs(new BinaryCodecsConfig().binaryCodecsCustomizer(new Jackson2ObjectMapperBuilder())::customize)
+                .build();
+    }
+
+    @Test
+    void shouldNegotiateCborAndSmileForSingleValues() throws Exception {
+        byte[] cbor = get("/task", MediaType.APPLICATION_CBOR);
+        byte[] smile = get("/task", APPLICATION_SMILE);
+
+        assertEquals(new TaskDTO("task-1", 250L), cborMapper.readValue(cbor, TaskDTO.class));
+        assertEquals(new TaskDTO("task-1", 250L), smileMapper.readValue(smile, TaskDTO.class));
+    }
+
+    @Test
+    void shouldWriteStreamOfValuesAsCborArray() throws Exception {
+        byte[] cbor = get("/entries", MediaType.APPLICATION_CBOR);
+
+        assertEquals(List.of(TaskAverageEntry.found("task-1", 250L), TaskAverageEntry.missing("task-2")),
+                cborMapper.readValue(cbor, new TypeReference<List<TaskAverageEntry>>() {
+                }));
+    }
+
+    @Test
+    void shouldReadCborAndSmileRequestBodies() throws Exception {
+        TaskAveragesRequest request = new TaskAveragesRequest(List.of("task-1", "task-2"));
+
+        echo(MediaType.APPLICATION_CBOR, cborMapper.writeValueAsBytes(request));
+        echo(APPLICATION_SMILE, smileMapper.writeValueAsBytes(request));
+    }
+
+    @Test
+    void shouldKeepJsonAsDefaultForBodiesWithoutNegotiatedType() {
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        new BinaryCodecsConfig().binaryCodecsCustomizer(new Jackson2ObjectMapperBuilder()).customize(configurer);
+
+        HttpMessageWriter<?> writer = configurer.getWriters().stream()
+                .filter(candidate -> candidate.canWrite(ResolvableType.forClass(TaskDTO.class), null))
+                .findFirst()
+                .orElseThrow();
+
+        assertTrue(writer.getWritableMediaTypes().contains(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldKeepJsonAsDefault() {
+        webClient.get().uri("/task")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().json("{\"taskId\":\"task-1\",\"totalDurationMs\":250}");
+    }
+
+    private void echo(MediaType contentType, byte[] body) {
+        webClient.post().uri("/echo")
+                .contentType(contentType)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"taskIds\":[\"task-1\",\"task-2\"]}");
+    }
+
+    private byte[] get(String uri, MediaType accept) {
+        return webClient.get().uri(uri)
+                .accept(accept)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(accept)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,80 @@
+package com.coolplanet.task.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitFilter}: request classification, immediate 429 with
+ * Retry-After beyond the limit, independent read and write limits, and metrics.
+ */
+class ConcurrencyLimitFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            new ConcurrencyLimitProperties(true, Duration.ofSeconds(2),
+                    new ConcurrencyLimitProperties.LimitSettings(1, 1, 10, Duration.ofMillis(100), 0.9),
+                    new ConcurrencyLimitProperties.LimitSettings(1, 1, 10, Duration.ofMillis(100), 0.9)),
+            new ObjectMapper(), meterRegistry);
+
+    @Test
+    void filter_shouldRejectBeyondLimitWithRetryAfter() {
+        Sinks.Empty<Void> pending = Sinks.empty();
+        WebFilterChain slowChain = exchange -> pending.asMono();
+        WebFilterChain chain = exchange -> Mono.empty();
+
+        // occupies the single write slot
+        filter.filter(exchange(MockServerHttpRequest.post("/tasks?taskId=t&duration=1")), slowChain).subscribe();
+
+        MockServerWebExchange rejected = exchange(MockServerHttpRequest.post("/tasks?taskId=t&duration=1"));
+        StepVerifier.create(filter.filter(rejected, chain)).verifyComplete();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("2", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(rejected.getResponse().getBodyAsString())
+                .expectNextMatches(body -> body.contains("\"errorCode\":1004"))
+                .verifyComplete();
+
+        // reads have their own limit
+        MockServerWebExchange read = exchange(MockServerHttpRequest.get("/tasks/t/average"));
+        StepVerifier.create(filter.filter(read, chain)).verifyComplete();
+        assertNull(read.getResponse().getStatusCode());
+
+        pending.tryEmitEmpty();
+        MockServerWebExchange admitted = exchange(MockServerHttpRequest.post("/tasks?taskId=t&duration=1"));
+        StepVerifier.create(filter.filter(admitted, chain)).verifyComplete();
+        assertNull(admitted.getResponse().getStatusCode());
+
+        assertEquals(1.0, meterRegistry.get("http.limiter.rejections").tag("class", "write").counter().count());
+        assertEquals(0.0, meterRegistry.get("http.limiter.inflight").tag("class", "write").gauge().value());
+    }
+
+    @Test
+    void limitFor_shouldClassifyTaskEndpoints() {
+        assertEquals("write", filter.limitFor(MockServerHttpRequest.post("/tasks").build()).name);
+        assertEquals("read", filter.limitFor(MockServerHttpRequest.get("/tasks/t/average").build()).name);
+        assertEquals("read", filter.limitFor(MockServerHttpRequest.get("/tasks").build()).name);
+        assertEquals("read", filter.limitFor(MockServerHttpRequest.post("/tasks/averages").build()).name);
+        assertNull(filter.limitFor(MockServerHttpRequest.get("/tasks/t/average/stream").build()));
+        assertNull(filter.limitFor(MockServerHttpRequest.get("/tasks/export").build()));
+        assertNull(filter.limitFor(MockServerHttpRequest.post("/tasks/import").build()));
+        assertNull(filter.limitFor(MockServerHttpRequest.get("/actuator/health").build()));
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+}
@@ -0,0 +1,40 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.adapter.KeyOrderedKafkaConsumer;
+import com.coolplanet.task.application.service.TaskProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link KeyOrderedConsumerConfig}: the key-ordered consumer is not created together
+ * with the exactly-once consumer.
+ */
+class KeyOrderedConsumerConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(KeyOrderedConsumerConfig.class)
+            .withBean(TaskProcessorService.class, () -> Mockito.mock(TaskProcessorService.class))
+            .withBean(ObjectMapper.class, ObjectMapper::new)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(KafkaProperties.class, KafkaProperties::new)
+            .withPropertyValues("app.kafka.key-ordered.enabled=true", "app.kafka.key-ordered.lanes=2");
+
+    @Test
+    void shouldCreateKeyOrderedConsumer() {
+        contextRunner.run(context -> assertThat(context).hasSingleBean(KeyOrderedKafkaConsumer.class));
+    }
+
+    @Test
+    void shouldRefuseToStartWithExactlyOnceConsumer() {
+        contextRunner.withPropertyValues("app.kafka.exactly-once.enabled=true")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().rootCause().hasMessageContaining("mutually exclusive"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.coolplanet.task.config;
+
+import com.coolplanet.task.infrastructure.ReplicaConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link R2DBCConfig}: reads the replicas hand back to the primary are metered as reads
+ * of the read pool, and replicas are enabled however their URLs are listed.
+ */
+class R2DBCConfigTest {
+
+    private final ConnectionPool readConnectionPool = Mockito.mock(ConnectionPool.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void replicaConnectionFactory_shouldMeterFallbackReadsOnTheReadPool() {
+        Connection connection = Mockito.mock(Connection.class);
+        when(readConnectionPool.create()).thenReturn(Mono.just(connection));
+        R2dbcPoolProperties.PoolSettings pool = new R2dbcPoolProperties.PoolSettings(0, 1, Duration.ofSeconds(1),
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+        ReplicaConnectionFactory replicaFactory = new R2DBCConfig().replicaConnectionFactory(readConnectionPool,
+                new R2dbcPropertiesConfig("r2dbc:postgresql://primary/task", "task", "task"),
+                new ReplicaProperties(List.of("r2dbc:postgresql://replica-0/task"), ReplicaProperties.Balancing.ROUND_ROBIN,
+                        Duration.ofSeconds(5), Duration.ofSeconds(1), false, pool),
+                meterRegistry);
+
+        try {
+            // no replica was probed yet, so the read falls back to the primary
+            StepVerifier.create(replicaFactory.create())
+                    .expectNext(connection)
+                    .verifyComplete();
+
+            assertEquals(1, meterRegistry.get("r2dbc.pool.acquire").tag("name", "read").tag("outcome", "success")
+                    .timer().count());
+        } finally {
+            replicaFactory.stop();
+            replicaFactory.close();
+        }
+    }
+
+    @Test
+    void replicasConfiguredCondition_shouldMatchIndexedAndCommaSeparatedUrls() {
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withUserConfiguration(ReplicaMarkerConfig.class);
+
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean("replicaMarker"));
+        contextRunner.withPropertyValues("app.r2dbc.replicas.urls[0]=r2dbc:postgresql://replica-0/task")
+                .run(context -> assertThat(context).hasBean("replicaMarker"));
+        contextRunner.withPropertyValues("app.r2dbc.replicas.urls=r2dbc:postgresql://replica-0/task,r2dbc:postgresql://replica-1/task")
+                .run(context -> assertThat(context).hasBean("replicaMarker"));
+    }
+
+    @Configuration
+    static class ReplicaMarkerConfig {
+
+        @Bean
+        @Conditional(R2DBCConfig.ReplicasConfiguredCondition.class)
+        String replicaMarker() {
+            return "replicas";
+        }
+    }
+}
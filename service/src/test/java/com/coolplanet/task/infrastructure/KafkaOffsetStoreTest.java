@@ -0,0 +1,80 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.exception.ProcessingException;
+import io.r2dbc.spi.ConnectionFactory;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+/**
+ * Tests {@link KafkaOffsetStore} against a real Postgres: offsets only move forward, and a stale
+ * save rolls back the transaction it runs in.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class KafkaOffsetStoreTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("task-events", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("task-events", 1);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("task")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static ConnectionFactory connectionFactory;
+
+    private final DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+    private final KafkaOffsetStore offsetStore = new KafkaOffsetStore(databaseClient);
+
+    @BeforeAll
+    static void setUpDatabase() {
+        connectionFactory = ConnectionFactoryBuilder
+                .withUrl("r2dbc:postgresql://%s:%d/task".formatted(postgres.getHost(), postgres.getFirstMappedPort()))
+                .username("test")
+                .password("test")
+                .build();
+        DatabaseClient.create(connectionFactory).sql("""
+                CREATE TABLE IF NOT EXISTS kafka_offsets (
+                    consumer_group VARCHAR(255) NOT NULL,
+                    topic VARCHAR(255) NOT NULL,
+                    partition_id INT NOT NULL,
+                    next_offset BIGINT NOT NULL,
+                    PRIMARY KEY (consumer_group, topic, partition_id))""").then().block();
+    }
+
+    @Test
+    void save_shouldMoveOffsetsForward() {
+        StepVerifier.create(offsetStore.save("forward", Map.of(PARTITION_0, 10L))
+                        .then(offsetStore.save("forward", Map.of(PARTITION_0, 20L, PARTITION_1, 5L)))
+                        .then(offsetStore.find("forward")))
+                .expectNext(Map.of(PARTITION_0, 20L, PARTITION_1, 5L))
+                .verifyComplete();
+    }
+
+    @Test
+    void save_shouldRollBackBatchOfConsumerBehindStoredOffset() {
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        offsetStore.save("zombie", Map.of(PARTITION_0, 20L)).block();
+
+        // a consumer that lost partition 0 replays a batch the new owner already applied
+        StepVerifier.create(offsetStore.save("zombie", Map.of(PARTITION_0, 15L, PARTITION_1, 5L))
+                        .as(transactionalOperator::transactional))
+                .expectError(ProcessingException.class)
+                .verify();
+
+        StepVerifier.create(offsetStore.find("zombie"))
+                .expectNext(Map.of(PARTITION_0, 20L))
+                .verifyComplete();
+    }
+}
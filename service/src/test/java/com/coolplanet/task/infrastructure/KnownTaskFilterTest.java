@@ -0,0 +1,108 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.KnownTaskProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link KnownTaskFilter}: rebuilt from the task table, kept current by writes, and
+ * never rejecting a task written during a rebuild.
+ */
+class KnownTaskFilterTest {
+
+    private final TaskExporter exporter = Mockito.mock(TaskExporter.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void mightExist_shouldLetEveryTaskThroughUntilTheFilterIsBuilt() {
+        KnownTaskFilter filter = filter(true);
+
+        assertTrue(filter.mightExist("task-1"));
+        filter.recordFalsePositive();
+
+        assertFalse(filter.isBuilt());
+        assertEquals(0, meterRegistry.get("tasks.known.filter").tag("outcome", "false_positive").counter().count());
+    }
+
+    @Test
+    void rebuild_shouldKnowTheTasksOfTheTableAndLaterWrites() {
+        when(exporter.taskIds(anyInt())).thenReturn(Flux.just("task-1", "task-2"));
+        KnownTaskFilter filter = filter(true);
+
+        assertEquals(2L, filter.rebuild().block());
+        filter.recordWrite("task-3");
+
+        assertTrue(filter.mightExist("task-1"));
+        assertTrue(filter.mightExist("task-2"));
+        assertTrue(filter.mightExist("task-3"));
+        assertFalse(filter.mightExist("task-4"));
+        assertEquals(1, meterRegistry.get("tasks.known.filter").tag("outcome", "absent").counter().count());
+        assertEquals(2, meterRegistry.get("tasks.known.filter.tasks").gauge().value());
+        assertEquals(1, meterRegistry.get("tasks.known.filter.rebuild").timer().count());
+    }
+
+    @Test
+    void rebuild_shouldKeepWritesMadeWhileTheTableIsScanned() {
+        when(exporter.taskIds(anyInt())).thenReturn(Flux.just("task-1"));
+        KnownTaskFilter filter = filter(true);
+        filter.rebuild().block();
+        Sinks.Many<String> scan = Sinks.many().unicast().onBackpressureBuffer();
+        when(exporter.taskIds(anyInt())).thenReturn(scan.asFlux());
+
+        var rebuilt = filter.rebuild().toFuture();
+        // committed after the scan's snapshot, so only the write itself can add it to the new filter
+        filter.recordWrite("task-2");
+        scan.tryEmitNext("task-1");
+        scan.tryEmitComplete();
+        rebuilt.join();
+
+        assertTrue(filter.mightExist("task-1"));
+        assertTrue(filter.mightExist("task-2"));
+    }
+
+    @Test
+    void mightExist_shouldReportFalsePositiveRateOfUnknownTasks() {
+        when(exporter.taskIds(anyInt())).thenReturn(Flux.fromStream(IntStream.range(0, 1000).mapToObj(i -> "task-" + i)));
+        KnownTaskFilter filter = filter(true);
+        filter.rebuild().block();
+
+        long letThrough = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightExist("unknown-" + i))
+                .peek(i -> filter.recordFalsePositive())
+                .count();
+
+        double rate = meterRegistry.get("tasks.known.filter.false.positive.rate").gauge().value();
+        assertEquals(letThrough / 10_000.0, rate, 1e-9);
+        assertTrue(rate < 0.03, "false positive rate " + rate);
+    }
+
+    @Test
+    void recordWrite_shouldBeNoOpWhenDisabled() {
+        KnownTaskFilter filter = filter(false);
+
+        filter.start();
+        filter.recordWrite("task-1");
+
+        assertFalse(filter.isRunning());
+        assertTrue(filter.mightExist("task-2"));
+        verifyNoInteractions(exporter);
+    }
+
+    private KnownTaskFilter filter(boolean enabled) {
+        return new KnownTaskFilter(exporter, new KnownTaskProperties(enabled, 100, 0.01, Duration.ofHours(1), 1000), meterRegistry);
+    }
+}
@@ -0,0 +1,135 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import eu.rekawek.toxiproxy.Proxy;
+import eu.rekawek.toxiproxy.ToxiproxyClient;
+import eu.rekawek.toxiproxy.model.ToxicDirection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.ToxiproxyContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures {@link PipelinedTaskWriter} against one-round-trip-per-upsert writes through a Toxiproxy
+ * that adds artificial network latency in front of Postgres, simulating a cross-AZ database.
+ *
+ * Both write paths use a single connection and the same upsert statement, so the difference is
+ * purely the number of round trips the writes wait for.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class PipelinedTaskWriterLatencyTest {
+
+    private static final int LATENCY_MS = 10;
+    private static final int UPSERTS = 500;
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withNetwork(network)
+            .withNetworkAliases("postgres")
+            .withDatabaseName("task")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static ToxiproxyContainer toxiproxy = new ToxiproxyContainer("ghcr.io/shopify/toxiproxy:2.5.0")
+            .withNetwork(network);
+
+    private static ConnectionFactory proxiedConnectionFactory;
+
+    private PipelinedTaskWriter writer;
+
+    @BeforeAll
+    static void setUpProxy() throws IOException {
+        ToxiproxyClient client = new ToxiproxyClient(toxiproxy.getHost(), toxiproxy.getControlPort());
+        Proxy proxy = client.createProxy("postgres", "0.0.0.0:8666", "postgres:5432");
+        proxy.toxics().latency("latency", ToxicDirection.DOWNSTREAM, LATENCY_MS);
+        proxiedConnectionFactory = ConnectionFactoryBuilder
+                .withUrl("r2dbc:postgresql://%s:%d/task".formatted(toxiproxy.getHost(), toxiproxy.getMappedPort(8666)))
+                .username("test")
+                .password("test")
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mono.usingWhen(proxiedConnectionFactory.create(),
+                        connection -> Flux.from(connection.createStatement("""
+                                CREATE TABLE IF NOT EXISTS task (
+                                    task_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                                    total_duration_ms BIGINT NOT NULL,
+                                    counter BIGINT NOT NULL);
+                                TRUNCATE task""").execute())
+                                .flatMap(result -> result.getRowsUpdated())
+                                .then(),
+                        Connection::close)
+                .block();
+        writer = new PipelinedTaskWriter(proxiedConnectionFactory, 64, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void upsert_shouldCompleteEveryCallerWithItsOwnRunningTotal() {
+        List<Long> totals = Flux.range(0, UPSERTS)
+                .flatMap(i -> writer.upsert("task-1", 1L), UPSERTS)
+                .map(TaskEntity::getTotalDurationMs)
+                .sort()
+                .collectList()
+                .block();
+
+        assertEquals(LongStream.rangeClosed(1, UPSERTS).boxed().toList(), totals);
+    }
+
+    @Test
+    void upsert_shouldBeatOneRoundTripPerUpsertUnderLatency() {
+        long sequentialNanos = timed(Mono.usingWhen(proxiedConnectionFactory.create(),
+                connection -> Flux.range(0, UPSERTS)
+                        .concatMap(i -> Flux.from(connection.createStatement(PipelinedTaskWriter.UPSERT_SQL)
+                                        .bind(0, "sequential-" + (i % 10))
+                                        .bind(1, 1L)
+                                        .execute())
+                                .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class))))
+                        .then(),
+                Connection::close));
+
+        long pipelinedNanos = timed(Flux.range(0, UPSERTS)
+                .flatMap(i -> writer.upsert("pipelined-" + (i % 10), 1L), UPSERTS)
+                .then());
+
+        log.info("{} upserts with {} ms latency: sequential {} ms ({} rows/s), pipelined {} ms ({} rows/s)",
+                UPSERTS, LATENCY_MS, sequentialNanos / 1_000_000, UPSERTS * 1_000_000_000L / sequentialNanos,
+                pipelinedNanos / 1_000_000, UPSERTS * 1_000_000_000L / pipelinedNanos);
+        assertTrue(pipelinedNanos * 4 < sequentialNanos,
+                "Expected pipelining to be at least 4x faster than one round trip per upsert");
+    }
+
+    private static long timed(Mono<Void> work) {
+        long start = System.nanoTime();
+        work.block();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,84 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.exception.ProcessingException;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PipelinedTaskWriter} that do not need a database. The behaviour against a
+ * real, high-latency Postgres is covered by {@link PipelinedTaskWriterLatencyTest}.
+ */
+class PipelinedTaskWriterTest {
+
+    private final ConnectionFactory connectionFactory = Mockito.mock(ConnectionFactory.class);
+
+    @Test
+    void upsert_shouldRejectOnceQueueCapacityIsReached() {
+        // The connection never opens, so every accepted upsert stays pending
+        Mockito.<Publisher<? extends Connection>>when(connectionFactory.create()).thenReturn(Mono.never());
+        PipelinedTaskWriter writer = new PipelinedTaskWriter(connectionFactory, 4, 2);
+
+        writer.upsert("task-1", 100L).subscribe();
+        writer.upsert("task-2", 100L).subscribe();
+
+        StepVerifier.create(writer.upsert("task-3", 100L))
+                .expectErrorMatches(error -> error instanceof ProcessingException
+                        && error.getMessage().contains("queue is full"))
+                .verify();
+        assertEquals(2, writer.pending());
+    }
+
+    @Test
+    void upsert_shouldFailWhenConnectionCannotBeOpened() {
+        Mockito.<Publisher<? extends Connection>>when(connectionFactory.create())
+                .thenReturn(Mono.error(new IllegalStateException("db down")));
+        PipelinedTaskWriter writer = new PipelinedTaskWriter(connectionFactory, 4, 16);
+
+        StepVerifier.create(writer.upsert("task-1", 100L))
+                .expectErrorMessage("db down")
+                .verify();
+        assertEquals(0, writer.pending());
+    }
+
+    @Test
+    void close_shouldFailInFlightQueuedAndLaterUpserts() {
+        // Statements never answer, so with a depth of 1 the first upsert is in flight and the second queued
+        Connection connection = Mockito.mock(Connection.class);
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.<Publisher<? extends Connection>>when(connectionFactory.create()).thenReturn(Mono.just(connection));
+        when(connection.createStatement(anyString())).thenReturn(statement);
+        when(statement.bind(anyInt(), any())).thenReturn(statement);
+        Mockito.<Publisher<? extends Result>>when(statement.execute()).thenReturn(Flux.never());
+        Mockito.<Publisher<Void>>when(connection.close()).thenReturn(Mono.empty());
+        PipelinedTaskWriter writer = new PipelinedTaskWriter(connectionFactory, 1, 16);
+
+        Mono<?> inFlight = writer.upsert("task-1", 100L).cache();
+        Mono<?> queued = writer.upsert("task-2", 100L).cache();
+        inFlight.subscribe(value -> { }, error -> { });
+        queued.subscribe(value -> { }, error -> { });
+        assertEquals(2, writer.pending());
+
+        writer.close();
+
+        StepVerifier.create(inFlight).expectErrorMessage("Pipelined writer is closed").verify(Duration.ofSeconds(1));
+        StepVerifier.create(queued).expectErrorMessage("Pipelined writer is closed").verify(Duration.ofSeconds(1));
+        StepVerifier.create(writer.upsert("task-3", 100L)).expectErrorMessage("Pipelined writer is closed").verify(Duration.ofSeconds(1));
+        assertEquals(0, writer.pending());
+    }
+}
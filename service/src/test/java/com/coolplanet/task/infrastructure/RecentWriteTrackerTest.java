@@ -0,0 +1,65 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.R2dbcPoolProperties;
+import com.coolplanet.task.config.ReplicaProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RecentWriteTracker}.
+ */
+class RecentWriteTrackerTest {
+
+    @Test
+    void readRoute_shouldUsePrimaryForTasksWrittenWithinLagWindow() {
+        RecentWriteTracker tracker = new RecentWriteTracker(properties(List.of("r2dbc:postgresql://replica/task"), true, Duration.ofMinutes(1)));
+
+        tracker.recordWrite("task-1");
+
+        assertEquals(ConnectionRoute.READ, tracker.readRoute("task-1"));
+        assertEquals(ConnectionRoute.REPLICA, tracker.readRoute("task-2"));
+    }
+
+    @Test
+    void readRoute_shouldUseReplicaOnceLagWindowHasPassed() throws InterruptedException {
+        RecentWriteTracker tracker = new RecentWriteTracker(properties(List.of("r2dbc:postgresql://replica/task"), true, Duration.ofMillis(1)));
+
+        tracker.recordWrite("task-1");
+        Thread.sleep(5);
+
+        assertEquals(ConnectionRoute.REPLICA, tracker.readRoute("task-1"));
+    }
+
+    @Test
+    void recordWrite_shouldBeNoOpWhenReadYourWritesIsDisabled() {
+        RecentWriteTracker tracker = new RecentWriteTracker(properties(List.of("r2dbc:postgresql://replica/task"), false, Duration.ofMinutes(1)));
+
+        tracker.recordWrite("task-1");
+
+        assertEquals(0, tracker.size());
+        assertEquals(ConnectionRoute.REPLICA, tracker.readRoute("task-1"));
+    }
+
+    @Test
+    void recordWrite_shouldSweepExpiredEntriesWhenMapGrows() {
+        RecentWriteTracker tracker = new RecentWriteTracker(properties(List.of("r2dbc:postgresql://replica/task"), true, Duration.ZERO));
+
+        for (int i = 0; i <= RecentWriteTracker.SWEEP_THRESHOLD; i++) {
+            tracker.recordWrite("task-" + i);
+        }
+
+        // Only the entry written in the same instant as the sweep can survive it
+        assertTrue(tracker.size() <= 1);
+    }
+
+    static ReplicaProperties properties(List<String> urls, boolean readYourWrites, Duration maxLag) {
+        return new ReplicaProperties(urls, ReplicaProperties.Balancing.ROUND_ROBIN, maxLag, Duration.ofSeconds(1),
+                readYourWrites, new R2dbcPoolProperties.PoolSettings(1, 2, Duration.ofSeconds(2),
+                Duration.ofMinutes(10), Duration.ofMinutes(30)));
+    }
+}
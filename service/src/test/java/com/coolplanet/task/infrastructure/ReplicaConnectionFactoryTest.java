@@ -0,0 +1,101 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.ReplicaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for the replica selection of {@link ReplicaConnectionFactory}. The probes against real
+ * replicas are covered by {@link ReplicaRoutingIntegrationTest}.
+ */
+class ReplicaConnectionFactoryTest {
+
+    private final ConnectionPool replica0 = Mockito.mock(ConnectionPool.class);
+    private final ConnectionPool replica1 = Mockito.mock(ConnectionPool.class);
+    private final ConnectionFactory primary = Mockito.mock(ConnectionFactory.class);
+
+    @Test
+    void select_shouldFallBackToPrimaryBeforeFirstProbe() {
+        ReplicaConnectionFactory factory = factory(ReplicaProperties.Balancing.ROUND_ROBIN);
+        Connection primaryConnection = Mockito.mock(Connection.class);
+        Mockito.<Publisher<? extends Connection>>when(primary.create()).thenReturn(Mono.just(primaryConnection));
+
+        assertNull(factory.select());
+        StepVerifier.create(factory.create()).expectNext(primaryConnection).verifyComplete();
+    }
+
+    @Test
+    void select_shouldRotateOverReplicasWithinLagThreshold() {
+        ReplicaConnectionFactory factory = factory(ReplicaProperties.Balancing.ROUND_ROBIN);
+        List<ReplicaConnectionFactory.Replica> replicas = factory.replicas();
+        replicas.get(0).update(0L, 1_000_000L);
+        replicas.get(1).update(0L, 1_000_000L);
+
+        ReplicaConnectionFactory.Replica first = factory.select();
+        ReplicaConnectionFactory.Replica second = factory.select();
+
+        assertEquals(2, List.of(first, second).stream().distinct().count());
+        assertSame(first, factory.select());
+    }
+
+    @Test
+    void select_shouldSkipLaggingReplica() {
+        ReplicaConnectionFactory factory = factory(ReplicaProperties.Balancing.ROUND_ROBIN);
+        List<ReplicaConnectionFactory.Replica> replicas = factory.replicas();
+        replicas.get(0).update(60_000L, 1_000_000L);
+        replicas.get(1).update(10L, 1_000_000L);
+
+        assertSame(replicas.get(1), factory.select());
+        assertSame(replicas.get(1), factory.select());
+
+        replicas.get(1).update(null, 1_000_000L);
+        assertNull(factory.select());
+    }
+
+    @Test
+    void stop_shouldSendReadsToPrimaryAndKeepPoolsOpenUntilClosed() {
+        ReplicaConnectionFactory factory = factory(ReplicaProperties.Balancing.ROUND_ROBIN);
+        factory.replicas().forEach(replica -> replica.update(0L, 1_000_000L));
+
+        factory.stop();
+
+        assertNull(factory.select());
+        Mockito.verify(replica0, Mockito.never()).dispose();
+
+        factory.close();
+
+        Mockito.verify(replica0).dispose();
+        Mockito.verify(replica1).dispose();
+    }
+
+    @Test
+    void select_shouldPreferLowestLatencyReplica() {
+        ReplicaConnectionFactory factory = factory(ReplicaProperties.Balancing.LEAST_LATENCY);
+        List<ReplicaConnectionFactory.Replica> replicas = factory.replicas();
+        replicas.get(0).update(0L, 5_000_000L);
+        replicas.get(1).update(0L, 1_000_000L);
+
+        assertSame(replicas.get(1), factory.select());
+    }
+
+    private ReplicaConnectionFactory factory(ReplicaProperties.Balancing balancing) {
+        ReplicaProperties properties = new ReplicaProperties(List.of("r2dbc:postgresql://replica-0/task",
+                "r2dbc:postgresql://replica-1/task"), balancing, Duration.ofSeconds(5), Duration.ofSeconds(1), false,
+                RecentWriteTrackerTest.properties(List.of(), false, Duration.ZERO).pool());
+        return new ReplicaConnectionFactory(List.of(replica0, replica1), primary, properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,182 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.R2dbcPoolProperties;
+import com.coolplanet.task.config.ReplicaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for replica routing against a Postgres primary and a streaming replica.
+ *
+ * Replication lag is produced deterministically by pausing WAL replay on the replica with
+ * {@code pg_wal_replay_pause()} while the primary keeps accepting writes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingIntegrationTest {
+
+    private static final String IMAGE = "bitnami/postgresql:15";
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static GenericContainer<?> primary = new GenericContainer<>(IMAGE)
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "master")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+            .withEnv("POSTGRESQL_POSTGRES_PASSWORD", "postgres")
+            .withEnv("POSTGRESQL_USERNAME", "test")
+            .withEnv("POSTGRESQL_PASSWORD", "test")
+            .withEnv("POSTGRESQL_DATABASE", "task")
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*", 1));
+
+    @Container
+    static GenericContainer<?> replica = new GenericContainer<>(IMAGE)
+            .withNetwork(network)
+            .dependsOn(primary)
+            .withEnv("POSTGRESQL_REPLICATION_MODE", "slave")
+            .withEnv("POSTGRESQL_MASTER_HOST", "primary")
+            .withEnv("POSTGRESQL_MASTER_PORT_NUMBER", "5432")
+            .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+            .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+            .withEnv("POSTGRESQL_POSTGRES_PASSWORD", "postgres")
+            .withEnv("POSTGRESQL_PASSWORD", "test")
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read-only connections.*", 1));
+
+    private static ConnectionFactory primaryFactory;
+    private static DatabaseClient primaryClient;
+    private static DatabaseClient replicaAdmin;
+
+    private ReplicaConnectionFactory replicaFactory;
+
+    @BeforeAll
+    static void setUpSchema() {
+        primaryFactory = connectionFactory(primary, "test", "test");
+        primaryClient = DatabaseClient.create(primaryFactory);
+        replicaAdmin = DatabaseClient.create(connectionFactory(replica, "postgres", "postgres"));
+        // lets the probe see the state of the WAL receiver, as the README asks for
+        DatabaseClient.create(connectionFactory(primary, "postgres", "postgres"))
+                .sql("GRANT pg_read_all_stats TO test").then().block();
+        primaryClient.sql("""
+                CREATE TABLE IF NOT EXISTS task (
+                    task_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                    total_duration_ms BIGINT NOT NULL,
+                    counter BIGINT NOT NULL)""").then().block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaAdmin.sql("SELECT pg_wal_replay_resume()").then().block();
+        if (replicaFactory != null) {
+            replicaFactory.stop();
+            replicaFactory.close();
+        }
+    }
+
+    @Test
+    void create_shouldServeReadsFromReplicaAndFallBackToPrimaryWhenLagging() {
+        replicaFactory = replicaFactory(Duration.ofSeconds(1), false);
+        replicaFactory.start();
+        DatabaseClient reads = DatabaseClient.create(replicaFactory);
+
+        awaitTrue(() -> Boolean.TRUE.equals(isInRecovery(reads)));
+
+        replicaAdmin.sql("SELECT pg_wal_replay_pause()").then().block();
+        primaryClient.sql("INSERT INTO task VALUES ('lag-1', 100, 1) ON CONFLICT DO NOTHING").then().block();
+
+        awaitTrue(() -> Boolean.FALSE.equals(isInRecovery(reads)));
+
+        replicaAdmin.sql("SELECT pg_wal_replay_resume()").then().block();
+        awaitTrue(() -> Boolean.TRUE.equals(isInRecovery(reads)));
+    }
+
+    @Test
+    void readRoute_shouldReadOwnWritesFromPrimaryWhileReplicaIsBehind() {
+        ReplicaProperties properties = properties(Duration.ofMinutes(1), true);
+        replicaFactory = new ReplicaConnectionFactory(List.of(replicaPool()), primaryFactory, properties, new SimpleMeterRegistry());
+        replicaFactory.start();
+        RoutingConnectionFactory routing = new RoutingConnectionFactory(primaryFactory, primaryFactory, replicaFactory);
+        DatabaseClient client = DatabaseClient.create(routing);
+        RecentWriteTracker tracker = new RecentWriteTracker(properties);
+
+        primaryClient.sql("INSERT INTO task VALUES ('ryw-1', 100, 1) ON CONFLICT (task_id) DO UPDATE SET counter = 1")
+                .then().block();
+        awaitTrue(() -> Long.valueOf(1L).equals(counter(client, "ryw-1", ConnectionRoute.REPLICA)));
+
+        replicaAdmin.sql("SELECT pg_wal_replay_pause()").then().block();
+        primaryClient.sql("UPDATE task SET counter = 2 WHERE task_id = 'ryw-1'").then().block();
+        tracker.recordWrite("ryw-1");
+
+        assertEquals(1L, counter(client, "ryw-1", ConnectionRoute.REPLICA));
+        assertEquals(2L, counter(client, "ryw-1", tracker.readRoute("ryw-1")));
+    }
+
+    private ReplicaConnectionFactory replicaFactory(Duration maxLag, boolean readYourWrites) {
+        return new ReplicaConnectionFactory(List.of(replicaPool()), primaryFactory, properties(maxLag, readYourWrites),
+                new SimpleMeterRegistry());
+    }
+
+    private static ReplicaProperties properties(Duration maxLag, boolean readYourWrites) {
+        return new ReplicaProperties(List.of("replica"), ReplicaProperties.Balancing.ROUND_ROBIN, maxLag,
+                Duration.ofMillis(200), readYourWrites,
+                new R2dbcPoolProperties.PoolSettings(1, 4, Duration.ofSeconds(2), Duration.ofMinutes(10), Duration.ofMinutes(30)));
+    }
+
+    private static ConnectionPool replicaPool() {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory(replica, "test", "test"))
+                .maxSize(4)
+                .build());
+    }
+
+    private static ConnectionFactory connectionFactory(GenericContainer<?> container, String username, String password) {
+        return ConnectionFactoryBuilder
+                .withUrl("r2dbc:postgresql://%s:%d/task".formatted(container.getHost(), container.getMappedPort(5432)))
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    private static Boolean isInRecovery(DatabaseClient client) {
+        return client.sql("SELECT pg_is_in_recovery()").map(row -> row.get(0, Boolean.class)).one().block();
+    }
+
+    private static Long counter(DatabaseClient client, String taskId, ConnectionRoute route) {
+        return client.sql("SELECT counter FROM task WHERE task_id = :taskId")
+                .bind("taskId", taskId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .contextWrite(route::applyTo)
+                .defaultIfEmpty(0L)
+                .block();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 20s");
+            Mono.delay(Duration.ofMillis(100)).block();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.coolplanet.task.infrastructure;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link RoutingConnectionFactory} and the route selection of {@link RepositoryRoutingAspect}.
+ */
+class RoutingConnectionFactoryTest {
+
+    private final ConnectionFactory readFactory = Mockito.mock(ConnectionFactory.class);
+    private final ConnectionFactory writeFactory = Mockito.mock(ConnectionFactory.class);
+    private final Connection readConnection = Mockito.mock(Connection.class);
+    private final Connection writeConnection = Mockito.mock(Connection.class);
+
+    private RoutingConnectionFactory routingFactory() {
+        Mockito.<Publisher<? extends Connection>>when(readFactory.create()).thenReturn(Mono.just(readConnection));
+        Mockito.<Publisher<? extends Connection>>when(writeFactory.create()).thenReturn(Mono.just(writeConnection));
+        return new RoutingConnectionFactory(readFactory, writeFactory);
+    }
+
+    @Test
+    void create_shouldUseReadPoolWhenRoutedToRead() {
+        StepVerifier.create(Mono.from(routingFactory().create()).contextWrite(ConnectionRoute.READ::applyTo))
+                .expectNext(readConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void create_shouldDefaultToWritePool() {
+        StepVerifier.create(Mono.from(routingFactory().create()))
+                .expectNext(writeConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void applyTo_shouldKeepRouteChosenByOuterCaller() {
+        StepVerifier.create(Mono.from(routingFactory().create())
+                        .contextWrite(ConnectionRoute.READ::applyTo)
+                        .contextWrite(ConnectionRoute.WRITE::applyTo))
+                .expectNext(writeConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void routeOf_shouldSendQueriesToReadPoolAndEverythingElseToWritePool() {
+        assertEquals(ConnectionRoute.READ, RepositoryRoutingAspect.routeOf("findById"));
+        assertEquals(ConnectionRoute.READ, RepositoryRoutingAspect.routeOf("existsById"));
+        assertEquals(ConnectionRoute.READ, RepositoryRoutingAspect.routeOf("count"));
+        assertEquals(ConnectionRoute.WRITE, RepositoryRoutingAspect.routeOf("upsert"));
+        assertEquals(ConnectionRoute.WRITE, RepositoryRoutingAspect.routeOf("save"));
+        assertEquals(ConnectionRoute.WRITE, RepositoryRoutingAspect.routeOf("deleteAll"));
+    }
+}
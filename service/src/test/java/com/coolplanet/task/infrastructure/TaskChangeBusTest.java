@@ -0,0 +1,71 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.config.TaskQueryProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.exception.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link TaskChangeBus}: per-task fan-out, conflation, subscriber bound and cleanup.
+ */
+class TaskChangeBusTest {
+
+    private final TaskChangeBus bus = new TaskChangeBus(new TaskQueryProperties(500, 2, 100, 1000, 1000), new SimpleMeterRegistry());
+
+    @Test
+    void changes_shouldDeliverOnlyTheWatchedTaskToAllSubscribers() {
+        List<TaskEntity> first = new ArrayList<>();
+        List<TaskEntity> second = new ArrayList<>();
+        Disposable a = bus.changes("task-1").subscribe(first::add);
+        Disposable b = bus.changes("task-1").subscribe(second::add);
+
+        bus.publish(new TaskEntity("task-2", 100L, 1L));
+        bus.publish(new TaskEntity("task-1", 200L, 1L));
+
+        assertEquals(List.of(new TaskEntity("task-1", 200L, 1L)), first);
+        assertEquals(first, second);
+        assertEquals(1, bus.topics());
+        a.dispose();
+        b.dispose();
+    }
+
+    @Test
+    void changes_shouldConflateForSlowSubscriber() {
+        StepVerifier.create(bus.changes("task-1"), 0)
+                .then(() -> {
+                    bus.publish(new TaskEntity("task-1", 100L, 1L));
+                    bus.publish(new TaskEntity("task-1", 300L, 2L));
+                    bus.publish(new TaskEntity("task-1", 600L, 3L));
+                })
+                .thenRequest(1)
+                .expectNext(new TaskEntity("task-1", 600L, 3L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void changes_shouldRejectSubscribersBeyondLimitAndReleaseOnCancel() {
+        Disposable a = bus.changes("task-1").subscribe();
+        Disposable b = bus.changes("task-2").subscribe();
+
+        StepVerifier.create(bus.changes("task-3"))
+                .expectError(OverloadedException.class)
+                .verify();
+
+        a.dispose();
+        b.dispose();
+        assertEquals(0, bus.subscribers());
+        assertEquals(0, bus.topics());
+        StepVerifier.create(bus.changes("task-3"))
+                .thenCancel()
+                .verify();
+    }
+}
@@ -0,0 +1,92 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.model.TaskDTO;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link TaskCopyImporter} against a real Postgres: binary {@code COPY} into the staging table,
+ * the set-based merge into "task" and the cleanup of the staging table.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TaskCopyImporterTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("task")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static ConnectionFactory connectionFactory;
+    private static DatabaseClient databaseClient;
+
+    private final TaskCopyImporter importer = new TaskCopyImporter(connectionFactory);
+
+    @BeforeAll
+    static void setUpDatabase() {
+        connectionFactory = ConnectionFactoryBuilder
+                .withUrl("r2dbc:postgresql://%s:%d/task".formatted(postgres.getHost(), postgres.getFirstMappedPort()))
+                .username("test")
+                .password("test")
+                .build();
+        databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("""
+                CREATE TABLE IF NOT EXISTS task (
+                    task_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                    total_duration_ms BIGINT NOT NULL,
+                    counter BIGINT NOT NULL)""").then().block();
+    }
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.sql("TRUNCATE task").then().block();
+    }
+
+    @Test
+    void importTasks_shouldMergeSamplesIntoExistingAggregates() {
+        databaseClient.sql("INSERT INTO task VALUES ('task-1', 1000, 2)").then().block();
+        int samples = TaskCopyImporter.BATCH_ROWS * 3 + 7;
+
+        StepVerifier.create(importer.importTasks("test1", Flux.range(0, samples)
+                        .map(i -> new TaskDTO("task-" + (i % 2 + 1), 10L))))
+                .expectNext(new TaskCopyImporter.CopyResult(samples, 2))
+                .verifyComplete();
+
+        Map<String, Object> task1 = databaseClient.sql("SELECT * FROM task WHERE task_id = 'task-1'").fetch().one().block();
+        assertEquals(1000L + 10L * (samples / 2 + 1), task1.get("total_duration_ms"));
+        assertEquals(2L + samples / 2 + 1, task1.get("counter"));
+        assertEquals(0L, stagingTables());
+    }
+
+    @Test
+    void importTasks_shouldDropStagingTableWhenImportFails() {
+        StepVerifier.create(importer.importTasks("test2", Flux.concat(
+                        Flux.just(new TaskDTO("task-1", 10L)),
+                        Flux.error(new IllegalStateException("upload aborted")))))
+                .expectErrorMessage("upload aborted")
+                .verify();
+
+        assertEquals(0L, stagingTables());
+        assertEquals(0L, databaseClient.sql("SELECT count(*) FROM task").map(row -> row.get(0, Long.class)).one().block());
+    }
+
+    private static long stagingTables() {
+        return databaseClient.sql("SELECT count(*) FROM pg_tables WHERE tablename LIKE 'task_import_%'")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+    }
+}
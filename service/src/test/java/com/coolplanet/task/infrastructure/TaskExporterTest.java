@@ -0,0 +1,82 @@
+package com.coolplanet.task.infrastructure;
+
+import com.coolplanet.task.domain.entity.TaskEntity;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link TaskExporter} against a real Postgres: ordering, resuming and cursor fetches smaller
+ * than the table.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TaskExporterTest {
+
+    private static final int TASKS = 2500;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("task")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static ConnectionFactory connectionFactory;
+
+    private final TaskExporter exporter = new TaskExporter(connectionFactory);
+
+    @BeforeAll
+    static void setUpDatabase() {
+        connectionFactory = ConnectionFactoryBuilder
+                .withUrl("r2dbc:postgresql://%s:%d/task".formatted(postgres.getHost(), postgres.getFirstMappedPort()))
+                .username("test")
+                .password("test")
+                .build();
+        DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("""
+                CREATE TABLE IF NOT EXISTS task (
+                    task_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                    total_duration_ms BIGINT NOT NULL,
+                    counter BIGINT NOT NULL)""").then().block();
+        databaseClient.sql("INSERT INTO task SELECT 'task-' || lpad(i::text, 5, '0'), i * 10, i FROM generate_series(1, "
+                + TASKS + ") AS i").then().block();
+    }
+
+    @Test
+    void export_shouldStreamEveryTaskInOrderAcrossCursorFetches() {
+        List<TaskEntity> tasks = exporter.export("", 100).collectList().block();
+
+        assertEquals(TASKS, tasks.size());
+        assertEquals(new TaskEntity("task-00001", 10L, 1L), tasks.get(0));
+        assertEquals(new TaskEntity("task-02500", 25000L, 2500L), tasks.get(TASKS - 1));
+    }
+
+    @Test
+    void export_shouldResumeAfterGivenTaskId() {
+        StepVerifier.create(exporter.export("task-02498", 100))
+                .expectNext(new TaskEntity("task-02499", 24990L, 2499L))
+                .expectNext(new TaskEntity("task-02500", 25000L, 2500L))
+                .verifyComplete();
+    }
+
+    @Test
+    void export_shouldStopFetchingWhenCancelled() {
+        StepVerifier.create(exporter.export("", 10), 5)
+                .expectNextCount(5)
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(exporter.export("", 10).count())
+                .expectNext((long) TASKS)
+                .verifyComplete();
+    }
+}
@@ -15,6 +15,9 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 /**
  * Test class for verifying the behavior of {@link TaskRepository}.
  * This class uses R2DBC to interact with a PostgreSQL database and leverages Testcontainers
@@ -133,4 +136,68 @@ class TaskRepositoryTest {
                 )
                 .verifyComplete();
     }
+
+    @Test
+    void shouldReturnUpdatedRowFromUpsert() {
+        String taskId = "returning-test";
+
+        StepVerifier.create(taskRepository.upsert(taskId, 1000L)
+                        .then(taskRepository.upsert(taskId, 3000L)))
+                .expectNext(new TaskEntity(taskId, 4000L, 2L))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFoldAggregatedBatchIntoExistingTask() {
+        String taskId = "aggregate-test";
+
+        StepVerifier.create(taskRepository.upsert(taskId, 1000L)
+                        .then(taskRepository.upsertAggregate(taskId, 5000L, 4L))
+                        .then(taskRepository.findById(taskId)))
+                .expectNextMatches(task ->
+                        task.getTotalDurationMs() == 6000L &&
+                                task.getCounter() == 5L
+                )
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldApplyKeyedSampleOnce() {
+        String taskId = "dedup-test";
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        UUID keyHash = UUID.randomUUID();
+        databaseClient.sql("CREATE TABLE IF NOT EXISTS task_dedup_20240310 PARTITION OF task_dedup"
+                + " FOR VALUES FROM ('2024-03-10') TO ('2024-03-11')").then().block();
+
+        StepVerifier.create(taskRepository.upsertOnce(keyHash, today, today, taskId, 1000L))
+                .expectNext(new TaskEntity(taskId, 1000L, 1L))
+                .verifyComplete();
+
+        StepVerifier.create(taskRepository.upsertOnce(keyHash, today, today, taskId, 1000L)
+                        .then(taskRepository.findById(taskId)))
+                .expectNext(new TaskEntity(taskId, 1000L, 1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectKeyClaimedOnEarlierDayOfWindow() {
+        String taskId = "dedup-window-test";
+        LocalDate yesterday = LocalDate.of(2024, 3, 11);
+        LocalDate today = yesterday.plusDays(1);
+        UUID keyHash = UUID.randomUUID();
+        databaseClient.sql("CREATE TABLE IF NOT EXISTS task_dedup_20240311 PARTITION OF task_dedup"
+                + " FOR VALUES FROM ('2024-03-11') TO ('2024-03-12')").then().block();
+        databaseClient.sql("CREATE TABLE IF NOT EXISTS task_dedup_20240312 PARTITION OF task_dedup"
+                + " FOR VALUES FROM ('2024-03-12') TO ('2024-03-13')").then().block();
+
+        StepVerifier.create(taskRepository.upsertOnce(keyHash, yesterday, yesterday.minusDays(1), taskId, 1000L))
+                .expectNext(new TaskEntity(taskId, 1000L, 1L))
+                .verifyComplete();
+
+        // retried the next day: no row for today's partition yet, but the key is within the window
+        StepVerifier.create(taskRepository.upsertOnce(keyHash, today, yesterday, taskId, 1000L)
+                        .then(taskRepository.findById(taskId)))
+                .expectNext(new TaskEntity(taskId, 1000L, 1L))
+                .verifyComplete();
+    }
 }
@@ -0,0 +1,97 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import com.coolplanet.task.config.FlightRecorderProperties;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for {@link ContinuousRecording}: the recording is bounded by its properties, started at
+ * most once, dumped while running without the environment and system properties, and deleted with its
+ * last dump.
+ */
+class ContinuousRecordingTest {
+
+    private final ContinuousRecording recording = new ContinuousRecording(
+            new FlightRecorderProperties("default", Duration.ofMinutes(5), DataSize.ofMegabytes(20), Duration.ofMinutes(10)));
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(FlightRecorder.isAvailable(), "Flight Recorder is not available");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        recording.close();
+    }
+
+    @Test
+    void start_shouldStartOneBoundedRecording() throws Exception {
+        ContinuousRecording.Status status = recording.start();
+
+        assertEquals("RUNNING", status.state());
+        assertEquals(Duration.ofMinutes(5), status.maxAge());
+        assertEquals(DataSize.ofMegabytes(20).toBytes(), status.maxSizeBytes());
+        assertEquals(Duration.ofMinutes(10), status.maxDuration());
+        assertEquals(status.startTime(), recording.start().startTime());
+        assertEquals(1, FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(r -> r.getName().equals(ContinuousRecording.NAME)).count());
+    }
+
+    @Test
+    void dump_shouldWriteRecordedEventsAndKeepOnlyTheLatestDump() throws Exception {
+        assertNull(recording.dump());
+        recording.start();
+
+        Path first = recording.dump();
+        Path second = recording.dump();
+
+        assertFalse(Files.exists(first));
+        assertTrue(Files.size(second) > 0);
+        try (RecordingFile file = new RecordingFile(second)) {
+            assertTrue(file.hasMoreEvents());
+        }
+        assertEquals("RUNNING", recording.status().state());
+    }
+
+    @Test
+    void dump_shouldLeaveOutEnvironmentVariablesAndSystemProperties() throws Exception {
+        recording.start();
+
+        Path dump = recording.dump();
+
+        try (RecordingFile file = new RecordingFile(dump)) {
+            while (file.hasMoreEvents()) {
+                String event = file.readEvent().getEventType().getName();
+                assertFalse(ContinuousRecording.SENSITIVE_EVENTS.contains(event), event + " was recorded");
+            }
+        }
+    }
+
+    @Test
+    void close_shouldDeleteTheRecordingAndItsDump() throws Exception {
+        recording.start();
+        Path dump = recording.dump();
+        assertNotNull(dump);
+
+        recording.close();
+
+        assertFalse(Files.exists(dump));
+        assertEquals("NONE", recording.status().state());
+        assertNull(recording.dump());
+    }
+}
@@ -0,0 +1,144 @@
+package com.coolplanet.task.infrastructure.jfr;
+
+import com.coolplanet.task.application.processor.ProcessingStep;
+import com.coolplanet.task.domain.model.WorkflowType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link TaskEvents}: events are committed with their fields and outcome while a
+ * recording enables them, and nothing is wrapped while none does.
+ */
+class TaskEventsTest {
+
+    private Recording recording;
+
+    @AfterEach
+    void tearDown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Test
+    void request_shouldReturnSourceWhenNoRecordingEnablesTheEvent() {
+        Mono<String> source = Mono.just("OK");
+
+        assertSame(source, TaskEvents.request(source, WorkflowType.PROCESS_TASK, "task-1"));
+        assertSame(source, TaskEvents.upsert(source, "repository", "task-1"));
+        assertEquals(null, TaskEvents.beginKafkaSend("tasks", "task-1"));
+    }
+
+    @Test
+    void request_shouldRecordWorkflowTypeAndTaskIdHashOnCompletion() throws IOException {
+        record("com.coolplanet.task.Request");
+
+        TaskEvents.request(Mono.just("OK"), WorkflowType.PROCESS_TASK, "task-1").block();
+
+        List<RecordedEvent> events = stop("com.coolplanet.task.Request");
+        assertEquals(1, events.size());
+        assertEquals("PROCESS_TASK", events.get(0).getString("workflowType"));
+        assertEquals("task-1".hashCode(), events.get(0).getInt("taskIdHash"));
+        assertEquals("success", events.get(0).getString("outcome"));
+    }
+
+    @Test
+    void upsert_shouldBeginOnSubscriptionAndRecordErrors() throws IOException {
+        record("com.coolplanet.task.Upsert");
+
+        // fails on the subscribing thread, so the event is committed before block() rethrows
+        Mono<Object> upsert = TaskEvents.upsert(Mono.fromCallable(() -> {
+            Thread.sleep(20);
+            throw new IllegalStateException("down");
+        }), "pipelined", "task-1");
+        assertThrows(IllegalStateException.class, upsert::block);
+
+        List<RecordedEvent> events = stop("com.coolplanet.task.Upsert");
+        assertEquals(1, events.size());
+        assertEquals("pipelined", events.get(0).getString("writer"));
+        assertEquals("error", events.get(0).getString("outcome"));
+        assertTrue(events.get(0).getDuration().toMillis() >= 20);
+    }
+
+    @Test
+    void step_shouldRecordStepNameAndRethrowItsFailure() throws IOException {
+        record("com.coolplanet.task.ProcessingStep");
+        ProcessingStep failing = request -> {
+            throw new IllegalArgumentException("Invalid duration");
+        };
+
+        TaskEvents.step(new NamedStep(), "request", "task-1");
+        assertThrows(IllegalArgumentException.class, () -> TaskEvents.step(failing, "request", "task-1"));
+
+        List<RecordedEvent> events = stop("com.coolplanet.task.ProcessingStep");
+        assertEquals(2, events.size());
+        assertEquals("NamedStep", events.get(0).getString("step"));
+        assertEquals("success", events.get(0).getString("outcome"));
+        assertEquals("error", events.get(1).getString("outcome"));
+    }
+
+    @Test
+    void kafkaAck_shouldRecordWhenTheSendCompletes() throws IOException {
+        record("com.coolplanet.task.KafkaAck");
+        CompletableFuture<String> send = new CompletableFuture<>();
+
+        assertSame(send, TaskEvents.kafkaAck(send, "tasks", "task-1"));
+        send.complete("acked");
+
+        List<RecordedEvent> events = stop("com.coolplanet.task.KafkaAck");
+        assertEquals(1, events.size());
+        assertEquals("tasks", events.get(0).getString("topic"));
+    }
+
+    @Test
+    void end_shouldNotCommitEventsUnderTheirThreshold() throws IOException {
+        recording = new Recording();
+        recording.enable("com.coolplanet.task.KafkaConsume").withThreshold(Duration.ofHours(1));
+        recording.start();
+
+        TaskEvents.end(TaskEvents.beginKafkaConsume("per-record", "task-1"), true);
+
+        assertEquals(0, stop("com.coolplanet.task.KafkaConsume").size());
+    }
+
+    private void record(String eventName) {
+        recording = new Recording();
+        recording.enable(eventName).withoutThreshold();
+        recording.start();
+    }
+
+    private List<RecordedEvent> stop(String eventName) throws IOException {
+        recording.stop();
+        Path file = Files.createTempFile("task-events-", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .toList();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static class NamedStep implements ProcessingStep {
+        @Override
+        public void execute(Object request) {
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.coolplanet.task.infrastructure.wal;
+
+import com.coolplanet.task.adapter.KafkaProducer;
+import com.coolplanet.task.application.processor.ProcessingStepFactory;
+import com.coolplanet.task.config.WalProperties;
+import com.coolplanet.task.domain.entity.TaskEntity;
+import com.coolplanet.task.domain.model.TaskDTO;
+import com.coolplanet.task.infrastructure.KnownTaskFilter;
+import com.coolplanet.task.infrastructure.TaskChangeBus;
+import com.coolplanet.task.infrastructure.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WalShipper}, using a real {@link WriteAheadLog} in a temporary directory and
+ * mocked persistence targets.
+ */
+class WalShipperTest {
+
+    @TempDir
+    Path directory;
+
+    private final TaskRepository repository = Mockito.mock(TaskRepository.class);
+    private final TaskChangeBus changeBus = Mockito.mock(TaskChangeBus.class);
+    private final KnownTaskFilter knownTasks = Mockito.mock(KnownTaskFilter.class);
+    private final KafkaProducer kafkaProducer = Mockito.mock(KafkaProducer.class);
+    private final ProcessingStepFactory stepFactory = Mockito.mock(ProcessingStepFactory.class);
+
+    private WriteAheadLog wal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        wal = new WriteAheadLog(directory, 1024 * 1024, Duration.ZERO, 1024);
+        when(stepFactory.getSteps()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        wal.close();
+    }
+
+    @Test
+    void shipOnce_shouldAggregatePerTaskAndAdvanceCheckpoint() throws IOException {
+        when(repository.upsertAggregate(anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> Mono.just(new TaskEntity(invocation.getArgument(0), invocation.<Long>getArgument(1),
+                        invocation.<Long>getArgument(2))));
+        wal.append("task-1", 100L).join();
+        wal.append("task-2", 50L).join();
+        wal.append("task-1", 300L).join();
+
+        WalShipper shipper = shipper(WalProperties.ShipTarget.POSTGRES);
+        shipper.start();
+        shipper.stop();
+
+        verify(repository).upsertAggregate("task-1", 400L, 2L);
+        verify(repository).upsertAggregate("task-2", 50L, 1L);
+        verify(changeBus).publish(new TaskEntity("task-1", 400L, 2L));
+        verify(changeBus).publish(new TaskEntity("task-2", 50L, 1L));
+        verify(knownTasks).recordWrite("task-1");
+        assertEquals(wal.durablePosition(), wal.readCheckpoint());
+    }
+
+    @Test
+    void shipOnce_shouldKeepCheckpointWhenTargetFails() throws IOException {
+        when(repository.upsertAggregate(anyString(), anyLong(), anyLong())).thenReturn(Mono.error(new IllegalStateException("db down")));
+        wal.append("task-1", 100L).join();
+        WalPosition before = wal.readCheckpoint();
+
+        WalShipper shipper = shipper(WalProperties.ShipTarget.POSTGRES);
+        shipper.start();
+        shipper.stop();
+
+        assertEquals(before, wal.readCheckpoint());
+    }
+
+    @Test
+    void shipOnce_shouldPublishEveryRecordToKafka() throws IOException {
+        when(kafkaProducer.sendTaskAcked(any(TaskDTO.class))).thenReturn(Mono.just("Task acknowledged by Kafka"));
+        wal.append("task-1", 100L).join();
+        wal.append("task-1", 300L).join();
+
+        WalShipper shipper = shipper(WalProperties.ShipTarget.KAFKA);
+        shipper.start();
+        shipper.stop();
+
+        verify(kafkaProducer).sendTaskAcked(new TaskDTO("task-1", 100L));
+        verify(kafkaProducer).sendTaskAcked(new TaskDTO("task-1", 300L));
+        verifyNoInteractions(repository);
+    }
+
+    private WalShipper shipper(WalProperties.ShipTarget target) {
+        WalProperties properties = new WalProperties(directory.toString(), DataSize.ofMegabytes(1), Duration.ZERO,
+                1024, target, 100, Duration.ofSeconds(10));
+        return new WalShipper(wal, repository, changeBus, knownTasks, kafkaProducer, stepFactory, properties);
+    }
+}
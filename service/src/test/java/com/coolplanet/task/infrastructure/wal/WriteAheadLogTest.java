@@ -0,0 +1,304 @@
+package com.coolplanet.task.infrastructure.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WriteAheadLog}, run against a temporary directory.
+ *
+ * Covers:
+ * - Group-committed appends becoming readable once their futures complete.
+ * - Segment rolling and reading across segment boundaries.
+ * - Replay after reopening, including truncation of a torn tail.
+ * - Checkpoint persistence and deletion of shipped segments.
+ * - Appends racing with close, and groups failing after a segment roll.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_shouldMakeRecordsReadableOnceDurable() throws Exception {
+        try (WriteAheadLog wal = open(1024 * 1024)) {
+            List<CompletableFuture<WalPosition>> appends = IntStream.range(0, 100)
+                    .mapToObj(i -> wal.append("task-" + i, i))
+                    .toList();
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+
+            List<String> records = new ArrayList<>();
+            WalPosition next = wal.read(WalPosition.START, 1000, collector(records));
+
+            assertEquals(100, records.size());
+            assertEquals("task-0=0", records.get(0));
+            assertEquals("task-99=99", records.get(99));
+            assertEquals(wal.durablePosition(), next);
+        }
+    }
+
+    @Test
+    void read_shouldCrossSegmentBoundariesAndRespectMaxRecords() throws Exception {
+        try (WriteAheadLog wal = open(128)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append("task-" + i, i).join();
+            }
+            assertTrue(segmentCount() > 1);
+
+            List<String> records = new ArrayList<>();
+            WalPosition position = wal.read(WalPosition.START, 7, collector(records));
+            assertEquals(7, records.size());
+
+            wal.read(position, 100, collector(records));
+            assertEquals(20, records.size());
+            assertEquals("task-19=19", records.get(19));
+        }
+    }
+
+    @Test
+    void reopen_shouldReplayRecordsAndTruncateTornTail() throws Exception {
+        try (WriteAheadLog wal = open(1024 * 1024)) {
+            wal.append("task-1", 10L).join();
+            wal.append("task-2", 20L).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2}));
+        }
+
+        try (WriteAheadLog wal = open(1024 * 1024)) {
+            wal.append("task-3", 30L).join();
+
+            List<String> records = new ArrayList<>();
+            wal.read(wal.readCheckpoint(), 100, collector(records));
+
+            assertEquals(List.of("task-1=10", "task-2=20", "task-3=30"), records);
+        }
+    }
+
+    @Test
+    void checkpoint_shouldPersistAndAllowDeletingShippedSegments() throws Exception {
+        try (WriteAheadLog wal = open(128)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append("task-" + i, i).join();
+            }
+            WalPosition shipped = wal.read(WalPosition.START, 15, (buffer, offset, length, durationMs) -> { });
+
+            wal.writeCheckpoint(shipped);
+            wal.deleteSegmentsBefore(shipped.segmentId());
+
+            assertEquals(shipped, wal.readCheckpoint());
+            List<String> remaining = new ArrayList<>();
+            wal.read(shipped, 100, collector(remaining));
+            assertEquals(5, remaining.size());
+        }
+    }
+
+    @Test
+    void append_shouldFailWhenClosed() throws Exception {
+        WriteAheadLog wal = open(1024);
+        wal.close();
+
+        CompletableFuture<WalPosition> append = wal.append("task-1", 1L);
+
+        assertTrue(append.isCompletedExceptionally());
+    }
+
+    @Test
+    void append_shouldNeverLeaveFuturesPendingWhenRacingWithClose() throws Exception {
+        WriteAheadLog wal = open(1024 * 1024);
+        Queue<CompletableFuture<WalPosition>> appends = new ConcurrentLinkedQueue<>();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> appenders = IntStream.range(0, 4)
+                .mapToObj(t -> new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 20_000; i++) {
+                        appends.add(wal.append("task-" + t, i));
+                    }
+                }))
+                .toList();
+        appenders.forEach(Thread::start);
+        started.await();
+
+        wal.close();
+        for (Thread appender : appenders) {
+            appender.join();
+        }
+
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new))
+                .exceptionally(error -> null)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void commit_shouldAcknowledgeRecordsSealedBeforeAFailureAndDropTheRest() throws Exception {
+        // 22-byte records, five per 128-byte segment; the second force, after the roll, fails once
+        AtomicInteger forces = new AtomicInteger();
+        WriteAheadLog wal = new WriteAheadLog(directory, 128, Duration.ofMillis(100), 1024) {
+            @Override
+            FileChannel openSegmentChannel(Path path) throws IOException {
+                return new FailingForceChannel(super.openSegmentChannel(path), () -> forces.incrementAndGet() == 2);
+            }
+        };
+        try (wal) {
+            List<CompletableFuture<WalPosition>> group = IntStream.range(0, 8)
+                    .mapToObj(i -> wal.append("task-" + i, i))
+                    .toList();
+            CompletableFuture.allOf(group.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+
+            assertTrue(group.subList(0, 5).stream().noneMatch(CompletableFuture::isCompletedExceptionally));
+            assertTrue(group.subList(5, 8).stream().allMatch(CompletableFuture::isCompletedExceptionally));
+
+            wal.append("task-retried", 5L).join();
+            List<String> records = new ArrayList<>();
+            wal.read(WalPosition.START, 100, collector(records));
+            assertEquals(List.of("task-0=0", "task-1=1", "task-2=2", "task-3=3", "task-4=4", "task-retried=5"), records);
+        }
+    }
+
+    private WriteAheadLog open(long segmentSize) throws IOException {
+        return new WriteAheadLog(directory, segmentSize, Duration.ofNanos(200_000), 1024);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).count();
+        }
+    }
+
+    private static WalRecordConsumer collector(List<String> records) {
+        return (buffer, offset, length, durationMs) ->
+                records.add(new String(buffer, offset, length, StandardCharsets.UTF_8) + "=" + durationMs);
+    }
+
+    /**
+     * Delegates to a real segment channel, but fails {@code force} whenever {@code failForce} says so.
+     */
+    private static final class FailingForceChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final BooleanSupplier failForce;
+
+        private FailingForceChannel(FileChannel delegate, BooleanSupplier failForce) {
+            this.delegate = delegate;
+            this.failForce = failForce;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForce.getAsBoolean()) {
+                throw new IOException("simulated fsync failure");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -1,7 +1,19 @@
-
 CREATE TABLE IF NOT EXISTS task (
-    id SERIAL,
     task_id VARCHAR(255) NOT NULL PRIMARY KEY,
     total_duration_ms BIGINT NOT NULL,
     counter BIGINT NOT NULL
+) WITH (fillfactor = 70);
+
+CREATE TABLE IF NOT EXISTS task_dedup (
+    key_hash UUID NOT NULL,
+    seen_on DATE NOT NULL,
+    PRIMARY KEY (key_hash, seen_on)
+) PARTITION BY RANGE (seen_on);
+
+CREATE TABLE IF NOT EXISTS kafka_offsets (
+    consumer_group VARCHAR(255) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    partition_id INT NOT NULL,
+    next_offset BIGINT NOT NULL,
+    PRIMARY KEY (consumer_group, topic, partition_id)
 );